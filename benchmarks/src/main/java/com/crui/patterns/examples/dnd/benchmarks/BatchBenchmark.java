@@ -0,0 +1,67 @@
+package com.crui.patterns.examples.dnd.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crui.patterns.examples.dnd.after.fight.FightSimulator;
+import com.crui.patterns.examples.dnd.after.util.MetricsCollector;
+import com.crui.patterns.examples.dnd.after.util.SplittableRandomSource;
+import com.crui.patterns.examples.dnd.after.util.Xoshiro256Source;
+
+/**
+ * Lotes de peleas con {@link FightSimulator}: un solo hilo contra todos los núcleos. {@code
+ * threads = 0} usa tantos hilos como procesadores haya.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchBenchmark {
+  private static final int FIGHTS = 10_000;
+
+  @Param({"1", "0"})
+  int threads;
+
+  @Param({"splittable", "xoshiro"})
+  String rng;
+
+  private ForkJoinPool pool;
+  private FightSimulator simulator;
+  private long seed;
+
+  @Setup
+  public void setUp() {
+    int parallelism = threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+    pool = new ForkJoinPool(parallelism);
+    simulator =
+        "xoshiro".equals(rng)
+            ? new FightSimulator(pool, Xoshiro256Source::new)
+            : new FightSimulator(pool, SplittableRandomSource::new);
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  /** Cada invocación corre {@value #FIGHTS} peleas; dividir el throughput por eso. */
+  @Benchmark
+  public MetricsCollector simulate() {
+    return simulator.simulate(FIGHTS, seed++);
+  }
+}
@@ -0,0 +1,65 @@
+package com.crui.patterns.examples.dnd.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.util.ConsoleView;
+import com.crui.patterns.examples.dnd.after.util.FightEventsListener;
+import com.crui.patterns.examples.dnd.after.util.FightListeners;
+import com.crui.patterns.examples.dnd.after.util.MetricsCollector;
+import com.crui.patterns.examples.dnd.after.util.RandomSource;
+import com.crui.patterns.examples.dnd.after.util.SplittableRandomSource;
+import com.crui.patterns.examples.dnd.after.util.Xoshiro256Source;
+
+/** Piezas comunes a los benchmarks: listeners, generadores y copias de personajes. */
+final class BenchmarkSupport {
+  private static final PrintStream DISCARD =
+      new PrintStream(
+          new OutputStream() {
+            @Override
+            public void write(int b) {}
+
+            @Override
+            public void write(byte[] b, int off, int len) {}
+          });
+
+  private BenchmarkSupport() {}
+
+  /** {@code none}, {@code metrics} o {@code console} (la consola escribe a un stream vacío). */
+  static FightEventsListener listeners(String kind) {
+    switch (kind) {
+      case "none":
+        return new FightListeners(List.of());
+      case "metrics":
+        return new FightListeners(List.of(new MetricsCollector()));
+      case "console":
+        System.setOut(DISCARD);
+        return new FightListeners(List.of(new ConsoleView(), new MetricsCollector()));
+      default:
+        throw new IllegalArgumentException("unknown listeners: " + kind);
+    }
+  }
+
+  /** {@code splittable} o {@code xoshiro}. */
+  static RandomSource random(String kind, long seed) {
+    switch (kind) {
+      case "splittable":
+        return new SplittableRandomSource(seed);
+      case "xoshiro":
+        return new Xoshiro256Source(seed);
+      default:
+        throw new IllegalArgumentException("unknown rng: " + kind);
+    }
+  }
+
+  static List<Enemy> copies(List<Enemy> enemies) {
+    List<Enemy> copies = new ArrayList<>(enemies.size());
+    for (Enemy enemy : enemies) {
+      copies.add((Enemy) enemy.copy());
+    }
+    return copies;
+  }
+}
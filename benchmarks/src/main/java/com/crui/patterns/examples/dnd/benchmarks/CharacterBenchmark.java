@@ -0,0 +1,58 @@
+package com.crui.patterns.examples.dnd.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.enemy.EnemyFactory;
+import com.crui.patterns.examples.dnd.after.hero.Hero;
+import com.crui.patterns.examples.dnd.after.hero.HeroFactory;
+import com.crui.patterns.examples.dnd.after.util.Dice;
+import com.crui.patterns.examples.dnd.after.util.RandomSource;
+
+/** Un golpe aislado ({@code Character.hit}) en las dos direcciones. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CharacterBenchmark {
+
+  @Param({"splittable", "xoshiro"})
+  String rng;
+
+  private Hero hero;
+  private Enemy enemy;
+
+  @Setup
+  public void setUp() {
+    RandomSource random = BenchmarkSupport.random(rng, 42L);
+    hero = HeroFactory.createRandomHero(random);
+    enemy = EnemyFactory.createRandomEnemy(random);
+    Dice.use(random);
+  }
+
+  @Benchmark
+  public int heroHitsEnemy() {
+    enemy.setHealth(1_000_000);
+    return hero.hit(enemy);
+  }
+
+  @Benchmark
+  public int enemyHitsHero() {
+    hero.setHealth(1_000_000);
+    return enemy.hit(hero);
+  }
+}
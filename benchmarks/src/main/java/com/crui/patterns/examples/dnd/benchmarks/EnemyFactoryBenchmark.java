@@ -0,0 +1,48 @@
+package com.crui.patterns.examples.dnd.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.enemy.EnemyFactory;
+import com.crui.patterns.examples.dnd.after.util.RandomSource;
+
+/** Costo de generar enemigos al azar ({@code EnemyFactory.createRandomEnemies}). */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnemyFactoryBenchmark {
+
+  @Param({"1", "10", "100", "1000", "100000"})
+  int count;
+
+  @Param({"splittable", "xoshiro"})
+  String rng;
+
+  private RandomSource random;
+
+  @Setup
+  public void setUp() {
+    random = BenchmarkSupport.random(rng, 42L);
+  }
+
+  @Benchmark
+  public List<Enemy> createRandomEnemies() {
+    return EnemyFactory.createRandomEnemies(count, random);
+  }
+}
@@ -0,0 +1,90 @@
+package com.crui.patterns.examples.dnd.benchmarks;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.enemy.EnemyFactory;
+import com.crui.patterns.examples.dnd.after.fight.Battle;
+import com.crui.patterns.examples.dnd.after.fight.Fight;
+import com.crui.patterns.examples.dnd.after.hero.Hero;
+import com.crui.patterns.examples.dnd.after.hero.HeroFactory;
+import com.crui.patterns.examples.dnd.after.util.FightEventsListener;
+import com.crui.patterns.examples.dnd.after.util.RandomSource;
+
+/**
+ * Una pelea completa ({@link Fight#run()}) contra la misma batalla en columnas ({@link Battle}).
+ *
+ * <p>Cada invocación pelea con copias de los mismos personajes, así que el costo de copiarlos
+ * queda incluido en la medición de {@code fight}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FightBenchmark {
+
+  @Param({"1", "10", "100", "1000", "10000", "100000"})
+  int enemies;
+
+  @Param({"none", "metrics", "console"})
+  String listeners;
+
+  @Param({"splittable", "xoshiro"})
+  String rng;
+
+  private Hero hero;
+  private List<Enemy> templates;
+  private FightEventsListener listener;
+  private RandomSource random;
+  private PrintStream out;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    out = System.out;
+    RandomSource setup = BenchmarkSupport.random(rng, 42L);
+    hero = HeroFactory.createRandomHero(setup);
+    // héroe con vida de sobra para que las peleas grandes no terminen en la primera ronda
+    hero.setHealth(Math.max(hero.getHealth(), enemies * 40));
+    templates = EnemyFactory.createRandomEnemies(enemies, setup);
+    listener = BenchmarkSupport.listeners(listeners);
+    random = BenchmarkSupport.random(rng, 7L);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.setOut(out);
+  }
+
+  @Benchmark
+  public int fight() {
+    Fight fight =
+        new Fight((Hero) hero.copy(), BenchmarkSupport.copies(templates), listener, random);
+    fight.run();
+    return fight.getRound();
+  }
+
+  @Benchmark
+  public int battle() {
+    Battle battle = Battle.of(hero, templates, random);
+    battle.run();
+    return battle.getRound();
+  }
+}
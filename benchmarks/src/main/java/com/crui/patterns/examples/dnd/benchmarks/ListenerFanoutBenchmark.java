@@ -0,0 +1,61 @@
+package com.crui.patterns.examples.dnd.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.enemy.EnemyFactory;
+import com.crui.patterns.examples.dnd.after.hero.Hero;
+import com.crui.patterns.examples.dnd.after.hero.HeroFactory;
+import com.crui.patterns.examples.dnd.after.util.FightEventsListener;
+import com.crui.patterns.examples.dnd.after.util.FightListeners;
+import com.crui.patterns.examples.dnd.after.util.MetricsCollector;
+import com.crui.patterns.examples.dnd.after.util.RandomSource;
+import com.crui.patterns.examples.dnd.after.util.SplittableRandomSource;
+
+/** Cuánto cuesta repartir un evento entre N listeners con {@link FightListeners}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerFanoutBenchmark {
+
+  @Param({"0", "1", "4", "16"})
+  int listeners;
+
+  private FightListeners fanout;
+  private Hero hero;
+  private Enemy enemy;
+
+  @Setup
+  public void setUp() {
+    List<FightEventsListener> list = new ArrayList<>();
+    for (int i = 0; i < listeners; i++) {
+      list.add(new MetricsCollector());
+    }
+    fanout = new FightListeners(list);
+    RandomSource random = new SplittableRandomSource(42L);
+    hero = HeroFactory.createRandomHero(random);
+    enemy = EnemyFactory.createRandomEnemy(random);
+  }
+
+  @Benchmark
+  public void heroHits() {
+    fanout.heroHits(hero, enemy, 12);
+  }
+}
@@ -1,39 +1,304 @@
 package com.crui.patterns.creational.singleton.cache;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
-public class Cache {
-  private static Cache instancia;
+import com.crui.patterns.creational.singleton.cache.distribuida.AlmacenNodo;
+import com.crui.patterns.creational.singleton.cache.distribuida.ServidorNodo;
+import com.crui.patterns.creational.singleton.cache.motor.EstadisticasCache;
+import com.crui.patterns.creational.singleton.cache.motor.MotorCache;
+import com.crui.patterns.creational.singleton.cache.offheap.AlmacenOffHeap;
+import com.crui.patterns.creational.singleton.cache.snapshot.EscritorSnapshot;
+import com.crui.patterns.creational.singleton.cache.snapshot.LectorSnapshot;
+import com.crui.patterns.creational.singleton.cache.snapshot.ResultadoCarga;
 
-  private Map<String, String> datos;
+public class Cache implements AlmacenNodo {
+  // tope de entradas: sin esto la caché crece hasta quedarse sin memoria
+  static final int MAXIMO_ENTRADAS = 100_000;
+  static final long HORAS_DE_VIDA = 1;
+
+  // el nivel fuera del heap se activa con -Dcache.offheap.bytes=... (y opcionalmente un archivo)
+  static final String PROPIEDAD_BYTES = "cache.offheap.bytes";
+  static final String PROPIEDAD_ARCHIVO = "cache.offheap.archivo";
+
+  // con -Dcache.snapshot.archivo=... se recarga al arrancar y se guarda cada tanto
+  static final String PROPIEDAD_SNAPSHOT = "cache.snapshot.archivo";
+  static final String PROPIEDAD_SNAPSHOT_SEGUNDOS = "cache.snapshot.segundos";
+  static final byte NIVEL_HEAP = 0;
+  static final byte NIVEL_FUERA_DEL_HEAP = 1;
+
+  // con -Dcache.puerto=... esta caché es un nodo de una CacheDistribuida
+  static final String PROPIEDAD_PUERTO = "cache.puerto";
+
+  private final MotorCache<String, String> datos;
+  // null si no se configuró
+  private final AlmacenOffHeap fueraDelHeap;
+  private final long vidaNanos;
+  // lo que faltó en el heap pero se encontró abajo
+  private final LongAdder aciertosFueraDelHeap = new LongAdder();
+  private ScheduledExecutorService snapshots;
+  private ServidorNodo servidor;
 
   private Cache() {
-    this.datos = new HashMap<String, String>();
+    this(Long.getLong(PROPIEDAD_BYTES, 0), archivoConfigurado(PROPIEDAD_ARCHIVO));
+    Path snapshot = archivoConfigurado(PROPIEDAD_SNAPSHOT);
+    if (snapshot != null) {
+      programarSnapshots(snapshot, Long.getLong(PROPIEDAD_SNAPSHOT_SEGUNDOS, 300));
+    }
+    Integer puerto = Integer.getInteger(PROPIEDAD_PUERTO);
+    if (puerto != null) {
+      try {
+        servir(puerto);
+      } catch (IOException e) {
+        System.err.println("[CACHE] No se pudo escuchar en el puerto " + puerto + ": " + e);
+      }
+    }
   }
 
-  public static Cache getInstancia() {
-    if (Cache.instancia == null) {
-      Cache.instancia = new Cache(); // Lazy load
+  /**
+   * Con {@code bytesFueraDelHeap > 0} lo que se desaloja del heap baja a un {@link
+   * AlmacenOffHeap}, y lo que se vuelve a pedir desde ahí sube de nuevo.
+   */
+  Cache(long bytesFueraDelHeap, Path archivo) {
+    long vida = TimeUnit.HOURS.toNanos(HORAS_DE_VIDA);
+    this.vidaNanos = vida;
+    MotorCache.Builder<String, String> builder =
+        MotorCache.<String, String>builder()
+            .pesoMaximo(MAXIMO_ENTRADAS)
+            .expirarTrasEscritura(vida, TimeUnit.NANOSECONDS);
+    if (bytesFueraDelHeap > 0) {
+      AlmacenOffHeap almacen =
+          new AlmacenOffHeap(bytesFueraDelHeap, archivo, vida, System::nanoTime);
+      builder.alDesalojar((key, value, escrito) -> almacen.set(key, value, escrito));
+      this.fueraDelHeap = almacen;
+    } else {
+      this.fueraDelHeap = null;
+    }
+    this.datos = builder.construir();
+    if (fueraDelHeap != null) {
+      // la promoción corre fuera del candado del segmento: si mientras tanto llegó un set, gana
+      fueraDelHeap.setPromotor(datos::setSiFalta);
     }
-    return Cache.instancia;
   }
 
+  // La JVM carga la clase Contenedor recién la primera vez que se usa, y lo hace una sola vez
+  // aunque haya varios hilos: es lazy load sin carreras y sin sincronizar cada llamada.
+  private static class Contenedor {
+    private static final Cache INSTANCIA = new Cache();
+  }
+
+  public static Cache getInstancia() {
+    return Contenedor.INSTANCIA;
+  }
+
+  @Override
   public void set(String key, String value) {
-    this.datos.put(key, value);
+    if (fueraDelHeap != null) {
+      // que no quede una versión vieja abajo
+      fueraDelHeap.invalidar(key);
+    }
+    this.datos.set(key, value);
   }
 
+  @Override
   public String get(String key) {
-    return this.datos.get(key);
+    String value = this.datos.get(key);
+    if (value == null && fueraDelHeap != null) {
+      value = fueraDelHeap.get(key);
+      if (value != null) {
+        aciertosFueraDelHeap.increment();
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Devuelve el valor guardado o lo busca con {@code cargador}. Si muchos piden la misma clave a
+   * la vez, se busca una sola vez.
+   */
+  public String obtener(String key, Function<String, String> cargador) {
+    String value = get(key);
+    // get ya contó el fallo: cargar no vuelve a buscar en el heap
+    return value != null ? value : this.datos.cargar(key, cargador);
+  }
+
+  @Override
+  public void invalidar(String key) {
+    this.datos.invalidar(key);
+    if (fueraDelHeap != null) {
+      fueraDelHeap.invalidar(key);
+    }
+  }
+
+  /**
+   * Atiende en {@code puerto} los pedidos de otros procesos, para que esta caché sea uno de los
+   * nodos de una {@link com.crui.patterns.creational.singleton.cache.distribuida.CacheDistribuida}.
+   *
+   * @return el servidor, para saber el puerto si se pidió el 0
+   */
+  public synchronized ServidorNodo servir(int puerto) throws IOException {
+    if (servidor != null) {
+      throw new IllegalStateException("La caché ya atiende en el puerto " + servidor.getPuerto());
+    }
+    servidor = new ServidorNodo(this, puerto);
+    return servidor;
+  }
+
+  /**
+   * Guarda todas las entradas vigentes en {@code archivo}, primero las de fuera del heap y después
+   * las del heap. No frena a nadie: las entradas se recorren mientras la caché sigue atendiendo,
+   * así que el snapshot puede no reflejar los cambios que pasen durante la escritura.
+   *
+   * @return cuántas entradas se guardaron
+   */
+  public synchronized long guardarSnapshot(Path archivo) throws IOException {
+    long ahoraNanos = System.nanoTime();
+    long ahoraMillis = System.currentTimeMillis();
+    EscritorSnapshot escritor = new EscritorSnapshot(archivo);
+    try {
+      if (fueraDelHeap != null) {
+        fueraDelHeap.recorrer(
+            (key, value, escrito) ->
+                agregar(
+                    escritor, NIVEL_FUERA_DEL_HEAP, key, value, escrito, ahoraNanos, ahoraMillis));
+      }
+      datos.recorrer(
+          (key, value, escrito) ->
+              agregar(escritor, NIVEL_HEAP, key, value, escrito, ahoraNanos, ahoraMillis));
+    } catch (UncheckedIOException e) {
+      escritor.abandonar();
+      throw e.getCause();
+    } catch (RuntimeException e) {
+      escritor.abandonar();
+      throw e;
+    }
+    escritor.close();
+    return escritor.getEntradas();
+  }
+
+  /**
+   * Carga un snapshot usando {@code hilos} hilos. Las claves que ya tienen un valor no se pisan,
+   * así que se puede restaurar mientras la caché atiende; las entradas que vencieron mientras la
+   * aplicación estaba parada se descartan.
+   */
+  public ResultadoCarga restaurar(Path archivo, int hilos) throws IOException {
+    long ahoraNanos = System.nanoTime();
+    long ahoraMillis = System.currentTimeMillis();
+    return LectorSnapshot.cargar(
+        archivo,
+        hilos,
+        (nivel, key, value, escritoMillis) -> {
+          long edad = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ahoraMillis - escritoMillis));
+          if (edad >= vidaNanos) {
+            return;
+          }
+          long escrito = ahoraNanos - edad;
+          if (nivel == NIVEL_FUERA_DEL_HEAP && fueraDelHeap != null) {
+            if (!datos.contiene(key)) {
+              fueraDelHeap.set(key, value, escrito);
+            }
+          } else {
+            datos.setSiFalta(key, value, escrito);
+          }
+        });
+  }
+
+  /**
+   * Restaura {@code archivo} en segundo plano (si existe) y después lo vuelve a escribir cada
+   * {@code segundos}. Mientras restaura la caché ya atiende, con los aciertos que vaya teniendo.
+   */
+  public synchronized void programarSnapshots(Path archivo, long segundos) {
+    if (snapshots != null) {
+      throw new IllegalStateException("Los snapshots ya están programados");
+    }
+    snapshots =
+        Executors.newSingleThreadScheduledExecutor(
+            tarea -> {
+              Thread hilo = new Thread(tarea, "cache-snapshot");
+              hilo.setDaemon(true);
+              return hilo;
+            });
+    // es un solo hilo: el primer guardado espera a que termine la restauración
+    snapshots.execute(
+        () -> {
+          if (!Files.exists(archivo)) {
+            return;
+          }
+          try {
+            ResultadoCarga resultado =
+                restaurar(archivo, Runtime.getRuntime().availableProcessors());
+            System.out.println("[CACHE] Snapshot restaurado: " + resultado);
+          } catch (IOException | RuntimeException e) {
+            System.err.println("[CACHE] No se pudo restaurar " + archivo + ": " + e);
+          }
+        });
+    snapshots.scheduleWithFixedDelay(
+        () -> {
+          try {
+            guardarSnapshot(archivo);
+          } catch (IOException | RuntimeException e) {
+            System.err.println("[CACHE] No se pudo guardar " + archivo + ": " + e);
+          }
+        },
+        segundos,
+        segundos,
+        TimeUnit.SECONDS);
+  }
+
+  private static void agregar(
+      EscritorSnapshot escritor,
+      byte nivel,
+      String key,
+      String value,
+      long escrito,
+      long ahoraNanos,
+      long ahoraMillis) {
+    try {
+      escritor.agregar(nivel, key, value, ahoraMillis - (ahoraNanos - escrito) / 1_000_000);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static Path archivoConfigurado(String propiedad) {
+    String archivo = System.getProperty(propiedad);
+    return archivo == null ? null : Paths.get(archivo);
   }
 
+  /** Los contadores del nivel del heap: aciertos, fallos, cargas, desalojos y latencias. */
+  public EstadisticasCache getEstadisticas() {
+    return datos.getEstadisticas();
+  }
+
+  /** Las claves más pedidas del heap, con su frecuencia estimada; ver {@link MotorCache}. */
+  public List<Map.Entry<String, Integer>> masPedidas(int k) {
+    return datos.masPedidas(k);
+  }
+
+  /** Un resumen de los contadores; no recorre las entradas, así que sirve con cualquier tamaño. */
   @Override
   public String toString() {
-    return "Cache [datos="
-        + datos.entrySet().stream()
-            .map(entry -> entry.getKey() + "=" + entry.getValue())
-            .collect(Collectors.joining(", "))
-        + "]";
+    String resumen = "Cache [" + getEstadisticas();
+    if (fueraDelHeap != null) {
+      resumen +=
+          ", fueraDelHeap=[entradas="
+              + fueraDelHeap.tamanio()
+              + ", aciertos="
+              + aciertosFueraDelHeap.sum()
+              + ", bytes="
+              + fueraDelHeap.getBytesReservados()
+              + "]";
+    }
+    return resumen + "]";
   }
 }
@@ -20,24 +20,15 @@ public class CacheMain {
     System.out.println(instanciaDeMain2.consultaNombre(DNI2));
     System.out.println(instanciaDeMain2.consultaNombre(DNI1));
     System.out.println(instanciaDeMain2.consultaNombre(DNI2));
+
+    // Cuántas veces se evitó ir al servicio
+    System.out.println(instanciaDeMain2.cache);
   }
 
   public String consultaNombre(String dni) {
-    // Me fijo si está en CACHE ✅
-    String result = this.cache.get(dni);
-    boolean estaEnCache = result != null;
-
-    // Si NO está
-    if (!estaEnCache) {
-      // lo busco
-      ServicioDNI servicio = new ServicioDNI();
-      result = servicio.getNombreForDNI(dni);
-      // lo cargo en cache
-      this.cache.set(dni, result);
-    }
-
-    // Devuelvo lo que tengo en cache
-    return result;
+    // Me fijo si está en CACHE ✅ y si NO está lo busco y lo cargo. Si otro hilo ya lo está
+    // buscando, espero su resultado en vez de ir dos veces al servicio.
+    return this.cache.obtener(dni, clave -> new ServicioDNI().getNombreForDNI(clave));
   }
 
   public String consultaNombreOld(String dni) {
@@ -0,0 +1,39 @@
+package com.crui.patterns.creational.singleton.cache.distribuida;
+
+import com.crui.patterns.creational.singleton.cache.motor.MotorCache;
+
+/** La parte de la caché que le toca a un nodo: lo que atiende un {@link ServidorNodo}. */
+public interface AlmacenNodo {
+  String get(String clave);
+
+  void set(String clave, String valor);
+
+  void invalidar(String clave);
+
+  /** Un nodo que sólo guarda en memoria, hasta {@code maximoEntradas}. */
+  static AlmacenNodo enMemoria(long maximoEntradas) {
+    MotorCache<String, String> datos =
+        MotorCache.<String, String>builder().pesoMaximo(maximoEntradas).construir();
+    return new AlmacenNodo() {
+      @Override
+      public String get(String clave) {
+        return datos.get(clave);
+      }
+
+      @Override
+      public void set(String clave, String valor) {
+        datos.set(clave, valor);
+      }
+
+      @Override
+      public void invalidar(String clave) {
+        datos.invalidar(clave);
+      }
+
+      @Override
+      public String toString() {
+        return "AlmacenNodo [" + datos.getEstadisticas() + "]";
+      }
+    };
+  }
+}
@@ -0,0 +1,122 @@
+package com.crui.patterns.creational.singleton.cache.distribuida;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reparte claves entre nodos con hashing consistente. Cada nodo ocupa {@code virtuales} puntos en
+ * un anillo de 64 bits y una clave le toca al primer punto que sigue a su hash. Con muchos puntos
+ * por nodo las claves quedan parejas entre nodos, y al agregar o quitar un nodo sólo cambian de
+ * dueño las claves de ese nodo (más o menos 1/N), no todas.
+ *
+ * <p>Buscar no toma candados: los puntos están en arreglos ordenados que se reemplazan enteros
+ * cuando cambian los nodos, que es raro.
+ */
+public class AnilloConsistente<N> {
+  public static final int VIRTUALES = 160;
+
+  private final int virtuales;
+  private final Map<String, N> nodos = new LinkedHashMap<>();
+  private volatile Puntos puntos = new Puntos(new long[0], new Object[0]);
+
+  private static class Puntos {
+    private final long[] hashes;
+    private final Object[] duenios;
+
+    Puntos(long[] hashes, Object[] duenios) {
+      this.hashes = hashes;
+      this.duenios = duenios;
+    }
+  }
+
+  public AnilloConsistente() {
+    this(VIRTUALES);
+  }
+
+  public AnilloConsistente(int virtuales) {
+    if (virtuales <= 0) {
+      throw new IllegalArgumentException("virtuales tiene que ser positivo");
+    }
+    this.virtuales = virtuales;
+  }
+
+  /** Agrega un nodo; el nombre decide dónde cae en el anillo, así que tiene que ser estable. */
+  public synchronized void agregar(String nombre, N nodo) {
+    if (nodos.putIfAbsent(nombre, nodo) != null) {
+      throw new IllegalArgumentException("Ya hay un nodo " + nombre);
+    }
+    reconstruir();
+  }
+
+  /** @return el nodo que se quitó, o {@code null} si no estaba */
+  public synchronized N quitar(String nombre) {
+    N nodo = nodos.remove(nombre);
+    if (nodo != null) {
+      reconstruir();
+    }
+    return nodo;
+  }
+
+  /** El nodo al que le toca {@code clave}. */
+  @SuppressWarnings("unchecked")
+  public N nodoPara(String clave) {
+    Puntos actuales = puntos;
+    if (actuales.hashes.length == 0) {
+      throw new IllegalStateException("El anillo no tiene nodos");
+    }
+    int i = Arrays.binarySearch(actuales.hashes, hash(clave));
+    if (i < 0) {
+      i = -i - 1;
+    }
+    // después del último punto se vuelve al primero
+    return (N) actuales.duenios[i == actuales.hashes.length ? 0 : i];
+  }
+
+  public synchronized List<N> getNodos() {
+    return new ArrayList<>(nodos.values());
+  }
+
+  public synchronized int tamanio() {
+    return nodos.size();
+  }
+
+  private void reconstruir() {
+    TreeMap<Long, N> ordenados = new TreeMap<>();
+    for (Map.Entry<String, N> nodo : nodos.entrySet()) {
+      for (int i = 0; i < virtuales; i++) {
+        // si dos puntos chocan (muy raro) se queda el último; el reparto sigue siendo parejo
+        ordenados.put(hash(nodo.getKey() + "#" + i), nodo.getValue());
+      }
+    }
+    long[] hashes = new long[ordenados.size()];
+    Object[] duenios = new Object[ordenados.size()];
+    int i = 0;
+    for (Map.Entry<Long, N> punto : ordenados.entrySet()) {
+      hashes[i] = punto.getKey();
+      duenios[i++] = punto.getValue();
+    }
+    puntos = new Puntos(hashes, duenios);
+  }
+
+  /**
+   * FNV-1a de 64 bits con una mezcla final: {@code String.hashCode} tiene sólo 32 bits y claves
+   * parecidas dan hashes parecidos, que se amontonarían en un pedazo del anillo.
+   */
+  static long hash(String texto) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < texto.length(); i++) {
+      h ^= texto.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
@@ -0,0 +1,167 @@
+package com.crui.patterns.creational.singleton.cache.distribuida;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Una caché repartida entre varios nodos, por ejemplo varias JVM que comparten su memoria. Cada
+ * clave vive en un solo nodo, el que le asigna un {@link AnilloConsistente}, así que la capacidad
+ * total es la suma de la de los nodos y crece con cada nodo que se agrega.
+ *
+ * <p>Es una caché: si un nodo no contesta, {@link #get} y {@link #getVarios} lo toman como un
+ * fallo. {@link #set} y {@link #invalidar} en cambio avisan con {@link UncheckedIOException},
+ * porque perder una invalidación dejaría un valor viejo.
+ */
+public class CacheDistribuida implements Closeable {
+  private final AnilloConsistente<Transporte> anillo = new AnilloConsistente<>();
+  private final LongAdder erroresDeRed = new LongAdder();
+
+  public CacheDistribuida() {}
+
+  /** @param nodos los transportes por nombre de nodo; el nombre decide qué claves le tocan */
+  public CacheDistribuida(Map<String, ? extends Transporte> nodos) {
+    nodos.forEach(anillo::agregar);
+  }
+
+  /**
+   * Se conecta por TCP a los nodos de una lista {@code "host:puerto,host:puerto,..."}. Todos los
+   * procesos tienen que usar la misma lista para que las claves caigan en el mismo lugar.
+   */
+  public static CacheDistribuida conectar(String direcciones) {
+    CacheDistribuida cache = new CacheDistribuida();
+    for (String direccion : direcciones.split(",")) {
+      direccion = direccion.trim();
+      int dosPuntos = direccion.lastIndexOf(':');
+      if (dosPuntos <= 0) {
+        throw new IllegalArgumentException("Se esperaba host:puerto y llegó " + direccion);
+      }
+      String host = direccion.substring(0, dosPuntos);
+      int puerto = Integer.parseInt(direccion.substring(dosPuntos + 1));
+      cache.agregarNodo(direccion, new TransporteTcp(host, puerto));
+    }
+    return cache;
+  }
+
+  public void agregarNodo(String nombre, Transporte transporte) {
+    anillo.agregar(nombre, transporte);
+  }
+
+  /** Saca el nodo del anillo y cierra su transporte; sus claves pasan a ser fallos. */
+  public void quitarNodo(String nombre) {
+    Transporte transporte = anillo.quitar(nombre);
+    if (transporte != null) {
+      transporte.close();
+    }
+  }
+
+  public String get(String key) {
+    try {
+      return anillo.nodoPara(key).getVarios(new String[] {key})[0];
+    } catch (IOException e) {
+      erroresDeRed.increment();
+      return null;
+    }
+  }
+
+  /**
+   * Busca varias claves con un solo pedido por nodo.
+   *
+   * @return las claves encontradas con su valor; las que faltan no aparecen
+   */
+  public Map<String, String> getVarios(Collection<String> keys) {
+    // agrupar por nodo: un viaje por nodo en vez de uno por clave
+    Map<Transporte, List<String>> porNodo = new IdentityHashMap<>();
+    for (String key : keys) {
+      porNodo.computeIfAbsent(anillo.nodoPara(key), nodo -> new ArrayList<>()).add(key);
+    }
+    Map<String, String> encontrados = new HashMap<>();
+    for (Map.Entry<Transporte, List<String>> lote : porNodo.entrySet()) {
+      String[] claves = lote.getValue().toArray(new String[0]);
+      String[] valores;
+      try {
+        valores = lote.getKey().getVarios(claves);
+      } catch (IOException e) {
+        erroresDeRed.increment();
+        continue;
+      }
+      for (int i = 0; i < claves.length; i++) {
+        if (valores[i] != null) {
+          encontrados.put(claves[i], valores[i]);
+        }
+      }
+    }
+    return encontrados;
+  }
+
+  public void set(String key, String value) {
+    try {
+      anillo.nodoPara(key).set(key, value);
+    } catch (IOException e) {
+      erroresDeRed.increment();
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public void invalidar(String key) {
+    try {
+      anillo.nodoPara(key).invalidar(key);
+    } catch (IOException e) {
+      erroresDeRed.increment();
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Devuelve el valor guardado o lo busca con {@code cargador} y lo guarda. Si el nodo no
+   * contesta igual devuelve lo que se cargó.
+   */
+  public String obtener(String key, Function<String, String> cargador) {
+    String value = get(key);
+    if (value != null) {
+      return value;
+    }
+    value = cargador.apply(key);
+    if (value != null) {
+      try {
+        set(key, value);
+      } catch (UncheckedIOException e) {
+        // ya se contó; el valor sirve aunque no se haya guardado
+      }
+    }
+    return value;
+  }
+
+  public int getNodos() {
+    return anillo.tamanio();
+  }
+
+  /** Cuántos pedidos fallaron porque un nodo no contestó. */
+  public long getErroresDeRed() {
+    return erroresDeRed.sum();
+  }
+
+  @Override
+  public void close() {
+    for (Transporte transporte : anillo.getNodos()) {
+      transporte.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "CacheDistribuida [nodos="
+        + anillo.getNodos()
+        + ", erroresDeRed="
+        + erroresDeRed.sum()
+        + "]";
+  }
+}
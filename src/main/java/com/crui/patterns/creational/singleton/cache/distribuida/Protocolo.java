@@ -0,0 +1,63 @@
+package com.crui.patterns.creational.singleton.cache.distribuida;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * El protocolo entre {@link TransporteTcp} y {@link ServidorNodo}. Cada pedido es
+ *
+ * <pre>[operación: 1 byte][cantidad: int][textos...]</pre>
+ *
+ * donde {@code GET} manda {@code cantidad} claves, {@code SET} {@code cantidad} pares clave-valor e
+ * {@code INVALIDAR} {@code cantidad} claves. Cada texto va como {@code [largo: int][UTF-8]}, con
+ * largo -1 para {@code null}. La respuesta empieza con {@link #OK} (y en {@code GET} sigue con
+ * {@code cantidad} valores) o con {@link #ERROR} y un mensaje. En una conexión los pedidos se
+ * atienden en orden.
+ */
+final class Protocolo {
+  static final byte GET = 1;
+  static final byte SET = 2;
+  static final byte INVALIDAR = 3;
+
+  static final byte OK = 0;
+  static final byte ERROR = 1;
+
+  // límites para no reservar cualquier cosa si llegan bytes que no son del protocolo
+  static final int MAXIMO_CLAVES = 64 * 1024;
+  static final int MAXIMO_BYTES_TEXTO = 16 * 1024 * 1024;
+
+  private Protocolo() {}
+
+  static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+    if (texto == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  static String leerTexto(DataInputStream in) throws IOException {
+    int largo = in.readInt();
+    if (largo == -1) {
+      return null;
+    }
+    if (largo < 0 || largo > MAXIMO_BYTES_TEXTO) {
+      throw new IOException("Largo de texto inválido: " + largo);
+    }
+    byte[] bytes = new byte[largo];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  static int leerCantidad(DataInputStream in) throws IOException {
+    int cantidad = in.readInt();
+    if (cantidad < 0 || cantidad > MAXIMO_CLAVES) {
+      throw new IOException("Cantidad inválida: " + cantidad);
+    }
+    return cantidad;
+  }
+}
@@ -0,0 +1,158 @@
+package com.crui.patterns.creational.singleton.cache.distribuida;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Atiende por TCP los pedidos de otros procesos sobre un {@link AlmacenNodo}, con el {@link
+ * Protocolo}. Cada conexión tiene su hilo: los clientes son los otros nodos del cluster, que son
+ * pocos y mantienen la conexión abierta.
+ */
+public class ServidorNodo implements Closeable {
+  private static final int BUFFER = 64 * 1024;
+
+  private final AlmacenNodo almacen;
+  private final ServerSocket servidor;
+  private final Set<Socket> conexiones = ConcurrentHashMap.newKeySet();
+
+  /** Escucha en {@code puerto} (0 elige uno libre) sólo en la interfaz local. */
+  public ServidorNodo(AlmacenNodo almacen, int puerto) throws IOException {
+    this(almacen, new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto));
+  }
+
+  public ServidorNodo(AlmacenNodo almacen, InetSocketAddress direccion) throws IOException {
+    this.almacen = almacen;
+    this.servidor = new ServerSocket();
+    servidor.setReuseAddress(true);
+    servidor.bind(direccion);
+    hilo(this::aceptar, "cache-nodo-" + getPuerto()).start();
+  }
+
+  public int getPuerto() {
+    return servidor.getLocalPort();
+  }
+
+  private void aceptar() {
+    while (!servidor.isClosed()) {
+      try {
+        Socket socket = servidor.accept();
+        conexiones.add(socket);
+        if (servidor.isClosed()) {
+          // llegó mientras se cerraba el servidor: close() pudo no haberla visto
+          socket.close();
+          break;
+        }
+        socket.setTcpNoDelay(true);
+        hilo(() -> atender(socket), "cache-nodo-" + socket.getRemoteSocketAddress()).start();
+      } catch (IOException e) {
+        if (!servidor.isClosed()) {
+          System.err.println("[CACHE] Error aceptando conexiones: " + e);
+        }
+      }
+    }
+  }
+
+  private void atender(Socket socket) {
+    try (socket) {
+      DataInputStream in =
+          new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER));
+      DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER));
+      int operacion;
+      while ((operacion = in.read()) >= 0) {
+        responder((byte) operacion, in, out);
+        // si ya llegó el próximo pedido, las respuestas salen juntas
+        if (in.available() == 0) {
+          out.flush();
+        }
+      }
+    } catch (EOFException | SocketException e) {
+      // el cliente cerró la conexión
+    } catch (IOException e) {
+      // llegaron bytes que no son del protocolo: no hay forma de seguir en esta conexión
+      System.err.println("[CACHE] Cerrando " + socket.getRemoteSocketAddress() + ": " + e);
+    } finally {
+      conexiones.remove(socket);
+    }
+  }
+
+  private void responder(byte operacion, DataInputStream in, DataOutputStream out)
+      throws IOException {
+    int cantidad = Protocolo.leerCantidad(in);
+    String[] textos = new String[operacion == Protocolo.SET ? cantidad * 2 : cantidad];
+    for (int i = 0; i < textos.length; i++) {
+      textos[i] = Protocolo.leerTexto(in);
+    }
+    // el pedido ya se leyó entero: si falla, se contesta con un error y la conexión sigue
+    String[] valores;
+    try {
+      valores = ejecutar(operacion, textos);
+    } catch (RuntimeException e) {
+      out.writeByte(Protocolo.ERROR);
+      Protocolo.escribirTexto(out, String.valueOf(e));
+      return;
+    }
+    out.writeByte(Protocolo.OK);
+    if (valores != null) {
+      out.writeInt(valores.length);
+      for (String valor : valores) {
+        Protocolo.escribirTexto(out, valor);
+      }
+    }
+  }
+
+  private String[] ejecutar(byte operacion, String[] textos) {
+    for (String texto : textos) {
+      if (texto == null) {
+        throw new IllegalArgumentException("Las claves y los valores no pueden ser null");
+      }
+    }
+    switch (operacion) {
+      case Protocolo.GET:
+        String[] valores = new String[textos.length];
+        for (int i = 0; i < textos.length; i++) {
+          valores[i] = almacen.get(textos[i]);
+        }
+        return valores;
+      case Protocolo.SET:
+        for (int i = 0; i < textos.length; i += 2) {
+          almacen.set(textos[i], textos[i + 1]);
+        }
+        return null;
+      case Protocolo.INVALIDAR:
+        for (String clave : textos) {
+          almacen.invalidar(clave);
+        }
+        return null;
+      default:
+        throw new IllegalArgumentException("Operación desconocida: " + operacion);
+    }
+  }
+
+  private static Thread hilo(Runnable tarea, String nombre) {
+    Thread hilo = new Thread(tarea, nombre);
+    hilo.setDaemon(true);
+    return hilo;
+  }
+
+  /** Deja de aceptar conexiones y corta las abiertas. */
+  @Override
+  public void close() throws IOException {
+    servidor.close();
+    for (Socket socket : conexiones) {
+      socket.close();
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.crui.patterns.creational.singleton.cache.distribuida;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/** Cómo llega {@link CacheDistribuida} a un nodo: en el mismo proceso o por la red. */
+public interface Transporte extends Closeable {
+  /**
+   * Busca varias claves de una vez (un solo viaje si el nodo es remoto).
+   *
+   * @return los valores en el mismo orden que {@code claves}, con {@code null} donde no hay
+   */
+  String[] getVarios(String[] claves) throws IOException;
+
+  void set(String clave, String valor) throws IOException;
+
+  void invalidar(String clave) throws IOException;
+
+  @Override
+  void close();
+}
@@ -0,0 +1,42 @@
+package com.crui.patterns.creational.singleton.cache.distribuida;
+
+/**
+ * Llama directamente a un {@link AlmacenNodo} del mismo proceso. Sirve para probar un cluster
+ * entero en una sola JVM, y para el nodo propio cuando la aplicación también sirve datos.
+ */
+public class TransporteLocal implements Transporte {
+  private final AlmacenNodo almacen;
+
+  public TransporteLocal(AlmacenNodo almacen) {
+    this.almacen = almacen;
+  }
+
+  @Override
+  public String[] getVarios(String[] claves) {
+    String[] valores = new String[claves.length];
+    for (int i = 0; i < claves.length; i++) {
+      valores[i] = almacen.get(claves[i]);
+    }
+    return valores;
+  }
+
+  @Override
+  public void set(String clave, String valor) {
+    almacen.set(clave, valor);
+  }
+
+  @Override
+  public void invalidar(String clave) {
+    almacen.invalidar(clave);
+  }
+
+  @Override
+  public void close() {
+    // no hay nada abierto
+  }
+
+  @Override
+  public String toString() {
+    return "TransporteLocal [" + almacen + "]";
+  }
+}
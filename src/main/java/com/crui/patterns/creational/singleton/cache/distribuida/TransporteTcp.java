@@ -0,0 +1,144 @@
+package com.crui.patterns.creational.singleton.cache.distribuida;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * Habla con un {@link ServidorNodo} por TCP, con el {@link Protocolo}. Usa una sola conexión y
+ * un pedido a la vez; si algo falla la conexión se cierra y el próximo pedido abre otra.
+ */
+public class TransporteTcp implements Transporte {
+  private static final int MILIS_CONEXION = 1000;
+  private static final int MILIS_RESPUESTA = 5000;
+  private static final int BUFFER = 64 * 1024;
+
+  private final InetSocketAddress direccion;
+  private Socket socket;
+  private DataInputStream in;
+  private DataOutputStream out;
+
+  public TransporteTcp(InetSocketAddress direccion) {
+    this.direccion = direccion;
+  }
+
+  public TransporteTcp(String host, int puerto) {
+    this(new InetSocketAddress(host, puerto));
+  }
+
+  @Override
+  public synchronized String[] getVarios(String[] claves) throws IOException {
+    String[] valores = new String[claves.length];
+    // los lotes muy grandes se parten para no pasar el límite del servidor
+    for (int desde = 0; desde < claves.length; desde += Protocolo.MAXIMO_CLAVES) {
+      int cantidad = Math.min(Protocolo.MAXIMO_CLAVES, claves.length - desde);
+      try {
+        conectar();
+        out.writeByte(Protocolo.GET);
+        out.writeInt(cantidad);
+        for (int i = desde; i < desde + cantidad; i++) {
+          Protocolo.escribirTexto(out, claves[i]);
+        }
+        out.flush();
+        leerEstado();
+        if (in.readInt() != cantidad) {
+          throw new IOException("Respuesta de otro tamaño que el pedido");
+        }
+        for (int i = desde; i < desde + cantidad; i++) {
+          valores[i] = Protocolo.leerTexto(in);
+        }
+      } catch (IOException e) {
+        desconectar();
+        throw e;
+      }
+    }
+    return valores;
+  }
+
+  @Override
+  public synchronized void set(String clave, String valor) throws IOException {
+    try {
+      conectar();
+      out.writeByte(Protocolo.SET);
+      out.writeInt(1);
+      Protocolo.escribirTexto(out, clave);
+      Protocolo.escribirTexto(out, valor);
+      out.flush();
+      leerEstado();
+    } catch (IOException e) {
+      desconectar();
+      throw e;
+    }
+  }
+
+  @Override
+  public synchronized void invalidar(String clave) throws IOException {
+    try {
+      conectar();
+      out.writeByte(Protocolo.INVALIDAR);
+      out.writeInt(1);
+      Protocolo.escribirTexto(out, clave);
+      out.flush();
+      leerEstado();
+    } catch (IOException e) {
+      desconectar();
+      throw e;
+    }
+  }
+
+  private void leerEstado() throws IOException {
+    byte estado = in.readByte();
+    if (estado == Protocolo.ERROR) {
+      throw new IOException(direccion + ": " + Protocolo.leerTexto(in));
+    }
+    if (estado != Protocolo.OK) {
+      throw new IOException("Estado desconocido: " + estado);
+    }
+  }
+
+  private void conectar() throws IOException {
+    if (socket != null) {
+      return;
+    }
+    Socket nuevo = new Socket();
+    try {
+      nuevo.setTcpNoDelay(true);
+      nuevo.connect(direccion, MILIS_CONEXION);
+      nuevo.setSoTimeout(MILIS_RESPUESTA);
+      in = new DataInputStream(new BufferedInputStream(nuevo.getInputStream(), BUFFER));
+      out = new DataOutputStream(new BufferedOutputStream(nuevo.getOutputStream(), BUFFER));
+    } catch (IOException e) {
+      nuevo.close();
+      throw e;
+    }
+    socket = nuevo;
+  }
+
+  private void desconectar() {
+    if (socket == null) {
+      return;
+    }
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // ya estaba cerrado
+    }
+    socket = null;
+    in = null;
+    out = null;
+  }
+
+  @Override
+  public synchronized void close() {
+    desconectar();
+  }
+
+  @Override
+  public String toString() {
+    return "TransporteTcp [" + direccion + "]";
+  }
+}
@@ -0,0 +1,62 @@
+package com.crui.patterns.creational.singleton.cache.motor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Anota las lecturas para aplicarlas después a la política, sin que los lectores tomen un
+ * candado. Está repartido en franjas según el hilo, así los lectores casi no compiten entre sí.
+ * Si una franja está llena la lectura no se anota: perder algunas apenas cambia qué se desaloja.
+ */
+final class BufferLecturas<K, V> {
+  private static final int FRANJAS =
+      Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1) << 1;
+  private static final int LUGARES = 16;
+
+  private final AtomicReferenceArray<Nodo<K, V>> lugares =
+      new AtomicReferenceArray<>(FRANJAS * LUGARES);
+  private final AtomicLong[] escritos = new AtomicLong[FRANJAS];
+  // cuántos se vaciaron de cada franja; sólo lo escribe quien tiene el candado
+  private final AtomicLongArray leidos = new AtomicLongArray(FRANJAS);
+
+  BufferLecturas() {
+    for (int i = 0; i < FRANJAS; i++) {
+      escritos[i] = new AtomicLong();
+    }
+  }
+
+  /** @return false si la franja ya va por la mitad y conviene vaciar el buffer */
+  boolean anotar(Nodo<K, V> nodo) {
+    int franja = (int) Thread.currentThread().getId() & (FRANJAS - 1);
+    AtomicLong escrito = escritos[franja];
+    long posicion = escrito.get();
+    if (posicion - leidos.get(franja) >= LUGARES) {
+      return false;
+    }
+    if (escrito.compareAndSet(posicion, posicion + 1)) {
+      lugares.lazySet(franja * LUGARES + (int) (posicion & (LUGARES - 1)), nodo);
+    }
+    return posicion - leidos.get(franja) < LUGARES / 2;
+  }
+
+  /** Pasa cada lectura anotada a {@code accion}. Hay que tener el candado del motor. */
+  void vaciar(Consumer<Nodo<K, V>> accion) {
+    for (int franja = 0; franja < FRANJAS; franja++) {
+      long hasta = escritos[franja].get();
+      long leido = leidos.get(franja);
+      for (; leido < hasta; leido++) {
+        int lugar = franja * LUGARES + (int) (leido & (LUGARES - 1));
+        Nodo<K, V> nodo = lugares.get(lugar);
+        if (nodo == null) {
+          // el lector todavía no lo publicó; queda para la próxima
+          break;
+        }
+        lugares.lazySet(lugar, null);
+        accion.accept(nodo);
+      }
+      leidos.lazySet(franja, leido);
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package com.crui.patterns.creational.singleton.cache.motor;
+
+import java.util.Locale;
+
+/**
+ * Una foto de los contadores de un {@link MotorCache}. Armarla cuesta lo mismo tenga la caché
+ * diez entradas o diez millones.
+ */
+public class EstadisticasCache {
+  private final long aciertos;
+  private final long fallos;
+  private final long cargas;
+  private final long cargasFallidas;
+  private final long desalojos;
+  private final long vencidos;
+  private final long entradas;
+  private final long peso;
+  private final long pesoMaximo;
+  private final long cargaP50Nanos;
+  private final long cargaP99Nanos;
+  private final long cargaTotalNanos;
+
+  EstadisticasCache(
+      long aciertos,
+      long fallos,
+      long cargas,
+      long cargasFallidas,
+      long desalojos,
+      long vencidos,
+      long entradas,
+      long peso,
+      long pesoMaximo,
+      HistogramaLatencias latencias) {
+    this.aciertos = aciertos;
+    this.fallos = fallos;
+    this.cargas = cargas;
+    this.cargasFallidas = cargasFallidas;
+    this.desalojos = desalojos;
+    this.vencidos = vencidos;
+    this.entradas = entradas;
+    this.peso = peso;
+    this.pesoMaximo = pesoMaximo;
+    this.cargaP50Nanos = latencias.percentil(0.5);
+    this.cargaP99Nanos = latencias.percentil(0.99);
+    this.cargaTotalNanos = latencias.getTotalNanos();
+  }
+
+  public long getAciertos() {
+    return aciertos;
+  }
+
+  public long getFallos() {
+    return fallos;
+  }
+
+  /** Aciertos sobre pedidos, de 0 a 1; 1 si todavía no hubo pedidos. */
+  public double getTasaDeAciertos() {
+    long pedidos = aciertos + fallos;
+    return pedidos == 0 ? 1.0 : (double) aciertos / pedidos;
+  }
+
+  /** Cargas que terminaron bien (con o sin valor). */
+  public long getCargas() {
+    return cargas;
+  }
+
+  public long getCargasFallidas() {
+    return cargasFallidas;
+  }
+
+  /** Entradas que se fueron por falta de lugar. */
+  public long getDesalojos() {
+    return desalojos;
+  }
+
+  /** Entradas que se quitaron porque vencieron. */
+  public long getVencidos() {
+    return vencidos;
+  }
+
+  public long getEntradas() {
+    return entradas;
+  }
+
+  public long getPeso() {
+    return peso;
+  }
+
+  public long getPesoMaximo() {
+    return pesoMaximo;
+  }
+
+  /** Cota de la mediana de lo que tardan las cargas; ver {@link HistogramaLatencias#percentil}. */
+  public long getCargaP50Nanos() {
+    return cargaP50Nanos;
+  }
+
+  public long getCargaP99Nanos() {
+    return cargaP99Nanos;
+  }
+
+  /** Lo que tarda una carga en promedio, contando las fallidas. */
+  public double getCargaPromedioNanos() {
+    long total = cargas + cargasFallidas;
+    return total == 0 ? 0 : (double) cargaTotalNanos / total;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        Locale.ROOT,
+        "EstadisticasCache [entradas=%d, peso=%d/%d, aciertos=%d, fallos=%d, tasa=%.3f,"
+            + " cargas=%d, cargasFallidas=%d, cargaP50=%dµs, cargaP99=%dµs, desalojos=%d,"
+            + " vencidos=%d]",
+        entradas,
+        peso,
+        pesoMaximo,
+        aciertos,
+        fallos,
+        getTasaDeAciertos(),
+        cargas,
+        cargasFallidas,
+        cargaP50Nanos / 1_000,
+        cargaP99Nanos / 1_000,
+        desalojos,
+        vencidos);
+  }
+}
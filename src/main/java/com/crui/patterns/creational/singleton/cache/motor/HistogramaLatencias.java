@@ -0,0 +1,73 @@
+package com.crui.patterns.creational.singleton.cache.motor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cuenta duraciones en baldes que duplican su ancho: el primero es hasta 1 µs, el segundo hasta 2
+ * µs, y así hasta unos 8 segundos; lo que tarda más cae en el último. Registrar es sumar uno en un
+ * {@link LongAdder}, así que se puede usar desde muchos hilos sin que compitan.
+ */
+public class HistogramaLatencias {
+  private static final int BALDES = 24;
+  private static final long PRIMERO_NANOS = 1_000;
+
+  private final LongAdder[] cuentas = new LongAdder[BALDES];
+  private final LongAdder totalNanos = new LongAdder();
+
+  public HistogramaLatencias() {
+    for (int i = 0; i < BALDES; i++) {
+      cuentas[i] = new LongAdder();
+    }
+  }
+
+  public void registrar(long nanos) {
+    cuentas[balde(nanos)].increment();
+    totalNanos.add(nanos);
+  }
+
+  public long getCantidad() {
+    long total = 0;
+    for (LongAdder cuenta : cuentas) {
+      total += cuenta.sum();
+    }
+    return total;
+  }
+
+  public long getTotalNanos() {
+    return totalNanos.sum();
+  }
+
+  /**
+   * El límite superior del balde donde cae el percentil pedido (de 0 a 1), o 0 si no hay nada
+   * registrado. Es una cota: el valor real está entre la mitad y ese límite.
+   */
+  public long percentil(double percentil) {
+    long cantidad = getCantidad();
+    if (cantidad == 0) {
+      return 0;
+    }
+    long objetivo = (long) Math.ceil(percentil * cantidad);
+    long acumulado = 0;
+    for (int i = 0; i < BALDES; i++) {
+      acumulado += cuentas[i].sum();
+      if (acumulado >= Math.max(1, objetivo)) {
+        return limite(i);
+      }
+    }
+    return limite(BALDES - 1);
+  }
+
+  /** Hasta cuántos nanos cuenta el balde {@code i}. */
+  public static long limite(int i) {
+    return PRIMERO_NANOS << i;
+  }
+
+  private static int balde(long nanos) {
+    if (nanos <= PRIMERO_NANOS) {
+      return 0;
+    }
+    // cuántas veces hay que duplicar el primer balde para llegar a nanos
+    int balde = 64 - Long.numberOfLeadingZeros((nanos - 1) / PRIMERO_NANOS);
+    return Math.min(balde, BALDES - 1);
+  }
+}
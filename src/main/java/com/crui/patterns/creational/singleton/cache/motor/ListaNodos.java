@@ -0,0 +1,97 @@
+package com.crui.patterns.creational.singleton.cache.motor;
+
+/**
+ * Lista doblemente enlazada sobre los enlaces del propio {@link Nodo}, así mover una entrada al
+ * final es O(1) y no crea objetos. Del primero (el más viejo) al último (el más reciente).
+ *
+ * <p>Hay dos clases de lista según qué enlaces usa: por uso o por escritura.
+ */
+final class ListaNodos<K, V> {
+  private final boolean porEscritura;
+  private Nodo<K, V> primero;
+  private Nodo<K, V> ultimo;
+  long peso;
+
+  ListaNodos(boolean porEscritura) {
+    this.porEscritura = porEscritura;
+  }
+
+  Nodo<K, V> primero() {
+    return primero;
+  }
+
+  Nodo<K, V> ultimo() {
+    return ultimo;
+  }
+
+  boolean isEmpty() {
+    return primero == null;
+  }
+
+  void agregar(Nodo<K, V> nodo) {
+    setAnterior(nodo, ultimo);
+    setSiguiente(nodo, null);
+    if (ultimo == null) {
+      primero = nodo;
+    } else {
+      setSiguiente(ultimo, nodo);
+    }
+    ultimo = nodo;
+    peso += nodo.peso;
+  }
+
+  void quitar(Nodo<K, V> nodo) {
+    Nodo<K, V> anterior = anterior(nodo);
+    Nodo<K, V> siguiente = siguiente(nodo);
+    if (anterior == null) {
+      primero = siguiente;
+    } else {
+      setSiguiente(anterior, siguiente);
+    }
+    if (siguiente == null) {
+      ultimo = anterior;
+    } else {
+      setAnterior(siguiente, anterior);
+    }
+    setAnterior(nodo, null);
+    setSiguiente(nodo, null);
+    peso -= nodo.peso;
+  }
+
+  void alFinal(Nodo<K, V> nodo) {
+    if (nodo != ultimo) {
+      quitar(nodo);
+      agregar(nodo);
+    }
+  }
+
+  void limpiar() {
+    primero = null;
+    ultimo = null;
+    peso = 0;
+  }
+
+  private Nodo<K, V> anterior(Nodo<K, V> nodo) {
+    return porEscritura ? nodo.anteriorEscrito : nodo.anterior;
+  }
+
+  private Nodo<K, V> siguiente(Nodo<K, V> nodo) {
+    return porEscritura ? nodo.siguienteEscrito : nodo.siguiente;
+  }
+
+  private void setAnterior(Nodo<K, V> nodo, Nodo<K, V> anterior) {
+    if (porEscritura) {
+      nodo.anteriorEscrito = anterior;
+    } else {
+      nodo.anterior = anterior;
+    }
+  }
+
+  private void setSiguiente(Nodo<K, V> nodo, Nodo<K, V> siguiente) {
+    if (porEscritura) {
+      nodo.siguienteEscrito = siguiente;
+    } else {
+      nodo.siguiente = siguiente;
+    }
+  }
+}
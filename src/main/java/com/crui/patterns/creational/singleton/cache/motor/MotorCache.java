@@ -0,0 +1,645 @@
+package com.crui.patterns.creational.singleton.cache.motor;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Caché concurrente y acotada, con la política W-TinyLFU.
+ *
+ * <ul>
+ *   <li>Las entradas nuevas entran a una ventana chica (1% del peso) ordenada por uso.
+ *   <li>Lo que sale de la ventana pasa a la parte principal, que es una LRU segmentada: "a prueba"
+ *       y "protegidas" (80%). Una entrada a prueba que se vuelve a leer pasa a protegidas.
+ *   <li>Cuando hay que desalojar se enfrenta a la última que llegó a prueba con la más vieja, y
+ *       se queda la que se pidió más veces según un {@link SketchFrecuencias}. Así un barrido de
+ *       claves que se piden una sola vez no vacía la caché.
+ * </ul>
+ *
+ * <p>Las lecturas no toman ningún candado: buscan en un {@link ConcurrentHashMap} y anotan el
+ * acceso en un {@link BufferLecturas}. Las escrituras y el vaciado del buffer toman un candado,
+ * porque las listas de la política no son thread-safe.
+ *
+ * <p>Opcionalmente las entradas vencen a un tiempo fijo de escritas (TTL) o de la última lectura
+ * (TTI).
+ */
+public class MotorCache<K, V> {
+  private static final int CALIENTES = 64;
+
+  private final ConcurrentHashMap<K, Nodo<K, V>> datos = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<K, Carga<V>> cargando = new ConcurrentHashMap<>();
+  private final ReentrantLock candado = new ReentrantLock();
+  private final BufferLecturas<K, V> lecturas = new BufferLecturas<>();
+  private final ListaNodos<K, V> ventana = new ListaNodos<>(false);
+  private final ListaNodos<K, V> prueba = new ListaNodos<>(false);
+  private final ListaNodos<K, V> protegidos = new ListaNodos<>(false);
+  private final ListaNodos<K, V> escrituras = new ListaNodos<>(true);
+  private final SketchFrecuencias sketch;
+  private final long pesoMaximo;
+  private final long pesoMaximoVentana;
+  private final long pesoMaximoProtegidos;
+  private final ToLongBiFunction<K, V> pesador;
+  private final long ttlNanos;
+  private final long ttiNanos;
+  private final LongSupplier reloj;
+  private final OyenteDesalojo<K, V> oyente;
+
+  private final LongAdder aciertos = new LongAdder();
+  private final LongAdder fallos = new LongAdder();
+  private final LongAdder cargas = new LongAdder();
+  private final LongAdder cargasFallidas = new LongAdder();
+  private final LongAdder desalojos = new LongAdder();
+  private final LongAdder vencidos = new LongAdder();
+  private final HistogramaLatencias latenciasDeCarga = new HistogramaLatencias();
+  // las más pedidas hasta ahora, para masPedidas(); con el candado tomado
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private final Nodo<K, V>[] calientes = new Nodo[CALIENTES];
+  private final int[] frecuenciasCalientes = new int[CALIENTES];
+  private int minimoCaliente;
+  private int reinicios;
+
+  /** Una carga en curso. Si mientras corre se escribe o se invalida la clave, queda vieja. */
+  private static class Carga<V> extends CompletableFuture<V> {
+    private volatile boolean obsoleta;
+  }
+
+  private MotorCache(Builder<K, V> builder) {
+    this.pesoMaximo = builder.pesoMaximo;
+    this.pesoMaximoVentana = Math.max(1, pesoMaximo / 100);
+    this.pesoMaximoProtegidos = (pesoMaximo - pesoMaximoVentana) * 8 / 10;
+    this.pesador = builder.pesador;
+    this.ttlNanos = builder.ttlNanos;
+    this.ttiNanos = builder.ttiNanos;
+    this.reloj = builder.reloj;
+    this.oyente = builder.oyente;
+    this.sketch = new SketchFrecuencias(builder.clavesEsperadas);
+  }
+
+  public static <K, V> Builder<K, V> builder() {
+    return new Builder<>();
+  }
+
+  /** @return el valor, o null si no está o ya venció */
+  public V get(K clave) {
+    V valor = leer(clave);
+    if (valor == null) {
+      fallos.increment();
+    } else {
+      aciertos.increment();
+    }
+    return valor;
+  }
+
+  private V leer(K clave) {
+    Nodo<K, V> nodo = datos.get(clave);
+    if (nodo == null) {
+      return null;
+    }
+    if (ttlNanos > 0 || ttiNanos > 0) {
+      long ahora = reloj.getAsLong();
+      if (vencido(nodo, ahora)) {
+        expirar(nodo);
+        return null;
+      }
+      if (ttiNanos > 0) {
+        nodo.accedido = ahora;
+      }
+    }
+    V valor = nodo.valor;
+    if (!lecturas.anotar(nodo) && candado.tryLock()) {
+      // si otro hilo ya está manteniendo la caché, no esperamos: él vacía el buffer
+      try {
+        mantener();
+      } finally {
+        candado.unlock();
+      }
+    }
+    return valor;
+  }
+
+  /** Guarda el valor y desaloja lo que haga falta para no pasarse del peso máximo. */
+  public void set(K clave, V valor) {
+    set(clave, valor, reloj.getAsLong());
+  }
+
+  /**
+   * Como {@link #set(Object, Object)}, pero el TTL cuenta desde {@code escrito} (según el reloj
+   * de la caché). Sirve para entradas que vuelven de otro nivel y no tienen que vivir de más.
+   */
+  public void set(K clave, V valor, long escrito) {
+    long peso = pesador.applyAsLong(clave, valor);
+    if (peso < 0) {
+      throw new IllegalArgumentException("Peso negativo para " + clave);
+    }
+    obsoletar(clave);
+    candado.lock();
+    try {
+      Nodo<K, V> nodo = datos.get(clave);
+      if (peso > pesoMaximo - pesoMaximoVentana) {
+        // no entraría nunca: se descarta junto con el valor anterior
+        if (nodo != null) {
+          quitar(nodo);
+        }
+        return;
+      }
+      if (nodo == null) {
+        nodo = new Nodo<>(clave, hash(clave), valor, peso, escrito);
+        datos.put(clave, nodo);
+        ventana.agregar(nodo);
+        escrituras.agregar(nodo);
+      } else {
+        nodo.valor = valor;
+        nodo.escrito = escrito;
+        cambiarPeso(nodo, peso);
+        escrituras.alFinal(nodo);
+        segmento(nodo).alFinal(nodo);
+      }
+      nodo.accedido = reloj.getAsLong();
+      sketch.anotar(nodo.hash);
+      mantener();
+    } finally {
+      candado.unlock();
+    }
+  }
+
+  /**
+   * Guarda la entrada sólo si la clave no está, por ejemplo al recargar datos viejos sin pisar lo
+   * que se escribió mientras tanto.
+   *
+   * @return false si ya había un valor
+   */
+  public boolean setSiFalta(K clave, V valor, long escrito) {
+    candado.lock();
+    try {
+      if (datos.containsKey(clave)) {
+        return false;
+      }
+      set(clave, valor, escrito);
+      return true;
+    } finally {
+      candado.unlock();
+    }
+  }
+
+  /** Si la clave está, sin contar como lectura para la política. */
+  public boolean contiene(K clave) {
+    return datos.containsKey(clave);
+  }
+
+  /**
+   * Devuelve el valor guardado o lo carga con {@code cargador}. Si varios hilos piden a la vez la
+   * misma clave que falta, la carga se hace una sola vez y todos reciben el mismo resultado. Si el
+   * cargador devuelve null no se guarda nada; si tira una excepción, le llega a todos los que
+   * esperaban.
+   */
+  public V obtener(K clave, Function<? super K, ? extends V> cargador) {
+    V valor = get(clave);
+    return valor != null ? valor : cargar(clave, cargador);
+  }
+
+  /**
+   * Como {@link #obtener} para quien ya buscó la clave con {@link #get} y no la encontró: no la
+   * vuelve a buscar, así el fallo se cuenta una sola vez en las estadísticas.
+   */
+  public V cargar(K clave, Function<? super K, ? extends V> cargador) {
+    V valor;
+    Carga<V> propia = new Carga<>();
+    CompletableFuture<V> enCurso = cargando.putIfAbsent(clave, propia);
+    if (enCurso != null) {
+      try {
+        return enCurso.join();
+      } catch (CompletionException e) {
+        throw sinEnvolver(e);
+      }
+    }
+    try {
+      // pudo haber terminado otra carga entre el get y el putIfAbsent
+      valor = leer(clave);
+      if (valor == null) {
+        long inicio = System.nanoTime();
+        try {
+          valor = cargador.apply(clave);
+        } finally {
+          latenciasDeCarga.registrar(System.nanoTime() - inicio);
+        }
+        cargas.increment();
+        if (valor != null) {
+          candado.lock();
+          try {
+            // un set o un invalidar que llegó durante la carga es más nuevo que lo cargado
+            if (!propia.obsoleta) {
+              set(clave, valor);
+            }
+          } finally {
+            candado.unlock();
+          }
+        }
+      }
+      propia.complete(valor);
+      return valor;
+    } catch (RuntimeException | Error e) {
+      cargasFallidas.increment();
+      propia.completeExceptionally(e);
+      throw e;
+    } finally {
+      cargando.remove(clave, propia);
+    }
+  }
+
+  public void invalidar(K clave) {
+    obsoletar(clave);
+    candado.lock();
+    try {
+      Nodo<K, V> nodo = datos.get(clave);
+      if (nodo != null) {
+        quitar(nodo);
+      }
+    } finally {
+      candado.unlock();
+    }
+  }
+
+  public void limpiar() {
+    for (Carga<V> carga : cargando.values()) {
+      carga.obsoleta = true;
+    }
+    candado.lock();
+    try {
+      for (Nodo<K, V> nodo : datos.values()) {
+        nodo.vivo = false;
+      }
+      datos.clear();
+      Arrays.fill(calientes, null);
+      minimoCaliente = 0;
+      ventana.limpiar();
+      prueba.limpiar();
+      protegidos.limpiar();
+      escrituras.limpiar();
+    } finally {
+      candado.unlock();
+    }
+  }
+
+  /**
+   * Se marca antes de tomar el candado: la carga decide con el candado tomado, así que o ve la
+   * marca o termina antes y la escritura la pisa.
+   */
+  private void obsoletar(K clave) {
+    Carga<V> carga = cargando.get(clave);
+    if (carga != null) {
+      carga.obsoleta = true;
+    }
+  }
+
+  /** Recorre las entradas vigentes sin copiarlas; puede ver o no los cambios concurrentes. */
+  public void recorrer(BiConsumer<? super K, ? super V> accion) {
+    recorrer((clave, valor, escrito) -> accion.accept(clave, valor));
+  }
+
+  /**
+   * Como {@link #recorrer(BiConsumer)} pero con la hora de escritura de cada entrada. No toma el
+   * candado, así que se puede usar mientras la caché sigue atendiendo.
+   */
+  public void recorrer(VisitanteEntrada<? super K, ? super V> visitante) {
+    boolean vence = ttlNanos > 0 || ttiNanos > 0;
+    long ahora = vence ? reloj.getAsLong() : 0;
+    for (Nodo<K, V> nodo : datos.values()) {
+      if (!vence || !vencido(nodo, ahora)) {
+        visitante.visitar(nodo.clave, nodo.valor, nodo.escrito);
+      }
+    }
+  }
+
+  /** Cantidad de entradas, incluidas las vencidas que todavía no se quitaron. */
+  public int tamanio() {
+    return datos.size();
+  }
+
+  public long getPeso() {
+    candado.lock();
+    try {
+      return ventana.peso + prueba.peso + protegidos.peso;
+    } finally {
+      candado.unlock();
+    }
+  }
+
+  public long getPesoMaximo() {
+    return pesoMaximo;
+  }
+
+  /** Los contadores hasta ahora; no recorre las entradas. */
+  public EstadisticasCache getEstadisticas() {
+    return new EstadisticasCache(
+        aciertos.sum(),
+        fallos.sum(),
+        cargas.sum(),
+        cargasFallidas.sum(),
+        desalojos.sum(),
+        vencidos.sum(),
+        datos.size(),
+        getPeso(),
+        pesoMaximo,
+        latenciasDeCarga);
+  }
+
+  /**
+   * Las {@code k} claves más pedidas (a lo sumo {@value #CALIENTES}), con su frecuencia estimada de
+   * 0 a 15, de la más a la menos pedida. No recorre la caché: las candidatas se van anotando a
+   * medida que se aplican las lecturas.
+   */
+  public List<Map.Entry<K, Integer>> masPedidas(int k) {
+    List<Map.Entry<K, Integer>> resultado = new ArrayList<>();
+    candado.lock();
+    try {
+      lecturas.vaciar(this::alLeer);
+      for (Nodo<K, V> nodo : calientes) {
+        if (nodo != null) {
+          int frecuencia = sketch.frecuencia(nodo.hash);
+          resultado.add(new AbstractMap.SimpleImmutableEntry<>(nodo.clave, frecuencia));
+        }
+      }
+    } finally {
+      candado.unlock();
+    }
+    resultado.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+    return new ArrayList<>(resultado.subList(0, Math.min(k, resultado.size())));
+  }
+
+  /**
+   * Mantiene {@link #calientes}: una entrada leída entra si se pidió más veces que la menos pedida
+   * de la tabla. Casi siempre es una comparación; la tabla se recorre sólo al reemplazar.
+   */
+  private void anotarCaliente(Nodo<K, V> nodo, int frecuencia) {
+    if (reinicios != sketch.getReinicios()) {
+      // el sketch dividió sus contadores: las frecuencias anotadas también
+      reinicios = sketch.getReinicios();
+      for (int i = 0; i < CALIENTES; i++) {
+        frecuenciasCalientes[i] /= 2;
+      }
+      minimoCaliente /= 2;
+    }
+    if (nodo.caliente >= 0) {
+      frecuenciasCalientes[nodo.caliente] = frecuencia;
+      return;
+    }
+    if (frecuencia <= minimoCaliente) {
+      return;
+    }
+    int lugar = 0;
+    int minimo = Integer.MAX_VALUE;
+    int segundo = Integer.MAX_VALUE;
+    for (int i = 0; i < CALIENTES; i++) {
+      int actual = calientes[i] == null ? -1 : frecuenciasCalientes[i];
+      if (actual < minimo) {
+        segundo = minimo;
+        minimo = actual;
+        lugar = i;
+      } else if (actual < segundo) {
+        segundo = actual;
+      }
+    }
+    if (frecuencia > minimo) {
+      if (calientes[lugar] != null) {
+        calientes[lugar].caliente = -1;
+      }
+      calientes[lugar] = nodo;
+      frecuenciasCalientes[lugar] = frecuencia;
+      nodo.caliente = lugar;
+      minimo = Math.min(segundo, frecuencia);
+    }
+    minimoCaliente = Math.max(0, minimo);
+  }
+
+  /** Aplica las lecturas anotadas, quita lo vencido y desaloja. Con el candado tomado. */
+  private void mantener() {
+    lecturas.vaciar(this::alLeer);
+    if (ttlNanos > 0 || ttiNanos > 0) {
+      expirarVencidos(reloj.getAsLong());
+    }
+    while (ventana.peso > pesoMaximoVentana && ventana.primero() != ventana.ultimo()) {
+      Nodo<K, V> nodo = ventana.primero();
+      ventana.quitar(nodo);
+      nodo.segmento = Nodo.PRUEBA;
+      prueba.agregar(nodo);
+    }
+    desalojar();
+  }
+
+  private void alLeer(Nodo<K, V> nodo) {
+    if (!nodo.vivo) {
+      return;
+    }
+    anotarCaliente(nodo, sketch.anotar(nodo.hash));
+    if (nodo.segmento == Nodo.VENTANA) {
+      ventana.alFinal(nodo);
+    } else if (nodo.segmento == Nodo.PROTEGIDO) {
+      protegidos.alFinal(nodo);
+    } else {
+      prueba.quitar(nodo);
+      nodo.segmento = Nodo.PROTEGIDO;
+      protegidos.agregar(nodo);
+      // si protegidas se pasa, las menos usadas vuelven a prueba
+      while (protegidos.peso > pesoMaximoProtegidos) {
+        Nodo<K, V> degradado = protegidos.primero();
+        protegidos.quitar(degradado);
+        degradado.segmento = Nodo.PRUEBA;
+        prueba.agregar(degradado);
+      }
+    }
+  }
+
+  /**
+   * La candidata es la última que entró a prueba; la víctima, la más vieja. Se va la que se pidió
+   * menos veces (con empate se va la candidata, para no echar algo que ya demostró que sirve).
+   */
+  private void desalojar() {
+    while (ventana.peso + prueba.peso + protegidos.peso > pesoMaximo) {
+      Nodo<K, V> desalojado;
+      if (!prueba.isEmpty()) {
+        Nodo<K, V> victima = prueba.primero();
+        Nodo<K, V> candidata = prueba.ultimo();
+        desalojado =
+            candidata != victima
+                    && sketch.frecuencia(candidata.hash) <= sketch.frecuencia(victima.hash)
+                ? candidata
+                : victima;
+      } else if (!protegidos.isEmpty()) {
+        desalojado = protegidos.primero();
+      } else {
+        desalojado = ventana.primero();
+      }
+      quitar(desalojado);
+      desalojos.increment();
+      if (oyente != null) {
+        oyente.desalojado(desalojado.clave, desalojado.valor, desalojado.escrito);
+      }
+    }
+  }
+
+  /**
+   * Las escrituras están en orden, así que basta mirar desde la más vieja. Las que volvieron de
+   * otro nivel con su hora original pueden quedar fuera de orden; esas vencen al leerlas.
+   */
+  private void expirarVencidos(long ahora) {
+    if (ttlNanos > 0) {
+      while (!escrituras.isEmpty() && ahora - escrituras.primero().escrito >= ttlNanos) {
+        quitar(escrituras.primero());
+        vencidos.increment();
+      }
+    }
+    if (ttiNanos > 0) {
+      expirarSinUso(ventana, ahora);
+      expirarSinUso(prueba, ahora);
+      expirarSinUso(protegidos, ahora);
+    }
+  }
+
+  // el orden por uso sigue al de las lecturas aplicadas, que puede ir un poco atrasado
+  private void expirarSinUso(ListaNodos<K, V> lista, long ahora) {
+    while (!lista.isEmpty() && ahora - lista.primero().accedido >= ttiNanos) {
+      quitar(lista.primero());
+      vencidos.increment();
+    }
+  }
+
+  private boolean vencido(Nodo<K, V> nodo, long ahora) {
+    return (ttlNanos > 0 && ahora - nodo.escrito >= ttlNanos)
+        || (ttiNanos > 0 && ahora - nodo.accedido >= ttiNanos);
+  }
+
+  private void expirar(Nodo<K, V> nodo) {
+    candado.lock();
+    try {
+      if (nodo.vivo) {
+        quitar(nodo);
+        vencidos.increment();
+      }
+    } finally {
+      candado.unlock();
+    }
+  }
+
+  private void quitar(Nodo<K, V> nodo) {
+    datos.remove(nodo.clave, nodo);
+    segmento(nodo).quitar(nodo);
+    escrituras.quitar(nodo);
+    nodo.vivo = false;
+    if (nodo.caliente >= 0) {
+      calientes[nodo.caliente] = null;
+      nodo.caliente = -1;
+      minimoCaliente = 0;
+    }
+  }
+
+  private void cambiarPeso(Nodo<K, V> nodo, long peso) {
+    ListaNodos<K, V> lista = segmento(nodo);
+    lista.peso += peso - nodo.peso;
+    escrituras.peso += peso - nodo.peso;
+    nodo.peso = peso;
+  }
+
+  private ListaNodos<K, V> segmento(Nodo<K, V> nodo) {
+    switch (nodo.segmento) {
+      case Nodo.VENTANA:
+        return ventana;
+      case Nodo.PRUEBA:
+        return prueba;
+      default:
+        return protegidos;
+    }
+  }
+
+  private static int hash(Object clave) {
+    int h = clave.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static RuntimeException sinEnvolver(CompletionException e) {
+    Throwable causa = e.getCause();
+    if (causa instanceof RuntimeException) {
+      return (RuntimeException) causa;
+    }
+    if (causa instanceof Error) {
+      throw (Error) causa;
+    }
+    return e;
+  }
+
+  /** Arma un {@link MotorCache}; por defecto cada entrada pesa 1 y no vence nunca. */
+  public static class Builder<K, V> {
+    private long pesoMaximo = 10_000;
+    private long clavesEsperadas = -1;
+    private ToLongBiFunction<K, V> pesador = (clave, valor) -> 1;
+    private long ttlNanos;
+    private long ttiNanos;
+    private LongSupplier reloj = System::nanoTime;
+    private OyenteDesalojo<K, V> oyente;
+
+    private Builder() {}
+
+    /** El peso total máximo; con el pesador por defecto, la cantidad de entradas. */
+    public Builder<K, V> pesoMaximo(long pesoMaximo) {
+      if (pesoMaximo < 1) {
+        throw new IllegalArgumentException("El peso máximo tiene que ser positivo");
+      }
+      this.pesoMaximo = pesoMaximo;
+      return this;
+    }
+
+    /** Cuánto pesa cada entrada, por ejemplo en bytes. */
+    public Builder<K, V> pesador(ToLongBiFunction<K, V> pesador) {
+      this.pesador = pesador;
+      return this;
+    }
+
+    /** Cuántas claves distintas se espera guardar, para dimensionar el sketch de frecuencias. */
+    public Builder<K, V> clavesEsperadas(long clavesEsperadas) {
+      this.clavesEsperadas = clavesEsperadas;
+      return this;
+    }
+
+    /** Las entradas vencen a este tiempo de escritas. */
+    public Builder<K, V> expirarTrasEscritura(long duracion, TimeUnit unidad) {
+      this.ttlNanos = unidad.toNanos(duracion);
+      return this;
+    }
+
+    /** Las entradas vencen si pasa este tiempo sin que nadie las lea. */
+    public Builder<K, V> expirarTrasAcceso(long duracion, TimeUnit unidad) {
+      this.ttiNanos = unidad.toNanos(duracion);
+      return this;
+    }
+
+    /** Para los tests: de dónde sale la hora, en nanosegundos. */
+    public Builder<K, V> reloj(LongSupplier reloj) {
+      this.reloj = reloj;
+      return this;
+    }
+
+    /** A quién avisarle de cada entrada desalojada por falta de lugar. */
+    public Builder<K, V> alDesalojar(OyenteDesalojo<K, V> oyente) {
+      this.oyente = oyente;
+      return this;
+    }
+
+    public MotorCache<K, V> construir() {
+      if (clavesEsperadas < 0) {
+        clavesEsperadas = pesoMaximo;
+      }
+      return new MotorCache<>(this);
+    }
+  }
+}
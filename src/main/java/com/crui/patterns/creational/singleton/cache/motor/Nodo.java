@@ -0,0 +1,37 @@
+package com.crui.patterns.creational.singleton.cache.motor;
+
+/**
+ * Una entrada de la caché. Está a la vez en el mapa (para las lecturas) y en dos listas
+ * doblemente enlazadas que sólo se tocan con el candado tomado: la de su segmento, ordenada por
+ * uso, y la de escrituras, ordenada por antigüedad para vencer el TTL.
+ */
+final class Nodo<K, V> {
+  static final byte VENTANA = 0;
+  static final byte PRUEBA = 1;
+  static final byte PROTEGIDO = 2;
+
+  final K clave;
+  final int hash;
+  volatile V valor;
+  volatile long escrito;
+  volatile long accedido;
+  // lo que sigue sólo se lee y escribe con el candado tomado
+  long peso;
+  byte segmento;
+  boolean vivo = true;
+  // el lugar que ocupa entre las más pedidas de MotorCache, o -1
+  int caliente = -1;
+  Nodo<K, V> anterior;
+  Nodo<K, V> siguiente;
+  Nodo<K, V> anteriorEscrito;
+  Nodo<K, V> siguienteEscrito;
+
+  Nodo(K clave, int hash, V valor, long peso, long ahora) {
+    this.clave = clave;
+    this.hash = hash;
+    this.valor = valor;
+    this.peso = peso;
+    this.escrito = ahora;
+    this.accedido = ahora;
+  }
+}
@@ -0,0 +1,10 @@
+package com.crui.patterns.creational.singleton.cache.motor;
+
+/**
+ * Se entera de las entradas que {@link MotorCache} desaloja por falta de lugar (no de las que
+ * vencen ni de las que se invalidan), por ejemplo para pasarlas a un nivel más lento.
+ */
+public interface OyenteDesalojo<K, V> {
+  /** Se llama con el candado de la caché tomado: tiene que ser rápido y no volver a llamarla. */
+  void desalojado(K clave, V valor, long escrito);
+}
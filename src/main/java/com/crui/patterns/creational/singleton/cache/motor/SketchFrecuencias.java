@@ -0,0 +1,83 @@
+package com.crui.patterns.creational.singleton.cache.motor;
+
+/**
+ * Estima cuántas veces se pidió cada clave con contadores de 4 bits (un count-min sketch). Cuando
+ * se anotaron diez veces más pedidos que contadores, todos se dividen por dos: lo que fue popular
+ * hace mucho va perdiendo peso.
+ *
+ * <p>No es thread-safe: se usa con el candado de {@link MotorCache} tomado.
+ *
+ * <p>Es el mismo sketch que {@code FrequencySketch} del ejemplo de middleware, copiado a
+ * propósito: cada ejemplo se lee y se compila solo, sin depender del otro. A diferencia de aquel,
+ * {@link #anotar} devuelve la frecuencia, que usan las claves más pedidas.
+ */
+class SketchFrecuencias {
+  private static final long MASCARA_MITAD = 0x7777_7777_7777_7777L;
+  private static final long[] SEMILLAS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+
+  private final long[] tabla;
+  private final int mascara;
+  private final int muestra;
+  private int anotados;
+  private int reinicios;
+
+  SketchFrecuencias(long clavesEsperadas) {
+    int tamanio = (int) Math.min(1 << 24, Math.max(16, clavesEsperadas));
+    tamanio = Integer.highestOneBit(tamanio - 1) << 1;
+    this.tabla = new long[tamanio];
+    this.mascara = tamanio - 1;
+    this.muestra = 10 * tamanio;
+  }
+
+  /** El mínimo de los cuatro contadores de la clave, de 0 a 15. */
+  int frecuencia(int hash) {
+    int minimo = 15;
+    for (int i = 0; i < 4; i++) {
+      minimo = Math.min(minimo, (int) ((tabla[indice(hash, i)] >>> desplazamiento(hash, i)) & 0xF));
+    }
+    return minimo;
+  }
+
+  /** Suma un pedido de la clave y devuelve su frecuencia ya contándolo. */
+  int anotar(int hash) {
+    boolean sumo = false;
+    int minimo = 15;
+    for (int i = 0; i < 4; i++) {
+      int indice = indice(hash, i);
+      int desplazamiento = desplazamiento(hash, i);
+      int contador = (int) ((tabla[indice] >>> desplazamiento) & 0xF);
+      if (contador != 0xF) {
+        tabla[indice] += 1L << desplazamiento;
+        contador++;
+        sumo = true;
+      }
+      minimo = Math.min(minimo, contador);
+    }
+    if (sumo && ++anotados == muestra) {
+      for (int i = 0; i < tabla.length; i++) {
+        tabla[i] = (tabla[i] >>> 1) & MASCARA_MITAD;
+      }
+      anotados /= 2;
+      reinicios++;
+      minimo /= 2;
+    }
+    return minimo;
+  }
+
+  /** Cuántas veces se dividieron los contadores por dos. */
+  int getReinicios() {
+    return reinicios;
+  }
+
+  private int indice(int hash, int i) {
+    long h = (hash + SEMILLAS[i]) * SEMILLAS[i];
+    return (int) (h ^ (h >>> 32)) & mascara;
+  }
+
+  // cada long guarda 16 contadores; cada función de hash usa uno distinto
+  private int desplazamiento(int hash, int i) {
+    return (((hash >>> (i << 3)) & 3) << 2 | i) << 2;
+  }
+}
@@ -0,0 +1,6 @@
+package com.crui.patterns.creational.singleton.cache.motor;
+
+/** Recibe cada entrada de un recorrido junto con la hora en que se escribió (según el reloj). */
+public interface VisitanteEntrada<K, V> {
+  void visitar(K clave, V valor, long escrito);
+}
@@ -0,0 +1,187 @@
+package com.crui.patterns.creational.singleton.cache.offheap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongSupplier;
+
+import com.crui.patterns.creational.singleton.cache.motor.VisitanteEntrada;
+
+/**
+ * Segundo nivel de la caché, fuera del heap: las claves y valores se guardan como UTF-8 en slabs
+ * (buffers directos o un archivo mapeado) y el índice es una tabla de {@code long}s también fuera
+ * del heap. Así el heap no crece con la cantidad de entradas y el GC no tiene nada que recorrer.
+ *
+ * <p>Está partido en segmentos con candados propios para que los hilos no compitan entre sí. Cuando
+ * se llena, cada segmento desaloja con el algoritmo del reloj. Una entrada que se lee por segunda
+ * vez se considera caliente: sale de acá y se le pasa al {@link Promotor} para que vuelva al heap.
+ */
+public class AlmacenOffHeap implements AutoCloseable {
+  // casilleros que se recorren por cada vez que se toma el candado de un segmento
+  private static final int TRAMO = 4096;
+
+  private final Segmento[] segmentos;
+  private final long ttlNanos;
+  private final LongSupplier reloj;
+  private final FileChannel archivo;
+  private volatile Promotor promotor = (clave, valor, escrito) -> {};
+
+  /** Con buffers directos. */
+  public AlmacenOffHeap(long capacidadBytes, long ttlNanos, LongSupplier reloj) {
+    this(capacidadBytes, null, ttlNanos, reloj);
+  }
+
+  /**
+   * @param archivo si no es null, los slabs se mapean de este archivo (se crea si no existe y se
+   *     pisa lo que tenga) en vez de pedirse como memoria directa
+   */
+  public AlmacenOffHeap(long capacidadBytes, Path archivo, long ttlNanos, LongSupplier reloj) {
+    long paginas = Math.max(1, capacidadBytes / Slabs.PAGINA);
+    // al menos 16 páginas por segmento, para que cada clase de tamaño tenga dónde crecer
+    int cantidad = (int) Math.min(16, Math.max(1, paginas / 16));
+    cantidad = Integer.highestOneBit(cantidad);
+    int paginasPorSegmento = (int) Math.min(Integer.MAX_VALUE / 2, paginas / cantidad);
+    this.ttlNanos = ttlNanos;
+    this.reloj = reloj;
+    this.archivo = archivo == null ? null : abrir(archivo);
+    this.segmentos = new Segmento[cantidad];
+    for (int i = 0; i < cantidad; i++) {
+      long base = (long) i * paginasPorSegmento * Slabs.PAGINA;
+      segmentos[i] = new Segmento(paginasPorSegmento, this.archivo, base);
+    }
+  }
+
+  public void setPromotor(Promotor promotor) {
+    this.promotor = promotor;
+  }
+
+  public String get(String clave) {
+    int hash = hash(clave);
+    Segmento segmento = segmento(hash);
+    String valor;
+    boolean promover;
+    long escrito;
+    segmento.candado.lock();
+    try {
+      valor = segmento.leer(clave, hash, reloj.getAsLong(), ttlNanos);
+      promover = segmento.promover;
+      escrito = segmento.escrito;
+    } finally {
+      segmento.candado.unlock();
+    }
+    // fuera del candado: el promotor puede terminar desalojando algo hacia acá
+    if (promover) {
+      promotor.promover(clave, valor, escrito);
+    }
+    return valor;
+  }
+
+  /**
+   * Guarda la entrada con la hora en que se escribió originalmente, para que el TTL siga contando
+   * desde ahí.
+   *
+   * @return false si no entra en un chunk y no se guardó
+   */
+  public boolean set(String clave, String valor, long escrito) {
+    int hash = hash(clave);
+    Segmento segmento = segmento(hash);
+    segmento.candado.lock();
+    try {
+      return segmento.guardar(clave, valor, hash, escrito);
+    } finally {
+      segmento.candado.unlock();
+    }
+  }
+
+  public void invalidar(String clave) {
+    int hash = hash(clave);
+    Segmento segmento = segmento(hash);
+    segmento.candado.lock();
+    try {
+      segmento.invalidar(clave, hash);
+    } finally {
+      segmento.candado.unlock();
+    }
+  }
+
+  /**
+   * Recorre las entradas (incluidas las vencidas que todavía no se quitaron). Cada segmento se
+   * bloquea de a tramos cortos, así las lecturas y escrituras siguen mientras tanto; el precio es
+   * que una entrada que se mueve durante el recorrido puede verse dos veces o ninguna.
+   */
+  public void recorrer(VisitanteEntrada<String, String> visitante) {
+    for (Segmento segmento : segmentos) {
+      for (int desde = 0; ; desde += TRAMO) {
+        segmento.candado.lock();
+        try {
+          if (desde >= segmento.getCasilleros()) {
+            break;
+          }
+          segmento.recorrer(desde, desde + TRAMO, visitante);
+        } finally {
+          segmento.candado.unlock();
+        }
+      }
+    }
+  }
+
+  /** Cantidad de entradas guardadas. */
+  public long tamanio() {
+    long total = 0;
+    for (Segmento segmento : segmentos) {
+      segmento.candado.lock();
+      try {
+        total += segmento.tamanio();
+      } finally {
+        segmento.candado.unlock();
+      }
+    }
+    return total;
+  }
+
+  /** Memoria fuera del heap pedida hasta ahora, contando el índice. */
+  public long getBytesReservados() {
+    long total = 0;
+    for (Segmento segmento : segmentos) {
+      segmento.candado.lock();
+      try {
+        total += segmento.getBytesReservados();
+      } finally {
+        segmento.candado.unlock();
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Cierra el archivo, si hay. Los buffers se liberan cuando el GC junta los objetos que los
+   * envuelven; después de cerrar no hay que usar el almacén.
+   */
+  @Override
+  public void close() throws IOException {
+    if (archivo != null) {
+      archivo.close();
+    }
+  }
+
+  private Segmento segmento(int hash) {
+    // los bits altos eligen el segmento; los bajos, el casillero dentro de él
+    return segmentos[(hash >>> 28) & (segmentos.length - 1)];
+  }
+
+  private static int hash(String clave) {
+    int h = clave.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private static FileChannel abrir(Path archivo) {
+    try {
+      return FileChannel.open(
+          archivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
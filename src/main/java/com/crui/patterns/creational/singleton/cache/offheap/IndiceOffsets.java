@@ -0,0 +1,92 @@
+package com.crui.patterns.creational.singleton.cache.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Tabla hash con direccionamiento abierto (sondeo lineal) guardada fuera del heap. Cada casillero
+ * es un {@code long} con la dirección del chunk y 22 bits del hash de la clave, para descartar
+ * casi todas las colisiones sin ir a leer la clave. No es thread-safe.
+ */
+final class IndiceOffsets {
+  static final long VACIO = 0;
+  static final long BORRADO = 1;
+  private static final long OCUPADO = 1L << 62;
+  private static final long DIRECCION = (1L << 40) - 1;
+  private static final int MAXIMO = 1 << 27;
+
+  private final LongBuffer tabla;
+  private final int mascara;
+  private int vivos;
+  private int borrados;
+
+  IndiceOffsets(int casilleros) {
+    int tamanio = Integer.highestOneBit(Math.max(16, Math.min(MAXIMO, casilleros)) - 1) << 1;
+    this.tabla = ByteBuffer.allocateDirect(tamanio * Long.BYTES).asLongBuffer();
+    this.mascara = tamanio - 1;
+  }
+
+  static long entrada(int hash, long direccion) {
+    return OCUPADO | (long) etiqueta(hash) << 40 | direccion;
+  }
+
+  static long direccion(long entrada) {
+    return entrada & DIRECCION;
+  }
+
+  /** Si la entrada puede ser de esa clave; si da true hay que comparar la clave igual. */
+  static boolean puedeSer(long entrada, int hash) {
+    return (entrada & OCUPADO) != 0 && (int) (entrada >>> 40 & 0x3FFFFF) == etiqueta(hash);
+  }
+
+  int inicio(int hash) {
+    return hash & mascara;
+  }
+
+  int siguiente(int casillero) {
+    return (casillero + 1) & mascara;
+  }
+
+  long get(int casillero) {
+    return tabla.get(casillero);
+  }
+
+  void poner(int casillero, long entrada) {
+    long anterior = tabla.get(casillero);
+    if (anterior == BORRADO) {
+      borrados--;
+    }
+    if (anterior == VACIO || anterior == BORRADO) {
+      vivos++;
+    }
+    tabla.put(casillero, entrada);
+  }
+
+  void borrar(int casillero) {
+    // si el siguiente está vacío no hace falta la lápida: ningún sondeo pasa por acá
+    if (tabla.get(siguiente(casillero)) == VACIO) {
+      tabla.put(casillero, VACIO);
+    } else {
+      tabla.put(casillero, BORRADO);
+      borrados++;
+    }
+    vivos--;
+  }
+
+  int getVivos() {
+    return vivos;
+  }
+
+  int getCasilleros() {
+    return mascara + 1;
+  }
+
+  /** Pasado el 75% (contando lápidas) los sondeos se alargan: hay que rehacer la tabla. */
+  boolean estaLlena() {
+    return vivos + borrados > (mascara + 1) / 4 * 3 && mascara + 1 < MAXIMO;
+  }
+
+  private static int etiqueta(int hash) {
+    return hash >>> 10;
+  }
+}
@@ -0,0 +1,6 @@
+package com.crui.patterns.creational.singleton.cache.offheap;
+
+/** Recibe las entradas que se leyeron dos veces en el {@link AlmacenOffHeap} y salen de él. */
+public interface Promotor {
+  void promover(String clave, String valor, long escrito);
+}
@@ -0,0 +1,259 @@
+package com.crui.patterns.creational.singleton.cache.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.crui.patterns.creational.singleton.cache.motor.VisitanteEntrada;
+
+/**
+ * Una parte del {@link AlmacenOffHeap}, con su propio candado, índice y slabs. Las claves y los
+ * valores se guardan en UTF-8; para codificarlos usa arreglos propios, así que leer o escribir no
+ * crea más objetos que el {@code String} que se devuelve.
+ *
+ * <p>Todos los métodos se llaman con {@link #candado} tomado.
+ */
+final class Segmento {
+  final ReentrantLock candado = new ReentrantLock();
+  private final Slabs slabs;
+  private IndiceOffsets indice = new IndiceOffsets(1024);
+  // la clave y el valor en UTF-8; se reutilizan entre llamadas
+  private byte[] clave = new byte[256];
+  private int largoClave;
+  private byte[] valor = new byte[1024];
+  private int largoValor;
+
+  // lo que dejó la última lectura, para que el almacén decida si la promueve
+  boolean promover;
+  long escrito;
+
+  Segmento(int paginas, FileChannel archivo, long base) {
+    this.slabs = new Slabs(paginas, archivo, base, this::desalojado);
+  }
+
+  /**
+   * @return el valor, o null si no está o venció. Si es la segunda lectura desde que se guardó,
+   *     la entrada sale de este nivel y queda {@link #promover} en true.
+   */
+  String leer(String buscada, int hash, long ahora, long ttlNanos) {
+    promover = false;
+    codificarClave(buscada);
+    int casillero = buscar(hash);
+    if (casillero < 0) {
+      return null;
+    }
+    long direccion = IndiceOffsets.direccion(indice.get(casillero));
+    ByteBuffer slab = slabs.slab(direccion);
+    int offset = slabs.offset(direccion);
+    escrito = slab.getLong(offset + Slabs.ESCRITO);
+    if (ttlNanos > 0 && ahora - escrito >= ttlNanos) {
+      quitar(casillero, direccion);
+      return null;
+    }
+    String leido = leerValor(slab, offset);
+    if (slab.get(offset + Slabs.REFERENCIADO) != 0) {
+      promover = true;
+      quitar(casillero, direccion);
+    } else {
+      slab.put(offset + Slabs.REFERENCIADO, (byte) 1);
+    }
+    return leido;
+  }
+
+  /** @return false si la entrada es más grande que el chunk más grande y no se guardó */
+  boolean guardar(String nueva, String contenido, int hash, long ahora) {
+    codificarClave(nueva);
+    codificarValor(contenido);
+    int casillero = buscar(hash);
+    if (casillero >= 0) {
+      quitar(casillero, IndiceOffsets.direccion(indice.get(casillero)));
+    }
+    int tamanio = Slabs.CABECERA + largoClave + largoValor;
+    if (tamanio > Slabs.maximo() || indice.getVivos() >= indice.getCasilleros() / 8 * 7) {
+      return false;
+    }
+    long direccion = slabs.reservar(tamanio);
+    slabs.cabecera(direccion, hash, ahora, largoClave, largoValor);
+    ByteBuffer slab = slabs.slab(direccion);
+    slab.position(slabs.offset(direccion) + Slabs.CABECERA);
+    slab.put(clave, 0, largoClave).put(valor, 0, largoValor);
+    if (indice.estaLlena()) {
+      agrandar();
+    }
+    casillero = indice.inicio(hash);
+    while (indice.get(casillero) != IndiceOffsets.VACIO
+        && indice.get(casillero) != IndiceOffsets.BORRADO) {
+      casillero = indice.siguiente(casillero);
+    }
+    indice.poner(casillero, IndiceOffsets.entrada(hash, direccion));
+    return true;
+  }
+
+  void invalidar(String vieja, int hash) {
+    codificarClave(vieja);
+    int casillero = buscar(hash);
+    if (casillero >= 0) {
+      quitar(casillero, IndiceOffsets.direccion(indice.get(casillero)));
+    }
+  }
+
+  /**
+   * Visita las entradas de los casilleros {@code [desde, hasta)}; si el índice se agrandó desde
+   * la última llamada, algunas se pueden ver dos veces o ninguna.
+   */
+  void recorrer(int desde, int hasta, VisitanteEntrada<String, String> visitante) {
+    for (int casillero = desde; casillero < Math.min(hasta, indice.getCasilleros()); casillero++) {
+      long entrada = indice.get(casillero);
+      if (entrada == IndiceOffsets.VACIO || entrada == IndiceOffsets.BORRADO) {
+        continue;
+      }
+      long direccion = IndiceOffsets.direccion(entrada);
+      ByteBuffer slab = slabs.slab(direccion);
+      int offset = slabs.offset(direccion);
+      int largo = slab.getInt(offset + Slabs.LARGO_CLAVE);
+      byte[] bytes = new byte[largo];
+      slab.position(offset + Slabs.CABECERA);
+      slab.get(bytes);
+      String clave = new String(bytes, StandardCharsets.UTF_8);
+      visitante.visitar(clave, leerValor(slab, offset), slab.getLong(offset + Slabs.ESCRITO));
+    }
+  }
+
+  int getCasilleros() {
+    return indice.getCasilleros();
+  }
+
+  int tamanio() {
+    return indice.getVivos();
+  }
+
+  long getBytesReservados() {
+    return slabs.getBytesReservados() + indice.getCasilleros() * (long) Long.BYTES;
+  }
+
+  /** El casillero de la clave que está codificada en {@link #clave}, o -1. */
+  private int buscar(int hash) {
+    for (int casillero = indice.inicio(hash); ; casillero = indice.siguiente(casillero)) {
+      long entrada = indice.get(casillero);
+      if (entrada == IndiceOffsets.VACIO) {
+        return -1;
+      }
+      if (IndiceOffsets.puedeSer(entrada, hash) && mismaClave(IndiceOffsets.direccion(entrada))) {
+        return casillero;
+      }
+    }
+  }
+
+  private boolean mismaClave(long direccion) {
+    ByteBuffer slab = slabs.slab(direccion);
+    int offset = slabs.offset(direccion);
+    if (slab.getInt(offset + Slabs.LARGO_CLAVE) != largoClave) {
+      return false;
+    }
+    int desde = offset + Slabs.CABECERA;
+    for (int i = 0; i < largoClave; i++) {
+      if (slab.get(desde + i) != clave[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void quitar(int casillero, long direccion) {
+    indice.borrar(casillero);
+    slabs.liberar(direccion);
+  }
+
+  /** Los slabs van a reciclar este chunk: se saca del índice. */
+  private void desalojado(long direccion) {
+    int hash = slabs.slab(direccion).getInt(slabs.offset(direccion) + Slabs.HASH);
+    for (int casillero = indice.inicio(hash); ; casillero = indice.siguiente(casillero)) {
+      long entrada = indice.get(casillero);
+      if (entrada == IndiceOffsets.VACIO) {
+        return;
+      }
+      if ((entrada & ~1L) != 0 && IndiceOffsets.direccion(entrada) == direccion) {
+        indice.borrar(casillero);
+        return;
+      }
+    }
+  }
+
+  /** Rehace el índice con el doble de lugar; el hash sale de la cabecera de cada chunk. */
+  private void agrandar() {
+    IndiceOffsets viejo = indice;
+    boolean hayLapidas = viejo.getVivos() < viejo.getCasilleros() / 2;
+    indice = new IndiceOffsets(viejo.getCasilleros() * (hayLapidas ? 1 : 2));
+    for (int i = 0; i < viejo.getCasilleros(); i++) {
+      long entrada = viejo.get(i);
+      if (entrada == IndiceOffsets.VACIO || entrada == IndiceOffsets.BORRADO) {
+        continue;
+      }
+      long direccion = IndiceOffsets.direccion(entrada);
+      int hash = slabs.slab(direccion).getInt(slabs.offset(direccion) + Slabs.HASH);
+      int casillero = indice.inicio(hash);
+      while (indice.get(casillero) != IndiceOffsets.VACIO) {
+        casillero = indice.siguiente(casillero);
+      }
+      indice.poner(casillero, entrada);
+    }
+  }
+
+  private String leerValor(ByteBuffer slab, int offset) {
+    int largo = slab.getInt(offset + Slabs.LARGO_VALOR);
+    if (valor.length < largo) {
+      valor = new byte[largo];
+    }
+    slab.position(offset + Slabs.CABECERA + slab.getInt(offset + Slabs.LARGO_CLAVE));
+    slab.get(valor, 0, largo);
+    return new String(valor, 0, largo, StandardCharsets.UTF_8);
+  }
+
+  private void codificarClave(String texto) {
+    if (clave.length < texto.length() * 3) {
+      clave = new byte[texto.length() * 3];
+    }
+    largoClave = utf8(texto, clave);
+  }
+
+  private void codificarValor(String texto) {
+    if (valor.length < texto.length() * 3) {
+      valor = new byte[texto.length() * 3];
+    }
+    largoValor = utf8(texto, valor);
+  }
+
+  /**
+   * Codifica a mano para no crear un {@code byte[]} por llamada; {@code destino} tiene que tener
+   * tres bytes por carácter. Los surrogates sueltos quedan como '?', igual que en {@code
+   * getBytes}.
+   */
+  private static int utf8(String texto, byte[] destino) {
+    int escritos = 0;
+    for (int i = 0; i < texto.length(); i++) {
+      char c = texto.charAt(i);
+      if (c < 0x80) {
+        destino[escritos++] = (byte) c;
+      } else if (c < 0x800) {
+        destino[escritos++] = (byte) (0xC0 | c >> 6);
+        destino[escritos++] = (byte) (0x80 | c & 0x3F);
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < texto.length()
+          && Character.isLowSurrogate(texto.charAt(i + 1))) {
+        int punto = Character.toCodePoint(c, texto.charAt(++i));
+        destino[escritos++] = (byte) (0xF0 | punto >> 18);
+        destino[escritos++] = (byte) (0x80 | punto >> 12 & 0x3F);
+        destino[escritos++] = (byte) (0x80 | punto >> 6 & 0x3F);
+        destino[escritos++] = (byte) (0x80 | punto & 0x3F);
+      } else if (Character.isSurrogate(c)) {
+        destino[escritos++] = '?';
+      } else {
+        destino[escritos++] = (byte) (0xE0 | c >> 12);
+        destino[escritos++] = (byte) (0x80 | c >> 6 & 0x3F);
+        destino[escritos++] = (byte) (0x80 | c & 0x3F);
+      }
+    }
+    return escritos;
+  }
+}
@@ -0,0 +1,287 @@
+package com.crui.patterns.creational.singleton.cache.offheap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Reparte memoria fuera del heap en pedazos (chunks), al estilo de memcached. La memoria se pide
+ * en slabs grandes (buffers directos o regiones de un archivo mapeado) que se cortan en páginas de
+ * 1 MB; cada página se asigna a una clase de tamaño y se corta en chunks de ese tamaño.
+ *
+ * <p>Una dirección es el byte donde empieza el chunk contando desde el principio del segmento.
+ * Los chunks libres se encadenan usando sus propios bytes, así que llevar la cuenta no ocupa heap.
+ *
+ * <p>Cuando no queda memoria se desaloja dentro de la misma clase con el algoritmo del reloj
+ * (segunda oportunidad según el bit de referencia del chunk); si la clase no tiene ninguna
+ * página se le saca una entera a la clase que más tiene. No es thread-safe.
+ */
+final class Slabs {
+  static final int PAGINA = 1 << 20;
+  // formato del chunk: estado, bit de referencia, hash de la clave, hora de escritura, largos
+  static final int ESTADO = 0;
+  static final int REFERENCIADO = 1;
+  static final int HASH = 4;
+  static final int ESCRITO = 8;
+  static final int LARGO_CLAVE = 16;
+  static final int LARGO_VALOR = 20;
+  static final int CABECERA = 24;
+  // en un chunk libre, dónde está la dirección del siguiente libre
+  private static final int SIGUIENTE_LIBRE = 8;
+  private static final byte LIBRE = 0;
+  private static final byte USADO = 1;
+  private static final long NINGUNO = -1;
+  private static final int[] TAMANIOS = tamanios();
+
+  private final ByteBuffer[] slabs;
+  private final int paginasPorSlab;
+  private final int slabBytes;
+  private final int totalPaginas;
+  private final FileChannel archivo;
+  private final long base;
+  private final LongConsumer alDesalojar;
+  private final byte[] claseDePagina;
+  private final int[] paginasSueltas;
+  private int cantidadSueltas;
+  private int paginasNuevas;
+
+  private final long[] primerLibre = new long[TAMANIOS.length];
+  private final int[][] paginas = new int[TAMANIOS.length][];
+  private final int[] cantidadPaginas = new int[TAMANIOS.length];
+  private final int[] paginaCortando = new int[TAMANIOS.length];
+  private final int[] proximoCorte = new int[TAMANIOS.length];
+  private final int[] manecillaPagina = new int[TAMANIOS.length];
+  private final int[] manecillaChunk = new int[TAMANIOS.length];
+
+  /**
+   * @param archivo si no es null, los slabs son regiones de este archivo a partir de {@code base}
+   * @param alDesalojar recibe la dirección de cada chunk usado que se recicla, para sacarlo del
+   *     índice antes de que se pise
+   */
+  Slabs(int totalPaginas, FileChannel archivo, long base, LongConsumer alDesalojar) {
+    this.totalPaginas = totalPaginas;
+    this.paginasPorSlab = Math.min(totalPaginas, 64);
+    this.slabBytes = paginasPorSlab * PAGINA;
+    this.slabs = new ByteBuffer[(totalPaginas + paginasPorSlab - 1) / paginasPorSlab];
+    this.archivo = archivo;
+    this.base = base;
+    this.alDesalojar = alDesalojar;
+    this.claseDePagina = new byte[totalPaginas];
+    this.paginasSueltas = new int[totalPaginas];
+    Arrays.fill(claseDePagina, (byte) -1);
+    Arrays.fill(primerLibre, NINGUNO);
+    Arrays.fill(paginaCortando, -1);
+    for (int i = 0; i < TAMANIOS.length; i++) {
+      paginas[i] = new int[4];
+    }
+  }
+
+  /** El chunk más grande que se puede pedir. */
+  static int maximo() {
+    return TAMANIOS[TAMANIOS.length - 1];
+  }
+
+  /**
+   * @return la dirección de un chunk de al menos {@code tamanio} bytes, o -1 si no entra en
+   *     ninguna clase. Puede desalojar otros chunks para hacer lugar.
+   */
+  long reservar(int tamanio) {
+    int clase = clase(tamanio);
+    if (clase < 0) {
+      return NINGUNO;
+    }
+    long direccion = primerLibre[clase];
+    if (direccion != NINGUNO) {
+      primerLibre[clase] = slab(direccion).getLong(offset(direccion) + SIGUIENTE_LIBRE);
+      return direccion;
+    }
+    if (paginaCortando[clase] < 0 || proximoCorte[clase] + TAMANIOS[clase] > PAGINA) {
+      int pagina = paginaSuelta();
+      if (pagina < 0 && cantidadPaginas[clase] > 0) {
+        return reloj(clase);
+      }
+      if (pagina < 0) {
+        pagina = robarPagina(clase);
+      }
+      asignar(pagina, clase);
+    }
+    direccion = (long) paginaCortando[clase] * PAGINA + proximoCorte[clase];
+    proximoCorte[clase] += TAMANIOS[clase];
+    return direccion;
+  }
+
+  /** Devuelve el chunk a la lista de libres de su clase. */
+  void liberar(long direccion) {
+    ByteBuffer slab = slab(direccion);
+    int offset = offset(direccion);
+    int clase = claseDePagina[(int) (direccion / PAGINA)];
+    slab.put(offset + ESTADO, LIBRE);
+    slab.putLong(offset + SIGUIENTE_LIBRE, primerLibre[clase]);
+    primerLibre[clase] = direccion;
+  }
+
+  /** Marca el chunk como usado y le escribe la cabecera. */
+  void cabecera(long direccion, int hash, long escrito, int largoClave, int largoValor) {
+    ByteBuffer slab = slab(direccion);
+    int offset = offset(direccion);
+    slab.put(offset + ESTADO, USADO);
+    slab.put(offset + REFERENCIADO, (byte) 0);
+    slab.putInt(offset + HASH, hash);
+    slab.putLong(offset + ESCRITO, escrito);
+    slab.putInt(offset + LARGO_CLAVE, largoClave);
+    slab.putInt(offset + LARGO_VALOR, largoValor);
+  }
+
+  ByteBuffer slab(long direccion) {
+    int indice = (int) (direccion / slabBytes);
+    ByteBuffer slab = slabs[indice];
+    if (slab == null) {
+      slab = crearSlab(indice);
+      slabs[indice] = slab;
+    }
+    return slab;
+  }
+
+  int offset(long direccion) {
+    return (int) (direccion % slabBytes);
+  }
+
+  /** Bytes de slab pedidos hasta ahora. */
+  long getBytesReservados() {
+    long total = 0;
+    for (int i = 0; i < slabs.length; i++) {
+      if (slabs[i] != null) {
+        total += slabs[i].capacity();
+      }
+    }
+    return total;
+  }
+
+  /** Recorre los chunks de la clase y recicla el primero que no se usó desde la última vuelta. */
+  private long reloj(int clase) {
+    int porPagina = PAGINA / TAMANIOS[clase];
+    long pasos = 2L * cantidadPaginas[clase] * porPagina + 1;
+    for (long paso = 0; paso < pasos; paso++) {
+      if (manecillaChunk[clase] >= porPagina) {
+        manecillaChunk[clase] = 0;
+        manecillaPagina[clase]++;
+      }
+      if (manecillaPagina[clase] >= cantidadPaginas[clase]) {
+        manecillaPagina[clase] = 0;
+      }
+      int pagina = paginas[clase][manecillaPagina[clase]];
+      int corte = manecillaChunk[clase]++ * TAMANIOS[clase];
+      if (pagina == paginaCortando[clase] && corte >= proximoCorte[clase]) {
+        continue;
+      }
+      long direccion = (long) pagina * PAGINA + corte;
+      ByteBuffer slab = slab(direccion);
+      int offset = offset(direccion);
+      if (slab.get(offset + ESTADO) != USADO) {
+        continue;
+      }
+      if (slab.get(offset + REFERENCIADO) != 0) {
+        slab.put(offset + REFERENCIADO, (byte) 0);
+        continue;
+      }
+      alDesalojar.accept(direccion);
+      return direccion;
+    }
+    // sólo quedan chunks libres que no están en la lista; no debería pasar
+    throw new IllegalStateException("No hay chunks para reciclar en la clase " + clase);
+  }
+
+  /** Le saca una página a la clase que más tiene, desalojando lo que haya en ella. */
+  private int robarPagina(int clase) {
+    int duenia = -1;
+    for (int i = 0; i < TAMANIOS.length; i++) {
+      if (i != clase && (duenia < 0 || cantidadPaginas[i] > cantidadPaginas[duenia])) {
+        duenia = i;
+      }
+    }
+    int pagina = paginas[duenia][--cantidadPaginas[duenia]];
+    int porPagina = PAGINA / TAMANIOS[duenia];
+    int cortados =
+        pagina == paginaCortando[duenia] ? proximoCorte[duenia] / TAMANIOS[duenia] : porPagina;
+    for (int i = 0; i < cortados; i++) {
+      long direccion = (long) pagina * PAGINA + (long) i * TAMANIOS[duenia];
+      if (slab(direccion).get(offset(direccion) + ESTADO) == USADO) {
+        alDesalojar.accept(direccion);
+      }
+    }
+    // los libres de esa página dejan de ser de la clase
+    long anterior = NINGUNO;
+    for (long libre = primerLibre[duenia]; libre != NINGUNO; ) {
+      long siguiente = slab(libre).getLong(offset(libre) + SIGUIENTE_LIBRE);
+      if (libre / PAGINA == pagina) {
+        if (anterior == NINGUNO) {
+          primerLibre[duenia] = siguiente;
+        } else {
+          slab(anterior).putLong(offset(anterior) + SIGUIENTE_LIBRE, siguiente);
+        }
+      } else {
+        anterior = libre;
+      }
+      libre = siguiente;
+    }
+    if (pagina == paginaCortando[duenia]) {
+      paginaCortando[duenia] = -1;
+    }
+    manecillaPagina[duenia] = 0;
+    manecillaChunk[duenia] = 0;
+    return pagina;
+  }
+
+  private int paginaSuelta() {
+    if (cantidadSueltas > 0) {
+      return paginasSueltas[--cantidadSueltas];
+    }
+    return paginasNuevas < totalPaginas ? paginasNuevas++ : -1;
+  }
+
+  private void asignar(int pagina, int clase) {
+    claseDePagina[pagina] = (byte) clase;
+    if (cantidadPaginas[clase] == paginas[clase].length) {
+      paginas[clase] = Arrays.copyOf(paginas[clase], cantidadPaginas[clase] * 2);
+    }
+    paginas[clase][cantidadPaginas[clase]++] = pagina;
+    paginaCortando[clase] = pagina;
+    proximoCorte[clase] = 0;
+  }
+
+  private ByteBuffer crearSlab(int indice) {
+    int paginasEnSlab = Math.min(paginasPorSlab, totalPaginas - indice * paginasPorSlab);
+    int bytes = paginasEnSlab * PAGINA;
+    if (archivo == null) {
+      return ByteBuffer.allocateDirect(bytes);
+    }
+    try {
+      return archivo.map(FileChannel.MapMode.READ_WRITE, base + (long) indice * slabBytes, bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static int clase(int tamanio) {
+    for (int i = 0; i < TAMANIOS.length; i++) {
+      if (TAMANIOS[i] >= tamanio) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // de 64 bytes a una página, creciendo un 25% y alineados a 8
+  private static int[] tamanios() {
+    int[] tamanios = new int[64];
+    int cantidad = 0;
+    for (int tamanio = 64; tamanio < PAGINA / 2; tamanio = (tamanio * 5 / 4 + 7) & ~7) {
+      tamanios[cantidad++] = tamanio;
+    }
+    tamanios[cantidad++] = PAGINA;
+    return Arrays.copyOf(tamanios, cantidad);
+  }
+}
@@ -0,0 +1,7 @@
+package com.crui.patterns.creational.singleton.cache.snapshot;
+
+/** Recibe las entradas de un snapshot. Lo llaman varios hilos a la vez. */
+public interface ConsumidorSnapshot {
+  /** @param escrito cuándo se escribió la entrada, en epoch millis */
+  void entrada(byte nivel, String clave, String valor, long escrito);
+}
@@ -0,0 +1,138 @@
+package com.crui.patterns.creational.singleton.cache.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Escribe un snapshot en el formato de {@link FormatoSnapshot}. Escribe a un archivo temporal y
+ * recién al cerrar lo mueve al lugar definitivo, así quien restaura nunca ve uno a medio escribir
+ * y si algo falla queda el snapshot anterior.
+ */
+public class EscritorSnapshot implements Closeable {
+  private final Path archivo;
+  private final Path temporal;
+  private final FileChannel canal;
+  private final ByteBuffer cabecera = ByteBuffer.allocateDirect(FormatoSnapshot.CABECERA_BLOQUE);
+  private final CRC32C crc = new CRC32C();
+  private ByteBuffer bloque = ByteBuffer.allocateDirect(FormatoSnapshot.BLOQUE);
+  private long[] offsets = new long[64];
+  private int bloques;
+  private int cantidad;
+  private byte nivel;
+  private long entradas;
+  private boolean terminado;
+
+  public EscritorSnapshot(Path archivo) throws IOException {
+    this.archivo = archivo;
+    this.temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+    this.canal =
+        FileChannel.open(
+            temporal,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE);
+    ByteBuffer inicio = ByteBuffer.allocate(FormatoSnapshot.CABECERA);
+    inicio.putLong(FormatoSnapshot.MAGIA).putInt(FormatoSnapshot.VERSION);
+    inicio.putLong(System.currentTimeMillis()).flip();
+    escribir(inicio);
+  }
+
+  /**
+   * @param nivel a qué nivel de la caché pertenece la entrada; se guarda tal cual
+   * @param escrito cuándo se escribió, en epoch millis
+   */
+  public void agregar(byte nivel, String clave, String valor, long escrito) throws IOException {
+    byte[] bytesClave = clave.getBytes(StandardCharsets.UTF_8);
+    byte[] bytesValor = valor.getBytes(StandardCharsets.UTF_8);
+    int largo = FormatoSnapshot.CABECERA_ENTRADA + bytesClave.length + bytesValor.length;
+    if (cantidad > 0 && (nivel != this.nivel || bloque.remaining() < largo)) {
+      cerrarBloque();
+    }
+    if (bloque.capacity() < largo) {
+      // una entrada enorme va sola en un bloque a su medida
+      bloque = ByteBuffer.allocateDirect(largo);
+    }
+    this.nivel = nivel;
+    bloque.putInt(bytesClave.length).putInt(bytesValor.length).putLong(escrito);
+    bloque.put(bytesClave).put(bytesValor);
+    cantidad++;
+    entradas++;
+  }
+
+  public long getEntradas() {
+    return entradas;
+  }
+
+  /** Escribe lo pendiente y el índice, lo baja a disco y reemplaza el snapshot anterior. */
+  @Override
+  public void close() throws IOException {
+    if (terminado) {
+      return;
+    }
+    terminado = true;
+    try {
+      if (cantidad > 0) {
+        cerrarBloque();
+      }
+      ByteBuffer pie = ByteBuffer.allocate(bloques * Long.BYTES + FormatoSnapshot.PIE);
+      for (int i = 0; i < bloques; i++) {
+        pie.putLong(offsets[i]);
+      }
+      pie.putInt(bloques).putLong(FormatoSnapshot.MAGIA_FIN).flip();
+      escribir(pie);
+      canal.force(true);
+    } finally {
+      canal.close();
+    }
+    Files.move(
+        temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /** Cierra sin reemplazar nada, por ejemplo si el recorrido falló a la mitad. */
+  public void abandonar() throws IOException {
+    terminado = true;
+    canal.close();
+    Files.deleteIfExists(temporal);
+  }
+
+  private void cerrarBloque() throws IOException {
+    bloque.flip();
+    cabecera.clear();
+    cabecera.putInt(bloque.remaining()).putInt(cantidad).putInt(0).put(nivel);
+    // el CRC cubre largo, cantidad y nivel además de las entradas
+    cabecera.flip().limit(2 * Integer.BYTES);
+    crc.reset();
+    crc.update(cabecera);
+    crc.update(nivel);
+    crc.update(bloque);
+    bloque.rewind();
+    cabecera.limit(FormatoSnapshot.CABECERA_BLOQUE).putInt(2 * Integer.BYTES, (int) crc.getValue());
+    cabecera.rewind();
+    if (bloques == offsets.length) {
+      offsets = Arrays.copyOf(offsets, bloques * 2);
+    }
+    offsets[bloques++] = canal.position();
+    escribir(cabecera);
+    escribir(bloque);
+    if (bloque.capacity() > FormatoSnapshot.BLOQUE) {
+      bloque = ByteBuffer.allocateDirect(FormatoSnapshot.BLOQUE);
+    }
+    bloque.clear();
+    cantidad = 0;
+  }
+
+  private void escribir(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      canal.write(buffer);
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.crui.patterns.creational.singleton.cache.snapshot;
+
+/**
+ * El formato del archivo, todo en big-endian:
+ *
+ * <pre>
+ * cabecera: long MAGIA, int VERSION, long creado (epoch millis)
+ * bloques:  int largo, int cantidad, int crc32c, byte nivel, y {@code largo} bytes con
+ *           {@code cantidad} entradas de la forma
+ *           int largoClave, int largoValor, long escrito (epoch millis), clave, valor (UTF-8)
+ * índice:   long offset de cada bloque, int cantidad de bloques, long MAGIA_FIN
+ * </pre>
+ *
+ * El CRC es por bloque y cubre largo, cantidad, nivel y las entradas: un bloque dañado se
+ * saltea entero y se cargan los demás. El índice al final permite repartir los bloques entre
+ * varios hilos sin leer el archivo de corrido.
+ */
+final class FormatoSnapshot {
+  static final long MAGIA = 0x4341434845534E50L;
+  static final long MAGIA_FIN = 0x534E50454E444F4BL;
+  static final int VERSION = 2;
+  static final int CABECERA = Long.BYTES + Integer.BYTES + Long.BYTES;
+  static final int CABECERA_BLOQUE = 3 * Integer.BYTES + 1;
+  static final int CABECERA_ENTRADA = 2 * Integer.BYTES + Long.BYTES;
+  static final int PIE = Integer.BYTES + Long.BYTES;
+  // los bloques se cortan cuando pasan este tamaño
+  static final int BLOQUE = 1 << 20;
+
+  private FormatoSnapshot() {}
+}
@@ -0,0 +1,222 @@
+package com.crui.patterns.creational.singleton.cache.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32C;
+
+/**
+ * Carga un snapshot escrito por {@link EscritorSnapshot}. Lee el índice del final y reparte los
+ * bloques entre varios hilos. Los bloques se mapean en memoria de a tramos; de cada uno se
+ * verifica el CRC y recién entonces se pasan sus entradas al {@link ConsumidorSnapshot}.
+ */
+public final class LectorSnapshot {
+  private static final long TRAMO_MAXIMO = 256L << 20;
+
+  private LectorSnapshot() {}
+
+  /**
+   * @throws IOException si no se puede leer el archivo o no es un snapshot completo (por ejemplo
+   *     si no tiene el índice del final)
+   */
+  public static ResultadoCarga cargar(Path archivo, int hilos, ConsumidorSnapshot consumidor)
+      throws IOException {
+    try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+      long[] offsets = indice(canal);
+      long finBloques = canal.size() - FormatoSnapshot.PIE - (long) offsets.length * Long.BYTES;
+      int[] tramos = tramos(offsets, finBloques, hilos);
+      AtomicInteger siguiente = new AtomicInteger();
+      AtomicLong entradas = new AtomicLong();
+      AtomicInteger daniados = new AtomicInteger();
+      AtomicReference<Throwable> error = new AtomicReference<>();
+      Runnable tarea =
+          () -> {
+            CRC32C crc = new CRC32C();
+            try {
+              for (int t = siguiente.getAndIncrement();
+                  t + 1 < tramos.length && error.get() == null;
+                  t = siguiente.getAndIncrement()) {
+                long desde = offsets[tramos[t]];
+                long hasta = tramos[t + 1] < offsets.length ? offsets[tramos[t + 1]] : finBloques;
+                MappedByteBuffer mapeado =
+                    canal.map(FileChannel.MapMode.READ_ONLY, desde, hasta - desde);
+                for (int i = tramos[t]; i < tramos[t + 1]; i++) {
+                  long fin = i + 1 < offsets.length ? offsets[i + 1] : finBloques;
+                  mapeado.limit((int) (fin - desde)).position((int) (offsets[i] - desde));
+                  long leidas = bloque(mapeado, crc, consumidor);
+                  if (leidas < 0) {
+                    daniados.incrementAndGet();
+                  } else {
+                    entradas.addAndGet(leidas);
+                  }
+                }
+              }
+            } catch (IOException | RuntimeException | Error e) {
+              error.compareAndSet(null, e);
+            }
+          };
+      int cantidad = Math.max(1, Math.min(hilos, tramos.length - 1));
+      Thread[] trabajadores = new Thread[cantidad - 1];
+      for (int i = 0; i < trabajadores.length; i++) {
+        trabajadores[i] = new Thread(tarea, "snapshot-carga-" + i);
+        trabajadores[i].setDaemon(true);
+        trabajadores[i].start();
+      }
+      // el hilo que llama también trabaja
+      tarea.run();
+      for (Thread trabajador : trabajadores) {
+        try {
+          trabajador.join();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Carga interrumpida", e);
+        }
+      }
+      Throwable falla = error.get();
+      if (falla instanceof IOException) {
+        throw (IOException) falla;
+      }
+      if (falla instanceof RuntimeException) {
+        throw (RuntimeException) falla;
+      }
+      if (falla != null) {
+        throw (Error) falla;
+      }
+      return new ResultadoCarga(entradas.get(), offsets.length, daniados.get());
+    }
+  }
+
+  private static long[] indice(FileChannel canal) throws IOException {
+    long tamanio = canal.size();
+    if (tamanio < FormatoSnapshot.CABECERA + FormatoSnapshot.PIE) {
+      throw new IOException("Snapshot incompleto");
+    }
+    ByteBuffer cabecera = leer(canal, 0, FormatoSnapshot.CABECERA);
+    if (cabecera.getLong() != FormatoSnapshot.MAGIA
+        || cabecera.getInt() != FormatoSnapshot.VERSION) {
+      throw new IOException("No es un snapshot de la caché o es de otra versión");
+    }
+    ByteBuffer pie = leer(canal, tamanio - FormatoSnapshot.PIE, FormatoSnapshot.PIE);
+    int bloques = pie.getInt();
+    long inicioIndice = tamanio - FormatoSnapshot.PIE - (long) bloques * Long.BYTES;
+    if (pie.getLong() != FormatoSnapshot.MAGIA_FIN
+        || bloques < 0
+        || inicioIndice < FormatoSnapshot.CABECERA) {
+      throw new IOException("Snapshot sin índice");
+    }
+    ByteBuffer indice = leer(canal, inicioIndice, bloques * Long.BYTES);
+    long[] offsets = new long[bloques];
+    for (int i = 0; i < bloques; i++) {
+      offsets[i] = indice.getLong();
+      if (offsets[i] < FormatoSnapshot.CABECERA
+          || offsets[i] >= inicioIndice
+          || (i > 0 && offsets[i] <= offsets[i - 1])) {
+        throw new IOException("Índice dañado");
+      }
+    }
+    return offsets;
+  }
+
+  /**
+   * Agrupa los bloques en tramos contiguos que se mapean de una vez: unos cuatro por hilo para
+   * repartir bien el trabajo, pero nunca de más de {@link #TRAMO_MAXIMO} bytes.
+   *
+   * @return el primer bloque de cada tramo, y al final la cantidad de bloques
+   */
+  private static int[] tramos(long[] offsets, long finBloques, int hilos) {
+    if (offsets.length == 0) {
+      return new int[] {0};
+    }
+    long objetivo = (finBloques - offsets[0]) / (Math.max(1, hilos) * 4L) + 1;
+    objetivo = Math.min(TRAMO_MAXIMO, objetivo);
+    int[] tramos = new int[offsets.length + 1];
+    int cantidad = 0;
+    tramos[cantidad++] = 0;
+    for (int i = 1; i < offsets.length; i++) {
+      if (offsets[i] - offsets[tramos[cantidad - 1]] >= objetivo) {
+        tramos[cantidad++] = i;
+      }
+    }
+    tramos[cantidad++] = offsets.length;
+    return Arrays.copyOf(tramos, cantidad);
+  }
+
+  /**
+   * Lee el bloque que va de la posición al límite de {@code mapeado}.
+   *
+   * @return cuántas entradas tenía, o -1 si estaba dañado
+   */
+  private static long bloque(ByteBuffer mapeado, CRC32C crc, ConsumidorSnapshot consumidor) {
+    if (mapeado.remaining() < FormatoSnapshot.CABECERA_BLOQUE) {
+      return -1;
+    }
+    int comienzo = mapeado.position();
+    int largo = mapeado.getInt();
+    int cantidad = mapeado.getInt();
+    int esperado = mapeado.getInt();
+    byte nivel = mapeado.get();
+    if (largo != mapeado.remaining()) {
+      return -1;
+    }
+    int inicio = mapeado.position();
+    crc.reset();
+    crc.update(mapeado.position(comienzo).limit(comienzo + 2 * Integer.BYTES));
+    crc.update(nivel);
+    crc.update(mapeado.limit(inicio + largo).position(inicio));
+    if ((int) crc.getValue() != esperado) {
+      return -1;
+    }
+    // se valida todo el bloque antes de entregar nada, así un bloque dañado no queda a medias
+    mapeado.position(inicio);
+    int maximo = 0;
+    for (int i = 0; i < cantidad; i++) {
+      if (mapeado.remaining() < FormatoSnapshot.CABECERA_ENTRADA) {
+        return -1;
+      }
+      int largoClave = mapeado.getInt();
+      int largoValor = mapeado.getInt();
+      mapeado.getLong();
+      if (largoClave < 0
+          || largoValor < 0
+          || (long) largoClave + largoValor > mapeado.remaining()) {
+        return -1;
+      }
+      mapeado.position(mapeado.position() + largoClave + largoValor);
+      maximo = Math.max(maximo, Math.max(largoClave, largoValor));
+    }
+    if (cantidad < 0 || mapeado.hasRemaining()) {
+      return -1;
+    }
+    mapeado.position(inicio);
+    byte[] scratch = new byte[maximo];
+    for (int i = 0; i < cantidad; i++) {
+      int largoClave = mapeado.getInt();
+      int largoValor = mapeado.getInt();
+      long escrito = mapeado.getLong();
+      mapeado.get(scratch, 0, largoClave);
+      String clave = new String(scratch, 0, largoClave, StandardCharsets.UTF_8);
+      mapeado.get(scratch, 0, largoValor);
+      String valor = new String(scratch, 0, largoValor, StandardCharsets.UTF_8);
+      consumidor.entrada(nivel, clave, valor, escrito);
+    }
+    return cantidad;
+  }
+
+  private static ByteBuffer leer(FileChannel canal, long posicion, int largo) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(largo);
+    while (buffer.hasRemaining()) {
+      if (canal.read(buffer, posicion + buffer.position()) < 0) {
+        throw new IOException("Snapshot incompleto");
+      }
+    }
+    return buffer.flip();
+  }
+}
@@ -0,0 +1,38 @@
+package com.crui.patterns.creational.singleton.cache.snapshot;
+
+/** Qué se pudo cargar de un snapshot. */
+public class ResultadoCarga {
+  private final long entradas;
+  private final int bloques;
+  private final int bloquesDaniados;
+
+  ResultadoCarga(long entradas, int bloques, int bloquesDaniados) {
+    this.entradas = entradas;
+    this.bloques = bloques;
+    this.bloquesDaniados = bloquesDaniados;
+  }
+
+  public long getEntradas() {
+    return entradas;
+  }
+
+  public int getBloques() {
+    return bloques;
+  }
+
+  /** Bloques que no pasaron el CRC y se saltearon. */
+  public int getBloquesDaniados() {
+    return bloquesDaniados;
+  }
+
+  @Override
+  public String toString() {
+    return "ResultadoCarga [entradas="
+        + entradas
+        + ", bloques="
+        + bloques
+        + ", bloquesDaniados="
+        + bloquesDaniados
+        + "]";
+  }
+}
@@ -2,7 +2,10 @@ package com.crui.patterns.examples.dnd.after;
 
 import com.crui.patterns.examples.dnd.after.util.Dice;
 
-public abstract class Character {
+public abstract class Character implements Cloneable {
+  public static final int CRITICAL_CHANCE = 10;
+  public static final int CRITICAL_BONUS = 8;
+
   private String name;
   private String kind;
   private int baseAttack;
@@ -17,6 +20,15 @@ public abstract class Character {
     this.health = health;
   }
 
+  /** Reinicia el personaje con otros datos, para reutilizarlo en lugar de crear uno nuevo. */
+  public void reset(String name, String kind, int baseAttack, int baseDefense, int health) {
+    this.name = name;
+    this.kind = kind;
+    this.baseAttack = baseAttack;
+    this.baseDefense = baseDefense;
+    this.health = health;
+  }
+
   public String getName() {
     return name;
   }
@@ -45,6 +57,15 @@ public abstract class Character {
     this.health = health;
   }
 
+  /** Copia superficial: las armas y armaduras son inmutables, así que se pueden compartir. */
+  public Character copy() {
+    try {
+      return (Character) super.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   public int getAdditionalAttack(Character target) {
     return 0;
   }
@@ -62,8 +83,8 @@ public abstract class Character {
 
   public int hit(Character target) {
     int attack = getAttack() + getAdditionalAttack(target);
-    if (Dice.chance(10)) { // 10% critical hit
-      attack += 8;
+    if (Dice.chance(CRITICAL_CHANCE)) { // 10% critical hit
+      attack += CRITICAL_BONUS;
     }
     return target.takeDamage(this, attack);
   }
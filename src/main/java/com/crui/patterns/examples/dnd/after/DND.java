@@ -6,9 +6,12 @@ import com.crui.patterns.examples.dnd.after.enemy.Enemy;
 import com.crui.patterns.examples.dnd.after.enemy.EnemyFactory;
 import com.crui.patterns.examples.dnd.after.fight.Fight;
 import com.crui.patterns.examples.dnd.after.fight.FightFactory;
+import com.crui.patterns.examples.dnd.after.fight.FightSimulator;
+import com.crui.patterns.examples.dnd.after.util.AsyncFightListeners;
 import com.crui.patterns.examples.dnd.after.util.ConsoleView;
 import com.crui.patterns.examples.dnd.after.util.FightListeners;
 import com.crui.patterns.examples.dnd.after.util.MetricsCollector;
+import com.crui.patterns.examples.dnd.after.util.OverflowPolicy;
 
 /**
  * Programa inicial para refactorización con patrones de diseño.
@@ -16,20 +19,32 @@ import com.crui.patterns.examples.dnd.after.util.MetricsCollector;
  * <p>Ejecutar usando el comando:
  *
  * <p>mvn exec:java -Dexec.mainClass="com.oop.examples.patterns.dnd.DND"
+ *
+ * <p>Con argumentos ({@code <peleas> [semilla]}) corre una simulación en lote en paralelo y sólo
+ * imprime las métricas.
  */
 public class DND {
 
   public static void main(String[] args) {
+    if (args.length > 0) {
+      int fights = Integer.parseInt(args[0]);
+      long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+      System.out.println("Simulating " + fights + " fights with seed " + seed + "...");
+      new FightSimulator().simulate(fights, seed).printMetrics();
+      return;
+    }
 
-    ConsoleView consoleView = new ConsoleView();
+    // La consola es lenta: recibe los eventos en otro hilo para no frenar las peleas
+    AsyncFightListeners console =
+        new AsyncFightListeners(4096).register(new ConsoleView(), OverflowPolicy.BLOCK).start();
     MetricsCollector metricsCollector = new MetricsCollector();
-    FightListeners listeners = new FightListeners(List.of(consoleView, metricsCollector));
+    FightListeners listeners = new FightListeners(List.of(console, metricsCollector));
     System.out.println("Starting 100 fights...");
     for (int i = 0; i < 100; i++) {
       Fight fight = FightFactory.createFight(listeners);
       fight.run();
-      System.out.println("--------------------------------");
     }
+    console.close();
     metricsCollector.printMetrics();
   }
 }
@@ -5,6 +5,7 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import com.crui.patterns.examples.dnd.after.util.Dice;
+import com.crui.patterns.examples.dnd.after.util.RandomSource;
 
 public class EnemyFactory {
 
@@ -29,13 +30,25 @@ public class EnemyFactory {
     "Dragon"
   };
 
+  // Kinds.values() clona el arreglo en cada llamada
+  private static final Kinds[] KINDS = Kinds.values();
+
   public static Enemy createRandomEnemy() {
+    return createRandomEnemy((EnemyPool) null);
+  }
+
+  /** Como {@link #createRandomEnemy()}, pero reutiliza un enemigo del pool si hay alguno libre. */
+  public static Enemy createRandomEnemy(EnemyPool pool) {
     int baseAttack = Dice.range(10, 20);
     int baseDefense = Dice.range(10, 20);
     int health = Dice.range(100, 200);
-    Kinds kind = Kinds.values()[Dice.range(0, Kinds.values().length - 1)];
+    Kinds kind = KINDS[Dice.range(0, KINDS.length - 1)];
     String name = NAMES[Dice.range(0, NAMES.length - 1)];
-    Enemy enemy;
+    Enemy enemy = pool != null ? pool.take(kind) : null;
+    if (enemy != null) {
+      enemy.reset(name, kind.getKind(), baseAttack, baseDefense, health);
+      return enemy;
+    }
     switch (kind) {
       case GOBLIN:
         enemy = new Goblin(name, kind.getKind(), baseAttack, baseDefense, health);
@@ -53,6 +66,21 @@ public class EnemyFactory {
     return enemy;
   }
 
+  public static Enemy createRandomEnemy(RandomSource random) {
+    return Dice.with(random, EnemyFactory::createRandomEnemy);
+  }
+
+  public static List<Enemy> createRandomEnemies(int count, RandomSource random) {
+    return Dice.with(random, () -> createRandomEnemies(count));
+  }
+
+  /** Agrega {@code count} enemigos a {@code into}, reutilizando los del pool. */
+  public static void createRandomEnemies(int count, List<Enemy> into, EnemyPool pool) {
+    for (int i = 0; i < count; i++) {
+      into.add(createRandomEnemy(pool));
+    }
+  }
+
   public static List<Enemy> createRandomEnemies(int count) {
     return IntStream.range(0, count)
         .mapToObj(i -> createRandomEnemy())
@@ -0,0 +1,37 @@
+package com.crui.patterns.examples.dnd.after.enemy;
+
+import java.util.ArrayDeque;
+
+/**
+ * Enemigos que ya pelearon y se pueden reutilizar, separados por tipo. No es thread-safe: cada
+ * hilo usa el suyo (ver {@code FightPool}).
+ */
+public class EnemyPool {
+  private final ArrayDeque<Goblin> goblins = new ArrayDeque<>();
+  private final ArrayDeque<Orc> orcs = new ArrayDeque<>();
+  private final ArrayDeque<Dragon> dragons = new ArrayDeque<>();
+
+  /** Un enemigo libre de ese tipo, o {@code null} si no queda ninguno. */
+  Enemy take(Kinds kind) {
+    switch (kind) {
+      case GOBLIN:
+        return goblins.poll();
+      case ORC:
+        return orcs.poll();
+      case DRAGON:
+        return dragons.poll();
+      default:
+        return null;
+    }
+  }
+
+  public void release(Enemy enemy) {
+    if (enemy instanceof Goblin) {
+      goblins.push((Goblin) enemy);
+    } else if (enemy instanceof Orc) {
+      orcs.push((Orc) enemy);
+    } else if (enemy instanceof Dragon) {
+      dragons.push((Dragon) enemy);
+    }
+  }
+}
@@ -4,14 +4,18 @@ import com.crui.patterns.examples.dnd.after.Character;
 import com.crui.patterns.examples.dnd.after.util.Dice;
 
 public class Goblin extends Enemy {
+  public static final int BONUS = 1;
+  public static final int SURGE_CHANCE = 15;
+  public static final int SURGE_BONUS = 3;
+
   public Goblin(String name, String kind, int baseAttack, int baseDefense, int health) {
     super(name, kind, baseAttack, baseDefense, health);
   }
 
   public int getAdditionalAttack(Character target) {
-    int base = 1;
-    if (Dice.chance(15)) {
-      base += 3;
+    int base = BONUS;
+    if (Dice.chance(SURGE_CHANCE)) {
+      base += SURGE_BONUS;
     }
     return base;
   }
@@ -4,14 +4,18 @@ import com.crui.patterns.examples.dnd.after.Character;
 import com.crui.patterns.examples.dnd.after.util.Dice;
 
 public class Orc extends Enemy {
+  public static final int BONUS = 2;
+  public static final int SURGE_CHANCE = 20;
+  public static final int SURGE_BONUS = 5;
+
   public Orc(String name, String kind, int baseAttack, int baseDefense, int health) {
     super(name, kind, baseAttack, baseDefense, health);
   }
 
   public int getAdditionalAttack(Character target) {
-    int base = 2;
-    if (Dice.chance(20)) {
-      base += 5;
+    int base = BONUS;
+    if (Dice.chance(SURGE_CHANCE)) {
+      base += SURGE_BONUS;
     }
     return base;
   }
@@ -0,0 +1,201 @@
+package com.crui.patterns.examples.dnd.after.fight;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.crui.patterns.examples.dnd.after.Character;
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.enemy.Goblin;
+import com.crui.patterns.examples.dnd.after.enemy.Orc;
+import com.crui.patterns.examples.dnd.after.hero.Hero;
+import com.crui.patterns.examples.dnd.after.util.RandomSource;
+
+/**
+ * Batallas grandes (decenas de miles o millones de enemigos) con las mismas reglas que {@link
+ * Fight}. En lugar de objetos, los enemigos son columnas de arreglos primitivos (vida, ataque,
+ * defensa, tipo) y un bitset con los que siguen vivos. Los bonus que no dependen de los dados se
+ * calculan una vez al armar la batalla.
+ *
+ * <p>Con la misma secuencia de dados da exactamente el mismo resultado que {@link Fight}: las
+ * tiradas se hacen en el mismo orden.
+ */
+public class Battle {
+  private static final byte FIXED = 0;
+  private static final byte GOBLIN = 1;
+  private static final byte ORC = 2;
+
+  private Hero hero;
+  private int heroHealth;
+  private int[] heroAttack;
+  private int[] heroGuard;
+
+  private int[] health;
+  private int[] attack;
+  private int[] guard;
+  private int[] bonus;
+  private byte[] kind;
+  private long[] alive;
+  private int aliveCount;
+  private int size;
+
+  private int firstAlive;
+  private int round = 1;
+  private RandomSource random;
+
+  /** Arma la batalla de una pelea que todavía no corrió, con su misma secuencia de dados. */
+  public static Battle of(Fight fight) {
+    return of(fight.getHero(), fight.getEnemies(), fight.getRandom());
+  }
+
+  public static Battle of(Hero hero, List<Enemy> enemies, RandomSource random) {
+    Battle battle = new Battle(hero, enemies.size(), random);
+    for (Enemy enemy : enemies) {
+      battle.add(enemy);
+    }
+    return battle;
+  }
+
+  /**
+   * Batalla vacía para hasta {@code capacity} enemigos. Para batallas enormes conviene ir creando
+   * los enemigos de a uno con {@link #add(Enemy)} y descartarlos, en lugar de armar una lista.
+   */
+  public Battle(Hero hero, int capacity, RandomSource random) {
+    this.hero = hero;
+    this.heroHealth = hero.getHealth();
+    this.heroAttack = new int[capacity];
+    this.heroGuard = new int[capacity];
+    this.health = new int[capacity];
+    this.attack = new int[capacity];
+    this.guard = new int[capacity];
+    this.bonus = new int[capacity];
+    this.kind = new byte[capacity];
+    this.alive = new long[(capacity + 63) >>> 6];
+    this.random = random;
+  }
+
+  public void add(Enemy enemy) {
+    int i = size++;
+    heroAttack[i] = hero.getAttack() + hero.getAdditionalAttack(enemy);
+    heroGuard[i] = (hero.getDefense() + hero.getAdditionalDefense(enemy)) / 2;
+    health[i] = enemy.getHealth();
+    attack[i] = enemy.getAttack();
+    guard[i] = (enemy.getDefense() + enemy.getAdditionalDefense(hero)) / 2;
+    if (enemy instanceof Goblin) {
+      kind[i] = GOBLIN;
+    } else if (enemy instanceof Orc) {
+      kind[i] = ORC;
+    } else {
+      // el resto de los enemigos tiene un bonus fijo (el dragón, 4)
+      kind[i] = FIXED;
+      bonus[i] = enemy.getAdditionalAttack(hero);
+    }
+    if (health[i] > 0) {
+      alive[i >>> 6] |= 1L << i;
+      aliveCount++;
+    }
+  }
+
+  public void run() {
+    firstAlive = nextAlive(0);
+    while (round <= Fight.MAX_ROUNDS) {
+      round++;
+      heroAttacks();
+      enemiesAttack();
+      if (heroHealth == 0 || aliveCount == 0) {
+        break;
+      }
+    }
+  }
+
+  private void heroAttacks() {
+    int t = firstAlive;
+    if (t < 0) {
+      return;
+    }
+    int dealt = heroAttack[t];
+    if (random.nextInt(100) < Character.CRITICAL_CHANCE) {
+      dealt += Character.CRITICAL_BONUS;
+    }
+    health[t] = Math.max(0, health[t] - Math.max(1, Math.max(1, dealt) - guard[t]));
+    if (health[t] == 0) {
+      alive[t >>> 6] &= ~(1L << t);
+      aliveCount--;
+      // sólo muere el primero vivo, así que el próximo objetivo siempre está más adelante
+      firstAlive = nextAlive(t + 1);
+    }
+  }
+
+  private void enemiesAttack() {
+    int hp = heroHealth;
+    for (int w = firstAlive >>> 6; w < alive.length && hp > 0 && firstAlive >= 0; w++) {
+      long bits = alive[w];
+      while (bits != 0 && hp > 0) {
+        int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;
+        int dealt = attack[i] + bonusOf(i);
+        if (random.nextInt(100) < Character.CRITICAL_CHANCE) {
+          dealt += Character.CRITICAL_BONUS;
+        }
+        hp = Math.max(0, hp - Math.max(1, Math.max(1, dealt) - heroGuard[i]));
+      }
+    }
+    heroHealth = hp;
+  }
+
+  private int bonusOf(int i) {
+    switch (kind[i]) {
+      case GOBLIN:
+        return random.nextInt(100) < Goblin.SURGE_CHANCE
+            ? Goblin.BONUS + Goblin.SURGE_BONUS
+            : Goblin.BONUS;
+      case ORC:
+        return random.nextInt(100) < Orc.SURGE_CHANCE ? Orc.BONUS + Orc.SURGE_BONUS : Orc.BONUS;
+      default:
+        return bonus[i];
+    }
+  }
+
+  private int nextAlive(int from) {
+    int w = from >>> 6;
+    if (w >= alive.length) {
+      return -1;
+    }
+    long bits = alive[w] & (-1L << from);
+    while (bits == 0) {
+      if (++w == alive.length) {
+        return -1;
+      }
+      bits = alive[w];
+    }
+    return (w << 6) + Long.numberOfTrailingZeros(bits);
+  }
+
+  /** Igual que {@link Fight#getRound()}: una más que la última ronda jugada. */
+  public int getRound() {
+    return round;
+  }
+
+  public int getHeroHealth() {
+    return heroHealth;
+  }
+
+  public boolean isHeroAlive() {
+    return heroHealth > 0;
+  }
+
+  public int getEnemyCount() {
+    return size;
+  }
+
+  public int getAliveEnemies() {
+    return aliveCount;
+  }
+
+  public int getEnemyHealth(int i) {
+    return health[i];
+  }
+
+  public int[] getEnemyHealths() {
+    return Arrays.copyOf(health, size);
+  }
+}
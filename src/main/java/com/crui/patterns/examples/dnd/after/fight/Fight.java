@@ -4,7 +4,11 @@ import java.util.List;
 
 import com.crui.patterns.examples.dnd.after.enemy.Enemy;
 import com.crui.patterns.examples.dnd.after.hero.Hero;
+import com.crui.patterns.examples.dnd.after.util.Dice;
+import com.crui.patterns.examples.dnd.after.util.FightEventSink;
 import com.crui.patterns.examples.dnd.after.util.FightEventsListener;
+import com.crui.patterns.examples.dnd.after.util.FightListeners;
+import com.crui.patterns.examples.dnd.after.util.RandomSource;
 
 import java.util.ArrayList;
 
@@ -13,12 +17,32 @@ public class Fight {
   private List<Enemy> enemies;
   private int round = 1;
   private FightEventsListener listener;
-  private static final int MAX_ROUNDS = 100;
+  private RandomSource random;
+  private FightEventSink sink = FightEventSink.IGNORE;
+  private boolean finished;
+  static final int MAX_ROUNDS = 100;
+  private static final FightEventsListener SILENT = new FightListeners(List.of());
 
   public Fight(Hero hero, List<Enemy> enemies, FightEventsListener listener) {
+    this(hero, enemies, listener, Dice.current());
+  }
+
+  public Fight(Hero hero, List<Enemy> enemies, FightEventsListener listener, RandomSource random) {
     this.hero = hero;
     this.enemies = new ArrayList<>(enemies);
     this.listener = listener;
+    this.random = random;
+  }
+
+  void reset(Hero hero, List<Enemy> enemies, FightEventsListener listener, RandomSource random) {
+    this.hero = hero;
+    this.enemies.clear();
+    this.enemies.addAll(enemies);
+    this.listener = listener;
+    this.random = random;
+    this.sink = FightEventSink.IGNORE;
+    this.round = 1;
+    this.finished = false;
   }
 
   public Hero getHero() {
@@ -33,54 +57,122 @@ public class Fight {
     return round;
   }
 
-  public void run() {
-    listener.fightStarts();
-    listener.printStatus(this);
+  public RandomSource getRandom() {
+    return random;
+  }
 
-    boolean heroAlive = true;
-    boolean enemiesAlive = true;
-    while (round <= MAX_ROUNDS) {
-      listener.roundStarts(round++);
-
-      // Héroe ataca primero al primer enemigo vivo
-      Enemy target = firstAliveEnemy();
-      if (target != null) {
-        int dealt = hero.hit(target);
-        listener.heroHits(hero, target, dealt);
-        if (!target.isAlive()) {
-          listener.enemyDefeated(target);
-        }
-      }
+  /** Además del listener, manda cada evento como números a {@code sink}, sin crear objetos. */
+  public void setEventSink(FightEventSink sink) {
+    this.sink = sink;
+  }
+
+  /** Copia congelada de la pelea, con copias de los personajes, para leerla desde otro hilo. */
+  public Fight snapshot() {
+    List<Enemy> copies = new ArrayList<>(enemies.size());
+    for (Enemy e : enemies) {
+      copies.add((Enemy) e.copy());
+    }
+    Fight copy = new Fight((Hero) hero.copy(), copies, listener, random);
+    copy.round = round;
+    copy.finished = finished;
+    return copy;
+  }
+
+  public boolean isFinished() {
+    return finished;
+  }
 
-      // Enemigos atacan si viven
-      for (Enemy enemy : enemies) {
-        if (enemy.isAlive() && hero.isAlive()) {
-          int dealt = enemy.hit(hero);
-          listener.enemyHits(enemy, hero, dealt);
-        }
+  public void run() {
+    RandomSource previous = Dice.use(random);
+    try {
+      if (round == 1) {
+        listener.fightStarts();
+        sink.emit(FightEventSink.FIGHT_STARTS, round, FightEventSink.NONE, FightEventSink.NONE, 0);
+        listener.printStatus(this);
+        sink.emit(FightEventSink.PRINT_STATUS, round, FightEventSink.NONE, FightEventSink.NONE, 0);
       }
-      listener.printStatus(this);
-      heroAlive = hero.isAlive();
-      enemiesAlive = anyEnemyAlive();
-      if (!heroAlive) {
-        listener.heroDefeated(hero);
-        break;
+      while (!finished) {
+        playRound();
       }
-      if (!enemiesAlive) {
-        listener.enemiesDefeated(enemies);
-        break;
+      listener.printResult(this);
+      sink.emit(FightEventSink.PRINT_RESULT, round, FightEventSink.NONE, FightEventSink.NONE, 0);
+    } finally {
+      Dice.use(previous);
+    }
+  }
+
+  /**
+   * Juega en silencio (sin listener ni sink) hasta que la próxima ronda sea {@code nextRound}. Con
+   * la misma secuencia de dados, {@link #run()} después sigue igual que una pelea completa.
+   */
+  public void fastForward(int nextRound) {
+    FightEventsListener loud = listener;
+    FightEventSink loudSink = sink;
+    RandomSource previous = Dice.use(random);
+    listener = SILENT;
+    sink = FightEventSink.IGNORE;
+    try {
+      while (!finished && round < nextRound) {
+        playRound();
       }
+    } finally {
+      listener = loud;
+      sink = loudSink;
+      Dice.use(previous);
     }
-    listener.printResult(this);
   }
 
-  private boolean anyEnemyAlive() {
-    for (Enemy e : enemies) if (e.isAlive()) return true;
-    return false;
+  private void playRound() {
+    int current = round++;
+    listener.roundStarts(current);
+    sink.emit(FightEventSink.ROUND_STARTS, current, FightEventSink.NONE, FightEventSink.NONE, 0);
+
+    // Héroe ataca primero al primer enemigo vivo
+    int targetIndex = firstAliveEnemy();
+    if (targetIndex >= 0) {
+      Enemy target = enemies.get(targetIndex);
+      int dealt = hero.hit(target);
+      listener.heroHits(hero, target, dealt);
+      sink.emit(FightEventSink.HERO_HITS, current, FightEventSink.HERO, targetIndex + 1, dealt);
+      if (!target.isAlive()) {
+        listener.enemyDefeated(target);
+        sink.emit(
+            FightEventSink.ENEMY_DEFEATED, current, FightEventSink.HERO, targetIndex + 1, 0);
+      }
+    }
+
+    // Enemigos atacan si viven (índices en lugar de iterador: no crea objetos por ronda)
+    for (int i = 0; i < enemies.size(); i++) {
+      Enemy enemy = enemies.get(i);
+      if (enemy.isAlive() && hero.isAlive()) {
+        int dealt = enemy.hit(hero);
+        listener.enemyHits(enemy, hero, dealt);
+        sink.emit(FightEventSink.ENEMY_HITS, current, i + 1, FightEventSink.HERO, dealt);
+      }
+    }
+    listener.printStatus(this);
+    sink.emit(FightEventSink.PRINT_STATUS, current, FightEventSink.NONE, FightEventSink.NONE, 0);
+    if (!hero.isAlive()) {
+      listener.heroDefeated(hero);
+      sink.emit(
+          FightEventSink.HERO_DEFEATED, current, FightEventSink.NONE, FightEventSink.HERO, 0);
+      finished = true;
+    } else if (firstAliveEnemy() < 0) {
+      listener.enemiesDefeated(enemies);
+      sink.emit(
+          FightEventSink.ENEMIES_DEFEATED, current, FightEventSink.NONE, FightEventSink.NONE, 0);
+      finished = true;
+    } else if (round > MAX_ROUNDS) {
+      finished = true;
+    }
   }
 
-  private Enemy firstAliveEnemy() {
-    for (Enemy e : enemies) if (e.isAlive()) return e;
-    return null;
+  private int firstAliveEnemy() {
+    for (int i = 0; i < enemies.size(); i++) {
+      if (enemies.get(i).isAlive()) {
+        return i;
+      }
+    }
+    return -1;
   }
 }
@@ -0,0 +1,61 @@
+package com.crui.patterns.examples.dnd.after.fight;
+
+/** Resultado de {@link FightEstimator}: probabilidades de ganar, perder o empatar por ronda. */
+public class FightEstimate {
+  private final double[] wins;
+  private final double[] losses;
+  private final double timeout;
+
+  FightEstimate(double[] wins, double[] losses, double timeout) {
+    this.wins = wins;
+    this.losses = losses;
+    this.timeout = timeout;
+  }
+
+  public double getWinProbability() {
+    return sum(wins);
+  }
+
+  public double getLossProbability() {
+    return sum(losses);
+  }
+
+  /** Probabilidad de llegar al máximo de rondas con los dos bandos vivos. */
+  public double getTimeoutProbability() {
+    return timeout;
+  }
+
+  /** Probabilidad de que el héroe gane justo en la ronda {@code round}. */
+  public double getWinProbability(int round) {
+    return round < wins.length ? wins[round] : 0;
+  }
+
+  /** Probabilidad de que el héroe pierda justo en la ronda {@code round}. */
+  public double getLossProbability(int round) {
+    return round < losses.length ? losses[round] : 0;
+  }
+
+  /** Cantidad de rondas esperada, contando las peleas que llegan al máximo. */
+  public double getExpectedRounds() {
+    double expected = 0;
+    for (int round = 1; round < wins.length; round++) {
+      expected += round * (wins[round] + losses[round]);
+    }
+    return expected + (wins.length - 1) * timeout;
+  }
+
+  private static double sum(double[] values) {
+    double total = 0;
+    for (double value : values) {
+      total += value;
+    }
+    return total;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "FightEstimate [win=%.4f, loss=%.4f, timeout=%.4f, rounds=%.2f]",
+        getWinProbability(), getLossProbability(), timeout, getExpectedRounds());
+  }
+}
@@ -0,0 +1,213 @@
+package com.crui.patterns.examples.dnd.after.fight;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.crui.patterns.examples.dnd.after.Character;
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.enemy.Goblin;
+import com.crui.patterns.examples.dnd.after.enemy.Orc;
+import com.crui.patterns.examples.dnd.after.hero.Hero;
+
+/**
+ * Calcula la distribución exacta del resultado de una pelea sin tirar dados, con programación
+ * dinámica sobre los estados de vida. Sirve para barrer muchos parámetros de balance; la
+ * simulación ({@link FightSimulator}) queda como control.
+ *
+ * <p>El estado después de cada ronda es (enemigo al que ataca el héroe, vida de ese enemigo, vida
+ * del héroe): los enemigos anteriores están muertos y los siguientes todavía no recibieron daño.
+ * Por ronda, el héroe pega normal o crítico y la suma del daño de los enemigos vivos se precalcula
+ * como una distribución para cada posible primer enemigo vivo.
+ */
+public class FightEstimator {
+  private static final double CRITICAL = Character.CRITICAL_CHANCE / 100.0;
+  private static final long MAX_STATES = 50_000_000L;
+
+  private final int heroHealth;
+  private final int[] enemyHealth;
+  private final int[] heroHit;
+  private final int[] heroCriticalHit;
+  private final int[] nextAlive;
+  // enemiesDamage[i][k]: probabilidad de que los enemigos desde i en adelante hagan k de daño
+  private final double[][] enemiesDamage;
+
+  public FightEstimator(Hero hero, List<Enemy> enemies) {
+    int n = enemies.size();
+    this.heroHealth = hero.getHealth();
+    this.enemyHealth = new int[n];
+    this.heroHit = new int[n];
+    this.heroCriticalHit = new int[n];
+    this.nextAlive = new int[n + 1];
+    this.enemiesDamage = new double[n + 1][];
+
+    for (int i = 0; i < n; i++) {
+      Enemy enemy = enemies.get(i);
+      int attack = hero.getAttack() + hero.getAdditionalAttack(enemy);
+      int defense = enemy.getDefense() + enemy.getAdditionalDefense(hero);
+      enemyHealth[i] = enemy.getHealth();
+      heroHit[i] = mitigated(attack, defense);
+      heroCriticalHit[i] = mitigated(attack + Character.CRITICAL_BONUS, defense);
+    }
+    nextAlive[n] = n;
+    enemiesDamage[n] = new double[] {1.0};
+    for (int i = n - 1; i >= 0; i--) {
+      nextAlive[i] = enemyHealth[i] > 0 ? i : nextAlive[i + 1];
+      enemiesDamage[i] =
+          enemyHealth[i] > 0
+              ? convolve(enemiesDamage[i + 1], damageOf(enemies.get(i), hero))
+              : enemiesDamage[i + 1];
+    }
+  }
+
+  public static FightEstimate estimate(Hero hero, List<Enemy> enemies) {
+    return new FightEstimator(hero, enemies).estimate();
+  }
+
+  private static int mitigated(int attack, int defense) {
+    return Math.max(1, Math.max(1, attack) - (defense / 2));
+  }
+
+  /** Distribución del daño de un enemigo al héroe, con su bonus y el crítico. */
+  private static double[] damageOf(Enemy enemy, Hero hero) {
+    int defense = hero.getDefense() + hero.getAdditionalDefense(enemy);
+    double[] damage = new double[1];
+    if (enemy instanceof Goblin) {
+      double surge = Goblin.SURGE_CHANCE / 100.0;
+      damage = add(damage, enemy, Goblin.BONUS, 1 - surge, defense);
+      damage = add(damage, enemy, Goblin.BONUS + Goblin.SURGE_BONUS, surge, defense);
+    } else if (enemy instanceof Orc) {
+      double surge = Orc.SURGE_CHANCE / 100.0;
+      damage = add(damage, enemy, Orc.BONUS, 1 - surge, defense);
+      damage = add(damage, enemy, Orc.BONUS + Orc.SURGE_BONUS, surge, defense);
+    } else {
+      damage = add(damage, enemy, enemy.getAdditionalAttack(hero), 1, defense);
+    }
+    return damage;
+  }
+
+  private static double[] add(
+      double[] damage, Enemy enemy, int bonus, double probability, int defense) {
+    int attack = enemy.getAttack() + bonus;
+    int normal = mitigated(attack, defense);
+    int critical = mitigated(attack + Character.CRITICAL_BONUS, defense);
+    double[] result = damage.length > critical ? damage : Arrays.copyOf(damage, critical + 1);
+    result[normal] += probability * (1 - CRITICAL);
+    result[critical] += probability * CRITICAL;
+    return result;
+  }
+
+  private static double[] convolve(double[] a, double[] b) {
+    double[] result = new double[a.length + b.length - 1];
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] == 0) {
+        continue;
+      }
+      for (int j = 0; j < b.length; j++) {
+        result[i + j] += a[i] * b[j];
+      }
+    }
+    return result;
+  }
+
+  public FightEstimate estimate() {
+    double[] wins = new double[Fight.MAX_ROUNDS + 1];
+    double[] losses = new double[Fight.MAX_ROUNDS + 1];
+    int n = enemyHealth.length;
+    int first = nextAlive[0];
+    if (first == n) {
+      wins[1] = 1;
+      return new FightEstimate(wins, losses, 0);
+    }
+    if (heroHealth <= 0) {
+      losses[1] = 1;
+      return new FightEstimate(wins, losses, 0);
+    }
+
+    // Estados en un arreglo denso: [enemigo][vida del enemigo][vida del héroe]
+    int targetStride = (maxEnemyHealth() + 1) * (heroHealth + 1);
+    long cells = (long) n * targetStride;
+    if (cells > MAX_STATES) {
+      throw new IllegalArgumentException("fight too large to estimate: " + cells + " states");
+    }
+    double[] states = new double[(int) cells];
+    double[] next = new double[(int) cells];
+    states[first * targetStride + enemyHealth[first] * (heroHealth + 1) + heroHealth] = 1;
+
+    double alive = 1;
+    for (int round = 1; round <= Fight.MAX_ROUNDS && alive > 0; round++) {
+      for (int target = first; target < n; target++) {
+        for (int targetHealth = 1; targetHealth <= enemyHealth[target]; targetHealth++) {
+          int base = target * targetStride + targetHealth * (heroHealth + 1);
+          for (int hero = 1; hero <= heroHealth; hero++) {
+            double p = states[base + hero];
+            if (p == 0) {
+              continue;
+            }
+            states[base + hero] = 0;
+            int hit = targetHealth - heroHit[target];
+            int criticalHit = targetHealth - heroCriticalHit[target];
+            step(target, hit, hero, p * (1 - CRITICAL), round, wins, losses, next, targetStride);
+            step(target, criticalHit, hero, p * CRITICAL, round, wins, losses, next, targetStride);
+          }
+        }
+      }
+      double[] swap = states;
+      states = next;
+      next = swap;
+      alive = 1 - sum(wins) - sum(losses);
+    }
+    return new FightEstimate(wins, losses, Math.max(0, alive));
+  }
+
+  private int maxEnemyHealth() {
+    int max = 0;
+    for (int health : enemyHealth) {
+      max = Math.max(max, health);
+    }
+    return max;
+  }
+
+  private static double sum(double[] values) {
+    double total = 0;
+    for (double value : values) {
+      total += value;
+    }
+    return total;
+  }
+
+  private void step(
+      int target,
+      int targetHealth,
+      int hero,
+      double p,
+      int round,
+      double[] wins,
+      double[] losses,
+      double[] next,
+      int targetStride) {
+    if (p == 0) {
+      return;
+    }
+    if (targetHealth <= 0) {
+      target = nextAlive[target + 1];
+      if (target == enemyHealth.length) {
+        wins[round] += p;
+        return;
+      }
+      targetHealth = enemyHealth[target];
+    }
+    int base = target * targetStride + targetHealth * (heroHealth + 1);
+    double[] damage = enemiesDamage[target];
+    for (int d = 0; d < damage.length; d++) {
+      if (damage[d] == 0) {
+        continue;
+      }
+      int health = hero - d;
+      if (health <= 0) {
+        losses[round] += p * damage[d];
+      } else {
+        next[base + health] += p * damage[d];
+      }
+    }
+  }
+}
@@ -8,12 +8,48 @@ import com.crui.patterns.examples.dnd.after.hero.Hero;
 import com.crui.patterns.examples.dnd.after.hero.HeroFactory;
 import com.crui.patterns.examples.dnd.after.util.Dice;
 import com.crui.patterns.examples.dnd.after.util.FightEventsListener;
+import com.crui.patterns.examples.dnd.after.util.RandomSource;
+import com.crui.patterns.examples.dnd.after.util.SplittableRandomSource;
 
 public class FightFactory {
   public static Fight createFight(FightEventsListener listener) {
-    Hero hero = HeroFactory.createRandomHero();
-    List<Enemy> enemies = EnemyFactory.createRandomEnemies(Dice.range(1, 10));
+    return createFight(listener, Dice.current());
+  }
+
+  /** Crea una pelea reproducible: la misma semilla genera los mismos personajes y tiradas. */
+  public static Fight createFight(FightEventsListener listener, long seed) {
+    return createFight(listener, new SplittableRandomSource(seed));
+  }
+
+  /**
+   * Igual que {@link #createFight(FightEventsListener, RandomSource)} (mismas tiradas, mismos
+   * personajes), pero reutiliza la pelea y los personajes que se devolvieron al pool.
+   */
+  public static Fight createFight(
+      FightEventsListener listener, RandomSource random, FightPool pool) {
+    RandomSource previous = Dice.use(random);
+    try {
+      Hero hero = HeroFactory.createRandomHero(pool.getHeroes());
+      List<Enemy> enemies = pool.scratch();
+      EnemyFactory.createRandomEnemies(Dice.range(1, 10), enemies, pool.getEnemies());
+      Fight fight = pool.takeFight();
+      if (fight == null) {
+        return new Fight(hero, enemies, listener, random);
+      }
+      fight.reset(hero, enemies, listener, random);
+      return fight;
+    } finally {
+      Dice.use(previous);
+    }
+  }
 
-    return new Fight(hero, enemies, listener);
+  public static Fight createFight(FightEventsListener listener, RandomSource random) {
+    return Dice.with(
+        random,
+        () -> {
+          Hero hero = HeroFactory.createRandomHero();
+          List<Enemy> enemies = EnemyFactory.createRandomEnemies(Dice.range(1, 10));
+          return new Fight(hero, enemies, listener, random);
+        });
   }
 }
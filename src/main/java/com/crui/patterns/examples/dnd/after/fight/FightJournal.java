@@ -0,0 +1,210 @@
+package com.crui.patterns.examples.dnd.after.fight;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.crui.patterns.examples.dnd.after.Character;
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.util.FightEventSink;
+import com.crui.patterns.examples.dnd.after.util.FightEventsListener;
+
+/**
+ * Diario de peleas: archivo binario donde sólo se agregan registros. Por cada pelea guarda la
+ * semilla, las estadísticas iniciales de los personajes y, por ronda, la vida del héroe y la del
+ * enemigo al que atacó (el único que puede cambiar). Con eso {@link JournalEntry} puede repetir la
+ * pelea exacta.
+ *
+ * <p>Los registros se acumulan en un buffer y se escriben al {@link FileChannel} de a bloques. No
+ * es thread-safe: un diario por hilo.
+ */
+public class FightJournal implements FightEventSink, Closeable {
+  static final int MAGIC = 0x444E444A; // "DNDJ"
+  static final byte FIGHT = 1;
+  static final byte ROUND = 2;
+  static final byte END = 3;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  private Fight fight;
+  private int target;
+  private boolean playing;
+
+  private FightJournal(FileChannel channel) {
+    this.channel = channel;
+  }
+
+  /** Abre el diario para agregar peleas al final; si el archivo no existe lo crea. */
+  public static FightJournal open(Path path) throws IOException {
+    FileChannel channel =
+        FileChannel.open(
+            path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    FightJournal journal = new FightJournal(channel);
+    if (channel.size() == 0) {
+      journal.buffer.putInt(MAGIC);
+    }
+    return journal;
+  }
+
+  /**
+   * Crea la pelea de esa semilla, anota su estado inicial y la deja lista para correr. El diario
+   * recibe los eventos como {@link FightEventSink} de la pelea, sin pasar por los listeners.
+   */
+  public Fight createFight(long seed, FightEventsListener listener) {
+    Fight fight = FightFactory.createFight(listener, seed);
+    fight.setEventSink(this);
+    List<Enemy> enemies = fight.getEnemies();
+    this.fight = fight;
+    this.target = 0;
+    this.playing = false;
+    reserve(1 + 8 + 12 + 4);
+    buffer.put(FIGHT).putLong(seed);
+    putStats(fight.getHero());
+    buffer.putInt(enemies.size());
+    for (int i = 0; i < enemies.size(); i++) {
+      reserve(12);
+      putStats(enemies.get(i));
+    }
+    return fight;
+  }
+
+  private void putStats(Character character) {
+    buffer.putInt(character.getAttack());
+    buffer.putInt(character.getDefense());
+    buffer.putInt(character.getHealth());
+  }
+
+  @Override
+  public void emit(int type, int round, int attacker, int target, int damage) {
+    switch (type) {
+      case ROUND_STARTS:
+        playing = true;
+        break;
+      case HERO_HITS:
+        this.target = target - 1;
+        break;
+      case PRINT_STATUS:
+        if (playing) {
+          writeRound(round);
+        }
+        break;
+      case PRINT_RESULT:
+        reserve(1 + 4);
+        buffer.put(END).putInt(round - 1);
+        fight = null;
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void writeRound(int round) {
+    List<Enemy> enemies = fight.getEnemies();
+    reserve(1 + 4 + 4 + 4 + 4);
+    buffer.put(ROUND).putInt(round).putInt(fight.getHero().getHealth());
+    buffer.putInt(target).putInt(target < enemies.size() ? enemies.get(target).getHealth() : 0);
+  }
+
+  private void reserve(int bytes) {
+    if (buffer.remaining() < bytes) {
+      flush();
+    }
+  }
+
+  public void flush() {
+    buffer.flip();
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    buffer.clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    flush();
+    channel.close();
+  }
+
+  /**
+   * Lee todas las peleas completas del diario. Un registro cortado al final (un flush a medias o
+   * un crash) termina la lectura; lo que no tiene forma de diario es un {@link IOException}.
+   */
+  public static List<JournalEntry> read(Path path) throws IOException {
+    ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+    if (data.remaining() < 4 || data.getInt() != MAGIC) {
+      throw new IOException("not a fight journal: " + path);
+    }
+    List<JournalEntry> entries = new ArrayList<>();
+    JournalEntry current = null;
+    while (data.hasRemaining()) {
+      byte type = data.get();
+      switch (type) {
+        case FIGHT:
+          if (data.remaining() < 8 + 12 + 4) {
+            return entries;
+          }
+          long seed = data.getLong();
+          int[] hero = readStats(data);
+          int count = data.getInt();
+          if (count < 0) {
+            throw new IOException("corrupt fight journal, " + count + " enemies");
+          }
+          if (data.remaining() / 12 < count) {
+            return entries;
+          }
+          int[][] enemies = new int[count][];
+          for (int i = 0; i < enemies.length; i++) {
+            enemies[i] = readStats(data);
+          }
+          current = new JournalEntry(seed, hero, enemies);
+          break;
+        case ROUND:
+          if (data.remaining() < 4 + 4 + 4 + 4) {
+            return entries;
+          }
+          if (current == null) {
+            throw new IOException("corrupt fight journal, round outside a fight");
+          }
+          int round = data.getInt();
+          int heroHealth = data.getInt();
+          int target = data.getInt();
+          if (target < 0 || target >= current.getEnemyCount()) {
+            throw new IOException("corrupt fight journal, round targets enemy " + target);
+          }
+          current.addRound(round, heroHealth, target, data.getInt());
+          break;
+        case END:
+          if (data.remaining() < 4) {
+            return entries;
+          }
+          if (current == null) {
+            throw new IOException("corrupt fight journal, end outside a fight");
+          }
+          data.getInt();
+          entries.add(current);
+          current = null;
+          break;
+        default:
+          throw new IOException("corrupt fight journal, unknown record " + type);
+      }
+    }
+    return entries;
+  }
+
+  private static int[] readStats(ByteBuffer data) {
+    return new int[] {data.getInt(), data.getInt(), data.getInt()};
+  }
+}
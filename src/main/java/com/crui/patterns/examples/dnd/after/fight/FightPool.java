@@ -0,0 +1,54 @@
+package com.crui.patterns.examples.dnd.after.fight;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.enemy.EnemyPool;
+import com.crui.patterns.examples.dnd.after.hero.HeroPool;
+
+/**
+ * Peleas, héroes y enemigos para reutilizar en simulaciones en lote. Hay uno por hilo ({@link
+ * #current()}); después de {@link #release(Fight)} no hay que seguir usando la pelea ni sus
+ * personajes.
+ */
+public class FightPool {
+  private static final ThreadLocal<FightPool> current = ThreadLocal.withInitial(FightPool::new);
+
+  private final HeroPool heroes = new HeroPool();
+  private final EnemyPool enemies = new EnemyPool();
+  private final ArrayDeque<Fight> fights = new ArrayDeque<>();
+  private final List<Enemy> scratch = new ArrayList<>();
+
+  public static FightPool current() {
+    return current.get();
+  }
+
+  HeroPool getHeroes() {
+    return heroes;
+  }
+
+  EnemyPool getEnemies() {
+    return enemies;
+  }
+
+  /** Lista de trabajo para armar los enemigos de la próxima pelea. */
+  List<Enemy> scratch() {
+    scratch.clear();
+    return scratch;
+  }
+
+  Fight takeFight() {
+    return fights.poll();
+  }
+
+  public void release(Fight fight) {
+    heroes.release(fight.getHero());
+    List<Enemy> list = fight.getEnemies();
+    for (int i = 0; i < list.size(); i++) {
+      enemies.release(list.get(i));
+    }
+    fights.push(fight);
+  }
+}
@@ -0,0 +1,83 @@
+package com.crui.patterns.examples.dnd.after.fight;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+import com.crui.patterns.examples.dnd.after.util.MetricsCollector;
+import com.crui.patterns.examples.dnd.after.util.RandomSource;
+import com.crui.patterns.examples.dnd.after.util.SplittableRandomSource;
+
+/**
+ * Corre muchas peleas independientes repartidas entre todos los núcleos (fork/join).
+ *
+ * <p>Cada pelea usa una semilla derivada de la semilla del lote y de su índice, así que el
+ * resultado es el mismo sin importar cuántos hilos haya ni en qué orden se ejecuten.
+ */
+public class FightSimulator {
+  private static final int BATCH_SIZE = 256;
+
+  private ForkJoinPool pool;
+  private LongFunction<RandomSource> randomFactory;
+
+  public FightSimulator() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public FightSimulator(ForkJoinPool pool) {
+    this(pool, SplittableRandomSource::new);
+  }
+
+  public FightSimulator(ForkJoinPool pool, LongFunction<RandomSource> randomFactory) {
+    this.pool = pool;
+    this.randomFactory = randomFactory;
+  }
+
+  public MetricsCollector simulate(int fights, long seed) {
+    return pool.invoke(new Batch(seed, 0, fights));
+  }
+
+  static long seedFor(long seed, int index) {
+    // SplitMix64: semillas vecinas producen secuencias que no se parecen entre sí
+    long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  private class Batch extends RecursiveTask<MetricsCollector> {
+    private static final long serialVersionUID = 1L;
+
+    private long seed;
+    private int from;
+    private int to;
+
+    Batch(long seed, int from, int to) {
+      this.seed = seed;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected MetricsCollector compute() {
+      if (to - from <= BATCH_SIZE) {
+        MetricsCollector metrics = new MetricsCollector();
+        FightPool fights = FightPool.current();
+        for (int i = from; i < to; i++) {
+          RandomSource random = randomFactory.apply(seedFor(seed, i));
+          Fight fight = FightFactory.createFight(metrics, random, fights);
+          fight.run();
+          fights.release(fight);
+        }
+        return metrics;
+      }
+      int middle = (from + to) >>> 1;
+      Batch left = new Batch(seed, from, middle);
+      left.fork();
+      MetricsCollector right = new Batch(seed, middle, to).compute();
+      MetricsCollector metrics = left.join();
+      metrics.merge(right);
+      return metrics;
+    }
+  }
+}
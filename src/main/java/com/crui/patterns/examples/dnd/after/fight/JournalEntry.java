@@ -0,0 +1,95 @@
+package com.crui.patterns.examples.dnd.after.fight;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.crui.patterns.examples.dnd.after.Character;
+import com.crui.patterns.examples.dnd.after.util.FightEventsListener;
+
+/** Una pelea leída de un {@link FightJournal}: semilla, estado inicial y resultado por ronda. */
+public class JournalEntry {
+  private long seed;
+  private int[] heroStats;
+  private int[][] enemyStats;
+  private List<int[]> rounds = new ArrayList<>();
+  private int[] enemyHealths;
+
+  JournalEntry(long seed, int[] heroStats, int[][] enemyStats) {
+    this.seed = seed;
+    this.heroStats = heroStats;
+    this.enemyStats = enemyStats;
+    this.enemyHealths = new int[enemyStats.length];
+    for (int i = 0; i < enemyStats.length; i++) {
+      enemyHealths[i] = enemyStats[i][2];
+    }
+  }
+
+  void addRound(int round, int heroHealth, int target, int targetHealth) {
+    if (target < enemyHealths.length) {
+      enemyHealths[target] = targetHealth;
+    }
+    int[] row = new int[enemyHealths.length + 2];
+    row[0] = round;
+    row[1] = heroHealth;
+    System.arraycopy(enemyHealths, 0, row, 2, enemyHealths.length);
+    rounds.add(row);
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public int getEnemyCount() {
+    return enemyStats.length;
+  }
+
+  public int getRoundCount() {
+    return rounds.size();
+  }
+
+  /** Vida del héroe al terminar la ronda {@code round} (empezando en 1). */
+  public int getHeroHealth(int round) {
+    return rounds.get(round - 1)[1];
+  }
+
+  public int[] getEnemyHealths(int round) {
+    int[] row = rounds.get(round - 1);
+    return Arrays.copyOfRange(row, 2, row.length);
+  }
+
+  /** Vuelve a crear la pelea desde la semilla, sin correrla. */
+  public Fight recreate(FightEventsListener listener) {
+    Fight fight = FightFactory.createFight(listener, seed);
+    check(fight.getHero(), heroStats);
+    for (int i = 0; i < enemyStats.length; i++) {
+      check(fight.getEnemies().get(i), enemyStats[i]);
+    }
+    return fight;
+  }
+
+  private void check(Character character, int[] stats) {
+    if (character.getAttack() != stats[0]
+        || character.getDefense() != stats[1]
+        || character.getHealth() != stats[2]) {
+      throw new IllegalStateException(
+          "seed " + seed + " no longer creates the journaled characters");
+    }
+  }
+
+  /** Repite la pelea completa avisándole todo a {@code listener}. */
+  public Fight replay(FightEventsListener listener) {
+    return replayFrom(1, listener);
+  }
+
+  /**
+   * Avanza en silencio hasta la ronda {@code round} y desde ahí sigue avisándole a {@code
+   * listener}. Las rondas salteadas no llaman a ningún listener.
+   */
+  public Fight replayFrom(int round, FightEventsListener listener) {
+    Fight fight = recreate(listener);
+    fight.fastForward(round);
+    fight.run();
+    return fight;
+  }
+}
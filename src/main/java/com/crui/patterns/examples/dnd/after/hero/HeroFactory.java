@@ -1,6 +1,7 @@
 package com.crui.patterns.examples.dnd.after.hero;
 
 import com.crui.patterns.examples.dnd.after.util.Dice;
+import com.crui.patterns.examples.dnd.after.util.RandomSource;
 
 public class HeroFactory {
 
@@ -12,42 +13,72 @@ public class HeroFactory {
   static final int BASE = 10;
   static final int RANGE = 10;
 
+  private static final Kinds[] KINDS = Kinds.values();
+
+  // Armas y armaduras son inmutables: se crean una vez todas las combinaciones posibles
+  private static final Weapon[][] WEAPONS = new Weapon[WEAPON_TYPES.length][RANGE + 1];
+  private static final Armour[][] ARMOURS = new Armour[ARMOUR_TYPES.length][RANGE + 1];
+
+  static {
+    for (int type = 0; type < WEAPON_TYPES.length; type++) {
+      for (int bonus = 0; bonus <= RANGE; bonus++) {
+        WEAPONS[type][bonus] = new Weapon(WEAPON_TYPES[type], BASE / 2 + bonus);
+      }
+    }
+    for (int type = 0; type < ARMOUR_TYPES.length; type++) {
+      for (int bonus = 0; bonus <= RANGE; bonus++) {
+        ARMOURS[type][bonus] = new Armour(ARMOUR_TYPES[type], BASE / 2 + bonus);
+      }
+    }
+  }
+
   public static Hero createRandomHero() {
+    return createRandomHero((HeroPool) null);
+  }
+
+  /** Como {@link #createRandomHero()}, pero reutiliza un héroe del pool si hay alguno libre. */
+  public static Hero createRandomHero(HeroPool pool) {
     Weapon sword = createRandomWeapon();
     Armour leather = createRandomArmour();
 
     int baseAttack = Dice.range(10, 20);
     int baseDefense = Dice.range(BASE, BASE + RANGE);
     int health = Dice.range(BASE * 30, BASE * 30 + RANGE * 10);
-    Kinds kind = Kinds.values()[Dice.range(0, Kinds.values().length - 1)];
+    Kinds kind = KINDS[Dice.range(0, KINDS.length - 1)];
     String name = HERO_NAMES[Dice.range(0, HERO_NAMES.length - 1)];
 
-    Hero hero;
-    switch (kind) {
-      case WARRIOR:
-        hero = new Warrior(name, kind.getKind(), baseAttack, baseDefense, health);
-        break;
-      case ELF:
-        hero = new Elf(name, kind.getKind(), baseAttack, baseDefense, health);
-        break;
-      default:
-        hero = new Hero(name, kind.getKind(), baseAttack, baseDefense, health);
-        break;
+    Hero hero = pool != null ? pool.take(kind) : null;
+    if (hero != null) {
+      hero.reset(name, kind.getKind(), baseAttack, baseDefense, health);
+    } else {
+      switch (kind) {
+        case WARRIOR:
+          hero = new Warrior(name, kind.getKind(), baseAttack, baseDefense, health);
+          break;
+        case ELF:
+          hero = new Elf(name, kind.getKind(), baseAttack, baseDefense, health);
+          break;
+        default:
+          hero = new Hero(name, kind.getKind(), baseAttack, baseDefense, health);
+          break;
+      }
     }
     hero.setWeapon(sword);
     hero.setArmour(leather);
     return hero;
   }
 
+  public static Hero createRandomHero(RandomSource random) {
+    return Dice.with(random, HeroFactory::createRandomHero);
+  }
+
   private static Weapon createRandomWeapon() {
-    return new Weapon(
-        WEAPON_TYPES[Dice.range(0, WEAPON_TYPES.length - 1)],
-        Dice.range(BASE / 2, BASE / 2 + RANGE));
+    int type = Dice.range(0, WEAPON_TYPES.length - 1);
+    return WEAPONS[type][Dice.range(BASE / 2, BASE / 2 + RANGE) - BASE / 2];
   }
 
   private static Armour createRandomArmour() {
-    return new Armour(
-        ARMOUR_TYPES[Dice.range(0, ARMOUR_TYPES.length - 1)],
-        Dice.range(BASE / 2, BASE / 2 + RANGE));
+    int type = Dice.range(0, ARMOUR_TYPES.length - 1);
+    return ARMOURS[type][Dice.range(BASE / 2, BASE / 2 + RANGE) - BASE / 2];
   }
 }
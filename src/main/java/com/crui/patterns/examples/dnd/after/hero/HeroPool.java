@@ -0,0 +1,35 @@
+package com.crui.patterns.examples.dnd.after.hero;
+
+import java.util.ArrayDeque;
+
+/**
+ * Héroes que ya pelearon y se pueden reutilizar, separados por tipo. No es thread-safe: cada hilo
+ * usa el suyo (ver {@code FightPool}).
+ */
+public class HeroPool {
+  private final ArrayDeque<Warrior> warriors = new ArrayDeque<>();
+  private final ArrayDeque<Elf> elves = new ArrayDeque<>();
+  private final ArrayDeque<Hero> others = new ArrayDeque<>();
+
+  /** Un héroe libre de ese tipo, o {@code null} si no queda ninguno. */
+  Hero take(Kinds kind) {
+    switch (kind) {
+      case WARRIOR:
+        return warriors.poll();
+      case ELF:
+        return elves.poll();
+      default:
+        return others.poll();
+    }
+  }
+
+  public void release(Hero hero) {
+    if (hero instanceof Warrior) {
+      warriors.push((Warrior) hero);
+    } else if (hero instanceof Elf) {
+      elves.push((Elf) hero);
+    } else if (hero.getClass() == Hero.class) {
+      others.push(hero);
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package com.crui.patterns.examples.dnd.after.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.fight.Fight;
+import com.crui.patterns.examples.dnd.after.hero.Hero;
+
+/**
+ * Bus de eventos asíncrono para listeners lentos (consola, archivos). La pelea deja cada evento en
+ * un buffer acotado por listener y un hilo aparte se los entrega en lotes, así que la velocidad de
+ * la simulación no depende de la E/S.
+ *
+ * <p>El hilo consumidor puede ir atrasado, y para entonces los pools ya pudieron reutilizar un
+ * personaje con otro nombre. Por eso los eventos llevan copias de los personajes tomadas al
+ * publicarlos, y {@code printStatus} y {@code printResult} una copia congelada de la pelea.
+ */
+public class AsyncFightListeners implements FightEventsListener, AutoCloseable {
+  private static final int BATCH_SIZE = 256;
+
+  private final List<EventRing> rings = new ArrayList<>();
+  private final int capacity;
+  private final Thread consumer;
+  private volatile boolean running = true;
+  private boolean started;
+
+  public AsyncFightListeners(int capacity) {
+    this.capacity = capacity;
+    this.consumer = new Thread(this::consume, "fight-events");
+    this.consumer.setDaemon(true);
+  }
+
+  /** Registra un listener. Hay que registrarlos todos antes de la primera pelea. */
+  public AsyncFightListeners register(FightEventsListener listener, OverflowPolicy policy) {
+    if (consumer.isAlive()) {
+      throw new IllegalStateException("listeners must be registered before starting");
+    }
+    rings.add(new EventRing(capacity, listener, policy));
+    return this;
+  }
+
+  public AsyncFightListeners start() {
+    consumer.start();
+    started = true;
+    return this;
+  }
+
+  /** Eventos descartados por listeners con {@link OverflowPolicy#DROP}. */
+  public long getDropped() {
+    long dropped = 0;
+    for (EventRing ring : rings) {
+      dropped += ring.getDropped();
+    }
+    return dropped;
+  }
+
+  /** Eventos en los que el listener lanzó una excepción; el consumidor sigue con los demás. */
+  public long getFailed() {
+    long failed = 0;
+    for (EventRing ring : rings) {
+      failed += ring.getFailed();
+    }
+    return failed;
+  }
+
+  /** Espera a que todos los eventos publicados hasta ahora se hayan entregado. */
+  public void flush() {
+    for (EventRing ring : rings) {
+      while (!ring.isEmpty()) {
+        LockSupport.parkNanos(100_000);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (!started) {
+      // nadie va a vaciar los buffers: no hay nada que esperar
+      return;
+    }
+    flush();
+    running = false;
+    LockSupport.unpark(consumer);
+    try {
+      consumer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void consume() {
+    int idle = 0;
+    while (running) {
+      int delivered = 0;
+      for (EventRing ring : rings) {
+        delivered += ring.drain(BATCH_SIZE);
+      }
+      if (delivered > 0) {
+        idle = 0;
+      } else if (++idle > 100) {
+        LockSupport.parkNanos(50_000);
+      } else {
+        Thread.onSpinWait();
+      }
+    }
+  }
+
+  private void publish(
+      FightEvent.Type type,
+      int round,
+      Hero hero,
+      Enemy enemy,
+      int dealt,
+      List<Enemy> enemies,
+      Fight fight) {
+    for (EventRing ring : rings) {
+      ring.publish(type, round, hero, enemy, dealt, enemies, fight);
+    }
+  }
+
+  @Override
+  public void fightStarts() {
+    publish(FightEvent.Type.FIGHT_STARTS, 0, null, null, 0, null, null);
+  }
+
+  @Override
+  public void roundStarts(int round) {
+    publish(FightEvent.Type.ROUND_STARTS, round, null, null, 0, null, null);
+  }
+
+  @Override
+  public void heroHits(Hero hero, Enemy target, int dealt) {
+    publish(FightEvent.Type.HERO_HITS, 0, copy(hero), copy(target), dealt, null, null);
+  }
+
+  @Override
+  public void heroDefeated(Hero hero) {
+    publish(FightEvent.Type.HERO_DEFEATED, 0, copy(hero), null, 0, null, null);
+  }
+
+  @Override
+  public void enemyHits(Enemy enemy, Hero target, int dealt) {
+    publish(FightEvent.Type.ENEMY_HITS, 0, copy(target), copy(enemy), dealt, null, null);
+  }
+
+  @Override
+  public void enemyDefeated(Enemy enemy) {
+    publish(FightEvent.Type.ENEMY_DEFEATED, 0, null, copy(enemy), 0, null, null);
+  }
+
+  @Override
+  public void enemiesDefeated(List<Enemy> enemies) {
+    List<Enemy> copies = new ArrayList<>(enemies.size());
+    for (Enemy enemy : enemies) {
+      copies.add(copy(enemy));
+    }
+    publish(FightEvent.Type.ENEMIES_DEFEATED, 0, null, null, 0, copies, null);
+  }
+
+  @Override
+  public void printStatus(Fight fight) {
+    publish(FightEvent.Type.PRINT_STATUS, 0, null, null, 0, null, fight.snapshot());
+  }
+
+  @Override
+  public void printResult(Fight fight) {
+    publish(FightEvent.Type.PRINT_RESULT, 0, null, null, 0, null, fight.snapshot());
+  }
+
+  private static Hero copy(Hero hero) {
+    return (Hero) hero.copy();
+  }
+
+  private static Enemy copy(Enemy enemy) {
+    return (Enemy) enemy.copy();
+  }
+}
@@ -86,5 +86,6 @@ public class ConsoleView implements FightEventsListener {
                       .map(Enemy::getName)
                       .collect(Collectors.joining(", "))));
     }
+    System.out.println("--------------------------------");
   }
 }
@@ -1,21 +1,42 @@
 package com.crui.patterns.examples.dnd.after.util;
 
-import java.util.Random;
+import java.util.function.Supplier;
 
+/**
+ * Tiradas de dados. Cada hilo tiene su propio {@link RandomSource}; una pelea lo reemplaza por el
+ * suyo mientras corre, así que no hay estado compartido entre hilos y la pelea se puede repetir.
+ */
 public class Dice {
-  private static Dice instance;
-  private Random random;
+  private static final ThreadLocal<Dice> instance = ThreadLocal.withInitial(Dice::new);
+  private RandomSource random;
 
-  // Singleton
   private Dice() {
-    this.random = new Random();
+    this.random = new SplittableRandomSource();
   }
 
   static Dice getInstance() {
-    if (instance == null) {
-      instance = new Dice();
+    return instance.get();
+  }
+
+  public static RandomSource current() {
+    return getInstance().random;
+  }
+
+  /** Usa {@code random} en el hilo actual y devuelve la secuencia anterior para restaurarla. */
+  public static RandomSource use(RandomSource random) {
+    Dice dice = getInstance();
+    RandomSource previous = dice.random;
+    dice.random = random;
+    return previous;
+  }
+
+  public static <T> T with(RandomSource random, Supplier<T> action) {
+    RandomSource previous = use(random);
+    try {
+      return action.get();
+    } finally {
+      use(previous);
     }
-    return instance;
   }
 
   public static boolean chance(int percent) {
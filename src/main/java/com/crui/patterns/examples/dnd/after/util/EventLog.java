@@ -0,0 +1,117 @@
+package com.crui.patterns.examples.dnd.after.util;
+
+import java.util.List;
+
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.fight.Fight;
+import com.crui.patterns.examples.dnd.after.hero.Hero;
+
+/**
+ * Registro binario de eventos: cada evento ocupa dos {@code long} en un arreglo circular que se
+ * reutiliza, así que registrar no reserva memoria. Si se llena, se pisan los eventos más viejos.
+ *
+ * <p>Formato: {@code [daño:32 | ronda:24 | tipo:8]} y {@code [atacante:32 | objetivo:32]}. No es
+ * thread-safe: se usa uno por pelea (o por hilo, con {@link #clear()} entre peleas).
+ */
+public class EventLog implements FightEventSink {
+  private final long[] records;
+  private final int mask;
+  private long written;
+
+  /** @param capacity cantidad de eventos que entran, potencia de dos */
+  public EventLog(int capacity) {
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+    }
+    this.records = new long[capacity * 2];
+    this.mask = capacity - 1;
+  }
+
+  @Override
+  public void emit(int type, int round, int attacker, int target, int damage) {
+    int index = (int) (written++ & mask) << 1;
+    records[index] = (type & 0xFFL) | (round & 0xFFFFFFL) << 8 | (long) damage << 32;
+    records[index + 1] = (long) attacker << 32 | (target & 0xFFFFFFFFL);
+  }
+
+  public void clear() {
+    written = 0;
+  }
+
+  /** Eventos disponibles para leer (como mucho, la capacidad). */
+  public int size() {
+    return (int) Math.min(written, mask + 1);
+  }
+
+  /** Eventos que se pisaron por falta de lugar. */
+  public long getOverwritten() {
+    return written - size();
+  }
+
+  private int slot(int i) {
+    if (i < 0 || i >= size()) {
+      throw new IndexOutOfBoundsException("event " + i + " of " + size());
+    }
+    return (int) ((written - size() + i) & mask) << 1;
+  }
+
+  public int type(int i) {
+    return (int) (records[slot(i)] & 0xFF);
+  }
+
+  public int round(int i) {
+    return (int) (records[slot(i)] >>> 8 & 0xFFFFFF);
+  }
+
+  public int damage(int i) {
+    return (int) (records[slot(i)] >>> 32);
+  }
+
+  public int attacker(int i) {
+    return (int) (records[slot(i) + 1] >>> 32);
+  }
+
+  public int target(int i) {
+    return (int) records[slot(i) + 1];
+  }
+
+  /**
+   * Decodifica los eventos y se los pasa a un listener común, buscando los personajes en la pelea.
+   * {@code printStatus} y {@code printResult} reciben la pelea en su estado actual.
+   */
+  public void replay(Fight fight, FightEventsListener listener) {
+    Hero hero = fight.getHero();
+    List<Enemy> enemies = fight.getEnemies();
+    for (int i = 0; i < size(); i++) {
+      switch (type(i)) {
+        case FIGHT_STARTS:
+          listener.fightStarts();
+          break;
+        case ROUND_STARTS:
+          listener.roundStarts(round(i));
+          break;
+        case HERO_HITS:
+          listener.heroHits(hero, enemies.get(target(i) - 1), damage(i));
+          break;
+        case HERO_DEFEATED:
+          listener.heroDefeated(hero);
+          break;
+        case ENEMY_HITS:
+          listener.enemyHits(enemies.get(attacker(i) - 1), hero, damage(i));
+          break;
+        case ENEMY_DEFEATED:
+          listener.enemyDefeated(enemies.get(target(i) - 1));
+          break;
+        case ENEMIES_DEFEATED:
+          listener.enemiesDefeated(enemies);
+          break;
+        case PRINT_STATUS:
+          listener.printStatus(fight);
+          break;
+        default:
+          listener.printResult(fight);
+          break;
+      }
+    }
+  }
+}
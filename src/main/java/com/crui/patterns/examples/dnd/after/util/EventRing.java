@@ -0,0 +1,126 @@
+package com.crui.patterns.examples.dnd.after.util;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.fight.Fight;
+import com.crui.patterns.examples.dnd.after.hero.Hero;
+
+/**
+ * Buffer circular acotado al estilo Disruptor: los casilleros se crean una sola vez y cada uno
+ * tiene un número de secuencia que dice si está libre o publicado. Acepta varios productores (las
+ * peleas) y un único consumidor.
+ */
+class EventRing {
+  private final FightEvent[] slots;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private volatile long head;
+
+  private final FightEventsListener listener;
+  private final OverflowPolicy policy;
+
+  EventRing(int capacity, FightEventsListener listener, OverflowPolicy policy) {
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+    }
+    this.slots = new FightEvent[capacity];
+    this.sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      slots[i] = new FightEvent();
+      sequences.set(i, i);
+    }
+    this.mask = capacity - 1;
+    this.listener = listener;
+    this.policy = policy;
+  }
+
+  void publish(
+      FightEvent.Type type,
+      int round,
+      Hero hero,
+      Enemy enemy,
+      int dealt,
+      List<Enemy> enemies,
+      Fight fight) {
+    long position = claim();
+    if (position < 0) {
+      return;
+    }
+    int index = (int) position & mask;
+    slots[index].set(type, round, hero, enemy, dealt, enemies, fight);
+    sequences.lazySet(index, position + 1);
+  }
+
+  private long claim() {
+    int spins = 0;
+    while (true) {
+      long position = tail.get();
+      long sequence = sequences.get((int) position & mask);
+      if (sequence == position) {
+        if (tail.compareAndSet(position, position + 1)) {
+          return position;
+        }
+      } else if (sequence < position) {
+        // lleno
+        if (policy == OverflowPolicy.DROP) {
+          dropped.incrementAndGet();
+          return -1;
+        }
+        if (++spins > 100) {
+          LockSupport.parkNanos(1000);
+        } else {
+          Thread.onSpinWait();
+        }
+      }
+    }
+  }
+
+  /**
+   * Entrega hasta {@code max} eventos al listener. Sólo lo llama el hilo consumidor. Si el
+   * listener lanza, el evento se da por entregado y se sigue con el próximo: si el consumidor se
+   * cayera, los productores con {@link OverflowPolicy#BLOCK} esperarían para siempre.
+   */
+  int drain(int max) {
+    int count = 0;
+    while (count < max) {
+      int index = (int) head & mask;
+      if (sequences.get(index) != head + 1) {
+        break;
+      }
+      FightEvent event = slots[index];
+      try {
+        event.dispatchTo(listener);
+      } catch (RuntimeException e) {
+        if (failed.getAndIncrement() == 0) {
+          // se avisa la primera vez; las siguientes sólo se cuentan
+          System.err.println("Listener " + listener + " failed: " + e);
+        }
+      } finally {
+        event.clear();
+        sequences.lazySet(index, head + slots.length);
+        head++;
+      }
+      count++;
+    }
+    return count;
+  }
+
+  boolean isEmpty() {
+    return tail.get() == head;
+  }
+
+  long getDropped() {
+    return dropped.get();
+  }
+
+  long getFailed() {
+    return failed.get();
+  }
+}
@@ -0,0 +1,86 @@
+package com.crui.patterns.examples.dnd.after.util;
+
+import java.util.List;
+
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.fight.Fight;
+import com.crui.patterns.examples.dnd.after.hero.Hero;
+
+/** Casillero reutilizable del buffer de {@link AsyncFightListeners}. */
+class FightEvent {
+  enum Type {
+    FIGHT_STARTS,
+    ROUND_STARTS,
+    HERO_HITS,
+    HERO_DEFEATED,
+    ENEMY_HITS,
+    ENEMY_DEFEATED,
+    ENEMIES_DEFEATED,
+    PRINT_STATUS,
+    PRINT_RESULT
+  }
+
+  Type type;
+  int round;
+  int dealt;
+  Hero hero;
+  Enemy enemy;
+  List<Enemy> enemies;
+  Fight fight;
+
+  void set(
+      Type type,
+      int round,
+      Hero hero,
+      Enemy enemy,
+      int dealt,
+      List<Enemy> enemies,
+      Fight fight) {
+    this.type = type;
+    this.round = round;
+    this.hero = hero;
+    this.enemy = enemy;
+    this.dealt = dealt;
+    this.enemies = enemies;
+    this.fight = fight;
+  }
+
+  void dispatchTo(FightEventsListener listener) {
+    switch (type) {
+      case FIGHT_STARTS:
+        listener.fightStarts();
+        break;
+      case ROUND_STARTS:
+        listener.roundStarts(round);
+        break;
+      case HERO_HITS:
+        listener.heroHits(hero, enemy, dealt);
+        break;
+      case HERO_DEFEATED:
+        listener.heroDefeated(hero);
+        break;
+      case ENEMY_HITS:
+        listener.enemyHits(enemy, hero, dealt);
+        break;
+      case ENEMY_DEFEATED:
+        listener.enemyDefeated(enemy);
+        break;
+      case ENEMIES_DEFEATED:
+        listener.enemiesDefeated(enemies);
+        break;
+      case PRINT_STATUS:
+        listener.printStatus(fight);
+        break;
+      default:
+        listener.printResult(fight);
+        break;
+    }
+  }
+
+  void clear() {
+    hero = null;
+    enemy = null;
+    enemies = null;
+    fight = null;
+  }
+}
@@ -0,0 +1,25 @@
+package com.crui.patterns.examples.dnd.after.util;
+
+/**
+ * Recibe los eventos de una pelea como números, sin objetos de por medio. Los personajes se
+ * identifican por posición: {@link #HERO} es el héroe y el enemigo {@code i} de la pelea es
+ * {@code i + 1}.
+ */
+public interface FightEventSink {
+  int FIGHT_STARTS = 0;
+  int ROUND_STARTS = 1;
+  int HERO_HITS = 2;
+  int HERO_DEFEATED = 3;
+  int ENEMY_HITS = 4;
+  int ENEMY_DEFEATED = 5;
+  int ENEMIES_DEFEATED = 6;
+  int PRINT_STATUS = 7;
+  int PRINT_RESULT = 8;
+
+  int NONE = -1;
+  int HERO = 0;
+
+  FightEventSink IGNORE = (type, round, attacker, target, damage) -> {};
+
+  void emit(int type, int round, int attacker, int target, int damage);
+}
@@ -9,52 +9,72 @@ import com.crui.patterns.examples.dnd.after.hero.Hero;
 public class FightListeners implements FightEventsListener {
   private List<FightEventsListener> listeners;
 
+  // Los métodos recorren la lista por índice: un lambda que captura argumentos crearía un objeto
+  // por evento
   public FightListeners(List<FightEventsListener> listeners) {
     this.listeners = listeners;
   }
 
   @Override
   public void fightStarts() {
-    listeners.forEach(listener -> listener.fightStarts());
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).fightStarts();
+    }
   }
 
   @Override
   public void roundStarts(int round) {
-    listeners.forEach(listener -> listener.roundStarts(round));
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).roundStarts(round);
+    }
   }
 
   @Override
   public void heroHits(Hero hero, Enemy target, int dealt) {
-    listeners.forEach(listener -> listener.heroHits(hero, target, dealt));
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).heroHits(hero, target, dealt);
+    }
   }
 
   @Override
   public void heroDefeated(Hero hero) {
-    listeners.forEach(listener -> listener.heroDefeated(hero));
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).heroDefeated(hero);
+    }
   }
 
   @Override
   public void enemyHits(Enemy enemy, Hero target, int dealt) {
-    listeners.forEach(listener -> listener.enemyHits(enemy, target, dealt));
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).enemyHits(enemy, target, dealt);
+    }
   }
 
   @Override
   public void enemyDefeated(Enemy enemy) {
-    listeners.forEach(listener -> listener.enemyDefeated(enemy));
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).enemyDefeated(enemy);
+    }
   }
 
   @Override
   public void enemiesDefeated(List<Enemy> enemies) {
-    listeners.forEach(listener -> listener.enemiesDefeated(enemies));
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).enemiesDefeated(enemies);
+    }
   }
 
   @Override
   public void printStatus(Fight fight) {
-    listeners.forEach(listener -> listener.printStatus(fight));
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).printStatus(fight);
+    }
   }
 
   @Override
   public void printResult(Fight fight) {
-    listeners.forEach(listener -> listener.printResult(fight));
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).printResult(fight);
+    }
   }
 }
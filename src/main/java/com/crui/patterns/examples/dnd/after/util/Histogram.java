@@ -0,0 +1,136 @@
+package com.crui.patterns.examples.dnd.after.util;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma concurrente al estilo HDR: buckets exactos hasta 15 y, desde ahí, 8 sub-buckets por
+ * potencia de dos (error relativo menor al 12,5%). Cada bucket es un {@link LongAdder}, así que
+ * varios hilos pueden registrar valores sin pelearse por la misma celda.
+ */
+public class Histogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+  private static final int BUCKETS = LINEAR_LIMIT + (63 - 4) * SUB_BUCKETS;
+
+  private final LongAdder[] counts = new LongAdder[BUCKETS];
+  private final LongAdder total = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+  private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+  public Histogram() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  public void record(long value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("value must be >= 0: " + value);
+    }
+    counts[bucketOf(value)].increment();
+    total.increment();
+    sum.add(value);
+    min.accumulate(value);
+    max.accumulate(value);
+  }
+
+  public void merge(Histogram other) {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i].add(other.counts[i].sum());
+    }
+    total.add(other.total.sum());
+    sum.add(other.sum.sum());
+    min.accumulate(other.min.get());
+    max.accumulate(other.max.get());
+  }
+
+  /** Copia consistente "a grandes rasgos": no frena a los hilos que siguen registrando. */
+  public Snapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts[i].sum();
+    }
+    return new Snapshot(copy, total.sum(), sum.sum(), min.get(), max.get());
+  }
+
+  static int bucketOf(long value) {
+    if (value < LINEAR_LIMIT) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int top = (int) (value >>> shift);
+    return LINEAR_LIMIT + (exponent - 4) * SUB_BUCKETS + (top - SUB_BUCKETS);
+  }
+
+  static long highestValueIn(int bucket) {
+    if (bucket < LINEAR_LIMIT) {
+      return bucket;
+    }
+    int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 4;
+    int top = (bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+    int shift = exponent - SUB_BUCKET_BITS;
+    return ((long) (top + 1) << shift) - 1;
+  }
+
+  public static class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+
+    Snapshot(long[] counts, long count, long sum, long min, long max) {
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+      this.min = count == 0 ? 0 : min;
+      this.max = count == 0 ? 0 : max;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getMin() {
+      return min;
+    }
+
+    public long getMax() {
+      return max;
+    }
+
+    public double getMean() {
+      return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /** Valor en el percentil {@code percentile} (0-100), con la precisión de los buckets. */
+    public long getPercentile(double percentile) {
+      long seen = 0;
+      long target = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= target) {
+          return Math.min(highestValueIn(i), max);
+        }
+      }
+      return max;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "count=%d min=%d mean=%.2f p50=%d p90=%d p99=%d max=%d",
+          count,
+          min,
+          getMean(),
+          getPercentile(50),
+          getPercentile(90),
+          getPercentile(99),
+          max);
+    }
+  }
+}
@@ -1,54 +1,64 @@
 package com.crui.patterns.examples.dnd.after.util;
 
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.crui.patterns.examples.dnd.after.enemy.Enemy;
 import com.crui.patterns.examples.dnd.after.fight.Fight;
 import com.crui.patterns.examples.dnd.after.hero.Hero;
 
+/**
+ * Junta métricas de las peleas. Es thread-safe: los contadores son {@link LongAdder} y los
+ * histogramas usan celdas separadas, así que varias peleas en paralelo pueden compartirlo.
+ */
 public class MetricsCollector implements FightEventsListener {
 
-  private int totalFights;
-  private int totalWins;
-  private int totalLosses;
-  private int totalEnemiesDefeated;
-  private int totalRounds;
-  private int totalHeroHits;
-  private int totalEnemyHits;
+  private final LongAdder totalFights = new LongAdder();
+  private final LongAdder totalWins = new LongAdder();
+  private final LongAdder totalLosses = new LongAdder();
+  private final LongAdder totalEnemiesDefeated = new LongAdder();
+  private final LongAdder totalRounds = new LongAdder();
+  private final LongAdder totalHeroHits = new LongAdder();
+  private final LongAdder totalEnemyHits = new LongAdder();
+  private final Histogram damageDealt = new Histogram();
+  private final Histogram roundsPerFight = new Histogram();
+  private final Histogram enemiesPerFight = new Histogram();
 
   @Override
   public void fightStarts() {
-    totalFights++;
+    totalFights.increment();
   }
 
   @Override
   public void roundStarts(int round) {
-    totalRounds++;
+    totalRounds.increment();
   }
 
   @Override
   public void heroHits(Hero hero, Enemy target, int dealt) {
-    totalHeroHits++;
+    totalHeroHits.increment();
+    damageDealt.record(dealt);
   }
 
   @Override
   public void enemyHits(Enemy enemy, Hero target, int dealt) {
-    totalEnemyHits++;
+    totalEnemyHits.increment();
+    damageDealt.record(dealt);
   }
 
   @Override
   public void enemyDefeated(Enemy enemy) {
-    totalEnemiesDefeated++;
+    totalEnemiesDefeated.increment();
   }
 
   @Override
   public void enemiesDefeated(List<Enemy> enemies) {
-    totalWins++;
+    totalWins.increment();
   }
 
   @Override
   public void heroDefeated(Hero hero) {
-    totalLosses++;
+    totalLosses.increment();
   }
 
   @Override
@@ -58,16 +68,69 @@ public class MetricsCollector implements FightEventsListener {
 
   @Override
   public void printResult(Fight fight) {
-    // do nothing
+    // la ronda ya quedó incrementada al salir del loop
+    roundsPerFight.record(fight.getRound() - 1);
+    enemiesPerFight.record(fight.getEnemies().size());
+  }
+
+  /** Suma las métricas de otro colector, por ejemplo el de otro hilo del simulador. */
+  public void merge(MetricsCollector other) {
+    totalFights.add(other.totalFights.sum());
+    totalWins.add(other.totalWins.sum());
+    totalLosses.add(other.totalLosses.sum());
+    totalEnemiesDefeated.add(other.totalEnemiesDefeated.sum());
+    totalRounds.add(other.totalRounds.sum());
+    totalHeroHits.add(other.totalHeroHits.sum());
+    totalEnemyHits.add(other.totalEnemyHits.sum());
+    damageDealt.merge(other.damageDealt);
+    roundsPerFight.merge(other.roundsPerFight);
+    enemiesPerFight.merge(other.enemiesPerFight);
+  }
+
+  /** Foto de las métricas actuales. Se puede pedir mientras las peleas siguen corriendo. */
+  public MetricsSnapshot snapshot() {
+    return new MetricsSnapshot(
+        totalFights.sum(),
+        totalWins.sum(),
+        totalLosses.sum(),
+        totalEnemiesDefeated.sum(),
+        totalRounds.sum(),
+        totalHeroHits.sum(),
+        totalEnemyHits.sum(),
+        damageDealt.snapshot(),
+        roundsPerFight.snapshot(),
+        enemiesPerFight.snapshot());
+  }
+
+  public long getTotalFights() {
+    return totalFights.sum();
+  }
+
+  public long getTotalWins() {
+    return totalWins.sum();
+  }
+
+  public long getTotalLosses() {
+    return totalLosses.sum();
+  }
+
+  public long getTotalEnemiesDefeated() {
+    return totalEnemiesDefeated.sum();
+  }
+
+  public long getTotalRounds() {
+    return totalRounds.sum();
+  }
+
+  public long getTotalHeroHits() {
+    return totalHeroHits.sum();
+  }
+
+  public long getTotalEnemyHits() {
+    return totalEnemyHits.sum();
   }
 
   public void printMetrics() {
-    System.out.println("Total fights: " + totalFights);
-    System.out.println("Total wins: " + totalWins);
-    System.out.println("Total losses: " + totalLosses);
-    System.out.println("Total enemies defeated: " + totalEnemiesDefeated);
-    System.out.println("Total rounds: " + totalRounds);
-    System.out.println("Total hero hits: " + totalHeroHits);
-    System.out.println("Total enemy hits: " + totalEnemyHits);
+    System.out.print(snapshot().export());
   }
 }
@@ -0,0 +1,103 @@
+package com.crui.patterns.examples.dnd.after.util;
+
+/** Valores de un {@link MetricsCollector} en un momento dado. Es inmutable. */
+public class MetricsSnapshot {
+  private final long totalFights;
+  private final long totalWins;
+  private final long totalLosses;
+  private final long totalEnemiesDefeated;
+  private final long totalRounds;
+  private final long totalHeroHits;
+  private final long totalEnemyHits;
+  private final Histogram.Snapshot damageDealt;
+  private final Histogram.Snapshot roundsPerFight;
+  private final Histogram.Snapshot enemiesPerFight;
+
+  MetricsSnapshot(
+      long totalFights,
+      long totalWins,
+      long totalLosses,
+      long totalEnemiesDefeated,
+      long totalRounds,
+      long totalHeroHits,
+      long totalEnemyHits,
+      Histogram.Snapshot damageDealt,
+      Histogram.Snapshot roundsPerFight,
+      Histogram.Snapshot enemiesPerFight) {
+    this.totalFights = totalFights;
+    this.totalWins = totalWins;
+    this.totalLosses = totalLosses;
+    this.totalEnemiesDefeated = totalEnemiesDefeated;
+    this.totalRounds = totalRounds;
+    this.totalHeroHits = totalHeroHits;
+    this.totalEnemyHits = totalEnemyHits;
+    this.damageDealt = damageDealt;
+    this.roundsPerFight = roundsPerFight;
+    this.enemiesPerFight = enemiesPerFight;
+  }
+
+  public long getTotalFights() {
+    return totalFights;
+  }
+
+  public long getTotalWins() {
+    return totalWins;
+  }
+
+  public long getTotalLosses() {
+    return totalLosses;
+  }
+
+  public long getTotalEnemiesDefeated() {
+    return totalEnemiesDefeated;
+  }
+
+  public long getTotalRounds() {
+    return totalRounds;
+  }
+
+  public long getTotalHeroHits() {
+    return totalHeroHits;
+  }
+
+  public long getTotalEnemyHits() {
+    return totalEnemyHits;
+  }
+
+  public Histogram.Snapshot getDamageDealt() {
+    return damageDealt;
+  }
+
+  public Histogram.Snapshot getRoundsPerFight() {
+    return roundsPerFight;
+  }
+
+  public Histogram.Snapshot getEnemiesPerFight() {
+    return enemiesPerFight;
+  }
+
+  /** Texto listo para imprimir o guardar en un archivo, una métrica por línea. */
+  public String export() {
+    return "Total fights: "
+        + totalFights
+        + "\nTotal wins: "
+        + totalWins
+        + "\nTotal losses: "
+        + totalLosses
+        + "\nTotal enemies defeated: "
+        + totalEnemiesDefeated
+        + "\nTotal rounds: "
+        + totalRounds
+        + "\nTotal hero hits: "
+        + totalHeroHits
+        + "\nTotal enemy hits: "
+        + totalEnemyHits
+        + "\nDamage dealt: "
+        + damageDealt
+        + "\nRounds per fight: "
+        + roundsPerFight
+        + "\nEnemies per fight: "
+        + enemiesPerFight
+        + "\n";
+  }
+}
@@ -0,0 +1,9 @@
+package com.crui.patterns.examples.dnd.after.util;
+
+/** Qué hacer cuando el buffer de un listener asíncrono está lleno. */
+public enum OverflowPolicy {
+  /** La pelea espera a que el listener se ponga al día. No se pierde ningún evento. */
+  BLOCK,
+  /** El evento se descarta y se cuenta. La pelea nunca espera. */
+  DROP
+}
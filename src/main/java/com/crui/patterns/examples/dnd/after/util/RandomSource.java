@@ -0,0 +1,12 @@
+package com.crui.patterns.examples.dnd.after.util;
+
+/**
+ * Secuencia de números aleatorios que usa una sola pelea. No es thread-safe: cada pelea tiene la
+ * suya y {@link #split()} crea una secuencia independiente para otra pelea u otro hilo.
+ */
+public interface RandomSource {
+  /** Devuelve un entero entre 0 (inclusive) y {@code bound} (exclusive). */
+  int nextInt(int bound);
+
+  RandomSource split();
+}
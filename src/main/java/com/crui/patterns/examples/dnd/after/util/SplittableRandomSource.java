@@ -0,0 +1,29 @@
+package com.crui.patterns.examples.dnd.after.util;
+
+import java.util.SplittableRandom;
+
+public class SplittableRandomSource implements RandomSource {
+  private SplittableRandom random;
+
+  public SplittableRandomSource() {
+    this(new SplittableRandom());
+  }
+
+  public SplittableRandomSource(long seed) {
+    this(new SplittableRandom(seed));
+  }
+
+  private SplittableRandomSource(SplittableRandom random) {
+    this.random = random;
+  }
+
+  @Override
+  public int nextInt(int bound) {
+    return random.nextInt(bound);
+  }
+
+  @Override
+  public RandomSource split() {
+    return new SplittableRandomSource(random.split());
+  }
+}
@@ -0,0 +1,63 @@
+package com.crui.patterns.examples.dnd.after.util;
+
+/** Generador xoshiro256** (Blackman y Vigna): rápido, 256 bits de estado y sin sincronización. */
+public class Xoshiro256Source implements RandomSource {
+  private long s0;
+  private long s1;
+  private long s2;
+  private long s3;
+
+  public Xoshiro256Source(long seed) {
+    // El estado inicial se expande con SplitMix64, como recomiendan los autores
+    long x = seed;
+    x += 0x9E3779B97F4A7C15L;
+    s0 = mix(x);
+    x += 0x9E3779B97F4A7C15L;
+    s1 = mix(x);
+    x += 0x9E3779B97F4A7C15L;
+    s2 = mix(x);
+    x += 0x9E3779B97F4A7C15L;
+    s3 = mix(x);
+  }
+
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  public long nextLong() {
+    long result = Long.rotateLeft(s1 * 5, 7) * 9;
+    long t = s1 << 17;
+    s2 ^= s0;
+    s3 ^= s1;
+    s1 ^= s2;
+    s0 ^= s3;
+    s2 ^= t;
+    s3 = Long.rotateLeft(s3, 45);
+    return result;
+  }
+
+  @Override
+  public int nextInt(int bound) {
+    if (bound <= 0) {
+      throw new IllegalArgumentException("bound must be positive");
+    }
+    // Método de Lemire: multiplicación en lugar de módulo, con rechazo para evitar sesgo
+    long m = (nextLong() >>> 32) * bound;
+    long low = m & 0xFFFFFFFFL;
+    if (low < bound) {
+      long threshold = (0x100000000L - bound) % bound;
+      while (low < threshold) {
+        m = (nextLong() >>> 32) * bound;
+        low = m & 0xFFFFFFFFL;
+      }
+    }
+    return (int) (m >>> 32);
+  }
+
+  @Override
+  public RandomSource split() {
+    return new Xoshiro256Source(nextLong());
+  }
+}
@@ -1,8 +1,23 @@
 package com.crui.patterns.examples.middleware;
 
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.crui.patterns.examples.middleware.caching.ResponseCache;
+import com.crui.patterns.examples.middleware.metrics.MetricsHandler;
+import com.crui.patterns.examples.middleware.metrics.MetricsRegistry;
+import com.crui.patterns.examples.middleware.routing.Router;
+import com.crui.patterns.examples.middleware.server.HttpServer;
+
 public class API {
 
-  public static void main(String[] args) {
+  /**
+   * Sin argumentos corre los pedidos de ejemplo a mano. Con {@code serve [puerto]} levanta un
+   * servidor HTTP real con la misma cadena, por ejemplo:
+   *
+   * <p>curl -H "Authorization: Bearer valid-token" http://localhost:8080/api/v1/users
+   */
+  public static void main(String[] args) throws IOException {
     Handler handler =
         new Handler() {
           @Override
@@ -18,6 +33,26 @@ public class API {
     // chain of responsibility
     Handler middleware = new LoggingMiddleware(new ErrorsMiddleware(new AuthMiddleware(handler)));
 
+    if (args.length > 0 && args[0].equals("serve")) {
+      int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+      // con un router cada ruta tiene sus propias etapas: /health no pide token
+      MetricsRegistry metrics = new MetricsRegistry();
+      // la lista de usuarios cambia poco: se guarda un minuto
+      ResponseCache cache = new ResponseCache(16 * 1024 * 1024, 1, TimeUnit.MINUTES);
+      Stage usersCache = new ResponseCacheMiddleware(cache);
+      Router router =
+          new Router()
+              .measure(metrics)
+              .use(new MetricsMiddleware(metrics), new LoggingMiddleware(), new ErrorsMiddleware())
+              .get("/health", new HealthHandler())
+              .get("/metrics", new MetricsHandler(metrics))
+              .get("/api/v1/users", handler, new AuthMiddleware(), usersCache)
+              .get("/api/v1/users/:id", new UserHandler(), new AuthMiddleware());
+      new HttpServer(router, port).start();
+      System.out.println("Listening on http://localhost:" + port);
+      return;
+    }
+
     Request request = new Request("GET", "/api/v1/users", "valid-token", "");
     Response response = new Response(200, "");
     middleware.process(request, response);
@@ -32,4 +67,18 @@ public class API {
     Response invalidMethodResponse = new Response(200, "");
     middleware.process(invalidMethodRequest, invalidMethodResponse);
   }
+
+  private static class HealthHandler implements Handler {
+    @Override
+    public void process(Request request, Response response) {
+      response.setBody("OK");
+    }
+  }
+
+  private static class UserHandler implements Handler {
+    @Override
+    public void process(Request request, Response response) {
+      response.setBody("User " + request.getParam("id"));
+    }
+  }
 }
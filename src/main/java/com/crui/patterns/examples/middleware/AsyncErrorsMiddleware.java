@@ -0,0 +1,27 @@
+package com.crui.patterns.examples.middleware;
+
+import java.util.concurrent.CompletionStage;
+
+public class AsyncErrorsMiddleware extends AsyncMiddleware {
+  public AsyncErrorsMiddleware(AsyncHandler next) {
+    super(next);
+  }
+
+  public AsyncErrorsMiddleware(Handler next) {
+    super(next);
+  }
+
+  @Override
+  public CompletionStage<Void> process(Request request, Response response) {
+    return handleNext(request, response)
+        .handle(
+            (ignored, error) -> {
+              if (error != null) {
+                response.setStatus(500);
+                response.setBody("Internal server error");
+                System.out.println("Internal server error");
+              }
+              return null;
+            });
+  }
+}
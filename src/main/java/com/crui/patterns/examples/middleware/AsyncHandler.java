@@ -0,0 +1,27 @@
+package com.crui.patterns.examples.middleware;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Versión asíncrona de {@link Handler}: en vez de bloquear el hilo hasta terminar, devuelve una
+ * etapa que se completa cuando la respuesta está lista.
+ */
+public interface AsyncHandler {
+  CompletionStage<Void> process(Request request, Response response);
+
+  /** Adapta un handler sincrónico; sus excepciones quedan en la etapa devuelta. */
+  static AsyncHandler of(Handler handler) {
+    return new AsyncHandler() {
+      @Override
+      public CompletionStage<Void> process(Request request, Response response) {
+        try {
+          handler.process(request, response);
+          return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+          return CompletableFuture.failedFuture(e);
+        }
+      }
+    };
+  }
+}
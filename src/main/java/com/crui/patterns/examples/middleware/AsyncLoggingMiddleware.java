@@ -0,0 +1,36 @@
+package com.crui.patterns.examples.middleware;
+
+import java.util.concurrent.CompletionStage;
+
+public class AsyncLoggingMiddleware extends AsyncMiddleware {
+
+  public AsyncLoggingMiddleware(AsyncHandler next) {
+    super(next);
+  }
+
+  public AsyncLoggingMiddleware(Handler next) {
+    super(next);
+  }
+
+  @Override
+  public CompletionStage<Void> process(Request request, Response response) {
+    long start = System.nanoTime();
+    // con varios pedidos en vuelo las líneas se intercalan, así que va todo junto al final
+    return handleNext(request, response)
+        .whenComplete(
+            (ignored, error) -> {
+              long micros = (System.nanoTime() - start) / 1_000;
+              System.out.println(
+                  "--------------------------------\n"
+                      + "Request: "
+                      + request
+                      + "\nResponse: "
+                      + response
+                      + " in "
+                      + micros
+                      + "us"
+                      + (error == null ? "" : " failed: " + error)
+                      + "\n--------------------------------");
+            });
+  }
+}
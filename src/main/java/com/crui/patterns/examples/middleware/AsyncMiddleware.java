@@ -0,0 +1,29 @@
+package com.crui.patterns.examples.middleware;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+public abstract class AsyncMiddleware implements AsyncHandler {
+
+  private AsyncHandler next;
+
+  public AsyncMiddleware(AsyncHandler next) {
+    this.next = next;
+  }
+
+  public AsyncMiddleware(Handler next) {
+    this(next == null ? null : AsyncHandler.of(next));
+  }
+
+  /** Nunca lanza: si el siguiente falla antes de devolver la etapa, la devuelve fallida. */
+  CompletionStage<Void> handleNext(Request request, Response response) {
+    if (next == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    try {
+      return next.process(request, response);
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.crui.patterns.examples.middleware;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.crui.patterns.examples.middleware.caching.CachedResponse;
+import com.crui.patterns.examples.middleware.caching.ResponseCache;
+
+/**
+ * Versión asíncrona de {@link ResponseCacheMiddleware}. Si llegan varios GET iguales mientras el
+ * primero todavía se está atendiendo, los demás no van al handler: se encadenan al resultado del
+ * primero sin bloquear ningún hilo. Si el primero falla o no es cacheable, cada uno sigue la
+ * cadena por su cuenta.
+ */
+public class AsyncResponseCacheMiddleware extends AsyncMiddleware {
+  private final ResponseCache cache;
+  private final String[] varyHeaders;
+  private final ConcurrentHashMap<String, CompletableFuture<CachedResponse>> loading =
+      new ConcurrentHashMap<>();
+  private final LongAdder coalesced = new LongAdder();
+
+  public AsyncResponseCacheMiddleware(
+      AsyncHandler next, ResponseCache cache, String... varyHeaders) {
+    super(next);
+    this.cache = cache;
+    this.varyHeaders = varyHeaders;
+  }
+
+  public AsyncResponseCacheMiddleware(Handler next, ResponseCache cache, String... varyHeaders) {
+    this(next == null ? null : AsyncHandler.of(next), cache, varyHeaders);
+  }
+
+  @Override
+  public CompletionStage<Void> process(Request request, Response response) {
+    if (!request.getMethod().equals("GET")) {
+      return handleNext(request, response);
+    }
+    String key = ResponseCacheMiddleware.key(request, varyHeaders);
+    CachedResponse cached = cache.get(key);
+    if (cached != null) {
+      ResponseCacheMiddleware.serve(cached, request, response);
+      return CompletableFuture.completedFuture(null);
+    }
+    CompletableFuture<CachedResponse> mine = new CompletableFuture<>();
+    CompletableFuture<CachedResponse> leader = loading.putIfAbsent(key, mine);
+    if (leader != null) {
+      coalesced.increment();
+      return leader.thenCompose(
+          result -> {
+            if (result != null) {
+              ResponseCacheMiddleware.serve(result, request, response);
+              return CompletableFuture.completedFuture(null);
+            }
+            return handleNext(request, response)
+                .thenRun(() -> ResponseCacheMiddleware.store(cache, key, request, response));
+          });
+    }
+    return handleNext(request, response)
+        .whenComplete(
+            (ignored, error) -> {
+              CachedResponse stored = null;
+              try {
+                if (error == null) {
+                  stored = ResponseCacheMiddleware.store(cache, key, request, response);
+                }
+              } finally {
+                // sólo el futuro propio: otro pedido pudo haber registrado uno nuevo
+                loading.remove(key, mine);
+                mine.complete(stored);
+              }
+            });
+  }
+
+  /** Pedidos que esperaron el resultado de otro en vez de ir al handler. */
+  public long getCoalesced() {
+    return coalesced.sum();
+  }
+}
@@ -1,22 +1,68 @@
 package com.crui.patterns.examples.middleware;
 
-public class AuthMiddleware extends Middleware {
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import com.crui.patterns.examples.middleware.auth.TokenVerifier;
+import com.crui.patterns.examples.middleware.auth.VerifiedToken;
+
+public class AuthMiddleware extends Middleware implements Stage {
   private String validToken;
+  private TokenVerifier verifier;
+
+  /** Para usarlo como {@link Stage} dentro de un router. */
+  public AuthMiddleware() {
+    this((Handler) null);
+  }
 
   public AuthMiddleware(Handler next) {
     super(next);
     this.validToken = "valid-token";
   }
 
+  /** Para usarlo como {@link Stage} dentro de un router. */
+  public AuthMiddleware(TokenVerifier verifier) {
+    this(null, verifier);
+  }
+
+  /** Valida los tokens con {@code verifier} en vez de compararlos con uno fijo. */
+  public AuthMiddleware(Handler next, TokenVerifier verifier) {
+    super(next);
+    this.verifier = verifier;
+  }
+
   @Override
   public void process(Request request, Response response) {
-    if (request.getToken() != this.validToken) {
+    if (before(request, response)) {
+      handleNext(request, response);
+    }
+  }
+
+  @Override
+  public boolean before(Request request, Response response) {
+    if (verifier != null) {
+      VerifiedToken token = verifier.verify(request.getToken());
+      if (token == null) {
+        response.setStatus(401);
+        return false;
+      }
+      request.setSubject(token.getSubject());
+      return true;
+    }
+    if (!matches(request.getToken(), this.validToken)) {
       response.setStatus(401);
       System.out.println("Invalid token");
-      return;
+      return false;
     } else {
       System.out.println("Valid token");
     }
-    handleNext(request, response);
+    return true;
+  }
+
+  /** Compara en tiempo constante, para no revelar cuántos caracteres del token acertó alguien. */
+  private static boolean matches(String token, String expected) {
+    return token != null
+        && MessageDigest.isEqual(
+            token.getBytes(StandardCharsets.UTF_8), expected.getBytes(StandardCharsets.UTF_8));
   }
 }
@@ -1,6 +1,11 @@
 package com.crui.patterns.examples.middleware;
 
-public class ErrorsMiddleware extends Middleware {
+public class ErrorsMiddleware extends Middleware implements Stage {
+  /** Para usarlo como {@link Stage} dentro de un router. */
+  public ErrorsMiddleware() {
+    super(null);
+  }
+
   public ErrorsMiddleware(Handler next) {
     super(next);
   }
@@ -10,10 +15,19 @@ public class ErrorsMiddleware extends Middleware {
     try {
       handleNext(request, response);
     } catch (Exception e) {
-      response.setStatus(500);
-      response.setBody("Internal server error");
-      System.out.println("Internal server error");
-      return;
+      // también una checked que se haya colado sin declarar, como antes de los Stage
+      onError(
+          request,
+          response,
+          e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e));
     }
   }
+
+  @Override
+  public boolean onError(Request request, Response response, RuntimeException error) {
+    response.setStatus(500);
+    response.setBody("Internal server error");
+    System.out.println("Internal server error");
+    return true;
+  }
 }
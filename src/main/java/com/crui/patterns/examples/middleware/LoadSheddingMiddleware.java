@@ -0,0 +1,61 @@
+package com.crui.patterns.examples.middleware;
+
+import java.util.concurrent.TimeUnit;
+
+import com.crui.patterns.examples.middleware.limits.ConcurrencyLimiter;
+
+/**
+ * Descarta pedidos con 503 cuando el servidor está saturado, antes de que lleguen al handler: si
+ * el pedido ya esperó demasiado en cola o si se llegó al límite de pedidos simultáneos. Es mejor
+ * rechazar rápido algunos que atender tarde a todos.
+ */
+public class LoadSheddingMiddleware extends Middleware implements Stage {
+  private ConcurrencyLimiter limiter;
+  private long maxQueueNanos;
+
+  /** Para usarlo como {@link Stage} dentro de un router. */
+  public LoadSheddingMiddleware(ConcurrencyLimiter limiter, long maxQueue, TimeUnit unit) {
+    this(null, limiter, maxQueue, unit);
+  }
+
+  public LoadSheddingMiddleware(
+      Handler next, ConcurrencyLimiter limiter, long maxQueue, TimeUnit unit) {
+    super(next);
+    this.limiter = limiter;
+    this.maxQueueNanos = unit.toNanos(maxQueue);
+  }
+
+  @Override
+  public void process(Request request, Response response) {
+    if (!before(request, response)) {
+      return;
+    }
+    try {
+      handleNext(request, response);
+    } finally {
+      after(request, response);
+    }
+  }
+
+  @Override
+  public boolean before(Request request, Response response) {
+    long waited = System.nanoTime() - request.getStartNanos();
+    if (waited > maxQueueNanos || !limiter.tryAcquire()) {
+      response.setStatus(503);
+      response.setBody("Service unavailable");
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public void after(Request request, Response response) {
+    limiter.release(System.nanoTime() - request.getStartNanos());
+  }
+
+  @Override
+  public boolean onError(Request request, Response response, RuntimeException error) {
+    after(request, response);
+    return false;
+  }
+}
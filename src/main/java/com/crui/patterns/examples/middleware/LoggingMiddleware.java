@@ -1,17 +1,70 @@
 package com.crui.patterns.examples.middleware;
 
-public class LoggingMiddleware extends Middleware {
+import com.crui.patterns.examples.middleware.logging.AccessLog;
+
+public class LoggingMiddleware extends Middleware implements Stage {
+  private AccessLog accessLog;
+
+  /** Para usarlo como {@link Stage} dentro de un router. */
+  public LoggingMiddleware() {
+    super(null);
+  }
 
   public LoggingMiddleware(Handler next) {
     super(next);
   }
 
+  /** Para usarlo como {@link Stage} dentro de un router. */
+  public LoggingMiddleware(AccessLog accessLog) {
+    this(null, accessLog);
+  }
+
+  /** Escribe cada pedido en {@code accessLog}, con su latencia, en vez de imprimirlo. */
+  public LoggingMiddleware(Handler next, AccessLog accessLog) {
+    super(next);
+    this.accessLog = accessLog;
+  }
+
   @Override
   public void process(Request request, Response response) {
+    before(request, response);
+    try {
+      handleNext(request, response);
+    } catch (RuntimeException e) {
+      onError(request, response, e);
+      throw e;
+    }
+    after(request, response);
+  }
+
+  @Override
+  public boolean before(Request request, Response response) {
+    if (accessLog != null) {
+      return true;
+    }
     System.out.println("--------------------------------");
     System.out.println("Request: " + request.toString());
-    handleNext(request, response);
+    return true;
+  }
+
+  @Override
+  public void after(Request request, Response response) {
+    if (accessLog != null) {
+      accessLog.record(request, response, System.nanoTime() - request.getStartNanos());
+      return;
+    }
     System.out.println("Response: " + response.toString());
     System.out.println("--------------------------------");
   }
+
+  /** En el access log el pedido queda como 500 aunque el error lo maneje alguien más afuera. */
+  @Override
+  public boolean onError(Request request, Response response, RuntimeException error) {
+    if (accessLog != null) {
+      Response failed = new Response(500, null);
+      failed.setContent(response.getContent());
+      accessLog.record(request, failed, System.nanoTime() - request.getStartNanos());
+    }
+    return false;
+  }
 }
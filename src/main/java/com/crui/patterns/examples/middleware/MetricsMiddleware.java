@@ -0,0 +1,52 @@
+package com.crui.patterns.examples.middleware;
+
+import com.crui.patterns.examples.middleware.metrics.MetricsRegistry;
+
+/**
+ * Registra la latencia y el código de estado de cada pedido por ruta. Conviene ponerlo primero
+ * para que vea los 401 de {@link AuthMiddleware} y los 500 de {@link ErrorsMiddleware}.
+ */
+public class MetricsMiddleware extends Middleware implements Stage {
+  // los pedidos que no pasaron por un router van todos a la misma serie
+  private static final String NO_ROUTE = "*";
+
+  private MetricsRegistry registry;
+
+  /** Para usarlo como {@link Stage} dentro de un router. */
+  public MetricsMiddleware(MetricsRegistry registry) {
+    this(null, registry);
+  }
+
+  public MetricsMiddleware(Handler next, MetricsRegistry registry) {
+    super(next);
+    this.registry = registry;
+  }
+
+  @Override
+  public void process(Request request, Response response) {
+    try {
+      handleNext(request, response);
+    } catch (RuntimeException e) {
+      onError(request, response, e);
+      throw e;
+    }
+    after(request, response);
+  }
+
+  @Override
+  public void after(Request request, Response response) {
+    record(request, response.getStatus());
+  }
+
+  /** Si el error sigue de largo, lo que le llega al cliente termina siendo un 500. */
+  @Override
+  public boolean onError(Request request, Response response, RuntimeException error) {
+    record(request, 500);
+    return false;
+  }
+
+  private void record(Request request, int status) {
+    String route = request.getRoute() == null ? NO_ROUTE : request.getRoute();
+    registry.route(route).record(status, System.nanoTime() - request.getStartNanos());
+  }
+}
@@ -0,0 +1,37 @@
+package com.crui.patterns.examples.middleware;
+
+import com.crui.patterns.examples.middleware.limits.RateLimiter;
+
+/** Corta con 429 a quien pase su cuota de pedidos. La cuota es por token y por ruta. */
+public class RateLimitMiddleware extends Middleware implements Stage {
+  private RateLimiter limiter;
+
+  /** Para usarlo como {@link Stage} dentro de un router. */
+  public RateLimitMiddleware(RateLimiter limiter) {
+    this(null, limiter);
+  }
+
+  public RateLimitMiddleware(Handler next, RateLimiter limiter) {
+    super(next);
+    this.limiter = limiter;
+  }
+
+  @Override
+  public void process(Request request, Response response) {
+    if (before(request, response)) {
+      handleNext(request, response);
+    }
+  }
+
+  @Override
+  public boolean before(Request request, Response response) {
+    String token = request.getToken() == null ? "-" : request.getToken();
+    String route = request.getRoute() == null ? "*" : request.getRoute();
+    if (!limiter.tryAcquire(token + ' ' + route)) {
+      response.setStatus(429);
+      response.setBody("Too many requests");
+      return false;
+    }
+    return true;
+  }
+}
@@ -1,16 +1,60 @@
 package com.crui.patterns.examples.middleware;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.crui.patterns.examples.middleware.body.Body;
+
 public class Request {
   private String method;
   private String url;
   private String token;
-  private String body;
+  private Body body;
+  private Map<String, String> headers;
+  private Map<String, String> params = Collections.emptyMap();
+  private String route;
+  private String subject;
+  private long startNanos = System.nanoTime();
+  private Map<String, Object> attributes = Collections.emptyMap();
 
   public Request(String method, String url, String token, String body) {
+    this(method, url, token, body, Collections.emptyMap());
+  }
+
+  /** @param headers cabeceras HTTP con el nombre en minúsculas */
+  public Request(
+      String method, String url, String token, String body, Map<String, String> headers) {
+    this(method, url, token, Body.of(body), headers);
+  }
+
+  public Request(
+      String method, String url, String token, Body body, Map<String, String> headers) {
     this.method = method;
     this.url = url;
     this.token = token;
     this.body = body;
+    this.headers = headers;
+  }
+
+  /**
+   * Deja el pedido como si se acabara de crear con estos datos, para reutilizarlo en vez de crear
+   * uno nuevo. Quien lo reutiliza tiene que asegurarse de que nadie siga usando el anterior.
+   */
+  public void reset(
+      String method, String url, String token, Body body, Map<String, String> headers) {
+    this.method = method;
+    this.url = url;
+    this.token = token;
+    this.body = body;
+    this.headers = headers;
+    this.params = Collections.emptyMap();
+    this.route = null;
+    this.subject = null;
+    this.startNanos = System.nanoTime();
+    if (!attributes.isEmpty()) {
+      attributes.clear();
+    }
   }
 
   public String getMethod() {
@@ -25,6 +69,78 @@ public class Request {
     return token;
   }
 
+  /** El cuerpo como texto; se decodifica la primera vez que se pide. */
+  public String getBody() {
+    return body.asString();
+  }
+
+  /** El cuerpo como bytes, sin decodificar ni copiar. */
+  public Body getContent() {
+    return body;
+  }
+
+  public String getHeader(String name) {
+    return headers.get(name.toLowerCase());
+  }
+
+  public Map<String, String> getHeaders() {
+    return headers;
+  }
+
+  /** Parámetro de la ruta, por ejemplo {@code id} en {@code /users/:id}. */
+  public String getParam(String name) {
+    return params.get(name);
+  }
+
+  public Map<String, String> getParams() {
+    return params;
+  }
+
+  public void setParams(Map<String, String> params) {
+    this.params = params;
+  }
+
+  /** El patrón de la ruta que atendió el pedido, o null si no pasó por un router. */
+  public String getRoute() {
+    return route;
+  }
+
+  public void setRoute(String route) {
+    this.route = route;
+  }
+
+  /** Quién hizo el pedido, según el token; null si no pasó por una autenticación. */
+  public String getSubject() {
+    return subject;
+  }
+
+  public void setSubject(String subject) {
+    this.subject = subject;
+  }
+
+  /** Un dato que una etapa guarda en {@link Stage#before} para usarlo en su {@code after}. */
+  public Object getAttribute(String name) {
+    return attributes.get(name);
+  }
+
+  public void setAttribute(String name, Object value) {
+    if (attributes.isEmpty()) {
+      attributes = new HashMap<>();
+    }
+    attributes.put(name, value);
+  }
+
+  public void removeAttribute(String name) {
+    if (!attributes.isEmpty()) {
+      attributes.remove(name);
+    }
+  }
+
+  /** Cuándo se creó el pedido, en {@link System#nanoTime()}; sirve para medir latencias. */
+  public long getStartNanos() {
+    return startNanos;
+  }
+
   @Override
   public String toString() {
     return "Request [method="
@@ -1,19 +1,31 @@
 package com.crui.patterns.examples.middleware;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.crui.patterns.examples.middleware.body.Body;
+
 public class Response {
   private int status;
-  private String body;
+  private Body body;
+  private Map<String, String> headers = Collections.emptyMap();
 
   public Response(int status, String body) {
     this.status = status;
-    this.body = body;
+    this.body = Body.of(body);
   }
 
   public int getStatus() {
     return status;
   }
 
+  /** El cuerpo como texto; si se armó con bytes o con un archivo, se decodifica entero. */
   public String getBody() {
+    return body.asString();
+  }
+
+  public Body getContent() {
     return body;
   }
 
@@ -22,9 +34,39 @@ public class Response {
   }
 
   public void setBody(String body) {
+    this.body = Body.of(body);
+  }
+
+  /** Para responder con bytes o con un archivo sin pasarlos a {@code String}. */
+  public void setContent(Body body) {
     this.body = body;
   }
 
+  /** Vuelve al estado de {@code new Response(200, "")} para reutilizar el objeto. */
+  public void reset() {
+    status = 200;
+    body = Body.EMPTY;
+    if (!headers.isEmpty()) {
+      headers.clear();
+    }
+  }
+
+  /** Cabeceras extra; Content-Length y Connection las pone el servidor. */
+  public Map<String, String> getHeaders() {
+    return headers;
+  }
+
+  public String getHeader(String name) {
+    return headers.get(name);
+  }
+
+  public void setHeader(String name, String value) {
+    if (headers.isEmpty()) {
+      headers = new LinkedHashMap<>();
+    }
+    headers.put(name, value);
+  }
+
   @Override
   public String toString() {
     return "Response [status=" + status + ", body=" + body + "]";
@@ -0,0 +1,207 @@
+package com.crui.patterns.examples.middleware;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.crui.patterns.examples.middleware.body.FileBody;
+import com.crui.patterns.examples.middleware.caching.CachedResponse;
+import com.crui.patterns.examples.middleware.caching.ResponseCache;
+
+/**
+ * Guarda las respuestas 200 de los GET y las repite sin pasar por el resto de la cadena. La clave
+ * es método, URL y el valor de las cabeceras que se indiquen (por ejemplo {@code authorization}
+ * si la respuesta depende del usuario).
+ *
+ * <p>Se guardan también las cabeceras que puso el handler, así que no se guarda lo que es de un
+ * solo cliente ({@code Set-Cookie}, {@code Cache-Control: no-store} o {@code private}). Cada
+ * respuesta lleva un ETag y un pedido con {@code If-None-Match} que lo incluye (o {@code *})
+ * recibe un 304 sin cuerpo.
+ *
+ * <p>Esta versión sincrónica nunca espera a otro pedido: en el servidor NIO bloquearía el event
+ * loop. Si el mismo GET ya se está atendiendo, se usa su resultado sólo si ya terminó; si no, el
+ * pedido sigue la cadena. Para que los pedidos iguales esperen al primero sin bloquear está {@link
+ * AsyncResponseCacheMiddleware}.
+ */
+public class ResponseCacheMiddleware extends Middleware implements Stage {
+  private static final String LOADING = ResponseCacheMiddleware.class.getName() + ".loading";
+
+  private ResponseCache cache;
+  private String[] varyHeaders;
+  private final ConcurrentHashMap<String, CompletableFuture<CachedResponse>> loading =
+      new ConcurrentHashMap<>();
+  private final LongAdder coalesced = new LongAdder();
+
+  /** Para usarlo como {@link Stage} dentro de un router. */
+  public ResponseCacheMiddleware(ResponseCache cache, String... varyHeaders) {
+    this(null, cache, varyHeaders);
+  }
+
+  public ResponseCacheMiddleware(Handler next, ResponseCache cache, String... varyHeaders) {
+    super(next);
+    this.cache = cache;
+    this.varyHeaders = varyHeaders;
+  }
+
+  @Override
+  public void process(Request request, Response response) {
+    if (!before(request, response)) {
+      return;
+    }
+    try {
+      handleNext(request, response);
+    } catch (RuntimeException e) {
+      onError(request, response, e);
+      throw e;
+    }
+    after(request, response);
+  }
+
+  @Override
+  public boolean before(Request request, Response response) {
+    if (!request.getMethod().equals("GET")) {
+      return true;
+    }
+    String key = key(request, varyHeaders);
+    CachedResponse cached = cache.get(key);
+    if (cached != null) {
+      serve(cached, request, response);
+      return false;
+    }
+    CompletableFuture<CachedResponse> mine = new CompletableFuture<>();
+    CompletableFuture<CachedResponse> leader = loading.putIfAbsent(key, mine);
+    if (leader == null) {
+      // somos los primeros: en after avisamos a los que esperan, y sólo a los nuestros
+      request.setAttribute(LOADING, mine);
+      return true;
+    }
+    cached = leader.getNow(null);
+    if (cached == null) {
+      return true;
+    }
+    coalesced.increment();
+    serve(cached, request, response);
+    return false;
+  }
+
+  @Override
+  public void after(Request request, Response response) {
+    if (!request.getMethod().equals("GET")) {
+      return;
+    }
+    String key = key(request, varyHeaders);
+    CachedResponse cached = null;
+    try {
+      cached = store(cache, key, request, response);
+    } finally {
+      finish(key, request, cached);
+    }
+  }
+
+  @Override
+  public boolean onError(Request request, Response response, RuntimeException error) {
+    if (request.getMethod().equals("GET")) {
+      finish(key(request, varyHeaders), request, null);
+    }
+    return false;
+  }
+
+  /** Completa el futuro que registró este mismo pedido en {@code before}, si lo hizo. */
+  @SuppressWarnings("unchecked")
+  private void finish(String key, Request request, CachedResponse cached) {
+    CompletableFuture<CachedResponse> mine =
+        (CompletableFuture<CachedResponse>) request.getAttribute(LOADING);
+    if (mine != null) {
+      request.removeAttribute(LOADING);
+      loading.remove(key, mine);
+      mine.complete(cached);
+    }
+  }
+
+  /** Guarda la respuesta si se puede y la sirve como un acierto; null si no se guardó. */
+  static CachedResponse store(
+      ResponseCache cache, String key, Request request, Response response) {
+    if (response.getStatus() != 200
+        || response.getContent() instanceof FileBody
+        || !shareable(response)) {
+      return null;
+    }
+    CachedResponse cached =
+        cache.put(key, response.getStatus(), response.getHeaders(), response.getContent());
+    serve(cached, request, response);
+    return cached;
+  }
+
+  /**
+   * Una respuesta con {@code Set-Cookie} o con {@code Cache-Control: no-store} o {@code private}
+   * es de un solo cliente: repetirla le daría a otro la sesión o los datos del primero.
+   */
+  private static boolean shareable(Response response) {
+    for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+      String name = header.getKey();
+      if (name.equalsIgnoreCase("Set-Cookie")) {
+        return false;
+      }
+      if (!name.equalsIgnoreCase("Cache-Control")) {
+        continue;
+      }
+      for (String directive : header.getValue().split(",")) {
+        directive = directive.trim().toLowerCase();
+        if (directive.equals("no-store")
+            || directive.equals("private")
+            || directive.startsWith("private=")) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  static void serve(CachedResponse cached, Request request, Response response) {
+    for (Map.Entry<String, String> header : cached.getHeaders().entrySet()) {
+      response.setHeader(header.getKey(), header.getValue());
+    }
+    response.setHeader("ETag", cached.getEtag());
+    if (matches(request.getHeader("if-none-match"), cached.getEtag())) {
+      response.setStatus(304);
+      response.setBody("");
+      return;
+    }
+    response.setStatus(cached.getStatus());
+    response.setContent(cached.getBody());
+  }
+
+  /** {@code If-None-Match} trae una lista de ETags, que pueden ser débiles, o {@code *}. */
+  private static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals("*") || candidate.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  static String key(Request request, String[] varyHeaders) {
+    if (varyHeaders.length == 0) {
+      return request.getMethod() + ' ' + request.getUrl();
+    }
+    StringBuilder key = new StringBuilder(request.getMethod()).append(' ').append(request.getUrl());
+    for (String header : varyHeaders) {
+      key.append('\n').append(request.getHeader(header));
+    }
+    return key.toString();
+  }
+
+  /** Pedidos que usaron el resultado de otro igual en vez de ir al handler. */
+  public long getCoalesced() {
+    return coalesced.sum();
+  }
+}
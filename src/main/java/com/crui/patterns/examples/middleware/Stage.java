@@ -0,0 +1,23 @@
+package com.crui.patterns.examples.middleware;
+
+/**
+ * Un middleware visto como pasos sueltos en vez de una cadena anidada. Así el {@code Router}
+ * puede recorrer un array plano de etapas sin que cada una llame a la siguiente.
+ *
+ * <p>Las etapas se ejecutan en orden con {@link #before} y se deshacen en orden inverso con {@link
+ * #after} o {@link #onError}, igual que si estuvieran anidadas.
+ */
+public interface Stage {
+
+  /** @return false para cortar la cadena; esta etapa no recibe luego ni after ni onError */
+  default boolean before(Request request, Response response) {
+    return true;
+  }
+
+  default void after(Request request, Response response) {}
+
+  /** @return true si la etapa manejó el error; las etapas de afuera siguen con {@link #after} */
+  default boolean onError(Request request, Response response, RuntimeException error) {
+    return false;
+  }
+}
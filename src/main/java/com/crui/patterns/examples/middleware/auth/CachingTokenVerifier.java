@@ -0,0 +1,166 @@
+package com.crui.patterns.examples.middleware.auth;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Guarda el resultado de otro {@link TokenVerifier} por un tiempo, así un cliente que repite el
+ * mismo token no paga la verificación de la firma en cada pedido. También guarda los rechazos
+ * (caché negativa) para que un token inválido repetido no se vuelva caro.
+ *
+ * <p>Las lecturas no bloquean: son un {@code get} de un {@link ConcurrentHashMap}. El tamaño está
+ * acotado; cuando se pasa se desaloja la más vieja (o una vencida) de una muestra. Las muestras se
+ * toman con una aguja que recorre la tabla y sigue donde quedó la anterior, así cada desalojo mira
+ * unas pocas entradas aunque la tabla esté llena de tokens basura.
+ */
+public class CachingTokenVerifier implements TokenVerifier {
+  private static final int EVICTION_SAMPLE = 8;
+
+  private final TokenVerifier delegate;
+  private final int maxSize;
+  private final long ttlNanos;
+  private final long negativeTtlNanos;
+  private final LongSupplier nanoClock;
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+  // para pasar el vencimiento de los tokens (epoch millis) al reloj inyectado, que es relativo
+  private final long anchorMillis;
+  private final long anchorNanos;
+  private final ReentrantLock evicting = new ReentrantLock();
+  private Iterator<Map.Entry<String, Entry>> hand;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /** Una entrada; {@code token} es null para los rechazos. */
+  private static class Entry {
+    private final VerifiedToken token;
+    private final long expiresAtNanos;
+
+    Entry(VerifiedToken token, long expiresAtNanos) {
+      this.token = token;
+      this.expiresAtNanos = expiresAtNanos;
+    }
+  }
+
+  public CachingTokenVerifier(TokenVerifier delegate, int maxSize, long ttl, TimeUnit unit) {
+    this(delegate, maxSize, unit.toNanos(ttl), unit.toNanos(ttl) / 10, System::nanoTime);
+  }
+
+  public CachingTokenVerifier(
+      TokenVerifier delegate,
+      int maxSize,
+      long ttlNanos,
+      long negativeTtlNanos,
+      LongSupplier nanoClock) {
+    this.delegate = delegate;
+    this.maxSize = maxSize;
+    this.ttlNanos = ttlNanos;
+    this.negativeTtlNanos = negativeTtlNanos;
+    this.nanoClock = nanoClock;
+    this.anchorMillis = System.currentTimeMillis();
+    this.anchorNanos = nanoClock.getAsLong();
+  }
+
+  @Override
+  public VerifiedToken verify(String token) {
+    if (token == null) {
+      return null;
+    }
+    long now = nanoClock.getAsLong();
+    Entry entry = entries.get(token);
+    if (entry != null && entry.expiresAtNanos - now > 0) {
+      hits.increment();
+      return entry.token;
+    }
+    misses.increment();
+    // dos hilos con el mismo token pueden verificarlo a la vez; es barato y evita bloquear
+    VerifiedToken verified = delegate.verify(token);
+    long ttl = ttlFor(verified, now);
+    if (ttl <= 0) {
+      // ya vencería al guardarla: sólo ocuparía lugar
+      return verified;
+    }
+    entries.put(token, new Entry(verified, now + ttl));
+    if (entries.size() > maxSize) {
+      evict(now);
+    }
+    return verified;
+  }
+
+  /** Un token válido no puede quedar en la caché más allá de su propio vencimiento. */
+  private long ttlFor(VerifiedToken verified, long now) {
+    if (verified == null) {
+      return negativeTtlNanos;
+    }
+    long nowMillis = anchorMillis + TimeUnit.NANOSECONDS.toMillis(now - anchorNanos);
+    long left = verified.getExpiresAtMillis() - nowMillis;
+    return Math.max(0, Math.min(ttlNanos, TimeUnit.MILLISECONDS.toNanos(left)));
+  }
+
+  private void evict(long now) {
+    if (!evicting.tryLock()) {
+      // otro hilo ya está desalojando
+      return;
+    }
+    try {
+      while (entries.size() > maxSize) {
+        Map.Entry<String, Entry> oldest = null;
+        for (int i = 0; i < EVICTION_SAMPLE; i++) {
+          Map.Entry<String, Entry> candidate = next();
+          if (candidate == null) {
+            break;
+          }
+          if (candidate.getValue().expiresAtNanos - now <= 0) {
+            oldest = candidate;
+            break;
+          }
+          if (oldest == null
+              || candidate.getValue().expiresAtNanos - oldest.getValue().expiresAtNanos < 0) {
+            oldest = candidate;
+          }
+        }
+        if (oldest == null) {
+          return;
+        }
+        if (entries.remove(oldest.getKey(), oldest.getValue())) {
+          evictions.increment();
+        }
+      }
+    } finally {
+      evicting.unlock();
+    }
+  }
+
+  /** La próxima entrada bajo la aguja; al llegar al final vuelve a empezar. */
+  private Map.Entry<String, Entry> next() {
+    if (hand == null || !hand.hasNext()) {
+      hand = entries.entrySet().iterator();
+      if (!hand.hasNext()) {
+        return null;
+      }
+    }
+    return hand.next();
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+}
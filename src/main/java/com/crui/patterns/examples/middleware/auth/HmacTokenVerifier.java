@@ -0,0 +1,114 @@
+package com.crui.patterns.examples.middleware.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Verifica tokens firmados con HMAC-SHA256 de la forma {@code keyId.subject.expira.firma}, donde
+ * {@code expira} son milisegundos epoch y la firma es base64url de los tres primeros campos. Las
+ * claves se buscan por {@code keyId}, así se pueden rotar sin invalidar los tokens viejos.
+ */
+public class HmacTokenVerifier implements TokenVerifier {
+  private static final String ALGORITHM = "HmacSHA256";
+
+  // Mac no es thread-safe y crearlo es caro, así que cada hilo tiene el suyo
+  private static final ThreadLocal<Mac> MAC =
+      ThreadLocal.withInitial(
+          () -> {
+            try {
+              return Mac.getInstance(ALGORITHM);
+            } catch (GeneralSecurityException e) {
+              throw new IllegalStateException(e);
+            }
+          });
+
+  private final Map<String, SecretKeySpec> keys = new HashMap<>();
+  private final LongSupplier clock;
+
+  public HmacTokenVerifier(Map<String, byte[]> keys) {
+    this(keys, System::currentTimeMillis);
+  }
+
+  public HmacTokenVerifier(Map<String, byte[]> keys, LongSupplier clock) {
+    for (Map.Entry<String, byte[]> key : keys.entrySet()) {
+      this.keys.put(key.getKey(), new SecretKeySpec(key.getValue(), ALGORITHM));
+    }
+    this.clock = clock;
+  }
+
+  /**
+   * Firma un token con una de las claves; útil para emitir tokens y para los tests. El punto
+   * separa los campos, así que ni {@code keyId} ni {@code subject} pueden tenerlo: el token saldría
+   * firmado pero {@link #verify} no podría separarlo.
+   */
+  public String sign(String keyId, String subject, long expiresAtMillis) {
+    if (keyId.indexOf('.') >= 0 || subject.indexOf('.') >= 0) {
+      throw new IllegalArgumentException("Key id and subject cannot contain '.'");
+    }
+    String payload = keyId + "." + subject + "." + expiresAtMillis;
+    return payload + "." + encode(mac(keys.get(keyId), payload));
+  }
+
+  @Override
+  public VerifiedToken verify(String token) {
+    if (token == null) {
+      return null;
+    }
+    int first = token.indexOf('.');
+    int second = token.indexOf('.', first + 1);
+    int last = token.lastIndexOf('.');
+    if (first <= 0 || second <= first || last <= second) {
+      return null;
+    }
+    SecretKeySpec key = keys.get(token.substring(0, first));
+    if (key == null) {
+      return null;
+    }
+    long expiresAt;
+    try {
+      expiresAt = Long.parseLong(token.substring(second + 1, last));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    if (expiresAt <= clock.getAsLong()) {
+      return null;
+    }
+    byte[] signature;
+    try {
+      signature = Base64.getUrlDecoder().decode(token.substring(last + 1));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+    byte[] expected = mac(key, token.substring(0, last));
+    // comparación en tiempo constante para no filtrar cuántos bytes coinciden
+    if (!MessageDigest.isEqual(expected, signature)) {
+      return null;
+    }
+    return new VerifiedToken(token.substring(first + 1, second), expiresAt);
+  }
+
+  private static byte[] mac(SecretKeySpec key, String payload) {
+    if (key == null) {
+      throw new IllegalArgumentException("Unknown key");
+    }
+    Mac mac = MAC.get();
+    try {
+      mac.init(key);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+    return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String encode(byte[] bytes) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+}
@@ -0,0 +1,8 @@
+package com.crui.patterns.examples.middleware.auth;
+
+/** Decide si un token es válido. Tiene que poder usarse desde varios hilos a la vez. */
+public interface TokenVerifier {
+
+  /** @return el token verificado, o null si es inválido o está vencido */
+  VerifiedToken verify(String token);
+}
@@ -0,0 +1,25 @@
+package com.crui.patterns.examples.middleware.auth;
+
+/** Lo que se sabe de un token después de verificarlo. */
+public class VerifiedToken {
+  private final String subject;
+  private final long expiresAtMillis;
+
+  public VerifiedToken(String subject, long expiresAtMillis) {
+    this.subject = subject;
+    this.expiresAtMillis = expiresAtMillis;
+  }
+
+  public String getSubject() {
+    return subject;
+  }
+
+  public long getExpiresAtMillis() {
+    return expiresAtMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "VerifiedToken [subject=" + subject + ", expiresAtMillis=" + expiresAtMillis + "]";
+  }
+}
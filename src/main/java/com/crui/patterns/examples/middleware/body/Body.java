@@ -0,0 +1,83 @@
+package com.crui.patterns.examples.middleware.body;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * El cuerpo de un pedido o una respuesta, guardado como bytes y no como {@code String}. Puede estar
+ * en el heap, en un buffer directo, en un archivo mapeado a memoria o directamente en un archivo
+ * ({@link FileBody}), así los cuerpos grandes atraviesan la cadena sin copiarse.
+ *
+ * <p>Los handlers que trabajan con texto siguen andando: {@link #asString()} decodifica recién
+ * cuando alguien lo pide, y una sola vez.
+ */
+public abstract class Body {
+  public static final Body EMPTY = new BufferBody("");
+
+  /** Cuerpo de texto; se codifica a UTF-8 recién cuando hay que mandarlo. */
+  public static Body of(String text) {
+    return text == null ? EMPTY : new BufferBody(text);
+  }
+
+  public static Body of(byte[] bytes) {
+    return new BufferBody(ByteBuffer.wrap(bytes));
+  }
+
+  /** Usa los bytes entre position y limit sin copiarlos; el buffer puede ser directo. */
+  public static Body of(ByteBuffer buffer) {
+    return new BufferBody(buffer.slice());
+  }
+
+  /** Mapea el archivo a memoria: los bytes los trae el sistema operativo a medida que se leen. */
+  public static Body map(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return new BufferBody(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /** Cuerpo que se manda directo del archivo al socket, sin pasar por el heap. */
+  public static Body ofFile(Path file) throws IOException {
+    return new FileBody(file);
+  }
+
+  /** Cantidad de bytes. */
+  public abstract long length();
+
+  /** El contenido decodificado como UTF-8. */
+  public abstract String asString();
+
+  /** Vista de sólo lectura de los bytes; cada llamada devuelve una vista nueva desde el inicio. */
+  public abstract ByteBuffer asBuffer();
+
+  /** Para leer el cuerpo de a partes sin cargarlo entero. */
+  public abstract InputStream openStream() throws IOException;
+
+  /**
+   * Escribe lo que pueda desde {@code position}. Con un canal no bloqueante puede escribir menos
+   * de lo que falta, así que hay que volver a llamarlo con la nueva posición.
+   *
+   * @return cuántos bytes escribió
+   */
+  public abstract long transferTo(long position, WritableByteChannel target) throws IOException;
+
+  /**
+   * Para mandar el cuerpo en muchas escrituras parciales sin reabrir nada en cada una. Hay que
+   * cerrarlo al terminar.
+   */
+  public BodyTransfer open() throws IOException {
+    return this::transferTo;
+  }
+
+  /**
+   * Los bytes, si el cuerpo ya está en memoria, para mandarlos junto con otros buffers en una sola
+   * escritura. Devuelve null si hay que mandarlo con {@link #transferTo}.
+   */
+  public ByteBuffer inMemory() {
+    return null;
+  }
+}
@@ -0,0 +1,17 @@
+package com.crui.patterns.examples.middleware.body;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Un cuerpo abierto para mandarlo en varias escrituras. Lo que haya que abrir (el archivo de un
+ * {@link FileBody}) se abre una vez y se suelta en {@link #close()}.
+ */
+public interface BodyTransfer extends Closeable {
+  /** Como {@link Body#transferTo}. */
+  long transferTo(long position, WritableByteChannel target) throws IOException;
+
+  @Override
+  default void close() throws IOException {}
+}
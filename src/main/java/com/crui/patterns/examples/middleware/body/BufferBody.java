@@ -0,0 +1,97 @@
+package com.crui.patterns.examples.middleware.body;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cuerpo en memoria. Guarda el texto, los bytes o ambos: lo que falte se calcula la primera vez
+ * que se pide. Si dos hilos lo piden a la vez los dos calculan lo mismo, así que no hace falta
+ * sincronizar.
+ */
+class BufferBody extends Body {
+  private String text;
+  private ByteBuffer bytes;
+
+  BufferBody(String text) {
+    this.text = text;
+  }
+
+  BufferBody(ByteBuffer bytes) {
+    this.bytes = bytes;
+  }
+
+  private ByteBuffer bytes() {
+    ByteBuffer result = bytes;
+    if (result == null) {
+      result = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+      bytes = result;
+    }
+    return result;
+  }
+
+  @Override
+  public long length() {
+    return bytes().remaining();
+  }
+
+  @Override
+  public String asString() {
+    String result = text;
+    if (result == null) {
+      result = StandardCharsets.UTF_8.decode(bytes().duplicate()).toString();
+      text = result;
+    }
+    return result;
+  }
+
+  @Override
+  public ByteBuffer asBuffer() {
+    return bytes().asReadOnlyBuffer();
+  }
+
+  @Override
+  public InputStream openStream() {
+    ByteBuffer view = asBuffer();
+    return new InputStream() {
+      @Override
+      public int read() {
+        return view.hasRemaining() ? view.get() & 0xFF : -1;
+      }
+
+      @Override
+      public int read(byte[] into, int offset, int length) {
+        if (!view.hasRemaining()) {
+          return length == 0 ? 0 : -1;
+        }
+        int count = Math.min(length, view.remaining());
+        view.get(into, offset, count);
+        return count;
+      }
+
+      @Override
+      public int available() {
+        return view.remaining();
+      }
+    };
+  }
+
+  @Override
+  public long transferTo(long position, WritableByteChannel target) throws IOException {
+    ByteBuffer view = asBuffer();
+    view.position((int) position);
+    return target.write(view);
+  }
+
+  @Override
+  public ByteBuffer inMemory() {
+    return asBuffer();
+  }
+
+  @Override
+  public String toString() {
+    return text != null ? text : "<" + length() + " bytes>";
+  }
+}
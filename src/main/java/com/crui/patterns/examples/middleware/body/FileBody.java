@@ -0,0 +1,94 @@
+package com.crui.patterns.examples.middleware.body;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Cuerpo que vive en un archivo. {@link #transferTo} usa {@link FileChannel#transferTo}, que en
+ * la mayoría de los sistemas pasa los bytes del disco al socket sin copiarlos a la JVM.
+ */
+public class FileBody extends Body {
+  private final Path file;
+  private final long length;
+
+  FileBody(Path file) throws IOException {
+    this.file = file;
+    this.length = Files.size(file);
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  @Override
+  public long length() {
+    return length;
+  }
+
+  /** Los primeros {@link #length()} bytes, aunque el archivo haya crecido después. */
+  @Override
+  public String asString() {
+    return StandardCharsets.UTF_8.decode(asBuffer()).toString();
+  }
+
+  @Override
+  public ByteBuffer asBuffer() {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      checkSize(channel);
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public InputStream openStream() throws IOException {
+    return Files.newInputStream(file);
+  }
+
+  @Override
+  public long transferTo(long position, WritableByteChannel target) throws IOException {
+    try (BodyTransfer transfer = open()) {
+      return transfer.transferTo(position, target);
+    }
+  }
+
+  /** Abre el archivo una sola vez para todas las escrituras parciales. */
+  @Override
+  public BodyTransfer open() throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    return new BodyTransfer() {
+      @Override
+      public long transferTo(long position, WritableByteChannel target) throws IOException {
+        checkSize(channel);
+        // si el archivo creció, se manda sólo lo que dice el Content-Length
+        return channel.transferTo(position, length - position, target);
+      }
+
+      @Override
+      public void close() throws IOException {
+        channel.close();
+      }
+    };
+  }
+
+  private void checkSize(FileChannel channel) throws IOException {
+    if (channel.size() < length) {
+      // el Content-Length ya salió con el largo viejo: no hay forma de completar la respuesta
+      throw new IOException("File shrank while sending it: " + file);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "<file " + file + ", " + length + " bytes>";
+  }
+}
@@ -0,0 +1,67 @@
+package com.crui.patterns.examples.middleware.caching;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import com.crui.patterns.examples.middleware.body.Body;
+
+/** Una respuesta guardada. Es inmutable, así que se puede servir a varios hilos a la vez. */
+public class CachedResponse {
+  private final int status;
+  private final Map<String, String> headers;
+  private final Body body;
+  private final String etag;
+  private final long expiresAtNanos;
+
+  CachedResponse(int status, Map<String, String> headers, Body body, long expiresAtNanos) {
+    this.status = status;
+    this.headers =
+        headers.isEmpty()
+            ? Collections.emptyMap()
+            : Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+    this.body = body;
+    this.etag = etag(body);
+    this.expiresAtNanos = expiresAtNanos;
+  }
+
+  /** El ETag sale del contenido, así dos respuestas iguales tienen el mismo. */
+  private static String etag(Body body) {
+    CRC32C crc = new CRC32C();
+    ByteBuffer bytes = body.asBuffer();
+    crc.update(bytes);
+    return "\"" + Long.toHexString(body.length()) + "-" + Long.toHexString(crc.getValue()) + "\"";
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  /** Las cabeceras que había puesto el handler, como Content-Type o Cache-Control. */
+  public Map<String, String> getHeaders() {
+    return headers;
+  }
+
+  public Body getBody() {
+    return body;
+  }
+
+  public String getEtag() {
+    return etag;
+  }
+
+  boolean isExpired(long now) {
+    return expiresAtNanos - now <= 0;
+  }
+
+  /** Lo que ocupa en la caché; el cuerpo y las cabeceras más un poco por la entrada. */
+  long weight() {
+    long weight = body.length() + 64;
+    for (Map.Entry<String, String> header : headers.entrySet()) {
+      weight += 2 * (header.getKey().length() + header.getValue().length()) + 32;
+    }
+    return weight;
+  }
+}
@@ -0,0 +1,72 @@
+package com.crui.patterns.examples.middleware.caching;
+
+/**
+ * Cuenta aproximadamente cuántas veces se pidió cada clave, en poco espacio (un count-min sketch
+ * con contadores de 4 bits). Cada tanto todos los contadores se dividen por dos, así lo que fue
+ * popular hace mucho va perdiendo peso frente a lo que se pide ahora.
+ *
+ * <p>No es thread-safe; lo usa {@link ResponseCache} con su lock tomado.
+ */
+class FrequencySketch {
+  private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+
+  private final long[] table;
+  private final int mask;
+  private final int sampleSize;
+  private int additions;
+
+  FrequencySketch(int expectedKeys) {
+    int size = Integer.highestOneBit(Math.max(expectedKeys, 16) - 1) << 1;
+    this.table = new long[size];
+    this.mask = size - 1;
+    this.sampleSize = 10 * size;
+  }
+
+  /** Frecuencia estimada: el mínimo de los cuatro contadores de la clave, de 0 a 15. */
+  int frequency(int hash) {
+    int min = 15;
+    for (int i = 0; i < 4; i++) {
+      min = Math.min(min, counter(hash, i));
+    }
+    return min;
+  }
+
+  void increment(int hash) {
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      int index = index(hash, i);
+      int shift = offset(hash, i);
+      if (((table[index] >>> shift) & 0xF) != 0xF) {
+        table[index] += 1L << shift;
+        added = true;
+      }
+    }
+    if (added && ++additions == sampleSize) {
+      reset();
+    }
+  }
+
+  private int counter(int hash, int i) {
+    return (int) ((table[index(hash, i)] >>> offset(hash, i)) & 0xF);
+  }
+
+  private int index(int hash, int i) {
+    long h = (hash + SEEDS[i]) * SEEDS[i];
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+
+  /** Cada long tiene 16 contadores; cada función de hash usa uno distinto. */
+  private int offset(int hash, int i) {
+    return (((hash >>> (i << 3)) & 3) << 2 | i) << 2;
+  }
+
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions /= 2;
+  }
+}
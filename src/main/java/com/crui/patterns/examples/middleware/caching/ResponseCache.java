@@ -0,0 +1,232 @@
+package com.crui.patterns.examples.middleware.caching;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import com.crui.patterns.examples.middleware.body.Body;
+
+/**
+ * Caché de respuestas acotada por bytes, con la política W-TinyLFU. Las entradas nuevas pasan por
+ * una ventana chica (1%); cuando salen de ella sólo entran a la parte principal si se pidieron más
+ * veces que la entrada que habría que desalojar, según un {@link FrequencySketch}. Así un barrido
+ * de URLs que se piden una sola vez no vacía la caché de las que se piden siempre.
+ *
+ * <p>La parte principal es una LRU segmentada: las entradas que se vuelven a pedir pasan de
+ * "a prueba" a "protegidas" (80% del espacio).
+ *
+ * <p>Las lecturas no bloquean: buscan en un {@link ConcurrentHashMap}. El orden de uso se anota
+ * con un lock, pero una lectura que lo encuentra tomado no espera y se saltea la anotación; perder
+ * algunas no cambia mucho las decisiones.
+ */
+public class ResponseCache {
+  private final ConcurrentHashMap<String, CachedResponse> entries = new ConcurrentHashMap<>();
+  private final ReentrantLock policyLock = new ReentrantLock();
+  private final FrequencySketch sketch;
+  // el valor es el peso de cada entrada; el orden de iteración va del menos al más reciente
+  private final LinkedHashMap<String, Long> window = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<String, Long> probation = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<String, Long> protectedSegment =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private final long maxBytes;
+  private final long maxWindowBytes;
+  private final long maxProtectedBytes;
+  private final long ttlNanos;
+  private final LongSupplier nanoClock;
+  private long windowBytes;
+  private long probationBytes;
+  private long protectedBytes;
+  // la última entrada que salió de la ventana: la candidata a quedarse
+  private String candidate;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public ResponseCache(long maxBytes, long ttl, TimeUnit unit) {
+    this(maxBytes, unit.toNanos(ttl), System::nanoTime);
+  }
+
+  public ResponseCache(long maxBytes, long ttlNanos, LongSupplier nanoClock) {
+    this.maxBytes = maxBytes;
+    this.maxWindowBytes = Math.max(1, maxBytes / 100);
+    this.maxProtectedBytes = (maxBytes - maxWindowBytes) * 8 / 10;
+    this.ttlNanos = ttlNanos;
+    this.nanoClock = nanoClock;
+    // asumimos respuestas de unos 4 KB para dimensionar el sketch
+    this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(16, maxBytes / 4096)));
+  }
+
+  /** @return la respuesta guardada, o null si no está o venció */
+  public CachedResponse get(String key) {
+    CachedResponse cached = entries.get(key);
+    if (cached != null && cached.isExpired(nanoClock.getAsLong())) {
+      remove(key, cached);
+      cached = null;
+    }
+    if (cached == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    if (policyLock.tryLock()) {
+      try {
+        sketch.increment(key.hashCode());
+        if (cached != null) {
+          onHit(key);
+        }
+      } finally {
+        policyLock.unlock();
+      }
+    }
+    return cached;
+  }
+
+  public CachedResponse put(String key, int status, Body body) {
+    return put(key, status, Collections.emptyMap(), body);
+  }
+
+  /** Guarda también las cabeceras de la respuesta, para repetirlas en cada acierto. */
+  public CachedResponse put(String key, int status, Map<String, String> headers, Body body) {
+    CachedResponse cached =
+        new CachedResponse(status, headers, body, nanoClock.getAsLong() + ttlNanos);
+    long weight = cached.weight();
+    if (weight > maxBytes - maxWindowBytes) {
+      // no entra nunca; se sirve pero no se guarda
+      return cached;
+    }
+    policyLock.lock();
+    try {
+      removeFromPolicy(key);
+      entries.put(key, cached);
+      window.put(key, weight);
+      windowBytes += weight;
+      while (windowBytes > maxWindowBytes && window.size() > 1) {
+        moveWindowToProbation();
+      }
+      evictMain();
+    } finally {
+      policyLock.unlock();
+    }
+    return cached;
+  }
+
+  public void invalidate(String key) {
+    policyLock.lock();
+    try {
+      if (entries.remove(key) != null) {
+        removeFromPolicy(key);
+      }
+    } finally {
+      policyLock.unlock();
+    }
+  }
+
+  /** Saca la entrada sólo si sigue siendo {@code cached}: otro hilo pudo guardar una nueva. */
+  private void remove(String key, CachedResponse cached) {
+    policyLock.lock();
+    try {
+      if (entries.remove(key, cached)) {
+        removeFromPolicy(key);
+      }
+    } finally {
+      policyLock.unlock();
+    }
+  }
+
+  private void onHit(String key) {
+    if (window.get(key) != null) {
+      return;
+    }
+    if (protectedSegment.get(key) != null) {
+      return;
+    }
+    Long weight = probation.remove(key);
+    if (weight == null) {
+      return;
+    }
+    probationBytes -= weight;
+    protectedSegment.put(key, weight);
+    protectedBytes += weight;
+    // si protegidas se pasa, las menos usadas vuelven a prueba
+    while (protectedBytes > maxProtectedBytes) {
+      String demoted = protectedSegment.keySet().iterator().next();
+      long demotedWeight = protectedSegment.remove(demoted);
+      protectedBytes -= demotedWeight;
+      probation.put(demoted, demotedWeight);
+      probationBytes += demotedWeight;
+    }
+  }
+
+  private void moveWindowToProbation() {
+    candidate = window.keySet().iterator().next();
+    long weight = window.remove(candidate);
+    windowBytes -= weight;
+    probation.put(candidate, weight);
+    probationBytes += weight;
+  }
+
+  /**
+   * Mientras la caché se pase de tamaño, enfrenta a la última entrada admitida a prueba con la
+   * más vieja y se queda con la que se pidió más veces.
+   */
+  private void evictMain() {
+    while (windowBytes + probationBytes + protectedBytes > maxBytes) {
+      String victim;
+      if (!probation.isEmpty()) {
+        victim = probation.keySet().iterator().next();
+        if (candidate != null
+            && !candidate.equals(victim)
+            && probation.containsKey(candidate)
+            && sketch.frequency(candidate.hashCode()) <= sketch.frequency(victim.hashCode())) {
+          victim = candidate;
+        }
+      } else if (!protectedSegment.isEmpty()) {
+        victim = protectedSegment.keySet().iterator().next();
+      } else {
+        victim = window.keySet().iterator().next();
+      }
+      removeFromPolicy(victim);
+      entries.remove(victim);
+      evictions.increment();
+    }
+  }
+
+  private void removeFromPolicy(String key) {
+    Long weight = window.remove(key);
+    if (weight != null) {
+      windowBytes -= weight;
+      return;
+    }
+    weight = probation.remove(key);
+    if (weight != null) {
+      probationBytes -= weight;
+      return;
+    }
+    weight = protectedSegment.remove(key);
+    if (weight != null) {
+      protectedBytes -= weight;
+    }
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+}
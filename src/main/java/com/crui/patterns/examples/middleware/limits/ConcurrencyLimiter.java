@@ -0,0 +1,142 @@
+package com.crui.patterns.examples.middleware.limits;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Limita cuántos pedidos se atienden a la vez y ajusta el límite solo (AIMD). Recuerda la menor
+ * latencia vista, que es lo que tarda un pedido sin cola. Si los pedidos empiezan a tardar
+ * bastante más que eso es que se están encolando: el límite baja un 10%, a lo sumo una vez por
+ * ventana. Si no, y el límite se está usando, sube de a uno.
+ *
+ * <p>La latencia mínima es la menor de las últimas {@link #HISTORY} ventanas. Se olvida por
+ * tiempo y no por pedido, así una cola que crece de a poco no arrastra el mínimo con ella, pero
+ * si el servicio se vuelve más lento de forma permanente el mínimo termina siguiéndolo.
+ */
+public class ConcurrencyLimiter {
+  static final int HISTORY = 30;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double tolerance;
+  private final long windowNanos;
+  private final LongSupplier nanoClock;
+  private final AtomicInteger limit;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final LongAdder rejected = new LongAdder();
+  // la menor latencia de la ventana en curso
+  private final AtomicLong windowMin = new AtomicLong(Long.MAX_VALUE);
+  // si ya se bajó el límite en la ventana en curso
+  private final AtomicBoolean decreased = new AtomicBoolean();
+  private final ReentrantLock rolling = new ReentrantLock();
+  // los mínimos de las ventanas anteriores, en ronda; sólo se tocan con rolling
+  private final long[] minima = new long[HISTORY];
+  private int next;
+  private volatile long windowStart;
+  // la menor de minima
+  private volatile long baseline = Long.MAX_VALUE;
+
+  public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+    this(initialLimit, minLimit, maxLimit, 2.0);
+  }
+
+  /** @param tolerance cuántas veces la latencia mínima se considera normal */
+  public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+    this(
+        initialLimit,
+        minLimit,
+        maxLimit,
+        tolerance,
+        TimeUnit.SECONDS.toNanos(1),
+        System::nanoTime);
+  }
+
+  /** @param windowNanos cada cuánto se toma una muestra de la latencia mínima */
+  public ConcurrencyLimiter(
+      int initialLimit,
+      int minLimit,
+      int maxLimit,
+      double tolerance,
+      long windowNanos,
+      LongSupplier nanoClock) {
+    this.limit = new AtomicInteger(initialLimit);
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.tolerance = tolerance;
+    this.windowNanos = windowNanos;
+    this.nanoClock = nanoClock;
+    this.windowStart = nanoClock.getAsLong();
+    Arrays.fill(minima, Long.MAX_VALUE);
+  }
+
+  /** @return false si ya hay tantos pedidos en curso como el límite */
+  public boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= limit.get()) {
+        rejected.increment();
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /** Se llama una vez por cada {@link #tryAcquire()} exitoso, con lo que tardó el pedido. */
+  public void release(long latencyNanos) {
+    int busy = inFlight.getAndDecrement();
+    roll(nanoClock.getAsLong());
+    long min = Math.min(baseline, windowMin.accumulateAndGet(latencyNanos, Math::min));
+    int current = limit.get();
+    if (latencyNanos > min * tolerance) {
+      // una ráfaga de respuestas lentas baja el límite una sola vez por ventana
+      if (decreased.compareAndSet(false, true)) {
+        limit.updateAndGet(l -> Math.max(minLimit, l - Math.max(1, l / 10)));
+      }
+    } else if (busy * 2 >= current) {
+      limit.compareAndSet(current, Math.min(maxLimit, current + 1));
+    }
+  }
+
+  /** Cierra la ventana en curso si ya pasó su tiempo; si otro hilo la está cerrando, sigue. */
+  private void roll(long now) {
+    if (now - windowStart < windowNanos || !rolling.tryLock()) {
+      return;
+    }
+    try {
+      if (now - windowStart < windowNanos) {
+        return;
+      }
+      minima[next] = windowMin.getAndSet(Long.MAX_VALUE);
+      next = (next + 1) % HISTORY;
+      long min = Long.MAX_VALUE;
+      for (long m : minima) {
+        min = Math.min(min, m);
+      }
+      baseline = min;
+      decreased.set(false);
+      windowStart = now;
+    } finally {
+      rolling.unlock();
+    }
+  }
+
+  public int getLimit() {
+    return limit.get();
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public long getRejected() {
+    return rejected.sum();
+  }
+}
@@ -0,0 +1,132 @@
+package com.crui.patterns.examples.middleware.limits;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Limita pedidos por clave con un token bucket. En vez de guardar fichas y la hora de la última
+ * recarga, cada clave guarda un único {@code long}: el momento en que el balde vuelve a estar
+ * lleno (el algoritmo GCRA, equivalente a un token bucket). Así cada pedido es un solo
+ * compare-and-set, sin locks.
+ *
+ * <p>La tabla de claves está acotada. Una clave cuyo balde ya está lleno no guarda información,
+ * así que se puede olvidar sin cambiar ninguna decisión. Una clave con deuda nunca se olvida: si
+ * se la cambiara por un balde nuevo, alguien limitado podría escaparse mezclando claves basura.
+ * Si no hay lugar, las claves nuevas comparten un único balde de desborde con el mismo límite.
+ */
+public class RateLimiter {
+  private static final int EVICTION_SAMPLE = 16;
+
+  private final long intervalNanos;
+  private final long burstNanos;
+  private final int maxKeys;
+  private final LongSupplier nanoClock;
+  private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder overflowed = new LongAdder();
+  // el balde que comparten las claves que no entran en la tabla
+  private final AtomicLong overflow;
+  // las búsquedas de lugar siguen donde quedó la anterior, como la aguja de un reloj
+  private final ReentrantLock evicting = new ReentrantLock();
+  private Iterator<Map.Entry<String, AtomicLong>> hand;
+
+  /**
+   * @param ratePerSecond pedidos por segundo que se reponen
+   * @param burst cuántos pedidos seguidos se aceptan con el balde lleno
+   */
+  public RateLimiter(double ratePerSecond, int burst, int maxKeys) {
+    this(ratePerSecond, burst, maxKeys, System::nanoTime);
+  }
+
+  public RateLimiter(double ratePerSecond, int burst, int maxKeys, LongSupplier nanoClock) {
+    this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+    this.burstNanos = intervalNanos * (burst - 1);
+    this.maxKeys = maxKeys;
+    this.nanoClock = nanoClock;
+    this.overflow = new AtomicLong(nanoClock.getAsLong() - burstNanos - intervalNanos);
+  }
+
+  public boolean tryAcquire(String key) {
+    long now = nanoClock.getAsLong();
+    AtomicLong bucket = buckets.get(key);
+    if (bucket == null) {
+      bucket = admit(key, now);
+    }
+    while (true) {
+      long full = bucket.get();
+      long from = full - now > 0 ? full : now;
+      if (from - now > burstNanos) {
+        rejected.increment();
+        return false;
+      }
+      if (bucket.compareAndSet(full, from + intervalNanos)) {
+        return true;
+      }
+    }
+  }
+
+  private AtomicLong admit(String key, long now) {
+    if (buckets.size() >= maxKeys && !makeRoom(now)) {
+      overflowed.increment();
+      return overflow;
+    }
+    // un balde nuevo arranca lleno
+    return buckets.computeIfAbsent(key, k -> new AtomicLong(now - burstNanos - intervalNanos));
+  }
+
+  /** Olvida baldes llenos, revisando a lo sumo {@link #EVICTION_SAMPLE}; true si quedó lugar. */
+  private boolean makeRoom(long now) {
+    if (!evicting.tryLock()) {
+      // otro hilo ya está buscando lugar: no vale la pena esperarlo
+      return false;
+    }
+    try {
+      boolean restarted = false;
+      for (int i = 0; i < EVICTION_SAMPLE && buckets.size() >= maxKeys; i++) {
+        if (hand == null || !hand.hasNext()) {
+          if (restarted) {
+            break;
+          }
+          hand = buckets.entrySet().iterator();
+          restarted = true;
+          if (!hand.hasNext()) {
+            break;
+          }
+        }
+        Map.Entry<String, AtomicLong> entry = hand.next();
+        if (entry.getValue().get() - now <= 0
+            && buckets.remove(entry.getKey(), entry.getValue())) {
+          // balde lleno: olvidarlo no cambia nada
+          evictions.increment();
+        }
+      }
+      return buckets.size() < maxKeys;
+    } finally {
+      evicting.unlock();
+    }
+  }
+
+  public long getRejected() {
+    return rejected.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /** Pedidos de claves nuevas que fueron al balde compartido porque la tabla estaba llena. */
+  public long getOverflowed() {
+    return overflowed.sum();
+  }
+
+  public int size() {
+    return buckets.size();
+  }
+}
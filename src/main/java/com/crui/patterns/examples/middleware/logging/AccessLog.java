@@ -0,0 +1,309 @@
+package com.crui.patterns.examples.middleware.logging;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+
+/**
+ * Access log asíncrono. Los hilos que atienden pedidos sólo copian unos campos a un registro
+ * preasignado de un anillo, sin locks; un hilo aparte los formatea y los escribe en tandas a un
+ * archivo con {@link FileChannel}. Cuando el archivo pasa de cierto tamaño se rota: {@code
+ * access.log} pasa a {@code access.log.1} y así sucesivamente.
+ *
+ * <p>Si el anillo está lleno el registro se descarta y se cuenta en {@link #getDropped()}: el log
+ * nunca frena a los pedidos. Si escribir falla (disco lleno, archivo borrado), los registros de esa
+ * tanda se pierden y se cuentan en {@link #getFailed()}; el escritor sigue vivo y reabre el archivo
+ * en el próximo intento, esperando cada vez un poco más mientras siga fallando.
+ */
+public class AccessLog implements Closeable {
+  private static final long IDLE_PARK_NANOS = 100_000;
+  private static final long MIN_RETRY_NANOS = 10_000_000;
+  private static final long MAX_RETRY_NANOS = 1_000_000_000;
+
+  private final AccessRecord[] records;
+  // secuencia de cada casillero: i libre para el productor i, i + 1 listo para el escritor
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder writeErrors = new LongAdder();
+
+  private final Path file;
+  private final long maxFileBytes;
+  private final int maxFiles;
+  private final Thread writer;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+  private final StringBuilder line = new StringBuilder(256);
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+  // null mientras el archivo está cerrado por un error; se reabre al escribir
+  private FileChannel channel;
+  private long fileBytes;
+  private long head;
+  // registros ya formateados en el buffer que todavía no llegaron al archivo
+  private int buffered;
+  private long retryNanos;
+  // hasta dónde llegó el escritor, escritos o perdidos; flush() espera esto
+  private volatile long processed;
+  private volatile boolean running = true;
+  private volatile IOException closeError;
+
+  private AccessLog(Path file, int capacity, long maxFileBytes, int maxFiles) throws IOException {
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+    }
+    this.records = new AccessRecord[capacity];
+    this.sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      records[i] = new AccessRecord();
+      sequences.set(i, i);
+    }
+    this.mask = capacity - 1;
+    this.file = file;
+    this.maxFileBytes = maxFileBytes;
+    this.maxFiles = maxFiles;
+    this.channel = openChannel();
+    this.writer = new Thread(this::writeLoop, "access-log-writer");
+    this.writer.setDaemon(true);
+  }
+
+  /** Abre (o sigue) el archivo y arranca el hilo escritor. */
+  public static AccessLog open(Path file, int capacity, long maxFileBytes, int maxFiles)
+      throws IOException {
+    AccessLog log = new AccessLog(file, capacity, maxFileBytes, maxFiles);
+    log.writer.start();
+    return log;
+  }
+
+  public static AccessLog open(Path file) throws IOException {
+    return open(file, 16 * 1024, 64L * 1024 * 1024, 5);
+  }
+
+  /** @return false si el anillo estaba lleno y el registro se descartó */
+  public boolean record(Request request, Response response, long latencyNanos) {
+    long sequence;
+    int index;
+    while (true) {
+      sequence = tail.get();
+      index = (int) sequence & mask;
+      long available = sequences.get(index);
+      if (available < sequence) {
+        // el escritor todavía no liberó este casillero: el anillo está lleno
+        dropped.increment();
+        return false;
+      }
+      if (available == sequence && tail.compareAndSet(sequence, sequence + 1)) {
+        break;
+      }
+    }
+
+    AccessRecord record = records[index];
+    record.timestampMillis = System.currentTimeMillis();
+    record.method = request.getMethod();
+    record.path = request.getUrl();
+    record.status = response.getStatus();
+    record.latencyNanos = latencyNanos;
+    record.bodyLength = response.getContent().length();
+    record.subject = request.getSubject();
+    sequences.lazySet(index, sequence + 1);
+    return true;
+  }
+
+  private void writeLoop() {
+    while (running) {
+      if (drainOrRecover() == 0) {
+        LockSupport.parkNanos(IDLE_PARK_NANOS);
+      }
+    }
+    drainOrRecover();
+    if (channel != null) {
+      try {
+        channel.force(false);
+        channel.close();
+      } catch (IOException e) {
+        closeError = e;
+      }
+    }
+  }
+
+  /** Un {@link #drain()} que, si falla, descarta la tanda y deja todo listo para reintentar. */
+  private int drainOrRecover() {
+    try {
+      int count = drain();
+      retryNanos = 0;
+      return count;
+    } catch (IOException e) {
+      failed.add(buffered);
+      buffered = 0;
+      buffer.clear();
+      encoder.reset();
+      processed = head;
+      closeQuietly();
+      writeErrors.increment();
+      if (retryNanos == 0) {
+        // se avisa al empezar a fallar, no en cada reintento
+        System.err.println("Access log: cannot write " + file + ", will retry: " + e);
+        retryNanos = MIN_RETRY_NANOS;
+      } else {
+        retryNanos = Math.min(MAX_RETRY_NANOS, retryNanos * 2);
+      }
+      if (running) {
+        LockSupport.parkNanos(retryNanos);
+      }
+      return 1;
+    }
+  }
+
+  /** Formatea todo lo que esté listo y lo escribe. Sólo lo llama el hilo escritor. */
+  private int drain() throws IOException {
+    int count = 0;
+    while (true) {
+      int index = (int) head & mask;
+      if (sequences.get(index) != head + 1) {
+        break;
+      }
+      AccessRecord record = records[index];
+      line.setLength(0);
+      record.appendTo(line);
+      record.clear();
+      sequences.lazySet(index, head + records.length);
+      head++;
+      count++;
+      buffered++;
+      encode();
+    }
+    if (count > 0) {
+      writeBuffer();
+      processed = head;
+    }
+    return count;
+  }
+
+  private void encode() throws IOException {
+    CharBuffer chars = CharBuffer.wrap(line);
+    while (true) {
+      CoderResult result = encoder.encode(chars, buffer, true);
+      if (!result.isOverflow()) {
+        break;
+      }
+      writeBuffer();
+    }
+    encoder.reset();
+  }
+
+  private void writeBuffer() throws IOException {
+    if (channel == null) {
+      channel = openChannel();
+    }
+    buffer.flip();
+    if (fileBytes + buffer.remaining() > maxFileBytes && fileBytes > 0) {
+      rotate();
+    }
+    while (buffer.hasRemaining()) {
+      fileBytes += channel.write(buffer);
+    }
+    buffer.clear();
+    buffered = 0;
+  }
+
+  private void rotate() throws IOException {
+    closeQuietly();
+    for (int i = maxFiles - 1; i >= 1; i--) {
+      Path from = rotated(i);
+      if (Files.exists(from)) {
+        Files.move(from, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+    channel = openChannel();
+  }
+
+  private void closeQuietly() {
+    if (channel == null) {
+      return;
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // ya no sirve; se abre otro
+    }
+    channel = null;
+  }
+
+  private Path rotated(int n) {
+    return file.resolveSibling(file.getFileName() + "." + n);
+  }
+
+  private FileChannel openChannel() throws IOException {
+    FileChannel opened =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    fileBytes = opened.size();
+    return opened;
+  }
+
+  /** Espera a que todo lo registrado hasta ahora esté escrito en el archivo (o perdido). */
+  public void flush() {
+    long target = tail.get();
+    while (processed < target && writer.isAlive()) {
+      LockSupport.unpark(writer);
+      LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+  }
+
+  public long getDropped() {
+    return dropped.sum();
+  }
+
+  public long getWritten() {
+    return processed - failed.sum();
+  }
+
+  /** Registros que se perdieron porque no se pudieron escribir. */
+  public long getFailed() {
+    return failed.sum();
+  }
+
+  /** Cuántas veces falló una escritura; cada falla reabre el archivo en el próximo intento. */
+  public long getWriteErrors() {
+    return writeErrors.sum();
+  }
+
+  /**
+   * Escribe lo pendiente y cierra el archivo. El escritor es quien lo cierra, así que esto nunca
+   * toca un canal que él esté usando.
+   *
+   * @throws IOException si no se pudo bajar el archivo a disco al cerrarlo
+   */
+  @Override
+  public void close() throws IOException {
+    flush();
+    running = false;
+    LockSupport.unpark(writer);
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    if (closeError != null) {
+      throw closeError;
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package com.crui.patterns.examples.middleware.logging;
+
+/**
+ * Una línea del access log. Los registros se reservan una sola vez dentro del {@link AccessLog} y
+ * se reutilizan, así que loguear un pedido no crea objetos.
+ */
+class AccessRecord {
+  long timestampMillis;
+  String method;
+  String path;
+  int status;
+  long latencyNanos;
+  long bodyLength;
+  String subject;
+
+  void clear() {
+    method = null;
+    path = null;
+    subject = null;
+  }
+
+  /** Formato logfmt, fácil de leer y de parsear. */
+  void appendTo(StringBuilder line) {
+    line.append("ts=").append(timestampMillis).append(" method=");
+    appendValue(line, method);
+    line.append(" path=");
+    appendValue(line, path);
+    line.append(" status=")
+        .append(status)
+        .append(" latency_us=")
+        .append(latencyNanos / 1_000)
+        .append(" bytes=")
+        .append(bodyLength);
+    if (subject != null) {
+      line.append(" subject=");
+      appendValue(line, subject);
+    }
+    line.append('\n');
+  }
+
+  /**
+   * Los valores que vienen del cliente pueden traer espacios, comillas o saltos de línea: sin
+   * comillas cortarían la línea o agregarían campos falsos. Sólo se citan si hace falta.
+   */
+  private static void appendValue(StringBuilder line, String value) {
+    if (value == null) {
+      return;
+    }
+    if (!needsQuotes(value)) {
+      line.append(value);
+      return;
+    }
+    line.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          line.append("\\\"");
+          break;
+        case '\\':
+          line.append("\\\\");
+          break;
+        case '\n':
+          line.append("\\n");
+          break;
+        case '\r':
+          line.append("\\r");
+          break;
+        case '\t':
+          line.append("\\t");
+          break;
+        default:
+          if (c < 0x20 || c == 0x7F) {
+            line.append(String.format("\\u%04x", (int) c));
+          } else {
+            line.append(c);
+          }
+          break;
+      }
+    }
+    line.append('"');
+  }
+
+  private static boolean needsQuotes(String value) {
+    if (value.isEmpty()) {
+      return true;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c <= ' ' || c == '"' || c == '=' || c == '\\' || c == 0x7F) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
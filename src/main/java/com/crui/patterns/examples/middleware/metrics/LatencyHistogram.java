@@ -0,0 +1,60 @@
+package com.crui.patterns.examples.middleware.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias con cubetas que se duplican desde 1µs hasta unos 33s, más una para lo
+ * que se pase. Cada cubeta es un {@link LongAdder}, así que muchos hilos registran a la vez sin
+ * pelearse por la misma variable. Elegir la cubeta es O(1) con un par de operaciones de bits.
+ */
+public class LatencyHistogram {
+  static final int BUCKETS = 26;
+  private static final long FIRST_BOUND_NANOS = 1_000;
+
+  // la última es +Inf
+  private final LongAdder[] counts = new LongAdder[BUCKETS + 1];
+  private final LongAdder sumNanos = new LongAdder();
+
+  public LatencyHistogram() {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  public void record(long nanos) {
+    counts[bucket(nanos)].increment();
+    sumNanos.add(nanos);
+  }
+
+  /** Cubeta i: hasta {@code 1µs * 2^i} inclusive. */
+  static int bucket(long nanos) {
+    long micros = (Math.max(nanos, 1) + FIRST_BOUND_NANOS - 1) / FIRST_BOUND_NANOS;
+    int index = micros <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(micros - 1);
+    return Math.min(index, BUCKETS);
+  }
+
+  static long upperBoundNanos(int bucket) {
+    return FIRST_BOUND_NANOS << bucket;
+  }
+
+  /** Copia de los contadores; como se leen de a uno puede no ser exacta bajo carga. */
+  public long[] getCounts() {
+    long[] copy = new long[counts.length];
+    for (int i = 0; i < counts.length; i++) {
+      copy[i] = counts[i].sum();
+    }
+    return copy;
+  }
+
+  public long getSumNanos() {
+    return sumNanos.sum();
+  }
+
+  public long getCount() {
+    long count = 0;
+    for (LongAdder bucket : counts) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+}
@@ -0,0 +1,20 @@
+package com.crui.patterns.examples.middleware.metrics;
+
+import com.crui.patterns.examples.middleware.Handler;
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+
+/** Sirve las métricas en formato Prometheus; se registra como {@code GET /metrics}. */
+public class MetricsHandler implements Handler {
+  private final MetricsRegistry registry;
+
+  public MetricsHandler(MetricsRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public void process(Request request, Response response) {
+    response.setStatus(200);
+    response.setBody(registry.export());
+  }
+}
@@ -0,0 +1,136 @@
+package com.crui.patterns.examples.middleware.metrics;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Guarda las métricas del servidor: latencia y códigos de estado por ruta, y latencia de cada
+ * etapa de cada ruta. Las series se crean la primera vez que se piden; después registrar es sólo
+ * sumar en contadores {@link LongAdder}.
+ *
+ * <p>Las series se identifican por la ruta (el patrón, no la URL), así la cantidad de series no
+ * crece con los ids que vengan en las URLs.
+ */
+public class MetricsRegistry {
+  private static final int MAX_STATUS = 600;
+
+  private final Map<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+  private final Map<String, LatencyHistogram> stages = new ConcurrentHashMap<>();
+
+  /** Las series de una ruta. */
+  public static class RouteMetrics {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicReferenceArray<LongAdder> statuses =
+        new AtomicReferenceArray<>(MAX_STATUS);
+
+    public void record(int status, long nanos) {
+      latency.record(nanos);
+      int index = status >= 0 && status < MAX_STATUS ? status : 0;
+      LongAdder counter = statuses.get(index);
+      if (counter == null) {
+        statuses.compareAndSet(index, null, new LongAdder());
+        counter = statuses.get(index);
+      }
+      counter.increment();
+    }
+
+    public long getCount(int status) {
+      LongAdder counter = statuses.get(status);
+      return counter == null ? 0 : counter.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+      return latency;
+    }
+  }
+
+  public RouteMetrics route(String route) {
+    RouteMetrics metrics = routes.get(route);
+    return metrics != null ? metrics : routes.computeIfAbsent(route, r -> new RouteMetrics());
+  }
+
+  /**
+   * Histograma de una etapa de una ruta. Se pide una sola vez al armar la ruta, no en cada pedido.
+   *
+   * @param phase {@code before}, {@code after} o {@code handle}
+   */
+  public LatencyHistogram stage(String route, String stage, String phase) {
+    String labels =
+        "route=\"" + escape(route) + "\",stage=\"" + escape(stage) + "\",phase=\"" + phase + "\"";
+    return stages.computeIfAbsent(labels, l -> new LatencyHistogram());
+  }
+
+  /** Todas las series en el formato de texto de Prometheus. */
+  public String export() {
+    StringBuilder out = new StringBuilder();
+    Map<String, RouteMetrics> sortedRoutes = new TreeMap<>(routes);
+
+    out.append("# HELP http_requests_total Requests by route and status code.\n");
+    out.append("# TYPE http_requests_total counter\n");
+    for (Map.Entry<String, RouteMetrics> route : sortedRoutes.entrySet()) {
+      String labels = "route=\"" + escape(route.getKey()) + "\"";
+      for (int status = 0; status < MAX_STATUS; status++) {
+        long count = route.getValue().getCount(status);
+        if (count > 0) {
+          out.append("http_requests_total{")
+              .append(labels)
+              .append(",status=\"")
+              .append(status)
+              .append("\"} ")
+              .append(count)
+              .append('\n');
+        }
+      }
+    }
+
+    out.append("# HELP http_request_duration_seconds Request latency by route.\n");
+    out.append("# TYPE http_request_duration_seconds histogram\n");
+    for (Map.Entry<String, RouteMetrics> route : sortedRoutes.entrySet()) {
+      String labels = "route=\"" + escape(route.getKey()) + "\"";
+      appendHistogram(out, "http_request_duration_seconds", labels, route.getValue().latency);
+    }
+
+    out.append("# HELP middleware_stage_duration_seconds Time spent in each stage of a route.\n");
+    out.append("# TYPE middleware_stage_duration_seconds histogram\n");
+    for (Map.Entry<String, LatencyHistogram> stage : new TreeMap<>(stages).entrySet()) {
+      appendHistogram(out, "middleware_stage_duration_seconds", stage.getKey(), stage.getValue());
+    }
+    return out.toString();
+  }
+
+  private static void appendHistogram(
+      StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+    long[] counts = histogram.getCounts();
+    long cumulative = 0;
+    for (int i = 0; i < counts.length; i++) {
+      cumulative += counts[i];
+      String le =
+          i < LatencyHistogram.BUCKETS ? seconds(LatencyHistogram.upperBoundNanos(i)) : "+Inf";
+      out.append(name)
+          .append("_bucket{")
+          .append(labels)
+          .append(",le=\"")
+          .append(le)
+          .append("\"} ")
+          .append(cumulative)
+          .append('\n');
+    }
+    out.append(name).append("_sum{").append(labels).append("} ");
+    out.append(seconds(histogram.getSumNanos())).append('\n');
+    // el count sale de las mismas cubetas leídas, así coincide con +Inf
+    out.append(name).append("_count{").append(labels).append("} ");
+    out.append(cumulative).append('\n');
+  }
+
+  private static String seconds(long nanos) {
+    return BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString();
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
@@ -0,0 +1,86 @@
+package com.crui.patterns.examples.middleware.pooling;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Avisa cuando un objeto de un pool se perdió sin devolverse. Cada objeto prestado lleva un {@link
+ * Tracker}, una referencia débil hacia él. Si el objeto se devuelve, el tracker se cierra; si el
+ * GC lo junta con el tracker todavía abierto, nadie lo devolvió y es una fuga.
+ *
+ * <p>Seguir cada préstamo cuesta una referencia débil, así que se sigue uno de cada {@code
+ * sampleEvery}; una fuga que se repite igual aparece enseguida. Guardar dónde se pidió cada objeto
+ * es más caro todavía y sólo se hace si se pide al crear el detector.
+ */
+public class LeakDetector<T> {
+  private final String name;
+  private final int sampleEvery;
+  private final boolean recordSites;
+  private final ReferenceQueue<T> collected = new ReferenceQueue<>();
+  private final Set<Tracker<T>> open = ConcurrentHashMap.newKeySet();
+  private final LongAdder leaks = new LongAdder();
+
+  /** Acompaña a un objeto prestado hasta que se devuelve. */
+  public static class Tracker<T> extends WeakReference<T> {
+    private final LeakDetector<T> detector;
+    private final Throwable site;
+
+    Tracker(T referent, LeakDetector<T> detector, Throwable site) {
+      super(referent, detector.collected);
+      this.detector = detector;
+      this.site = site;
+    }
+
+    /** Marca el objeto como devuelto. */
+    public void close() {
+      detector.open.remove(this);
+      clear();
+    }
+  }
+
+  public LeakDetector(String name, int sampleEvery, boolean recordSites) {
+    this.name = name;
+    this.sampleEvery = sampleEvery;
+    this.recordSites = recordSites;
+  }
+
+  /** @return el tracker, o null si este préstamo no se sigue */
+  public Tracker<T> track(T object) {
+    report();
+    if (sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) != 0) {
+      return null;
+    }
+    Throwable site = recordSites ? new Throwable(name + " acquired here") : null;
+    Tracker<T> tracker = new Tracker<>(object, this, site);
+    open.add(tracker);
+    return tracker;
+  }
+
+  /** Revisa los objetos que juntó el GC; también lo llama {@link #track} en cada préstamo. */
+  @SuppressWarnings("unchecked")
+  public void report() {
+    Tracker<T> tracker;
+    while ((tracker = (Tracker<T>) collected.poll()) != null) {
+      if (open.remove(tracker)) {
+        leaks.increment();
+        System.err.println("LEAK: a " + name + " was never released");
+        if (tracker.site != null) {
+          tracker.site.printStackTrace();
+        }
+      }
+    }
+  }
+
+  public long getLeaks() {
+    return leaks.sum();
+  }
+
+  /** Objetos prestados que todavía no se devolvieron. */
+  public int getOpen() {
+    return open.size();
+  }
+}
@@ -0,0 +1,48 @@
+package com.crui.patterns.examples.middleware.pooling;
+
+import java.util.function.Supplier;
+
+/**
+ * Pila de objetos para reutilizar. No es thread-safe: la idea es tener uno por hilo (por ejemplo
+ * uno por event loop), así pedir y devolver es sólo mover un índice.
+ *
+ * <p>Quien devuelve un objeto tiene que haberlo limpiado antes.
+ */
+public class ObjectPool<T> {
+  private final Supplier<T> factory;
+  private final Object[] free;
+  private int size;
+  private long created;
+
+  public ObjectPool(Supplier<T> factory, int maxIdle) {
+    this.factory = factory;
+    this.free = new Object[maxIdle];
+  }
+
+  @SuppressWarnings("unchecked")
+  public T acquire() {
+    if (size > 0) {
+      T object = (T) free[--size];
+      free[size] = null;
+      return object;
+    }
+    created++;
+    return factory.get();
+  }
+
+  /** Si el pool ya está lleno el objeto se descarta y lo junta el GC. */
+  public void release(T object) {
+    if (size < free.length) {
+      free[size++] = object;
+    }
+  }
+
+  public int getIdle() {
+    return size;
+  }
+
+  /** Cuántos objetos tuvo que crear; si no para de crecer, algo no se está devolviendo. */
+  public long getCreated() {
+    return created;
+  }
+}
@@ -0,0 +1,102 @@
+package com.crui.patterns.examples.middleware.routing;
+
+import com.crui.patterns.examples.middleware.Handler;
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+import com.crui.patterns.examples.middleware.Stage;
+import com.crui.patterns.examples.middleware.metrics.LatencyHistogram;
+import com.crui.patterns.examples.middleware.metrics.MetricsRegistry;
+
+/** Una ruta registrada: su handler y las etapas que le tocan, ya resueltas en un array. */
+class Route {
+  private final String pattern;
+  private final String[] paramNames;
+  private final Handler handler;
+  private final Stage[] stages;
+  // null si el router no mide las etapas
+  private LatencyHistogram[] beforeTimes;
+  private LatencyHistogram[] afterTimes;
+  private LatencyHistogram handleTime;
+
+  Route(String pattern, String[] paramNames, Handler handler, Stage[] stages) {
+    this.pattern = pattern;
+    this.paramNames = paramNames;
+    this.handler = handler;
+    this.stages = stages;
+  }
+
+  /** Reserva los histogramas de cada etapa una vez, así medir no busca nada por pedido. */
+  void measure(MetricsRegistry registry) {
+    beforeTimes = new LatencyHistogram[stages.length];
+    afterTimes = new LatencyHistogram[stages.length];
+    for (int i = 0; i < stages.length; i++) {
+      String name = stages[i].getClass().getSimpleName();
+      beforeTimes[i] = registry.stage(pattern, name, "before");
+      afterTimes[i] = registry.stage(pattern, name, "after");
+    }
+    handleTime = registry.stage(pattern, "handler", "handle");
+  }
+
+  String getPattern() {
+    return pattern;
+  }
+
+  String[] getParamNames() {
+    return paramNames;
+  }
+
+  /** Recorre las etapas como si estuvieran anidadas, pero con un loop. */
+  void process(Request request, Response response) {
+    boolean timed = handleTime != null;
+    int entered = 0;
+    RuntimeException error = null;
+    long start = timed ? System.nanoTime() : 0;
+    try {
+      while (entered < stages.length && stages[entered].before(request, response)) {
+        if (timed) {
+          start = elapsed(beforeTimes[entered], start);
+        }
+        entered++;
+      }
+      if (timed && entered < stages.length) {
+        // la etapa que cortó la cadena también cuenta
+        start = elapsed(beforeTimes[entered], start);
+      }
+      if (entered == stages.length) {
+        handler.process(request, response);
+        if (timed) {
+          start = elapsed(handleTime, start);
+        }
+      }
+    } catch (RuntimeException e) {
+      error = e;
+    }
+    if (timed) {
+      start = System.nanoTime();
+    }
+    // la etapa que cortó (o falló en before) no se deshace, igual que en la cadena anidada
+    for (int i = entered - 1; i >= 0; i--) {
+      try {
+        if (error == null) {
+          stages[i].after(request, response);
+        } else if (stages[i].onError(request, response, error)) {
+          error = null;
+        }
+      } catch (RuntimeException e) {
+        error = e;
+      }
+      if (timed) {
+        start = elapsed(afterTimes[i], start);
+      }
+    }
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  private static long elapsed(LatencyHistogram histogram, long start) {
+    long now = System.nanoTime();
+    histogram.record(now - start);
+    return now;
+  }
+}
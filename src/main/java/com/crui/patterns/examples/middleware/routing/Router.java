@@ -0,0 +1,183 @@
+package com.crui.patterns.examples.middleware.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.crui.patterns.examples.middleware.Handler;
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+import com.crui.patterns.examples.middleware.Stage;
+import com.crui.patterns.examples.middleware.metrics.MetricsRegistry;
+
+/**
+ * Despacha cada pedido según método y URL. Las rutas se guardan en un árbol de segmentos, así que
+ * buscar una ruta cuesta lo que mide la URL y no cuántas rutas hay. Los segmentos que empiezan con
+ * {@code :} son parámetros, por ejemplo {@code /users/:id}. Un HEAD sin ruta propia usa la del
+ * GET.
+ *
+ * <p>Cada ruta guarda su propio array de etapas (las globales de {@link #use} más las suyas), así
+ * que un pedido sólo pasa por los middlewares que le corresponden.
+ *
+ * <pre>
+ * Router router = new Router()
+ *     .use(new LoggingMiddleware(), new ErrorsMiddleware())
+ *     .get("/health", health)
+ *     .get("/users/:id", user, new AuthMiddleware());
+ * </pre>
+ */
+public class Router implements Handler {
+  private static final int MAX_PARAMS = 8;
+  private static final String UNMATCHED = "unmatched";
+
+  private final Node root = new Node();
+  private final List<Stage> globalStages = new ArrayList<>();
+  private MetricsRegistry metrics;
+
+  /** Un segmento del árbol. Los hijos fijos tienen prioridad sobre el parámetro. */
+  private static class Node {
+    private final Map<String, Node> children = new HashMap<>();
+    private Node param;
+    private String paramName;
+    private final Map<String, Route> routes = new HashMap<>();
+  }
+
+  /** Etapas para todas las rutas. Tiene que llamarse antes de registrar las rutas. */
+  public Router use(Stage... stages) {
+    globalStages.addAll(Arrays.asList(stages));
+    return this;
+  }
+
+  /**
+   * Mide cuánto tarda cada etapa y el handler de cada ruta, y cuenta los 404 y 405. Como {@link
+   * #use}, tiene que llamarse antes de registrar las rutas.
+   */
+  public Router measure(MetricsRegistry metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  public Router get(String pattern, Handler handler, Stage... stages) {
+    return add("GET", pattern, handler, stages);
+  }
+
+  public Router post(String pattern, Handler handler, Stage... stages) {
+    return add("POST", pattern, handler, stages);
+  }
+
+  public Router put(String pattern, Handler handler, Stage... stages) {
+    return add("PUT", pattern, handler, stages);
+  }
+
+  public Router delete(String pattern, Handler handler, Stage... stages) {
+    return add("DELETE", pattern, handler, stages);
+  }
+
+  public Router add(String method, String pattern, Handler handler, Stage... stages) {
+    Node node = root;
+    List<String> names = new ArrayList<>();
+    for (String segment : pattern.split("/")) {
+      if (segment.isEmpty()) {
+        continue;
+      }
+      if (segment.startsWith(":")) {
+        String name = segment.substring(1);
+        names.add(name);
+        if (names.size() > MAX_PARAMS) {
+          throw new IllegalArgumentException("Too many parameters in " + pattern);
+        }
+        if (node.param == null) {
+          node.param = new Node();
+          node.paramName = name;
+        } else if (!node.paramName.equals(name)) {
+          throw new IllegalArgumentException(
+              "Parameter :" + name + " clashes with :" + node.paramName + " in " + pattern);
+        }
+        node = node.param;
+      } else {
+        node = node.children.computeIfAbsent(segment, s -> new Node());
+      }
+    }
+    if (node.routes.containsKey(method)) {
+      throw new IllegalArgumentException("Route already registered: " + method + " " + pattern);
+    }
+    Stage[] compiled = new Stage[globalStages.size() + stages.length];
+    globalStages.toArray(compiled);
+    System.arraycopy(stages, 0, compiled, globalStages.size(), stages.length);
+    String[] paramNames = names.toArray(new String[0]);
+    Route route = new Route(pattern, paramNames, handler, compiled);
+    if (metrics != null) {
+      route.measure(metrics);
+    }
+    node.routes.put(method, route);
+    return this;
+  }
+
+  @Override
+  public void process(Request request, Response response) {
+    String url = request.getUrl();
+    int end = url.indexOf('?');
+    String[] values = new String[MAX_PARAMS];
+    Node node = match(root, url, 0, end < 0 ? url.length() : end, values, 0);
+    Route route = node == null ? null : node.routes.get(request.getMethod());
+    if (route == null && node != null && request.getMethod().equals("HEAD")) {
+      // el servidor manda las cabeceras del GET sin el cuerpo
+      route = node.routes.get("GET");
+    }
+    if (route == null) {
+      response.setStatus(node == null ? 404 : 405);
+      response.setBody(node == null ? "Not found" : "Method not allowed");
+      if (metrics != null) {
+        long nanos = System.nanoTime() - request.getStartNanos();
+        metrics.route(UNMATCHED).record(response.getStatus(), nanos);
+      }
+      return;
+    }
+    request.setRoute(route.getPattern());
+    request.setParams(params(route.getParamNames(), values));
+    route.process(request, response);
+  }
+
+  /**
+   * Baja por el árbol segmento a segmento. Si un hijo fijo no lleva a ninguna ruta prueba con el
+   * parámetro, así {@code /users/me} y {@code /users/:id} conviven.
+   */
+  private Node match(Node node, String url, int from, int end, String[] values, int depth) {
+    while (from < end && url.charAt(from) == '/') {
+      from++;
+    }
+    if (from >= end) {
+      return node.routes.isEmpty() ? null : node;
+    }
+    int slash = url.indexOf('/', from);
+    int to = slash < 0 || slash > end ? end : slash;
+    String segment = url.substring(from, to);
+    Node child = node.children.get(segment);
+    if (child != null) {
+      Node found = match(child, url, to, end, values, depth);
+      if (found != null) {
+        return found;
+      }
+    }
+    if (node.param != null && depth < values.length) {
+      values[depth] = segment;
+      return match(node.param, url, to, end, values, depth + 1);
+    }
+    return null;
+  }
+
+  /** Junta los nombres de la ruta con los valores capturados; sin parámetros no reserva nada. */
+  private static Map<String, String> params(String[] names, String[] values) {
+    if (names.length == 0) {
+      return Collections.emptyMap();
+    }
+    Map<String, String> params = new HashMap<>();
+    for (int i = 0; i < names.length; i++) {
+      params.put(names[i], values[i]);
+    }
+    return params;
+  }
+}
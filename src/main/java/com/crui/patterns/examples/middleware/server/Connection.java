@@ -0,0 +1,348 @@
+package com.crui.patterns.examples.middleware.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import com.crui.patterns.examples.middleware.AsyncHandler;
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+import com.crui.patterns.examples.middleware.body.Body;
+import com.crui.patterns.examples.middleware.body.BodyTransfer;
+
+/**
+ * Una conexión abierta. Sólo la usa el hilo del {@link EventLoop} que la atiende; las etapas que
+ * terminan en otros hilos vuelven al loop con {@link EventLoop#execute}.
+ */
+class Connection {
+  private static final int INITIAL_BUFFER = 8 * 1024;
+  private static final int MAX_BUFFER = HttpParser.MAX_HEADER_BYTES + HttpParser.MAX_BODY_BYTES;
+  // pedidos en vuelo por conexión antes de dejar de leer (backpressure del pipelining)
+  private static final int MAX_IN_FLIGHT = 64;
+
+  private final SocketChannel channel;
+  private final AsyncHandler handler;
+  private final EventLoop loop;
+  private final SelectionKey key;
+  private final HttpParser parser = new HttpParser();
+  private final ArrayDeque<Exchange> inFlight = new ArrayDeque<>();
+  private final ArrayDeque<Outgoing> out = new ArrayDeque<>();
+  private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER);
+  // las cabeceras de las respuestas pendientes, una detrás de otra; se vacía al vaciar la cola
+  private ByteBuffer heads = ByteBuffer.allocate(INITIAL_BUFFER);
+  private boolean parsing;
+  private boolean stopReading;
+  private boolean eof;
+  private boolean closeAfterWrite;
+
+  /**
+   * Algo para mandar: bytes en memoria o un cuerpo que se escribe con {@link BodyTransfer}. El
+   * cuerpo se abre en la primera escritura y se cierra al terminar, no en cada escritura parcial.
+   */
+  private static class Outgoing {
+    private final ByteBuffer buffer;
+    private final Body body;
+    private BodyTransfer transfer;
+    private long position;
+
+    Outgoing(ByteBuffer buffer) {
+      this.buffer = buffer;
+      this.body = null;
+    }
+
+    Outgoing(Body body) {
+      this.buffer = null;
+      this.body = body;
+    }
+
+    boolean isDone() {
+      // el límite es el largo que se anunció en Content-Length, no el tamaño actual del archivo
+      return buffer != null ? !buffer.hasRemaining() : position >= body.length();
+    }
+
+    void transferTo(SocketChannel channel) throws IOException {
+      if (transfer == null) {
+        transfer = body.open();
+      }
+      position += transfer.transferTo(position, channel);
+    }
+
+    void close() {
+      if (transfer == null) {
+        return;
+      }
+      try {
+        transfer.close();
+      } catch (IOException e) {
+        // sólo se leía
+      }
+      transfer = null;
+    }
+  }
+
+  Connection(SocketChannel channel, AsyncHandler handler, EventLoop loop, SelectionKey key) {
+    this.channel = channel;
+    this.handler = handler;
+    this.loop = loop;
+    this.key = key;
+  }
+
+  void onReadable() throws IOException {
+    if (channel.read(in) < 0) {
+      // el cliente no manda más: terminamos lo que ya llegó y cerramos
+      eof = true;
+    }
+    parseBuffered();
+    flush();
+  }
+
+  void onWritable() throws IOException {
+    flush();
+  }
+
+  private void parseBuffered() {
+    parsing = true;
+    in.flip();
+    try {
+      while (!stopReading && inFlight.size() < MAX_IN_FLIGHT) {
+        Exchange exchange = acquire();
+        boolean parsed;
+        try {
+          parsed = parser.parse(in, exchange.request, exchange.headers);
+        } catch (HttpParseException e) {
+          release(exchange);
+          throw e;
+        }
+        if (!parsed) {
+          release(exchange);
+          break;
+        }
+        exchange.keepAlive = parser.isKeepAlive();
+        stopReading = !exchange.keepAlive;
+        inFlight.add(exchange);
+        dispatch(exchange);
+      }
+      in.compact();
+      if (!in.hasRemaining() && !stopReading && inFlight.size() < MAX_IN_FLIGHT) {
+        // el pedido pendiente no entra en el buffer
+        grow();
+      }
+    } catch (HttpParseException e) {
+      Exchange exchange = acquire();
+      exchange.response.setStatus(e.getStatus());
+      exchange.response.setBody(e.getMessage());
+      exchange.done = true;
+      inFlight.add(exchange);
+      stopReading = true;
+      in.clear();
+    } finally {
+      parsing = false;
+    }
+    drain();
+  }
+
+  private void dispatch(Exchange exchange) {
+    CompletionStage<Void> stage;
+    try {
+      stage = handler.process(exchange.request, exchange.response);
+    } catch (RuntimeException e) {
+      stage = CompletableFuture.failedFuture(e);
+    }
+    CompletableFuture<Void> future = stage.toCompletableFuture();
+    if (future.isDone()) {
+      // lo más común: el handler terminó enseguida y no hace falta registrar un callback
+      complete(exchange, future.isCompletedExceptionally() ? error(future) : null);
+      return;
+    }
+    stage.whenComplete((ignored, error) -> loop.execute(() -> complete(exchange, error)));
+  }
+
+  private static Throwable error(CompletableFuture<Void> future) {
+    try {
+      future.join();
+      return null;
+    } catch (RuntimeException e) {
+      return e;
+    }
+  }
+
+  private void complete(Exchange exchange, Throwable error) {
+    if (error != null) {
+      // el handler no tenía ErrorsMiddleware: que no se caiga la conexión
+      exchange.response.setStatus(500);
+      exchange.response.setBody("Internal server error");
+    }
+    exchange.done = true;
+    if (parsing || !key.isValid()) {
+      // si se completó mientras parseábamos, se escribe todo junto al final de la lectura
+      return;
+    }
+    try {
+      if (!stopReading && in.position() > 0) {
+        parseBuffered();
+      } else {
+        drain();
+      }
+      flush();
+    } catch (IOException | RuntimeException e) {
+      close();
+    }
+  }
+
+  /** Pasa a la cola de salida las respuestas listas, respetando el orden de llegada. */
+  private void drain() {
+    while (!inFlight.isEmpty() && inFlight.peek().done) {
+      Exchange exchange = inFlight.poll();
+      Response response = exchange.response;
+      // 204 y 304 no llevan cuerpo; HEAD lleva el Content-Length del GET pero no el cuerpo
+      boolean hasBody = response.getStatus() != 204 && response.getStatus() != 304;
+      boolean headOnly = "HEAD".equals(exchange.request.getMethod());
+      Body body = hasBody ? response.getContent() : Body.EMPTY;
+      out.add(new Outgoing(head(response, body.length(), exchange.keepAlive)));
+      if (!headOnly) {
+        out.add(outgoing(body));
+      }
+      if (!exchange.keepAlive) {
+        closeAfterWrite = true;
+      }
+      // los bytes de la respuesta ya están en la cola de salida
+      release(exchange);
+    }
+    if ((stopReading || eof) && inFlight.isEmpty()) {
+      closeAfterWrite = true;
+    }
+  }
+
+  /** Escribe la cabecera en {@link #heads} y devuelve una vista de esos bytes. */
+  private ByteBuffer head(Response response, long contentLength, boolean keepAlive) {
+    int needed = HttpResponses.maxHeadLength(response.getHeaders());
+    if (heads.remaining() < needed) {
+      // las vistas anteriores siguen apuntando al arreglo viejo, así que no hay que copiar nada
+      heads = ByteBuffer.allocate(Math.max(INITIAL_BUFFER, needed));
+    }
+    int start = heads.position();
+    HttpResponses.writeHead(
+        heads, response.getStatus(), contentLength, keepAlive, response.getHeaders());
+    ByteBuffer head = heads.duplicate();
+    head.limit(heads.position()).position(start);
+    return head;
+  }
+
+  /** Lo que está en memoria sale en la escritura agrupada; el resto, con su transferTo. */
+  private static Outgoing outgoing(Body body) {
+    ByteBuffer bytes = body.inMemory();
+    return bytes != null ? new Outgoing(bytes) : new Outgoing(body);
+  }
+
+  /**
+   * Escribe lo pendiente. Los buffers seguidos salen juntos en una sola escritura (gather write);
+   * los demás cuerpos, con su {@link BodyTransfer}. Si el socket se llena, sigue cuando vuelva a
+   * estar disponible.
+   */
+  private void flush() throws IOException {
+    if (!key.isValid()) {
+      return;
+    }
+    while (!out.isEmpty()) {
+      Outgoing next = out.peek();
+      if (next.body != null) {
+        next.transferTo(channel);
+      } else {
+        channel.write(buffers());
+      }
+      boolean progressed = false;
+      while (!out.isEmpty() && out.peek().isDone()) {
+        out.poll().close();
+        progressed = true;
+      }
+      if (!progressed) {
+        break;
+      }
+    }
+    if (out.isEmpty()) {
+      heads.clear();
+    }
+    if (!out.isEmpty()) {
+      key.interestOps(SelectionKey.OP_WRITE);
+    } else if (closeAfterWrite) {
+      close();
+    } else {
+      boolean paused = stopReading || eof || inFlight.size() >= MAX_IN_FLIGHT;
+      key.interestOps(paused ? 0 : SelectionKey.OP_READ);
+    }
+  }
+
+  /** Los buffers que están al principio de la cola, hasta el primer archivo. */
+  private ByteBuffer[] buffers() {
+    int count = 0;
+    for (Outgoing outgoing : out) {
+      if (outgoing.buffer == null) {
+        break;
+      }
+      count++;
+    }
+    ByteBuffer[] buffers = new ByteBuffer[count];
+    int i = 0;
+    for (Outgoing outgoing : out) {
+      if (i == count) {
+        break;
+      }
+      buffers[i++] = outgoing.buffer;
+    }
+    return buffers;
+  }
+
+  private void grow() {
+    if (in.capacity() >= MAX_BUFFER) {
+      throw new HttpParseException(413, "Payload too large");
+    }
+    ByteBuffer bigger = ByteBuffer.allocate(Math.min(MAX_BUFFER, in.capacity() * 2));
+    in.flip();
+    bigger.put(in);
+    in = bigger;
+  }
+
+  private Exchange acquire() {
+    Exchange exchange = loop.exchanges.acquire();
+    exchange.pooled = false;
+    exchange.tracker = loop.leaks.track(exchange);
+    return exchange;
+  }
+
+  private void release(Exchange exchange) {
+    if (exchange.pooled) {
+      throw new IllegalStateException("Exchange released twice");
+    }
+    if (exchange.tracker != null) {
+      exchange.tracker.close();
+      exchange.tracker = null;
+    }
+    exchange.reset();
+    exchange.pooled = true;
+    loop.exchanges.release(exchange);
+  }
+
+  void close() {
+    key.cancel();
+    // un handler asíncrono todavía puede estar usándolos: no vuelven al pool, los junta el GC
+    for (Exchange exchange : inFlight) {
+      if (exchange.tracker != null) {
+        exchange.tracker.close();
+      }
+    }
+    inFlight.clear();
+    for (Outgoing outgoing : out) {
+      outgoing.close();
+    }
+    out.clear();
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // ya estaba cerrada
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package com.crui.patterns.examples.middleware.server;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.crui.patterns.examples.middleware.AsyncHandler;
+import com.crui.patterns.examples.middleware.pooling.LeakDetector;
+import com.crui.patterns.examples.middleware.pooling.ObjectPool;
+
+/**
+ * Un hilo con su propio {@link Selector} que atiende muchas conexiones sin bloquearse. Todo lo que
+ * toca una conexión corre en este hilo.
+ */
+class EventLoop implements Runnable {
+  private final Selector selector;
+  private final AsyncHandler handler;
+  private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private volatile Thread thread;
+  // sólo los usa el hilo del loop, así que no necesitan sincronización
+  final ObjectPool<Exchange> exchanges = new ObjectPool<>(Exchange::new, 1024);
+  final LeakDetector<Exchange> leaks;
+  private volatile boolean running = true;
+
+  EventLoop(AsyncHandler handler, LeakDetector<Exchange> leaks) throws IOException {
+    this.leaks = leaks;
+    this.selector = Selector.open();
+    this.handler = handler;
+  }
+
+  /** Lo llama el hilo que acepta conexiones; la registración la hace el propio loop. */
+  void register(SocketChannel channel) {
+    pending.add(channel);
+    selector.wakeup();
+  }
+
+  /**
+   * Corre la tarea en el hilo del loop. Si ya estamos en él (la etapa se completó enseguida) la
+   * corre directamente, sin pasar por la cola.
+   */
+  void execute(Runnable task) {
+    if (Thread.currentThread() == thread) {
+      task.run();
+    } else {
+      tasks.add(task);
+      selector.wakeup();
+    }
+  }
+
+  @Override
+  public void run() {
+    thread = Thread.currentThread();
+    try {
+      while (running) {
+        selector.select();
+        registerPending();
+        runTasks();
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          handle(key);
+        }
+      }
+    } catch (IOException | ClosedSelectorException e) {
+      // el servidor se está cerrando
+    } finally {
+      closeAll();
+    }
+  }
+
+  private void registerPending() throws IOException {
+    SocketChannel channel;
+    while ((channel = pending.poll()) != null) {
+      channel.configureBlocking(false);
+      SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+      key.attach(new Connection(channel, handler, this, key));
+    }
+  }
+
+  private void runTasks() {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      task.run();
+    }
+  }
+
+  private void handle(SelectionKey key) {
+    Connection connection = (Connection) key.attachment();
+    try {
+      if (key.isReadable()) {
+        connection.onReadable();
+      }
+      if (key.isValid() && key.isWritable()) {
+        connection.onWritable();
+      }
+    } catch (IOException | RuntimeException e) {
+      connection.close();
+    }
+  }
+
+  void stop() {
+    running = false;
+    selector.wakeup();
+  }
+
+  private void closeAll() {
+    for (SelectionKey key : selector.keys()) {
+      ((Connection) key.attachment()).close();
+    }
+    try {
+      selector.close();
+    } catch (IOException e) {
+      // nada más que hacer
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.crui.patterns.examples.middleware.server;
+
+import java.util.Collections;
+
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+import com.crui.patterns.examples.middleware.body.Body;
+import com.crui.patterns.examples.middleware.pooling.LeakDetector;
+
+/**
+ * Un pedido con su respuesta y sus cabeceras. Cada {@link EventLoop} los reutiliza: se piden al
+ * parsear y se devuelven cuando la respuesta ya pasó a la cola de salida.
+ */
+class Exchange {
+  final Request request = new Request("GET", "/", null, Body.EMPTY, Collections.emptyMap());
+  final Response response = new Response(200, "");
+  final HeaderArena headers = new HeaderArena();
+  boolean keepAlive;
+  boolean done;
+  // true mientras está en el pool; sirve para detectar que se devolvió dos veces
+  boolean pooled;
+  LeakDetector.Tracker<Exchange> tracker;
+
+  void reset() {
+    request.reset("GET", "/", null, Body.EMPTY, Collections.emptyMap());
+    response.reset();
+    headers.reset();
+    keepAlive = false;
+    done = false;
+  }
+}
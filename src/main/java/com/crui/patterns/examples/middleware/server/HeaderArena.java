@@ -0,0 +1,222 @@
+package com.crui.patterns.examples.middleware.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Las cabeceras de un pedido guardadas como bytes en un arreglo que se reutiliza de un pedido al
+ * siguiente. Al parsear sólo se anotan dónde empieza y termina cada nombre y cada valor; un valor
+ * se convierte a {@code String} recién cuando alguien lo pide.
+ *
+ * <p>Se ve como un {@code Map} de sólo lectura con los nombres en minúsculas. Recorrerlo entero sí
+ * crea un mapa común, pero eso casi nunca hace falta.
+ */
+class HeaderArena extends AbstractMap<String, String> {
+  private byte[] bytes = new byte[1024];
+  private int length;
+  // de a cuatro: inicio y fin del nombre, inicio y fin del valor
+  private int[] slices = new int[64];
+  private int count;
+  private Map<String, String> materialized;
+
+  /** Copia el bloque de cabeceras (sin la línea del pedido) y lo indexa. */
+  void load(byte[] source, int from, int to) {
+    length = to - from;
+    if (bytes.length < length) {
+      bytes = new byte[Math.max(length, bytes.length * 2)];
+    }
+    System.arraycopy(source, from, bytes, 0, length);
+    count = 0;
+    materialized = null;
+    int cursor = 0;
+    while (cursor < length) {
+      int next = indexOf(cursor, length, (byte) '\r');
+      int colon = indexOf(cursor, next, (byte) ':');
+      if (colon == next) {
+        throw new HttpParseException(400, "Bad header");
+      }
+      // un espacio antes de los dos puntos haría que find no reconozca la cabecera
+      if (colon == cursor || bytes[colon - 1] == ' ' || bytes[colon - 1] == '\t') {
+        throw new HttpParseException(400, "Bad header name");
+      }
+      add(cursor, colon, trimStart(colon + 1, next), trimEnd(colon + 1, next));
+      cursor = next + 2;
+    }
+  }
+
+  /** Lo deja vacío para el próximo pedido, sin soltar los arreglos. */
+  void reset() {
+    count = 0;
+    length = 0;
+    materialized = null;
+  }
+
+  private void add(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+    if (count * 4 == slices.length) {
+      slices = Arrays.copyOf(slices, slices.length * 2);
+    }
+    int i = count * 4;
+    slices[i] = nameStart;
+    slices[i + 1] = nameEnd;
+    slices[i + 2] = valueStart;
+    slices[i + 3] = valueEnd;
+    count++;
+  }
+
+  /** Índice de la cabecera con ese nombre (en minúsculas), o -1. No crea objetos. */
+  int find(String name) {
+    return find(name, 0);
+  }
+
+  /** Como {@link #find(String)}, pero empezando a buscar por la cabecera {@code from}. */
+  int find(String name, int from) {
+    for (int h = from; h < count; h++) {
+      int start = slices[h * 4];
+      int end = slices[h * 4 + 1];
+      if (end - start != name.length()) {
+        continue;
+      }
+      boolean equal = true;
+      for (int i = 0; i < name.length() && equal; i++) {
+        equal = Character.toLowerCase((char) bytes[start + i]) == name.charAt(i);
+      }
+      if (equal) {
+        return h;
+      }
+    }
+    return -1;
+  }
+
+  String value(int header) {
+    return value(header, 0);
+  }
+
+  String value(int header, int offset) {
+    int start = slices[header * 4 + 2] + offset;
+    return new String(bytes, start, slices[header * 4 + 3] - start, StandardCharsets.ISO_8859_1);
+  }
+
+  /** La primera posición del valor desde {@code offset} que no es un espacio. */
+  int skipSpaces(int header, int offset) {
+    int start = slices[header * 4 + 2];
+    int end = slices[header * 4 + 3];
+    while (start + offset < end && bytes[start + offset] == ' ') {
+      offset++;
+    }
+    return offset;
+  }
+
+  /** Compara el valor entero sin pasarlo a {@code String}. */
+  boolean valueEqualsIgnoreCase(int header, String expected) {
+    int start = slices[header * 4 + 2];
+    return slices[header * 4 + 3] - start == expected.length()
+        && regionMatches(start, expected, true);
+  }
+
+  boolean valueStartsWithIgnoreCase(int header, String prefix) {
+    int start = slices[header * 4 + 2];
+    return slices[header * 4 + 3] - start >= prefix.length() && regionMatches(start, prefix, true);
+  }
+
+  /** Si el valor desde {@code offset} es exactamente {@code text}, respetando mayúsculas. */
+  boolean valueEquals(int header, int offset, String text) {
+    int start = slices[header * 4 + 2] + offset;
+    return slices[header * 4 + 3] - start == text.length() && regionMatches(start, text, false);
+  }
+
+  private boolean regionMatches(int start, String text, boolean ignoreCase) {
+    for (int i = 0; i < text.length(); i++) {
+      char c = (char) (bytes[start + i] & 0xFF);
+      char expected = text.charAt(i);
+      if (c != expected
+          && (!ignoreCase || Character.toLowerCase(c) != Character.toLowerCase(expected))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Un entero no negativo, o -1 si el valor no es un número. */
+  long valueAsLong(int header) {
+    int start = slices[header * 4 + 2];
+    int end = slices[header * 4 + 3];
+    if (start == end || end - start > 18) {
+      return -1;
+    }
+    long value = 0;
+    for (int i = start; i < end; i++) {
+      int digit = bytes[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
+
+  @Override
+  public String get(Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    int header = find((String) key);
+    return header < 0 ? null : value(header);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key instanceof String && find((String) key) >= 0;
+  }
+
+  @Override
+  public int size() {
+    return materialize().size();
+  }
+
+  @Override
+  public Set<Entry<String, String>> entrySet() {
+    return materialize().entrySet();
+  }
+
+  /** Arma un mapa común; una cabecera repetida se queda con el último valor. */
+  private Map<String, String> materialize() {
+    if (materialized == null) {
+      Map<String, String> map = new HashMap<>();
+      for (int h = 0; h < count; h++) {
+        int start = slices[h * 4];
+        String name =
+            new String(bytes, start, slices[h * 4 + 1] - start, StandardCharsets.ISO_8859_1);
+        map.put(name.toLowerCase(), value(h));
+      }
+      materialized = map;
+    }
+    return materialized;
+  }
+
+  private int indexOf(int from, int to, byte value) {
+    for (int i = from; i < to; i++) {
+      if (bytes[i] == value) {
+        return i;
+      }
+    }
+    return to;
+  }
+
+  private int trimStart(int from, int to) {
+    while (from < to && (bytes[from] == ' ' || bytes[from] == '\t')) {
+      from++;
+    }
+    return from;
+  }
+
+  private int trimEnd(int from, int to) {
+    while (to > from && (bytes[to - 1] == ' ' || bytes[to - 1] == '\t')) {
+      to--;
+    }
+    return to;
+  }
+}
@@ -0,0 +1,17 @@
+package com.crui.patterns.examples.middleware.server;
+
+/** Pedido HTTP inválido; {@link #getStatus()} es el código con el que hay que responder. */
+public class HttpParseException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  private final int status;
+
+  public HttpParseException(int status, String message) {
+    super(message);
+    this.status = status;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+}
@@ -0,0 +1,214 @@
+package com.crui.patterns.examples.middleware.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.body.Body;
+
+/**
+ * Lee pedidos HTTP/1.1 directamente de los bytes recibidos, sin convertir todo el buffer a texto.
+ * Si en el buffer hay varios pedidos seguidos (pipelining), cada llamada a {@link #parse} devuelve
+ * el siguiente.
+ *
+ * <p>Las cabeceras quedan en un {@link HeaderArena} y sólo se pasan a {@code String} si alguien
+ * las pide. El método, la URL y el token se reutilizan si son iguales a los del pedido anterior,
+ * que es lo normal en una conexión keep-alive; así parsear un pedido casi no crea objetos.
+ *
+ * <p>Los cuerpos se delimitan sólo con {@code Content-Length}; un pedido con {@code
+ * Transfer-Encoding} se rechaza.
+ */
+public class HttpParser {
+  static final int MAX_HEADER_BYTES = 16 * 1024;
+  static final int MAX_BODY_BYTES = 1024 * 1024;
+  // a partir de este tamaño el cuerpo se copia fuera del heap
+  private static final int DIRECT_BODY_BYTES = 64 * 1024;
+  private static final String[] METHODS = {
+    "GET", "POST", "PUT", "DELETE", "HEAD", "PATCH", "OPTIONS"
+  };
+  private static final String BEARER = "Bearer ";
+
+  private boolean keepAlive;
+  private String lastUrl = "";
+  private String lastToken = "";
+
+  /**
+   * Devuelve el próximo pedido completo y deja {@code in} posicionado después de él, o {@code
+   * null} si todavía faltan bytes (en ese caso no consume nada).
+   *
+   * @throws HttpParseException si el pedido está mal formado o es demasiado grande
+   */
+  public Request parse(ByteBuffer in) {
+    HeaderArena headers = new HeaderArena();
+    Request request = new Request("GET", "/", null, Body.EMPTY, headers);
+    return parse(in, request, headers) ? request : null;
+  }
+
+  /**
+   * Como {@link #parse(ByteBuffer)} pero carga el pedido en objetos que ya existen, para los
+   * servidores que los reutilizan.
+   *
+   * @return false si todavía faltan bytes
+   */
+  boolean parse(ByteBuffer in, Request into, HeaderArena headers) {
+    int start = in.position();
+    int end = findHeaderEnd(in, start);
+    if (end < 0) {
+      if (in.remaining() > MAX_HEADER_BYTES) {
+        throw new HttpParseException(431, "Request header too large");
+      }
+      return false;
+    }
+    byte[] bytes = in.array();
+    int offset = in.arrayOffset();
+
+    int lineStart = offset + start;
+    int lineEnd = indexOf(bytes, lineStart, offset + end, (byte) '\r');
+    int firstSpace = indexOf(bytes, lineStart, lineEnd, (byte) ' ');
+    int secondSpace = indexOf(bytes, firstSpace + 1, lineEnd, (byte) ' ');
+    if (firstSpace >= lineEnd
+        || secondSpace >= lineEnd
+        || lineEnd - secondSpace != 9
+        || !matches(bytes, secondSpace + 1, "HTTP/1.")) {
+      throw new HttpParseException(400, "Bad request line");
+    }
+    boolean http11 = bytes[lineEnd - 1] == '1';
+    String method = method(bytes, lineStart, firstSpace);
+    String url = url(bytes, firstSpace + 1, secondSpace);
+
+    headers.load(bytes, Math.min(lineEnd + 2, offset + end), offset + end);
+
+    if (headers.find("transfer-encoding") >= 0) {
+      // sin decodificar chunked, el cuerpo se leería como el próximo pedido (request smuggling)
+      throw headers.find("content-length") >= 0
+          ? new HttpParseException(400, "Both Transfer-Encoding and Content-Length")
+          : new HttpParseException(501, "Transfer-Encoding not supported");
+    }
+    int length = contentLength(headers);
+    int bodyStart = end + 4;
+    if (in.limit() - bodyStart < length) {
+      return false;
+    }
+    Body body = copy(in, bodyStart, length);
+    in.position(bodyStart + length);
+
+    int connection = headers.find("connection");
+    keepAlive =
+        http11
+            ? connection < 0 || !headers.valueEqualsIgnoreCase(connection, "close")
+            : connection >= 0 && headers.valueEqualsIgnoreCase(connection, "keep-alive");
+    into.reset(method, url, token(headers), body, headers);
+    return true;
+  }
+
+  /** Si la conexión sigue abierta después del último pedido leído. */
+  public boolean isKeepAlive() {
+    return keepAlive;
+  }
+
+  private static String method(byte[] bytes, int from, int to) {
+    for (String method : METHODS) {
+      if (to - from == method.length() && matches(bytes, from, method)) {
+        return method;
+      }
+    }
+    return ascii(bytes, from, to);
+  }
+
+  private String url(byte[] bytes, int from, int to) {
+    if (to - from != lastUrl.length() || !matches(bytes, from, lastUrl)) {
+      lastUrl = ascii(bytes, from, to);
+    }
+    return lastUrl;
+  }
+
+  private static int contentLength(HeaderArena headers) {
+    int header = headers.find("content-length");
+    if (header < 0) {
+      return 0;
+    }
+    if (headers.find("content-length", header + 1) >= 0) {
+      // dos largos distintos son otra forma de request smuggling
+      throw new HttpParseException(400, "Duplicate Content-Length");
+    }
+    long length = headers.valueAsLong(header);
+    if (length < 0) {
+      throw new HttpParseException(400, "Bad Content-Length");
+    }
+    if (length > MAX_BODY_BYTES) {
+      throw new HttpParseException(413, "Payload too large");
+    }
+    return (int) length;
+  }
+
+  /** El token sale de {@code Authorization: Bearer ...} o de {@code X-Token}. */
+  private String token(HeaderArena headers) {
+    int header = headers.find("authorization");
+    int skip = BEARER.length();
+    if (header < 0 || !headers.valueStartsWithIgnoreCase(header, BEARER)) {
+      header = headers.find("x-token");
+      skip = 0;
+    }
+    if (header < 0) {
+      return null;
+    }
+    skip = headers.skipSpaces(header, skip);
+    // si es el mismo token que el pedido anterior, se reutiliza el String
+    if (!headers.valueEquals(header, skip, lastToken)) {
+      lastToken = headers.value(header, skip);
+    }
+    return lastToken;
+  }
+
+  private static int findHeaderEnd(ByteBuffer in, int from) {
+    byte[] bytes = in.array();
+    int offset = in.arrayOffset();
+    for (int i = from; i + 3 < in.limit(); i++) {
+      if (bytes[offset + i] == '\r'
+          && bytes[offset + i + 1] == '\n'
+          && bytes[offset + i + 2] == '\r'
+          && bytes[offset + i + 3] == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int indexOf(byte[] bytes, int from, int to, byte value) {
+    for (int i = from; i < to; i++) {
+      if (bytes[i] == value) {
+        return i;
+      }
+    }
+    return to;
+  }
+
+  private static boolean matches(byte[] bytes, int from, String text) {
+    for (int i = 0; i < text.length(); i++) {
+      if (bytes[from + i] != text.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Copia el cuerpo una sola vez, porque el buffer de lectura se reutiliza. No lo decodifica: eso
+   * pasa sólo si un handler llama a {@code getBody()}.
+   */
+  private static Body copy(ByteBuffer in, int from, int length) {
+    if (length == 0) {
+      return Body.EMPTY;
+    }
+    ByteBuffer source = in.duplicate();
+    source.limit(from + length).position(from);
+    boolean large = length >= DIRECT_BODY_BYTES;
+    ByteBuffer copy = large ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+    copy.put(source).flip();
+    return Body.of(copy);
+  }
+
+  private static String ascii(byte[] bytes, int from, int to) {
+    return new String(bytes, from, to - from, StandardCharsets.US_ASCII);
+  }
+}
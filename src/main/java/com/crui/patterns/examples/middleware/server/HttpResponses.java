@@ -0,0 +1,130 @@
+package com.crui.patterns.examples.middleware.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/** Arma la línea de estado y las cabeceras de una respuesta HTTP/1.1. */
+final class HttpResponses {
+  private static final byte[] DEFAULT_CONTENT_TYPE =
+      ascii("Content-Type: text/plain; charset=utf-8\r\n");
+  private static final byte[] CONTENT_LENGTH = ascii("Content-Length: ");
+  private static final byte[] CONNECTION_CLOSE = ascii("Connection: close\r\n");
+  private static final byte[] CRLF = ascii("\r\n");
+  // las líneas de estado se arman una sola vez por código
+  private static final byte[][] STATUS_LINES = new byte[600][];
+
+  static {
+    for (int status = 100; status < STATUS_LINES.length; status++) {
+      STATUS_LINES[status] = ascii("HTTP/1.1 " + status + " " + reason(status) + "\r\n");
+    }
+  }
+
+  private HttpResponses() {}
+
+  static String reason(int status) {
+    switch (status) {
+      case 200:
+        return "OK";
+      case 201:
+        return "Created";
+      case 204:
+        return "No Content";
+      case 304:
+        return "Not Modified";
+      case 400:
+        return "Bad Request";
+      case 401:
+        return "Unauthorized";
+      case 403:
+        return "Forbidden";
+      case 404:
+        return "Not Found";
+      case 405:
+        return "Method Not Allowed";
+      case 413:
+        return "Payload Too Large";
+      case 429:
+        return "Too Many Requests";
+      case 431:
+        return "Request Header Fields Too Large";
+      case 500:
+        return "Internal Server Error";
+      case 501:
+        return "Not Implemented";
+      case 503:
+        return "Service Unavailable";
+      default:
+        return "Unknown";
+    }
+  }
+
+  /** Cuántos bytes puede llegar a ocupar la cabecera, para reservar lugar antes de escribirla. */
+  static int maxHeadLength(Map<String, String> headers) {
+    int length = 256;
+    for (Map.Entry<String, String> header : headers.entrySet()) {
+      length += header.getKey().length() + header.getValue().length() + 4;
+    }
+    return length;
+  }
+
+  /**
+   * Escribe la línea de estado y las cabeceras en {@code into} sin armar Strings intermedios. A un
+   * HEAD se le pasa el largo del cuerpo que tendría el GET, aunque después no se mande.
+   */
+  static void writeHead(
+      ByteBuffer into,
+      int status,
+      long contentLength,
+      boolean keepAlive,
+      Map<String, String> headers) {
+    byte[] statusLine = status >= 100 && status < STATUS_LINES.length ? STATUS_LINES[status] : null;
+    if (statusLine == null) {
+      statusLine = ascii("HTTP/1.1 " + status + " " + reason(status) + "\r\n");
+    }
+    into.put(statusLine);
+    boolean hasContentType = false;
+    for (Map.Entry<String, String> header : headers.entrySet()) {
+      hasContentType |= header.getKey().equalsIgnoreCase("Content-Type");
+      putAscii(into, header.getKey());
+      into.put((byte) ':').put((byte) ' ');
+      putAscii(into, header.getValue());
+      into.put(CRLF);
+    }
+    if (!hasContentType) {
+      into.put(DEFAULT_CONTENT_TYPE);
+    }
+    // sin cuerpo tampoco va Content-Length
+    if (status != 204 && status != 304) {
+      into.put(CONTENT_LENGTH);
+      putDigits(into, contentLength);
+      into.put(CRLF);
+    }
+    if (!keepAlive) {
+      into.put(CONNECTION_CLOSE);
+    }
+    into.put(CRLF);
+  }
+
+  private static void putAscii(ByteBuffer into, String text) {
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      // un salto de línea en un valor permitiría inyectar cabeceras
+      into.put(c < 128 && c != '\r' && c != '\n' ? (byte) c : (byte) '?');
+    }
+  }
+
+  private static void putDigits(ByteBuffer into, long value) {
+    long divisor = 1;
+    while (value / divisor >= 10) {
+      divisor *= 10;
+    }
+    for (; divisor > 0; divisor /= 10) {
+      into.put((byte) ('0' + value / divisor % 10));
+    }
+  }
+
+  private static byte[] ascii(String text) {
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+}
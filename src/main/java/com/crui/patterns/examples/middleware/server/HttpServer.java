@@ -0,0 +1,105 @@
+package com.crui.patterns.examples.middleware.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import com.crui.patterns.examples.middleware.AsyncHandler;
+import com.crui.patterns.examples.middleware.Handler;
+import com.crui.patterns.examples.middleware.pooling.LeakDetector;
+
+/**
+ * Servidor HTTP/1.1 sobre NIO que atiende pedidos con una cadena de {@link Handler}. Un hilo
+ * acepta conexiones y las reparte entre varios {@link EventLoop}, cada uno con su selector. Soporta
+ * keep-alive y pipelining: las respuestas salen en el mismo orden que llegaron los pedidos.
+ *
+ * <p>El handler corre en el hilo del event loop, así que no debería bloquearse. Si tiene que
+ * esperar algo, conviene usar un {@link AsyncHandler}: la conexión sigue atendiendo otros pedidos
+ * mientras tanto y la respuesta se escribe cuando su etapa se completa.
+ *
+ * <p>Los {@link com.crui.patterns.examples.middleware.Request} y {@link
+ * com.crui.patterns.examples.middleware.Response} se reutilizan entre pedidos: un handler no debe
+ * guardarlos una vez que terminó (o que se completó su etapa).
+ */
+public class HttpServer implements AutoCloseable {
+  private final ServerSocketChannel server;
+  private final EventLoop[] loops;
+  private final Thread[] threads;
+  private final Thread acceptor;
+  private final LeakDetector<Exchange> leaks = new LeakDetector<>("Exchange", 128, false);
+  private volatile boolean running = true;
+
+  public HttpServer(Handler handler, int port) throws IOException {
+    this(AsyncHandler.of(handler), port);
+  }
+
+  public HttpServer(Handler handler, int port, int eventLoops) throws IOException {
+    this(AsyncHandler.of(handler), port, eventLoops);
+  }
+
+  public HttpServer(AsyncHandler handler, int port) throws IOException {
+    this(handler, port, Runtime.getRuntime().availableProcessors());
+  }
+
+  public HttpServer(AsyncHandler handler, int port, int eventLoops) throws IOException {
+    this.server = ServerSocketChannel.open();
+    this.server.bind(new InetSocketAddress(port), 1024);
+    this.loops = new EventLoop[eventLoops];
+    this.threads = new Thread[eventLoops];
+    for (int i = 0; i < eventLoops; i++) {
+      loops[i] = new EventLoop(handler, leaks);
+      threads[i] = new Thread(loops[i], "http-loop-" + i);
+    }
+    this.acceptor = new Thread(this::accept, "http-acceptor");
+  }
+
+  public HttpServer start() {
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    acceptor.start();
+    return this;
+  }
+
+  public int getPort() {
+    return server.socket().getLocalPort();
+  }
+
+  /** Pedidos que se perdieron sin volver al pool (sobre una muestra de uno cada 128). */
+  public long getLeaks() {
+    leaks.report();
+    return leaks.getLeaks();
+  }
+
+  private void accept() {
+    int next = 0;
+    while (running) {
+      try {
+        SocketChannel channel = server.accept();
+        channel.socket().setTcpNoDelay(true);
+        loops[next].register(channel);
+        next = (next + 1) % loops.length;
+      } catch (IOException e) {
+        // si estamos cerrando, accept() falla y salimos del loop
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    running = false;
+    server.close();
+    for (EventLoop loop : loops) {
+      loop.stop();
+    }
+    try {
+      acceptor.join();
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package com.oop.examples.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.creational.singleton.cache.motor.MotorCache;
+import com.crui.patterns.creational.singleton.cache.offheap.AlmacenOffHeap;
+import com.crui.patterns.creational.singleton.cache.offheap.Promotor;
+
+/** Test class for AlmacenOffHeap. */
+public class AlmacenOffHeapTest {
+  private static final long MB = 1024 * 1024;
+
+  @Test
+  @DisplayName("Test values round-trip as UTF-8 and can be replaced and invalidated")
+  void testRoundTrip() throws Exception {
+    try (AlmacenOffHeap almacen = new AlmacenOffHeap(16 * MB, 0, System::nanoTime)) {
+      almacen.set("369002534", "Pepito Muñoz 🐴", 0);
+      almacen.set("123414123", "Josesito", 0);
+      assertEquals("Pepito Muñoz 🐴", almacen.get("369002534"));
+
+      almacen.set("123414123", "José", 0);
+      assertEquals("José", almacen.get("123414123"));
+      assertEquals(2, almacen.tamanio());
+
+      almacen.invalidar("369002534");
+      assertNull(almacen.get("369002534"));
+      assertEquals(1, almacen.tamanio());
+    }
+  }
+
+  @Test
+  @DisplayName("Test memory stays within capacity and the newest entries survive")
+  void testBounded() throws Exception {
+    try (AlmacenOffHeap almacen = new AlmacenOffHeap(4 * MB, 0, System::nanoTime)) {
+      for (int i = 0; i < 200_000; i++) {
+        almacen.set("dni-" + i, "un nombre bastante largo para el DNI " + i, 0);
+      }
+      assertTrue(almacen.tamanio() < 200_000);
+      assertTrue(almacen.getBytesReservados() <= 5 * MB, "" + almacen.getBytesReservados());
+      assertEquals("un nombre bastante largo para el DNI 199999", almacen.get("dni-199999"));
+    }
+  }
+
+  @Test
+  @DisplayName("Test entries expire with the write time they were stored with")
+  void testExpiry() throws Exception {
+    AtomicLong ahora = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    long ttl = TimeUnit.SECONDS.toNanos(10);
+    try (AlmacenOffHeap almacen = new AlmacenOffHeap(4 * MB, ttl, ahora::get)) {
+      almacen.set("viejo", "1", ahora.get() - TimeUnit.SECONDS.toNanos(9));
+      almacen.set("nuevo", "2", ahora.get());
+      ahora.addAndGet(TimeUnit.SECONDS.toNanos(2));
+      assertNull(almacen.get("viejo"));
+      assertEquals("2", almacen.get("nuevo"));
+    }
+  }
+
+  @Test
+  @DisplayName("Test heap evictions move down and entries read twice move back up")
+  void testTiers() throws Exception {
+    try (AlmacenOffHeap almacen = new AlmacenOffHeap(4 * MB, 0, System::nanoTime)) {
+      MotorCache<String, String> enHeap =
+          MotorCache.<String, String>builder()
+              .pesoMaximo(100)
+              .alDesalojar((clave, valor, escrito) -> almacen.set(clave, valor, escrito))
+              .construir();
+      List<String> promovidas = new ArrayList<>();
+      almacen.setPromotor(
+          (clave, valor, escrito) -> {
+            promovidas.add(clave);
+            enHeap.set(clave, valor, escrito);
+          });
+      for (int i = 0; i < 1_000; i++) {
+        enHeap.set("k" + i, "v" + i);
+      }
+      assertEquals(1_000, enHeap.tamanio() + almacen.tamanio());
+
+      String abajo = null;
+      for (int i = 0; abajo == null; i++) {
+        if (enHeap.get("k" + i) == null) {
+          abajo = "k" + i;
+        }
+      }
+      assertEquals("v" + abajo.substring(1), almacen.get(abajo));
+      assertTrue(promovidas.isEmpty());
+      almacen.get(abajo);
+      assertEquals(List.of(abajo), promovidas);
+      assertNull(almacen.get(abajo));
+    }
+  }
+
+  @Test
+  @DisplayName("Test a promotion does not overwrite a set that happened during the read")
+  void testPromotionLosesToConcurrentSet() throws Exception {
+    try (AlmacenOffHeap almacen = new AlmacenOffHeap(4 * MB, 0, System::nanoTime)) {
+      MotorCache<String, String> enHeap =
+          MotorCache.<String, String>builder().pesoMaximo(100).construir();
+      Promotor promotor = enHeap::setSiFalta;
+      // el set de Cache entra justo después de que el segmento soltó el candado
+      almacen.setPromotor(
+          (clave, valor, escrito) -> {
+            almacen.invalidar(clave);
+            enHeap.set(clave, "nuevo");
+            promotor.promover(clave, valor, escrito);
+          });
+      almacen.set("k", "viejo", System.nanoTime());
+      assertEquals("viejo", almacen.get("k"));
+      assertEquals("viejo", almacen.get("k"));
+      assertEquals("nuevo", enHeap.get("k"));
+    }
+  }
+
+  @Test
+  @DisplayName("Test slabs can live in a memory-mapped file")
+  void testMappedFile() throws Exception {
+    Path archivo = Files.createTempFile("cache", ".slabs");
+    try (AlmacenOffHeap almacen = new AlmacenOffHeap(4 * MB, archivo, 0, System::nanoTime)) {
+      almacen.set("369002534", "Pepito", 0);
+      assertEquals("Pepito", almacen.get("369002534"));
+      assertTrue(Files.size(archivo) >= 4 * MB);
+    } finally {
+      Files.deleteIfExists(archivo);
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package com.oop.examples.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.creational.singleton.cache.distribuida.AlmacenNodo;
+import com.crui.patterns.creational.singleton.cache.distribuida.AnilloConsistente;
+import com.crui.patterns.creational.singleton.cache.distribuida.CacheDistribuida;
+import com.crui.patterns.creational.singleton.cache.distribuida.ServidorNodo;
+import com.crui.patterns.creational.singleton.cache.distribuida.TransporteLocal;
+import com.crui.patterns.creational.singleton.cache.distribuida.TransporteTcp;
+
+/** Test class for CacheDistribuida. */
+public class CacheDistribuidaTest {
+
+  private static CacheDistribuida cluster(List<AlmacenNodo> almacenes) {
+    Map<String, TransporteLocal> nodos = new LinkedHashMap<>();
+    for (int i = 0; i < almacenes.size(); i++) {
+      nodos.put("nodo-" + i, new TransporteLocal(almacenes.get(i)));
+    }
+    return new CacheDistribuida(nodos);
+  }
+
+  private static List<AlmacenNodo> almacenes(int cantidad, long maximoEntradas) {
+    List<AlmacenNodo> almacenes = new ArrayList<>();
+    for (int i = 0; i < cantidad; i++) {
+      almacenes.add(AlmacenNodo.enMemoria(maximoEntradas));
+    }
+    return almacenes;
+  }
+
+  @Test
+  @DisplayName("Test each key lives on exactly one node and a batch finds them all")
+  void testRouting() {
+    List<AlmacenNodo> almacenes = almacenes(3, 10_000);
+    CacheDistribuida cache = cluster(almacenes);
+    List<String> claves = new ArrayList<>();
+    for (int i = 0; i < 3_000; i++) {
+      claves.add("dni-" + i);
+      cache.set("dni-" + i, "nombre " + i);
+    }
+
+    Map<String, String> encontrados = cache.getVarios(claves);
+    assertEquals(3_000, encontrados.size());
+    assertEquals("nombre 42", encontrados.get("dni-42"));
+    for (String clave : claves) {
+      int copias = 0;
+      for (AlmacenNodo almacen : almacenes) {
+        copias += almacen.get(clave) != null ? 1 : 0;
+      }
+      assertEquals(1, copias, clave);
+    }
+    for (AlmacenNodo almacen : almacenes) {
+      int propias = 0;
+      for (String clave : claves) {
+        propias += almacen.get(clave) != null ? 1 : 0;
+      }
+      // con nodos virtuales el reparto queda parejo: ~1000 cada uno
+      assertTrue(propias > 700 && propias < 1300, "" + propias);
+    }
+
+    cache.invalidar("dni-42");
+    assertNull(cache.get("dni-42"));
+  }
+
+  @Test
+  @DisplayName("Test capacity grows with the number of nodes")
+  void testCapacity() {
+    List<String> claves = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      claves.add("dni-" + i);
+    }
+    CacheDistribuida uno = cluster(almacenes(1, 5_000));
+    CacheDistribuida ocho = cluster(almacenes(8, 5_000));
+    for (String clave : claves) {
+      uno.set(clave, clave);
+      ocho.set(clave, clave);
+    }
+    assertTrue(uno.getVarios(claves).size() <= 5_000);
+    assertEquals(20_000, ocho.getVarios(claves).size());
+  }
+
+  @Test
+  @DisplayName("Test adding a node only moves the keys it takes over")
+  void testAddingNode() {
+    AnilloConsistente<String> anillo = new AnilloConsistente<>();
+    for (int i = 0; i < 4; i++) {
+      anillo.agregar("nodo-" + i, "nodo-" + i);
+    }
+    Map<String, String> antes = new HashMap<>();
+    for (int i = 0; i < 10_000; i++) {
+      antes.put("dni-" + i, anillo.nodoPara("dni-" + i));
+    }
+    anillo.agregar("nodo-4", "nodo-4");
+
+    int movidas = 0;
+    for (Map.Entry<String, String> clave : antes.entrySet()) {
+      String ahora = anillo.nodoPara(clave.getKey());
+      if (!ahora.equals(clave.getValue())) {
+        assertEquals("nodo-4", ahora);
+        movidas++;
+      }
+    }
+    // idealmente 1/5 de las claves
+    assertTrue(movidas > 1_000 && movidas < 3_000, "" + movidas);
+  }
+
+  @Test
+  @DisplayName("Test nodes in other processes are reached over TCP")
+  void testTcp() throws Exception {
+    try (ServidorNodo a = new ServidorNodo(AlmacenNodo.enMemoria(1_000), 0);
+        ServidorNodo b = new ServidorNodo(AlmacenNodo.enMemoria(1_000), 0);
+        CacheDistribuida cache =
+            CacheDistribuida.conectar(
+                "127.0.0.1:" + a.getPuerto() + ",127.0.0.1:" + b.getPuerto())) {
+      List<String> claves = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        claves.add("dni-" + i);
+        cache.set("dni-" + i, "Muñoz 🐴 " + i);
+      }
+      assertEquals("Muñoz 🐴 7", cache.get("dni-7"));
+      claves.add("no-está");
+      Map<String, String> encontrados = cache.getVarios(claves);
+      assertEquals(200, encontrados.size());
+      assertEquals("Muñoz 🐴 199", encontrados.get("dni-199"));
+
+      cache.invalidar("dni-7");
+      assertNull(cache.get("dni-7"));
+      assertEquals("cargado", cache.obtener("dni-7", clave -> "cargado"));
+      assertEquals("cargado", cache.get("dni-7"));
+      assertEquals(0, cache.getErroresDeRed());
+    }
+  }
+
+  @Test
+  @DisplayName("Test a node that went away counts as a miss")
+  void testNodeDown() throws Exception {
+    ServidorNodo servidor = new ServidorNodo(AlmacenNodo.enMemoria(1_000), 0);
+    try (CacheDistribuida cache = new CacheDistribuida()) {
+      cache.agregarNodo("solo", new TransporteTcp("127.0.0.1", servidor.getPuerto()));
+      cache.set("dni", "Pepito");
+      servidor.close();
+
+      assertNull(cache.get("dni"));
+      assertEquals("Josesito", cache.obtener("dni", clave -> "Josesito"));
+      assertTrue(cache.getErroresDeRed() >= 2);
+    }
+  }
+}
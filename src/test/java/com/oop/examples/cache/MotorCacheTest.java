@@ -0,0 +1,259 @@
+package com.oop.examples.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.creational.singleton.cache.Cache;
+import com.crui.patterns.creational.singleton.cache.motor.EstadisticasCache;
+import com.crui.patterns.creational.singleton.cache.motor.MotorCache;
+
+/** Test class for MotorCache. */
+public class MotorCacheTest {
+
+  @Test
+  @DisplayName("Test the cache never grows past its maximum weight")
+  void testBounded() {
+    MotorCache<String, String> cache =
+        MotorCache.<String, String>builder()
+            .pesoMaximo(1_000)
+            .pesador((clave, valor) -> valor.length())
+            .construir();
+    for (int i = 0; i < 10_000; i++) {
+      cache.set("k" + i, "valor-" + i);
+      assertTrue(cache.getPeso() <= 1_000);
+    }
+    assertTrue(cache.tamanio() < 200);
+  }
+
+  @Test
+  @DisplayName("Test frequently read keys survive a scan of one-off keys")
+  void testScanResistance() {
+    MotorCache<Integer, Integer> cache =
+        MotorCache.<Integer, Integer>builder().pesoMaximo(100).construir();
+    for (int i = 0; i < 50; i++) {
+      cache.set(i, i);
+    }
+    for (int vuelta = 0; vuelta < 20; vuelta++) {
+      for (int i = 0; i < 50; i++) {
+        cache.get(i);
+      }
+    }
+    for (int i = 1_000; i < 11_000; i++) {
+      cache.set(i, i);
+    }
+    int quedaron = 0;
+    for (int i = 0; i < 50; i++) {
+      if (cache.get(i) != null) {
+        quedaron++;
+      }
+    }
+    assertTrue(quedaron >= 45, "quedaron " + quedaron);
+  }
+
+  @Test
+  @DisplayName("Test entries expire after write and after idle time")
+  void testExpiry() {
+    AtomicLong ahora = new AtomicLong();
+    MotorCache<String, String> porEscritura =
+        MotorCache.<String, String>builder()
+            .expirarTrasEscritura(10, TimeUnit.SECONDS)
+            .reloj(ahora::get)
+            .construir();
+    MotorCache<String, String> porAcceso =
+        MotorCache.<String, String>builder()
+            .expirarTrasAcceso(10, TimeUnit.SECONDS)
+            .reloj(ahora::get)
+            .construir();
+    porEscritura.set("a", "1");
+    porAcceso.set("a", "1");
+
+    ahora.addAndGet(TimeUnit.SECONDS.toNanos(6));
+    assertEquals("1", porEscritura.get("a"));
+    assertEquals("1", porAcceso.get("a"));
+
+    ahora.addAndGet(TimeUnit.SECONDS.toNanos(6));
+    assertNull(porEscritura.get("a"));
+    assertEquals("1", porAcceso.get("a"));
+
+    ahora.addAndGet(TimeUnit.SECONDS.toNanos(11));
+    porAcceso.set("b", "2");
+    assertNull(porAcceso.get("a"));
+    assertEquals(1, porAcceso.tamanio());
+  }
+
+  @Test
+  @DisplayName("Test concurrent loads of the same key call the loader once")
+  void testSingleFlight() throws Exception {
+    MotorCache<String, String> cache = MotorCache.<String, String>builder().construir();
+    AtomicInteger cargas = new AtomicInteger();
+    CountDownLatch largada = new CountDownLatch(1);
+    ExecutorService hilos = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> resultados = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        resultados.add(
+            hilos.submit(
+                () -> {
+                  largada.await();
+                  return cache.obtener(
+                      "dni",
+                      clave -> {
+                        cargas.incrementAndGet();
+                        sleep(100);
+                        return "Pepito";
+                      });
+                }));
+      }
+      largada.countDown();
+      for (Future<String> resultado : resultados) {
+        assertEquals("Pepito", resultado.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      hilos.shutdownNow();
+    }
+    assertEquals(1, cargas.get());
+
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            cache.obtener(
+                "roto",
+                clave -> {
+                  throw new IllegalStateException("sin servicio");
+                }));
+    assertNull(cache.get("roto"));
+  }
+
+  @Test
+  @DisplayName("Test a write or invalidation during a load is not overwritten by the loaded value")
+  void testLoadDoesNotOverwriteNewerWrites() {
+    MotorCache<String, String> cache =
+        MotorCache.<String, String>builder().pesoMaximo(100).construir();
+
+    String cargado =
+        cache.obtener(
+            "a",
+            clave -> {
+              cache.set(clave, "nuevo");
+              return "viejo";
+            });
+    cache.obtener(
+        "b",
+        clave -> {
+          cache.set(clave, "nuevo");
+          cache.invalidar(clave);
+          return "viejo";
+        });
+
+    assertEquals("viejo", cargado);
+    assertEquals("nuevo", cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals("cargado", cache.obtener("c", clave -> "cargado"));
+    assertEquals("cargado", cache.get("c"));
+  }
+
+  @Test
+  @DisplayName("Test hits, misses, loads and evictions are counted")
+  void testStatistics() {
+    MotorCache<String, String> cache =
+        MotorCache.<String, String>builder().pesoMaximo(10).construir();
+    cache.obtener("a", clave -> "1");
+    cache.get("a");
+    cache.get("b");
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            cache.obtener(
+                "c",
+                clave -> {
+                  throw new IllegalStateException();
+                }));
+    for (int i = 0; i < 20; i++) {
+      cache.set("k" + i, "v");
+    }
+
+    EstadisticasCache estadisticas = cache.getEstadisticas();
+    assertEquals(1, estadisticas.getAciertos());
+    assertEquals(3, estadisticas.getFallos());
+    assertEquals(0.25, estadisticas.getTasaDeAciertos());
+    assertEquals(1, estadisticas.getCargas());
+    assertEquals(1, estadisticas.getCargasFallidas());
+    assertEquals(11, estadisticas.getDesalojos());
+    assertEquals(10, estadisticas.getEntradas());
+    assertTrue(estadisticas.getCargaP99Nanos() > 0);
+    assertTrue(estadisticas.toString().contains("tasa=0.250"));
+  }
+
+  @Test
+  @DisplayName("Test Cache.obtener counts a single miss for a load")
+  void testCacheCountsOneMissPerLoad() {
+    Cache cache = Cache.getInstancia();
+    String clave = "obtener-" + System.nanoTime();
+    EstadisticasCache antes = cache.getEstadisticas();
+
+    cache.obtener(clave, dni -> "Pepito");
+    cache.obtener(clave, dni -> "Josesito");
+
+    EstadisticasCache despues = cache.getEstadisticas();
+    assertEquals(1, despues.getFallos() - antes.getFallos());
+    assertEquals(1, despues.getAciertos() - antes.getAciertos());
+    assertEquals(1, despues.getCargas() - antes.getCargas());
+    assertEquals("Pepito", cache.get(clave));
+  }
+
+  @Test
+  @DisplayName("Test the hottest keys come first in the sampled dump")
+  void testHottestKeys() {
+    MotorCache<Integer, Integer> cache =
+        MotorCache.<Integer, Integer>builder().pesoMaximo(1_000).construir();
+    for (int i = 0; i < 1_000; i++) {
+      cache.set(i, i);
+    }
+    for (int vuelta = 0; vuelta < 10; vuelta++) {
+      for (int i = 0; i < 1_000; i++) {
+        cache.get(i % 100 < 3 ? i % 100 : i);
+      }
+    }
+    List<Map.Entry<Integer, Integer>> calientes = cache.masPedidas(3);
+    assertEquals(3, calientes.size());
+    for (Map.Entry<Integer, Integer> caliente : calientes) {
+      assertTrue(caliente.getKey() < 3, "" + calientes);
+    }
+  }
+
+  @Test
+  @DisplayName("Test the singleton keeps the set/get surface")
+  void testSingleton() {
+    Cache cache = Cache.getInstancia();
+    assertTrue(cache == Cache.getInstancia());
+    cache.set("369002534", "Pepito");
+    assertEquals("Pepito", cache.get("369002534"));
+    assertEquals("Pepito", cache.obtener("369002534", dni -> "otro"));
+    assertNotNull(cache.toString());
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.oop.examples.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.creational.singleton.cache.Cache;
+import com.crui.patterns.creational.singleton.cache.snapshot.EscritorSnapshot;
+import com.crui.patterns.creational.singleton.cache.snapshot.LectorSnapshot;
+import com.crui.patterns.creational.singleton.cache.snapshot.ResultadoCarga;
+
+/** Test class for the cache snapshots. */
+public class SnapshotTest {
+
+  @Test
+  @DisplayName("Test a snapshot reloads every entry in parallel")
+  void testRoundTrip() throws IOException {
+    Path archivo = Files.createTempFile("cache", ".snapshot");
+    try {
+      try (EscritorSnapshot escritor = new EscritorSnapshot(archivo)) {
+        for (int i = 0; i < 100_000; i++) {
+          escritor.agregar((byte) (i / 50_000), "dni-" + i, "Nombre Ñandú " + i, 1_000L + i);
+        }
+      }
+      Map<String, String> cargadas = new ConcurrentHashMap<>();
+      ResultadoCarga resultado =
+          LectorSnapshot.cargar(
+              archivo,
+              4,
+              (nivel, clave, valor, escrito) -> {
+                assertEquals(Integer.parseInt(clave.substring(4)) / 50_000, nivel);
+                cargadas.put(clave, valor + "@" + escrito);
+              });
+      assertEquals(100_000, resultado.getEntradas());
+      assertEquals(0, resultado.getBloquesDaniados());
+      assertEquals("Nombre Ñandú 99999@100999", cargadas.get("dni-99999"));
+    } finally {
+      Files.deleteIfExists(archivo);
+    }
+  }
+
+  @Test
+  @DisplayName("Test a corrupted block is skipped and a truncated file is rejected")
+  void testCorruption() throws IOException {
+    Path archivo = Files.createTempFile("cache", ".snapshot");
+    try {
+      try (EscritorSnapshot escritor = new EscritorSnapshot(archivo)) {
+        for (int i = 0; i < 100_000; i++) {
+          escritor.agregar((byte) 0, "dni-" + i, "Nombre " + i, 0);
+        }
+      }
+      try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+        canal.write(ByteBuffer.wrap(new byte[] {'X'}), 100);
+      }
+      ResultadoCarga resultado = LectorSnapshot.cargar(archivo, 2, (n, c, v, e) -> {});
+      assertEquals(1, resultado.getBloquesDaniados());
+      assertTrue(resultado.getBloques() > 1);
+      assertTrue(resultado.getEntradas() > 0 && resultado.getEntradas() < 100_000);
+
+      try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+        canal.truncate(canal.size() - 1);
+      }
+      assertThrows(IOException.class, () -> LectorSnapshot.cargar(archivo, 2, (n, c, v, e) -> {}));
+    } finally {
+      Files.deleteIfExists(archivo);
+    }
+  }
+
+  @Test
+  @DisplayName("Test a block with a corrupted entry count is skipped")
+  void testCorruptedBlockHeader() throws IOException {
+    Path archivo = Files.createTempFile("cache", ".snapshot");
+    try {
+      try (EscritorSnapshot escritor = new EscritorSnapshot(archivo)) {
+        for (int i = 0; i < 100_000; i++) {
+          escritor.agregar((byte) 0, "dni-" + i, "Nombre " + i, 0);
+        }
+      }
+      // la cantidad del primer bloque va después de la cabecera del archivo y del largo
+      try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+        canal.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 1_000_000), 24);
+      }
+      Map<String, String> cargadas = new ConcurrentHashMap<>();
+      ResultadoCarga resultado =
+          LectorSnapshot.cargar(archivo, 2, (n, clave, valor, e) -> cargadas.put(clave, valor));
+      assertEquals(1, resultado.getBloquesDaniados());
+      assertTrue(resultado.getEntradas() > 0 && resultado.getEntradas() < 100_000);
+      assertEquals(resultado.getEntradas(), cargadas.size());
+      assertNull(cargadas.get("dni-0"));
+    } finally {
+      Files.deleteIfExists(archivo);
+    }
+  }
+
+  @Test
+  @DisplayName("Test the cache restores a snapshot without overwriting newer values")
+  void testCacheRestore() throws IOException {
+    Path archivo = Files.createTempFile("cache", ".snapshot");
+    Cache cache = Cache.getInstancia();
+    try {
+      cache.set("snapshot-1", "Pepito");
+      cache.set("snapshot-2", "Josesito");
+      cache.guardarSnapshot(archivo);
+
+      cache.invalidar("snapshot-1");
+      cache.set("snapshot-2", "Josesito v2");
+      cache.restaurar(archivo, 2);
+
+      assertEquals("Pepito", cache.get("snapshot-1"));
+      assertEquals("Josesito v2", cache.get("snapshot-2"));
+    } finally {
+      cache.invalidar("snapshot-1");
+      cache.invalidar("snapshot-2");
+      Files.deleteIfExists(archivo);
+    }
+  }
+}
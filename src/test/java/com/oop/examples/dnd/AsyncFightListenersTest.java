@@ -0,0 +1,107 @@
+package com.oop.examples.dnd;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.fight.Fight;
+import com.crui.patterns.examples.dnd.after.fight.FightFactory;
+import com.crui.patterns.examples.dnd.after.hero.Hero;
+import com.crui.patterns.examples.dnd.after.util.AsyncFightListeners;
+import com.crui.patterns.examples.dnd.after.util.FightListeners;
+import com.crui.patterns.examples.dnd.after.util.MetricsCollector;
+import com.crui.patterns.examples.dnd.after.util.OverflowPolicy;
+
+/** Test class for AsyncFightListeners. */
+public class AsyncFightListenersTest {
+
+  @Test
+  @DisplayName("Test blocking listeners receive the same events as synchronous ones")
+  void testBlockingDeliversEverything() {
+    MetricsCollector direct = new MetricsCollector();
+    MetricsCollector delayed = new MetricsCollector();
+    AsyncFightListeners async =
+        new AsyncFightListeners(16).register(delayed, OverflowPolicy.BLOCK).start();
+    FightListeners listeners = new FightListeners(List.of(direct, async));
+    for (long seed = 0; seed < 200; seed++) {
+      FightFactory.createFight(listeners, seed).run();
+    }
+    async.close();
+    assertEquals(direct.getTotalRounds(), delayed.getTotalRounds());
+    assertEquals(direct.getTotalEnemyHits(), delayed.getTotalEnemyHits());
+    assertEquals(
+        direct.snapshot().getRoundsPerFight().getMean(),
+        delayed.snapshot().getRoundsPerFight().getMean());
+    assertEquals(0, async.getDropped());
+  }
+
+  @Test
+  @DisplayName("Test a throwing listener does not stop delivery to the others")
+  void testThrowingListenerKeepsConsumerAlive() {
+    MetricsCollector direct = new MetricsCollector();
+    MetricsCollector healthy = new MetricsCollector();
+    MetricsCollector broken =
+        new MetricsCollector() {
+          @Override
+          public void fightStarts() {
+            throw new IllegalStateException("boom");
+          }
+        };
+    AsyncFightListeners async =
+        new AsyncFightListeners(16)
+            .register(broken, OverflowPolicy.BLOCK)
+            .register(healthy, OverflowPolicy.BLOCK)
+            .start();
+    FightListeners listeners = new FightListeners(List.of(direct, async));
+    for (long seed = 0; seed < 200; seed++) {
+      FightFactory.createFight(listeners, seed).run();
+    }
+    async.close();
+    assertEquals(200, async.getFailed());
+    assertEquals(direct.getTotalRounds(), healthy.getTotalRounds());
+    assertEquals(direct.getTotalRounds(), broken.getTotalRounds());
+  }
+
+  @Test
+  @DisplayName("Test a lagging consumer sees names as they were when the event was published")
+  void testEventsKeepNamesOfReusedCharacters() {
+    List<String> names = new ArrayList<>();
+    MetricsCollector recorder =
+        new MetricsCollector() {
+          @Override
+          public void heroHits(Hero hero, Enemy target, int dealt) {
+            names.add(hero.getName() + " -> " + target.getName());
+          }
+        };
+    AsyncFightListeners async =
+        new AsyncFightListeners(16).register(recorder, OverflowPolicy.BLOCK);
+    Fight fight = FightFactory.createFight(new FightListeners(List.of()), 1L);
+    Hero hero = fight.getHero();
+    Enemy enemy = fight.getEnemies().get(0);
+    String expected = hero.getName() + " -> " + enemy.getName();
+
+    async.heroHits(hero, enemy, 3);
+    // como hace un pool al reutilizarlos, antes de que el consumidor llegue al evento
+    hero.reset("Otro", hero.getKind(), 1, 1, 1);
+    enemy.reset("Otro", enemy.getKind(), 1, 1, 1);
+    async.start().close();
+
+    assertEquals(List.of(expected), names);
+  }
+
+  @Test
+  @DisplayName("Test closing before starting does not wait for a consumer")
+  void testCloseWithoutStart() {
+    AsyncFightListeners async =
+        new AsyncFightListeners(16).register(new MetricsCollector(), OverflowPolicy.BLOCK);
+    async.fightStarts();
+    assertTimeoutPreemptively(Duration.ofSeconds(5), async::close);
+  }
+}
@@ -0,0 +1,58 @@
+package com.oop.examples.dnd;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.dnd.after.enemy.EnemyFactory;
+import com.crui.patterns.examples.dnd.after.fight.Battle;
+import com.crui.patterns.examples.dnd.after.fight.Fight;
+import com.crui.patterns.examples.dnd.after.fight.FightFactory;
+import com.crui.patterns.examples.dnd.after.hero.HeroFactory;
+import com.crui.patterns.examples.dnd.after.util.FightListeners;
+import com.crui.patterns.examples.dnd.after.util.RandomSource;
+import com.crui.patterns.examples.dnd.after.util.SplittableRandomSource;
+
+/** Test class for Battle. */
+public class BattleTest {
+
+  private static final FightListeners NONE = new FightListeners(List.of());
+
+  @Test
+  @DisplayName("Test battle gives the same result as the object-based fight")
+  void testSameResultAsFight() {
+    for (long seed = 0; seed < 500; seed++) {
+      Fight fight = FightFactory.createFight(NONE, seed);
+      Battle battle = Battle.of(FightFactory.createFight(NONE, seed));
+      fight.run();
+      battle.run();
+      assertEquals(fight.getRound(), battle.getRound());
+      assertEquals(fight.getHero().getHealth(), battle.getHeroHealth());
+      int[] healths = fight.getEnemies().stream().mapToInt(e -> e.getHealth()).toArray();
+      assertArrayEquals(healths, battle.getEnemyHealths());
+    }
+  }
+
+  @Test
+  @DisplayName("Test large battles with strong hero match too")
+  void testLargeBattle() {
+    RandomSource setup = new SplittableRandomSource(9L);
+    Fight fight =
+        new Fight(
+            HeroFactory.createRandomHero(setup),
+            EnemyFactory.createRandomEnemies(2000, setup),
+            NONE,
+            new SplittableRandomSource(10L));
+    fight.getHero().setHealth(50_000);
+    Battle battle =
+        Battle.of(fight.getHero(), fight.getEnemies(), new SplittableRandomSource(10L));
+    fight.run();
+    battle.run();
+    assertEquals(fight.getRound(), battle.getRound());
+    assertEquals(fight.getHero().getHealth(), battle.getHeroHealth());
+  }
+}
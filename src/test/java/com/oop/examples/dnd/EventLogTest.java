@@ -0,0 +1,52 @@
+package com.oop.examples.dnd;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.dnd.after.fight.Fight;
+import com.crui.patterns.examples.dnd.after.fight.FightFactory;
+import com.crui.patterns.examples.dnd.after.util.EventLog;
+import com.crui.patterns.examples.dnd.after.util.FightEventSink;
+import com.crui.patterns.examples.dnd.after.util.FightListeners;
+import com.crui.patterns.examples.dnd.after.util.MetricsCollector;
+
+/** Test class for EventLog. */
+public class EventLogTest {
+
+  @Test
+  @DisplayName("Test fields survive encoding")
+  void testEncoding() {
+    EventLog log = new EventLog(4);
+    log.emit(FightEventSink.ENEMY_HITS, 99, 1_000_000, FightEventSink.HERO, 31);
+    assertEquals(FightEventSink.ENEMY_HITS, log.type(0));
+    assertEquals(99, log.round(0));
+    assertEquals(1_000_000, log.attacker(0));
+    assertEquals(FightEventSink.HERO, log.target(0));
+    assertEquals(31, log.damage(0));
+  }
+
+  @Test
+  @DisplayName("Test replaying the log gives the same metrics as the listener")
+  void testReplayMatchesListener() {
+    MetricsCollector direct = new MetricsCollector();
+    MetricsCollector replayed = new MetricsCollector();
+    EventLog log = new EventLog(4096);
+    for (long seed = 0; seed < 100; seed++) {
+      log.clear();
+      Fight fight = FightFactory.createFight(new FightListeners(List.of(direct)), seed);
+      fight.setEventSink(log);
+      fight.run();
+      log.replay(fight, replayed);
+    }
+    assertEquals(direct.getTotalRounds(), replayed.getTotalRounds());
+    assertEquals(direct.getTotalWins(), replayed.getTotalWins());
+    assertEquals(direct.getTotalEnemiesDefeated(), replayed.getTotalEnemiesDefeated());
+    assertEquals(
+        direct.snapshot().getDamageDealt().getMean(),
+        replayed.snapshot().getDamageDealt().getMean());
+  }
+}
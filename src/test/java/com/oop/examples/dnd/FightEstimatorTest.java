@@ -0,0 +1,58 @@
+package com.oop.examples.dnd;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.fight.Fight;
+import com.crui.patterns.examples.dnd.after.fight.FightEstimate;
+import com.crui.patterns.examples.dnd.after.fight.FightEstimator;
+import com.crui.patterns.examples.dnd.after.fight.FightFactory;
+import com.crui.patterns.examples.dnd.after.hero.Hero;
+import com.crui.patterns.examples.dnd.after.util.FightListeners;
+import com.crui.patterns.examples.dnd.after.util.SplittableRandomSource;
+
+/** Test class for FightEstimator. */
+public class FightEstimatorTest {
+
+  private static final FightListeners NONE = new FightListeners(List.of());
+
+  @Test
+  @DisplayName("Test estimate agrees with Monte Carlo simulation")
+  void testAgreesWithSimulation() {
+    for (long seed : new long[] {3L, 11L, 25L}) {
+      Fight template = FightFactory.createFight(NONE, seed);
+      FightEstimate estimate =
+          FightEstimator.estimate(template.getHero(), template.getEnemies());
+      assertEquals(
+          1.0,
+          estimate.getWinProbability()
+              + estimate.getLossProbability()
+              + estimate.getTimeoutProbability(),
+          1e-9);
+
+      int runs = 20000;
+      int wins = 0;
+      long rounds = 0;
+      for (int i = 0; i < runs; i++) {
+        List<Enemy> enemies = new ArrayList<>();
+        for (Enemy enemy : template.getEnemies()) {
+          enemies.add((Enemy) enemy.copy());
+        }
+        Fight fight =
+            new Fight(
+                (Hero) template.getHero().copy(), enemies, NONE, new SplittableRandomSource(i));
+        fight.run();
+        wins += fight.getHero().isAlive() ? 1 : 0;
+        rounds += fight.getRound() - 1;
+      }
+      assertEquals(estimate.getWinProbability(), (double) wins / runs, 0.02);
+      assertEquals(estimate.getExpectedRounds(), (double) rounds / runs, 0.3);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package com.oop.examples.dnd;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.dnd.after.fight.Fight;
+import com.crui.patterns.examples.dnd.after.fight.FightJournal;
+import com.crui.patterns.examples.dnd.after.fight.JournalEntry;
+import com.crui.patterns.examples.dnd.after.util.FightListeners;
+import com.crui.patterns.examples.dnd.after.util.MetricsCollector;
+
+/** Test class for FightJournal. */
+public class FightJournalTest {
+
+  private Path path;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    path = Files.createTempFile("fights", ".journal");
+    Files.delete(path);
+  }
+
+  @AfterEach
+  void cleanUp() throws IOException {
+    Files.deleteIfExists(path);
+  }
+
+  @Test
+  @DisplayName("Test journaled fights replay to the same rounds")
+  void testReplay() throws IOException {
+    int[] rounds = new int[20];
+    try (FightJournal journal = FightJournal.open(path)) {
+      for (int i = 0; i < rounds.length; i++) {
+        Fight fight = journal.createFight(100 + i, new FightListeners(List.of()));
+        fight.run();
+        rounds[i] = fight.getRound() - 1;
+      }
+    }
+
+    List<JournalEntry> entries = FightJournal.read(path);
+    assertEquals(rounds.length, entries.size());
+    for (int i = 0; i < rounds.length; i++) {
+      JournalEntry entry = entries.get(i);
+      assertEquals(100 + i, entry.getSeed());
+      assertEquals(rounds[i], entry.getRoundCount());
+      Fight replayed = entry.replay(new FightListeners(List.of()));
+      assertEquals(entry.getHeroHealth(rounds[i]), replayed.getHero().getHealth());
+    }
+  }
+
+  @Test
+  @DisplayName("Test fast-forward skips listeners but keeps the outcome")
+  void testFastForward() throws IOException {
+    try (FightJournal journal = FightJournal.open(path)) {
+      journal.createFight(7L, new FightListeners(List.of())).run();
+    }
+    JournalEntry entry = FightJournal.read(path).get(0);
+    int last = entry.getRoundCount();
+    int from = Math.max(1, last / 2);
+
+    MetricsCollector metrics = new MetricsCollector();
+    Fight fight = entry.replayFrom(from, metrics);
+
+    assertEquals(last - from + 1, metrics.getTotalRounds());
+    assertEquals(0, metrics.getTotalFights());
+    int[] healths = fight.getEnemies().stream().mapToInt(e -> e.getHealth()).toArray();
+    assertArrayEquals(entry.getEnemyHealths(last), healths);
+  }
+
+  @Test
+  @DisplayName("Test a truncated journal keeps its complete fights")
+  void testTruncated() throws IOException {
+    try (FightJournal journal = FightJournal.open(path)) {
+      for (int i = 0; i < 3; i++) {
+        journal.createFight(i, new FightListeners(List.of())).run();
+      }
+    }
+    byte[] full = Files.readAllBytes(path);
+    Files.write(path, Arrays.copyOf(full, full.length - 1));
+    assertEquals(2, FightJournal.read(path).size());
+    for (int length = 4; length < full.length; length++) {
+      Files.write(path, Arrays.copyOf(full, length));
+      assertTrue(FightJournal.read(path).size() < 3);
+    }
+  }
+
+  @Test
+  @DisplayName("Test a round outside a fight is rejected")
+  void testRoundWithoutFight() throws IOException {
+    ByteBuffer data = ByteBuffer.allocate(4 + 1 + 16);
+    data.putInt(0x444E444A).put((byte) 2).putInt(1).putInt(10).putInt(0).putInt(5);
+    Files.write(path, data.array());
+    assertThrows(IOException.class, () -> FightJournal.read(path));
+  }
+
+  @Test
+  @DisplayName("Test a round that targets a missing enemy is rejected")
+  void testRoundWithBadTarget() throws IOException {
+    for (int target : new int[] {-1, 1}) {
+      ByteBuffer data = ByteBuffer.allocate(4 + 1 + 8 + 12 + 4 + 12 + 1 + 16);
+      data.putInt(0x444E444A).put((byte) 1).putLong(7L).putInt(5).putInt(2).putInt(20);
+      data.putInt(1).putInt(3).putInt(1).putInt(10);
+      data.put((byte) 2).putInt(1).putInt(18).putInt(target).putInt(7);
+      Files.write(path, data.array());
+      assertThrows(IOException.class, () -> FightJournal.read(path), "target " + target);
+    }
+  }
+}
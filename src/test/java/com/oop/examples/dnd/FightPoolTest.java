@@ -0,0 +1,50 @@
+package com.oop.examples.dnd;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.dnd.after.fight.Fight;
+import com.crui.patterns.examples.dnd.after.fight.FightFactory;
+import com.crui.patterns.examples.dnd.after.fight.FightPool;
+import com.crui.patterns.examples.dnd.after.util.FightListeners;
+import com.crui.patterns.examples.dnd.after.util.SplittableRandomSource;
+
+/** Test class for FightPool. */
+public class FightPoolTest {
+
+  private static final FightListeners NONE = new FightListeners(List.of());
+
+  @Test
+  @DisplayName("Test pooled fights play exactly like new ones")
+  void testPooledFightsMatch() {
+    FightPool pool = new FightPool();
+    for (long seed = 0; seed < 300; seed++) {
+      Fight fresh = FightFactory.createFight(NONE, seed);
+      Fight pooled = FightFactory.createFight(NONE, new SplittableRandomSource(seed), pool);
+      assertEquals(fresh.getHero().getName(), pooled.getHero().getName());
+      assertEquals(fresh.getEnemies().size(), pooled.getEnemies().size());
+      fresh.run();
+      pooled.run();
+      assertEquals(fresh.getRound(), pooled.getRound());
+      assertEquals(fresh.getHero().getHealth(), pooled.getHero().getHealth());
+      pool.release(pooled);
+    }
+  }
+
+  @Test
+  @DisplayName("Test released fights are reused")
+  void testReuse() {
+    FightPool pool = new FightPool();
+    Fight first = FightFactory.createFight(NONE, new SplittableRandomSource(1L), pool);
+    first.run();
+    pool.release(first);
+    Fight second = FightFactory.createFight(NONE, new SplittableRandomSource(2L), pool);
+    assertSame(first, second);
+    assertEquals(1, second.getRound());
+  }
+}
@@ -0,0 +1,55 @@
+package com.oop.examples.dnd;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.dnd.after.enemy.Enemy;
+import com.crui.patterns.examples.dnd.after.fight.Fight;
+import com.crui.patterns.examples.dnd.after.fight.FightFactory;
+import com.crui.patterns.examples.dnd.after.util.FightListeners;
+import com.crui.patterns.examples.dnd.after.util.Xoshiro256Source;
+
+/** Test class for reproducible fights. */
+public class FightReplayTest {
+
+  private static Fight run(Fight fight) {
+    fight.run();
+    return fight;
+  }
+
+  @Test
+  @DisplayName("Test same seed replays the same fight")
+  void testSameSeedSameFight() {
+    for (long seed = 0; seed < 50; seed++) {
+      Fight a = run(FightFactory.createFight(new FightListeners(List.of()), seed));
+      Fight b = run(FightFactory.createFight(new FightListeners(List.of()), seed));
+      assertEquals(a.getRound(), b.getRound());
+      assertEquals(a.getHero().getHealth(), b.getHero().getHealth());
+      assertEquals(a.getEnemies().size(), b.getEnemies().size());
+      for (int i = 0; i < a.getEnemies().size(); i++) {
+        Enemy ea = a.getEnemies().get(i);
+        Enemy eb = b.getEnemies().get(i);
+        assertEquals(ea.getName(), eb.getName());
+        assertEquals(ea.getHealth(), eb.getHealth());
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test xoshiro stays within bounds")
+  void testXoshiroBounds() {
+    Xoshiro256Source random = new Xoshiro256Source(1L);
+    int[] counts = new int[6];
+    for (int i = 0; i < 60000; i++) {
+      counts[random.nextInt(6)]++;
+    }
+    for (int count : counts) {
+      assertTrue(count > 9000 && count < 11000);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.oop.examples.dnd;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.dnd.after.fight.FightSimulator;
+import com.crui.patterns.examples.dnd.after.util.MetricsCollector;
+
+/** Test class for FightSimulator. */
+public class FightSimulatorTest {
+
+  @Test
+  @DisplayName("Test every fight is counted")
+  void testCountsEveryFight() {
+    MetricsCollector metrics = new FightSimulator().simulate(1000, 7L);
+    assertEquals(1000, metrics.getTotalFights());
+  }
+
+  @Test
+  @DisplayName("Test same seed gives same results regardless of parallelism")
+  void testReproducibleAcrossPools() {
+    ForkJoinPool single = new ForkJoinPool(1);
+    ForkJoinPool many = new ForkJoinPool(4);
+    try {
+      MetricsCollector a = new FightSimulator(single).simulate(3000, 42L);
+      MetricsCollector b = new FightSimulator(many).simulate(3000, 42L);
+      assertEquals(a.getTotalWins(), b.getTotalWins());
+      assertEquals(a.getTotalRounds(), b.getTotalRounds());
+      assertEquals(a.getTotalHeroHits(), b.getTotalHeroHits());
+      assertEquals(a.getTotalEnemyHits(), b.getTotalEnemyHits());
+    } finally {
+      single.shutdown();
+      many.shutdown();
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.oop.examples.dnd;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.dnd.after.util.Histogram;
+
+/** Test class for Histogram. */
+public class HistogramTest {
+
+  @Test
+  @DisplayName("Test small values are exact")
+  void testSmallValuesAreExact() {
+    Histogram histogram = new Histogram();
+    for (int i = 1; i <= 10; i++) {
+      histogram.record(i);
+    }
+    Histogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(10, snapshot.getCount());
+    assertEquals(5, snapshot.getPercentile(50));
+    assertEquals(10, snapshot.getMax());
+    assertEquals(5.5, snapshot.getMean());
+  }
+
+  @Test
+  @DisplayName("Test large values keep relative precision")
+  void testRelativePrecision() {
+    Histogram histogram = new Histogram();
+    IntStream.rangeClosed(1, 100000).parallel().forEach(histogram::record);
+    Histogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(100000, snapshot.getCount());
+    long p90 = snapshot.getPercentile(90);
+    assertTrue(p90 >= 90000 && p90 < 90000 * 1.125, "p90=" + p90);
+  }
+}
@@ -0,0 +1,148 @@
+package com.oop.examples.middleware;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.middleware.ErrorsMiddleware;
+import com.crui.patterns.examples.middleware.Handler;
+import com.crui.patterns.examples.middleware.LoggingMiddleware;
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+import com.crui.patterns.examples.middleware.logging.AccessLog;
+
+/** Test class for AccessLog. */
+public class AccessLogTest {
+
+  @Test
+  @DisplayName("Test records from many threads all reach the file unless dropped")
+  void testConcurrentWriters() throws Exception {
+    Path dir = Files.createTempDirectory("access");
+    Path file = dir.resolve("access.log");
+    AccessLog log = AccessLog.open(file, 1024, 1L << 30, 2);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      Thread thread =
+          new Thread(
+              () -> {
+                for (int i = 0; i < 10_000; i++) {
+                  log.record(new Request("GET", "/x", null, ""), new Response(200, "ok"), 1_000);
+                }
+              });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    log.close();
+
+    List<String> lines = Files.readAllLines(file);
+    assertEquals(40_000, lines.size() + log.getDropped());
+    assertTrue(lines.get(0).endsWith("method=GET path=/x status=200 latency_us=1 bytes=2"));
+  }
+
+  @Test
+  @DisplayName("Test values with spaces, quotes or newlines are quoted instead of forging fields")
+  void testEscaping() throws Exception {
+    Path dir = Files.createTempDirectory("access");
+    Path file = dir.resolve("access.log");
+    AccessLog log = AccessLog.open(file, 16, 1L << 30, 2);
+    Request request = new Request("GET", "/a b\" status=500\nforged=1", null, "");
+    request.setSubject("ana maría");
+    log.record(request, new Response(200, ""), 0);
+    log.close();
+
+    List<String> lines = Files.readAllLines(file);
+    assertEquals(1, lines.size());
+    assertTrue(
+        lines.get(0).contains(" path=\"/a b\\\" status=500\\nforged=1\" status=200 "),
+        lines.get(0));
+    assertTrue(lines.get(0).endsWith(" subject=\"ana maría\""), lines.get(0));
+  }
+
+  @Test
+  @DisplayName("Test the file rotates when it grows past the limit")
+  void testRotation() throws IOException {
+    Path dir = Files.createTempDirectory("access");
+    Path file = dir.resolve("access.log");
+    AccessLog log = AccessLog.open(file, 64, 1_000, 3);
+    for (int i = 0; i < 200; i++) {
+      while (!log.record(new Request("GET", "/" + i, null, ""), new Response(200, ""), 0)) {
+        log.flush();
+      }
+      log.flush();
+    }
+    log.close();
+
+    assertTrue(Files.size(file) <= 1_000);
+    assertTrue(Files.exists(dir.resolve("access.log.3")));
+    assertTrue(!Files.exists(dir.resolve("access.log.4")));
+  }
+
+  @Test
+  @DisplayName("Test a failing write is counted and the writer recovers once the file is usable")
+  void testWriteFailureRecovers() throws IOException {
+    Path dir = Files.createTempDirectory("access");
+    Path file = dir.resolve("access.log");
+    // access.log.1 es un directorio con algo adentro: rotar no puede reemplazarlo
+    Path blocker = Files.createDirectory(dir.resolve("access.log.1"));
+    Files.createFile(blocker.resolve("x"));
+    AccessLog log = AccessLog.open(file, 64, 100, 1);
+
+    for (int i = 0; i < 10; i++) {
+      log.record(new Request("GET", "/" + i, null, ""), new Response(200, ""), 0);
+      log.flush();
+    }
+    assertTrue(log.getFailed() > 0);
+    assertTrue(log.getWriteErrors() > 0);
+
+    Files.delete(blocker.resolve("x"));
+    Files.delete(blocker);
+    long written = log.getWritten();
+    log.record(new Request("GET", "/after", null, ""), new Response(200, ""), 0);
+    log.flush();
+    log.close();
+
+    assertEquals(written + 1, log.getWritten());
+    assertEquals(10, log.getWritten() + log.getFailed() - 1);
+    assertTrue(Files.readString(file).contains("path=/after"));
+  }
+
+  @Test
+  @DisplayName("Test LoggingMiddleware logs status and subject, also for errors")
+  void testMiddleware() throws IOException {
+    Path file = Files.createTempDirectory("access").resolve("access.log");
+    AccessLog log = AccessLog.open(file);
+    Handler handler =
+        new Handler() {
+          @Override
+          public void process(Request request, Response response) {
+            if (request.getUrl().equals("/boom")) {
+              throw new IllegalStateException("boom");
+            }
+            response.setBody("hello");
+          }
+        };
+    Handler chain = new ErrorsMiddleware(new LoggingMiddleware(handler, log));
+    Request request = new Request("GET", "/hello", null, "");
+    request.setSubject("alice");
+
+    chain.process(request, new Response(200, ""));
+    chain.process(new Request("POST", "/boom", null, ""), new Response(200, ""));
+    log.close();
+
+    List<String> lines = Files.readAllLines(file);
+    assertTrue(lines.get(0).contains("path=/hello status=200"), lines.get(0));
+    assertTrue(lines.get(0).endsWith("bytes=5 subject=alice"), lines.get(0));
+    assertTrue(lines.get(1).contains("method=POST path=/boom status=500"), lines.get(1));
+  }
+}
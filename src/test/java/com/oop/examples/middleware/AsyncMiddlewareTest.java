@@ -0,0 +1,65 @@
+package com.oop.examples.middleware;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.middleware.AsyncErrorsMiddleware;
+import com.crui.patterns.examples.middleware.AsyncHandler;
+import com.crui.patterns.examples.middleware.AsyncLoggingMiddleware;
+import com.crui.patterns.examples.middleware.AuthMiddleware;
+import com.crui.patterns.examples.middleware.Handler;
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+
+/** Test class for the async middlewares. */
+public class AsyncMiddlewareTest {
+
+  @Test
+  @DisplayName("Test errors raised in a later stage become a 500")
+  void testErrorsAcrossStages() {
+    AsyncHandler failing =
+        new AsyncHandler() {
+          @Override
+          public CompletionStage<Void> process(Request request, Response response) {
+            return CompletableFuture.runAsync(
+                () -> {
+                  throw new IllegalStateException("boom");
+                });
+          }
+        };
+    AsyncHandler chain = new AsyncLoggingMiddleware(new AsyncErrorsMiddleware(failing));
+    Request request = new Request("GET", "/", "valid-token", "");
+    Response response = new Response(200, "");
+
+    chain.process(request, response).toCompletableFuture().join();
+
+    assertEquals(500, response.getStatus());
+    assertEquals("Internal server error", response.getBody());
+  }
+
+  @Test
+  @DisplayName("Test sync handlers are adapted with their exceptions")
+  void testSyncHandlersAreAdapted() {
+    Handler handler =
+        new Handler() {
+          @Override
+          public void process(Request request, Response response) {
+            throw new IllegalStateException("boom");
+          }
+        };
+    AsyncHandler chain = new AsyncErrorsMiddleware(new AuthMiddleware(handler));
+    Response valid = new Response(200, "");
+    Response invalid = new Response(200, "");
+
+    chain.process(new Request("GET", "/", "valid-token", ""), valid).toCompletableFuture().join();
+    chain.process(new Request("GET", "/", "nope", ""), invalid).toCompletableFuture().join();
+
+    assertEquals(500, valid.getStatus());
+    assertEquals(401, invalid.getStatus());
+  }
+}
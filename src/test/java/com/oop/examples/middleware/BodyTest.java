@@ -0,0 +1,188 @@
+package com.oop.examples.middleware;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.middleware.Handler;
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+import com.crui.patterns.examples.middleware.body.Body;
+import com.crui.patterns.examples.middleware.body.BodyTransfer;
+import com.crui.patterns.examples.middleware.server.HttpServer;
+
+/** Test class for Body. */
+public class BodyTest {
+
+  @Test
+  @DisplayName("Test every kind of body exposes the same bytes and text")
+  void testBodies() throws IOException {
+    String text = "¡Hola, mundo!";
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    Path file = Files.createTempFile("body", ".txt");
+    Files.write(file, bytes);
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+
+    Body[] bodies = {
+      Body.of(text), Body.of(bytes), Body.of(direct), Body.map(file), Body.ofFile(file)
+    };
+
+    for (Body body : bodies) {
+      assertEquals(bytes.length, body.length());
+      assertEquals(text, body.asString());
+      byte[] read = new byte[bytes.length];
+      body.asBuffer().get(read);
+      assertArrayEquals(bytes, read);
+      try (InputStream stream = body.openStream()) {
+        assertArrayEquals(bytes, stream.readAllBytes());
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      long sent = body.transferTo(3, Channels.newChannel(out));
+      assertEquals(bytes.length - 3, sent);
+      assertArrayEquals(Arrays.copyOfRange(bytes, 3, bytes.length), out.toByteArray());
+    }
+  }
+
+  @Test
+  @DisplayName("Test the server streams file bodies and hands uploads over as bytes")
+  void testServerBodies() throws IOException {
+    Path file = Files.createTempFile("download", ".bin");
+    byte[] content = new byte[3 * 1024 * 1024];
+    Arrays.fill(content, (byte) 'x');
+    Files.write(file, content);
+    Handler handler =
+        new Handler() {
+          @Override
+          public void process(Request request, Response response) {
+            if (request.getMethod().equals("POST")) {
+              response.setBody("received " + request.getContent().length());
+              return;
+            }
+            try {
+              response.setContent(Body.ofFile(file));
+            } catch (IOException e) {
+              throw new IllegalStateException(e);
+            }
+          }
+        };
+
+    try (HttpServer server = new HttpServer(handler, 0, 1).start();
+        Socket socket = new Socket("localhost", server.getPort())) {
+      byte[] upload = new byte[200_000];
+      OutputStream out = socket.getOutputStream();
+      out.write(
+          ("POST /up HTTP/1.1\r\nContent-Length: " + upload.length + "\r\n\r\n")
+              .getBytes(StandardCharsets.US_ASCII));
+      out.write(upload);
+      String download = "GET /down HTTP/1.1\r\nConnection: close\r\n\r\n";
+      out.write(download.getBytes(StandardCharsets.US_ASCII));
+      out.flush();
+      byte[] received = socket.getInputStream().readAllBytes();
+      String text = new String(received, StandardCharsets.ISO_8859_1);
+
+      assertTrue(text.contains("received 200000"));
+      assertTrue(text.contains("Content-Length: " + content.length + "\r\n"));
+      assertTrue(text.endsWith("xxxx"));
+      int headerEnd = text.lastIndexOf("\r\n\r\n") + 4;
+      assertEquals(content.length, received.length - headerEnd);
+    }
+  }
+
+  @Test
+  @DisplayName("Test a file that grows after the response is built is sent at its announced length")
+  void testGrowingFile() throws IOException {
+    Path file = Files.createTempFile("growing", ".txt");
+    Files.writeString(file, "first");
+    Handler handler =
+        new Handler() {
+          @Override
+          public void process(Request request, Response response) {
+            try {
+              response.setContent(Body.ofFile(file));
+              Files.writeString(file, " and more", StandardOpenOption.APPEND);
+            } catch (IOException e) {
+              throw new IllegalStateException(e);
+            }
+          }
+        };
+
+    try (HttpServer server = new HttpServer(handler, 0, 1).start();
+        Socket socket = new Socket("localhost", server.getPort())) {
+      String requests = "GET /a HTTP/1.1\r\n\r\nGET /b HTTP/1.1\r\nConnection: close\r\n\r\n";
+      socket.getOutputStream().write(requests.getBytes(StandardCharsets.US_ASCII));
+      String text = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+
+      // cada respuesta trae exactamente lo que había cuando se armó, y la segunda arranca justo
+      assertTrue(text.contains("Content-Length: 5\r\n\r\nfirstHTTP/1.1 200"), text);
+      String last = "Content-Length: 14\r\nConnection: close\r\n\r\nfirst and more";
+      assertTrue(text.endsWith(last), text);
+    }
+  }
+
+  @Test
+  @DisplayName("Test a file body keeps the length it had when it was created")
+  void testFileBodySnapshot() throws IOException {
+    Path file = Files.createTempFile("snapshot", ".txt");
+    Files.writeString(file, "first");
+    Body body = Body.ofFile(file);
+    Files.writeString(file, " and more", StandardOpenOption.APPEND);
+
+    assertEquals("first", body.asString());
+    assertEquals(5, body.asBuffer().remaining());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    WritableByteChannel slow = new LimitedChannel(Channels.newChannel(out));
+    try (BodyTransfer transfer = body.open()) {
+      // de a dos bytes, como un socket lento, sobre el mismo archivo abierto
+      long position = 0;
+      while (position < body.length()) {
+        position += transfer.transferTo(position, slow);
+      }
+    }
+    assertEquals("first", out.toString(StandardCharsets.UTF_8));
+  }
+
+  /** Acepta a lo sumo dos bytes por escritura. */
+  private static class LimitedChannel implements WritableByteChannel {
+    private final WritableByteChannel target;
+
+    LimitedChannel(WritableByteChannel target) {
+      this.target = target;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      ByteBuffer slice = src.slice();
+      slice.limit(Math.min(2, slice.remaining()));
+      int written = target.write(slice);
+      src.position(src.position() + written);
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return target.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      target.close();
+    }
+  }
+}
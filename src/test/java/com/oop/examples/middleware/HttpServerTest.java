@@ -0,0 +1,181 @@
+package com.oop.examples.middleware;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.middleware.AsyncHandler;
+import com.crui.patterns.examples.middleware.AuthMiddleware;
+import com.crui.patterns.examples.middleware.ErrorsMiddleware;
+import com.crui.patterns.examples.middleware.Handler;
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+import com.crui.patterns.examples.middleware.server.HttpParseException;
+import com.crui.patterns.examples.middleware.server.HttpParser;
+import com.crui.patterns.examples.middleware.server.HttpServer;
+
+/** Test class for HttpServer. */
+public class HttpServerTest {
+  private HttpServer server;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    Handler handler =
+        new Handler() {
+          @Override
+          public void process(Request request, Response response) {
+            if (request.getUrl().equals("/boom")) {
+              throw new IllegalStateException("boom");
+            }
+            response.setBody(request.getMethod() + " " + request.getUrl() + request.getBody());
+          }
+        };
+    server = new HttpServer(new ErrorsMiddleware(new AuthMiddleware(handler)), 0, 2).start();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    server.close();
+  }
+
+  @Test
+  @DisplayName("Pipelined requests on one connection get answered in order")
+  void pipelinedRequests() throws IOException {
+    String requests =
+        "GET /a HTTP/1.1\r\nAuthorization: Bearer valid-token\r\n\r\n"
+            + "POST /b HTTP/1.1\r\nX-Token: valid-token\r\nContent-Length: 3\r\n\r\n!!!"
+            + "GET /c HTTP/1.1\r\nConnection: close\r\n\r\n";
+    String responses = exchange(requests);
+
+    int first = responses.indexOf("GET /a");
+    int second = responses.indexOf("POST /b!!!");
+    int third = responses.indexOf("401 Unauthorized");
+    assertTrue(first > 0 && second > first && third > second, responses);
+    assertTrue(responses.endsWith("Connection: close\r\n\r\n"), responses);
+  }
+
+  @Test
+  @DisplayName("Errors in the chain become a 500 response")
+  void handlerErrors() throws IOException {
+    String responses =
+        exchange("GET /boom HTTP/1.1\r\nX-Token: valid-token\r\nConnection: close\r\n\r\n");
+
+    assertTrue(responses.startsWith("HTTP/1.1 500 Internal Server Error\r\n"), responses);
+    assertTrue(responses.endsWith("Internal server error"), responses);
+  }
+
+  @Test
+  @DisplayName("Malformed requests get a 400 and the connection is closed")
+  void malformedRequest() throws IOException {
+    String responses = exchange("NOT A REQUEST\r\n\r\n");
+
+    assertEquals("HTTP/1.1 400", responses.substring(0, 12));
+  }
+
+  @Test
+  @DisplayName("Chunked bodies are rejected instead of being read as the next request")
+  void transferEncodingRejected() throws IOException {
+    String chunked =
+        exchange(
+            "POST /a HTTP/1.1\r\nX-Token: valid-token\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "0\r\n\r\nGET /smuggled HTTP/1.1\r\n\r\n");
+    String both =
+        exchange(
+            "POST /a HTTP/1.1\r\nContent-Length: 3\r\nTransfer-Encoding: chunked\r\n\r\n!!!");
+
+    assertTrue(chunked.startsWith("HTTP/1.1 501 Not Implemented\r\n"), chunked);
+    assertEquals(-1, chunked.indexOf("smuggled"), chunked);
+    assertTrue(both.startsWith("HTTP/1.1 400 Bad Request\r\n"), both);
+  }
+
+  @Test
+  @DisplayName("Ambiguous Content-Length headers are rejected by the parser")
+  void ambiguousContentLengthRejected() {
+    String[] requests = {
+      "POST /a HTTP/1.1\r\nContent-Length : 5\r\n\r\nGET /smuggled HTTP/1.1\r\n\r\n",
+      "POST /a HTTP/1.1\r\nContent-Length: 0\r\nContent-Length: 5\r\n\r\nhello",
+      "POST /a HTTP/1.1\r\nContent-Length: 5\r\ncontent-length: 5\r\n\r\nhello"
+    };
+    for (String raw : requests) {
+      ByteBuffer in = ByteBuffer.wrap(raw.getBytes(StandardCharsets.US_ASCII));
+      HttpParseException e =
+          assertThrows(HttpParseException.class, () -> new HttpParser().parse(in), raw);
+      assertEquals(400, e.getStatus(), raw);
+    }
+  }
+
+  @Test
+  @DisplayName("HEAD responses carry the GET Content-Length but no body")
+  void headHasNoBody() throws IOException {
+    String responses =
+        exchange(
+            "HEAD /a HTTP/1.1\r\nX-Token: valid-token\r\n\r\n"
+                + "GET /b HTTP/1.1\r\nX-Token: valid-token\r\nConnection: close\r\n\r\n");
+
+    String head = "HEAD /a";
+    String first = responses.substring(0, responses.indexOf("\r\n\r\n") + 4);
+    assertTrue(first.contains("Content-Length: " + head.length() + "\r\n"), first);
+    // justo después de las cabeceras del HEAD empieza la respuesta del GET
+    assertTrue(responses.startsWith("HTTP/1.1 200", first.length()), responses);
+    assertTrue(responses.endsWith("GET /b"), responses);
+  }
+
+  @Test
+  @DisplayName("Async responses that finish out of order are written in request order")
+  void asyncResponsesKeepOrder() throws IOException {
+    server.close();
+    AsyncHandler handler =
+        new AsyncHandler() {
+          @Override
+          public CompletionStage<Void> process(Request request, Response response) {
+            // el primer pedido tarda más que el segundo
+            long delay = request.getUrl().equals("/slow") ? 200 : 0;
+            return CompletableFuture.runAsync(
+                () -> response.setBody(request.getUrl()),
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS));
+          }
+        };
+    server = new HttpServer(handler, 0, 1).start();
+
+    String responses =
+        exchange("GET /slow HTTP/1.1\r\n\r\nGET /fast HTTP/1.1\r\nConnection: close\r\n\r\n");
+
+    int slow = responses.indexOf("/slow");
+    int fast = responses.indexOf("/fast");
+    assertTrue(slow > 0 && fast > slow, responses);
+  }
+
+  /** Manda los bytes tal cual y lee hasta que el servidor cierra la conexión. */
+  private String exchange(String requests) throws IOException {
+    try (Socket socket = new Socket("localhost", server.getPort())) {
+      socket.setSoTimeout(5000);
+      OutputStream out = socket.getOutputStream();
+      out.write(requests.getBytes(StandardCharsets.UTF_8));
+      out.flush();
+      InputStream in = socket.getInputStream();
+      ByteArrayOutputStream received = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        received.write(buffer, 0, read);
+      }
+      return received.toString(StandardCharsets.UTF_8.name());
+    }
+  }
+}
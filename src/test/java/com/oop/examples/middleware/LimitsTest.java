@@ -0,0 +1,155 @@
+package com.oop.examples.middleware;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.middleware.Handler;
+import com.crui.patterns.examples.middleware.LoadSheddingMiddleware;
+import com.crui.patterns.examples.middleware.RateLimitMiddleware;
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+import com.crui.patterns.examples.middleware.limits.ConcurrencyLimiter;
+import com.crui.patterns.examples.middleware.limits.RateLimiter;
+
+/** Test class for the rate and concurrency limiters. */
+public class LimitsTest {
+  private static final long MS = 1_000_000L;
+
+  @Test
+  @DisplayName("Test the bucket allows the burst and then refills at the rate")
+  void testRateLimiter() {
+    AtomicLong now = new AtomicLong(1_000 * MS);
+    RateLimiter limiter = new RateLimiter(10, 5, 100, now::get);
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(limiter.tryAcquire("alice"));
+    }
+    assertFalse(limiter.tryAcquire("alice"));
+    assertTrue(limiter.tryAcquire("bob"));
+
+    now.addAndGet(100 * MS);
+    assertTrue(limiter.tryAcquire("alice"));
+    assertFalse(limiter.tryAcquire("alice"));
+
+    now.addAndGet(10_000 * MS);
+    for (int i = 0; i < 5; i++) {
+      assertTrue(limiter.tryAcquire("alice"));
+    }
+    assertFalse(limiter.tryAcquire("alice"));
+    assertEquals(3, limiter.getRejected());
+  }
+
+  @Test
+  @DisplayName("Test the key table stays bounded")
+  void testBoundedKeys() {
+    RateLimiter limiter = new RateLimiter(1_000, 10, 100);
+
+    for (int i = 0; i < 10_000; i++) {
+      limiter.tryAcquire("key-" + i);
+    }
+
+    assertTrue(limiter.size() <= 100, "size " + limiter.size());
+  }
+
+  @Test
+  @DisplayName("Test junk keys cannot push a throttled key out of the table")
+  void testThrottledKeyIsNotEvicted() {
+    AtomicLong now = new AtomicLong(1_000 * MS);
+    RateLimiter limiter = new RateLimiter(1, 5, 100, now::get);
+
+    int accepted = 0;
+    for (int round = 0; round < 100; round++) {
+      for (int i = 0; i < 5; i++) {
+        accepted += limiter.tryAcquire("alice") ? 1 : 0;
+      }
+      for (int i = 0; i < 200; i++) {
+        limiter.tryAcquire("junk-" + round + "-" + i);
+      }
+    }
+
+    assertEquals(5, accepted);
+    assertTrue(limiter.size() <= 100, "size " + limiter.size());
+    assertTrue(limiter.getOverflowed() > 0);
+  }
+
+  @Test
+  @DisplayName("Test the concurrency limit sheds excess and shrinks when latency grows")
+  void testConcurrencyLimiter() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 100);
+    for (int i = 0; i < 4; i++) {
+      assertTrue(limiter.tryAcquire());
+    }
+    assertFalse(limiter.tryAcquire());
+
+    limiter.release(MS);
+    for (int i = 0; i < 3; i++) {
+      limiter.release(50 * MS);
+    }
+
+    // subió a 5 con el pedido rápido y bajó una vez con los lentos, que caen en la misma ventana
+    assertEquals(4, limiter.getLimit());
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  @DisplayName("Test latency that grows slowly still lowers the limit, once per window")
+  void testConcurrencyLimiterSlowRamp() {
+    AtomicLong now = new AtomicLong();
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(100, 1, 200, 2.0, 1_000 * MS, now::get);
+
+    // una ráfaga de respuestas lentas dentro de la misma ventana
+    assertTrue(limiter.tryAcquire());
+    limiter.release(MS);
+    for (int i = 0; i < 50; i++) {
+      assertTrue(limiter.tryAcquire());
+      limiter.release(50 * MS);
+    }
+    assertEquals(90, limiter.getLimit());
+
+    // la cola crece un 10% por segundo, con miles de pedidos por segundo
+    ConcurrencyLimiter ramp = new ConcurrencyLimiter(100, 1, 200, 2.0, 1_000 * MS, now::get);
+    double latency = MS;
+    for (int window = 0; window < 20; window++) {
+      for (int i = 0; i < 5_000; i++) {
+        assertTrue(ramp.tryAcquire());
+        ramp.release((long) latency);
+        now.addAndGet(200_000);
+      }
+      latency *= 1.1;
+    }
+    assertTrue(ramp.getLimit() < 100, "limit " + ramp.getLimit());
+  }
+
+  @Test
+  @DisplayName("Test the middlewares answer 429 and 503")
+  void testMiddlewares() {
+    Handler ok =
+        new Handler() {
+          @Override
+          public void process(Request request, Response response) {
+            response.setBody("ok");
+          }
+        };
+    Handler rateLimited = new RateLimitMiddleware(ok, new RateLimiter(1, 1, 10));
+    Handler shedding =
+        new LoadSheddingMiddleware(ok, new ConcurrencyLimiter(10, 1, 10), 0, TimeUnit.SECONDS);
+
+    Response first = new Response(200, "");
+    Response second = new Response(200, "");
+    rateLimited.process(new Request("GET", "/", "t", ""), first);
+    rateLimited.process(new Request("GET", "/", "t", ""), second);
+    Response late = new Response(200, "");
+    shedding.process(new Request("GET", "/", "t", ""), late);
+
+    assertEquals("ok", first.getBody());
+    assertEquals(429, second.getStatus());
+    assertEquals(503, late.getStatus());
+  }
+}
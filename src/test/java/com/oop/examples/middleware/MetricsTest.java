@@ -0,0 +1,96 @@
+package com.oop.examples.middleware;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.middleware.AuthMiddleware;
+import com.crui.patterns.examples.middleware.ErrorsMiddleware;
+import com.crui.patterns.examples.middleware.Handler;
+import com.crui.patterns.examples.middleware.MetricsMiddleware;
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+import com.crui.patterns.examples.middleware.metrics.LatencyHistogram;
+import com.crui.patterns.examples.middleware.metrics.MetricsHandler;
+import com.crui.patterns.examples.middleware.metrics.MetricsRegistry;
+import com.crui.patterns.examples.middleware.routing.Router;
+
+/** Test class for the middleware metrics. */
+public class MetricsTest {
+
+  private static Response send(Handler handler, String url, String token) {
+    Response response = new Response(200, "");
+    handler.process(new Request("GET", url, token, ""), response);
+    return response;
+  }
+
+  @Test
+  @DisplayName("Test statuses and stage latencies are exported per route")
+  void testExport() {
+    Handler ok =
+        new Handler() {
+          @Override
+          public void process(Request request, Response response) {
+            response.setBody("ok");
+          }
+        };
+    Handler failing =
+        new Handler() {
+          @Override
+          public void process(Request request, Response response) {
+            throw new IllegalStateException("boom");
+          }
+        };
+    MetricsRegistry metrics = new MetricsRegistry();
+    Router router =
+        new Router()
+            .measure(metrics)
+            .use(new MetricsMiddleware(metrics), new ErrorsMiddleware())
+            .get("/users/:id", ok, new AuthMiddleware())
+            .get("/fail", failing)
+            .get("/metrics", new MetricsHandler(metrics));
+
+    send(router, "/users/1", "valid-token");
+    send(router, "/users/2", "valid-token");
+    send(router, "/users/3", "wrong");
+    send(router, "/fail", null);
+    send(router, "/nowhere", null);
+    String body = send(router, "/metrics", null).getBody();
+
+    assertTrue(body.contains("http_requests_total{route=\"/users/:id\",status=\"200\"} 2\n"));
+    assertTrue(body.contains("http_requests_total{route=\"/users/:id\",status=\"401\"} 1\n"));
+    assertTrue(body.contains("http_requests_total{route=\"/fail\",status=\"500\"} 1\n"));
+    assertTrue(body.contains("http_requests_total{route=\"unmatched\",status=\"404\"} 1\n"));
+    assertTrue(body.contains("http_request_duration_seconds_count{route=\"/users/:id\"} 3\n"));
+    assertTrue(
+        body.contains(
+            "middleware_stage_duration_seconds_count{route=\"/users/:id\","
+                + "stage=\"AuthMiddleware\",phase=\"before\"} 3\n"),
+        body);
+    assertTrue(
+        body.contains(
+            "middleware_stage_duration_seconds_count{route=\"/users/:id\","
+                + "stage=\"handler\",phase=\"handle\"} 2\n"),
+        body);
+  }
+
+  @Test
+  @DisplayName("Test latencies land in doubling buckets")
+  void testHistogramBuckets() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(500);
+    histogram.record(1_000);
+    histogram.record(1_001);
+    histogram.record(4_000);
+    histogram.record(Long.MAX_VALUE / 2);
+
+    long[] counts = histogram.getCounts();
+    assertEquals(2, counts[0]);
+    assertEquals(1, counts[1]);
+    assertEquals(1, counts[2]);
+    assertEquals(1, counts[counts.length - 1]);
+    assertEquals(5, histogram.getCount());
+  }
+}
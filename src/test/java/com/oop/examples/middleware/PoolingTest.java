@@ -0,0 +1,98 @@
+package com.oop.examples.middleware;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+import com.crui.patterns.examples.middleware.body.Body;
+import com.crui.patterns.examples.middleware.pooling.LeakDetector;
+import com.crui.patterns.examples.middleware.pooling.ObjectPool;
+import com.crui.patterns.examples.middleware.server.HttpParser;
+
+/** Test class for the pooling support. */
+public class PoolingTest {
+
+  @Test
+  @DisplayName("Test released objects are handed out again")
+  void testPoolReuse() {
+    ObjectPool<Response> pool = new ObjectPool<>(() -> new Response(200, ""), 2);
+
+    Response first = pool.acquire();
+    first.setStatus(404);
+    first.setHeader("ETag", "x");
+    first.reset();
+    pool.release(first);
+    Response second = pool.acquire();
+
+    assertSame(first, second);
+    assertEquals(200, second.getStatus());
+    assertNull(second.getHeader("ETag"));
+    assertEquals(1, pool.getCreated());
+  }
+
+  @Test
+  @DisplayName("Test reset clears everything a previous request left behind")
+  void testRequestReset() {
+    Request request = new Request("POST", "/a", "t", "body");
+    request.setRoute("/a");
+    request.setSubject("alice");
+    request.setParams(Map.of("id", "1"));
+
+    request.reset("GET", "/b", null, Body.EMPTY, Map.of("x", "1"));
+
+    assertEquals("GET /b", request.getMethod() + " " + request.getUrl());
+    assertNull(request.getRoute());
+    assertNull(request.getSubject());
+    assertNull(request.getParam("id"));
+    assertEquals("1", request.getHeader("X"));
+  }
+
+  @Test
+  @DisplayName("Test objects dropped without release are reported as leaks")
+  void testLeakDetection() throws InterruptedException {
+    LeakDetector<Object> detector = new LeakDetector<>("Thing", 1, true);
+    detector.track(new Object()).close();
+    detector.track(new Object());
+
+    for (int i = 0; i < 50 && detector.getLeaks() == 0; i++) {
+      System.gc();
+      Thread.sleep(10);
+      detector.report();
+    }
+
+    assertEquals(1, detector.getLeaks());
+    assertEquals(0, detector.getOpen());
+  }
+
+  @Test
+  @DisplayName("Test headers are read lazily from the parse arena")
+  void testArenaHeaders() {
+    String raw =
+        "GET /users HTTP/1.1\r\nHost: x\r\nAuthorization: Bearer  abc\r\n"
+            + "Content-Length: 2\r\n\r\nhi"
+            + "GET /users HTTP/1.1\r\nX-Token: abc\r\n\r\n";
+    ByteBuffer in = ByteBuffer.wrap(raw.getBytes(StandardCharsets.US_ASCII));
+    HttpParser parser = new HttpParser();
+
+    Request first = parser.parse(in);
+    Request second = parser.parse(in);
+
+    assertEquals("x", first.getHeader("host"));
+    assertEquals("hi", first.getBody());
+    assertSame(first.getUrl(), second.getUrl());
+    assertEquals("abc", first.getToken());
+    assertSame(first.getToken(), second.getToken());
+    assertEquals(3, first.getHeaders().size());
+    assertTrue(second.getHeaders().containsKey("x-token"));
+  }
+}
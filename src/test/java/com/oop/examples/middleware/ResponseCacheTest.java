@@ -0,0 +1,228 @@
+package com.oop.examples.middleware;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.middleware.AsyncHandler;
+import com.crui.patterns.examples.middleware.AsyncResponseCacheMiddleware;
+import com.crui.patterns.examples.middleware.Handler;
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+import com.crui.patterns.examples.middleware.ResponseCacheMiddleware;
+import com.crui.patterns.examples.middleware.body.Body;
+import com.crui.patterns.examples.middleware.caching.ResponseCache;
+
+/** Test class for ResponseCacheMiddleware. */
+public class ResponseCacheTest {
+
+  private static Request get(String url, Map<String, String> headers) {
+    return new Request("GET", url, null, Body.EMPTY, headers);
+  }
+
+  @Test
+  @DisplayName("Test repeated GETs are served from the cache and revalidated with ETags")
+  void testHitsAndEtags() {
+    AtomicInteger calls = new AtomicInteger();
+    Handler handler =
+        new Handler() {
+          @Override
+          public void process(Request request, Response response) {
+            response.setBody("users v" + calls.incrementAndGet());
+          }
+        };
+    Handler chain =
+        new ResponseCacheMiddleware(handler, new ResponseCache(1 << 20, 1, TimeUnit.MINUTES));
+
+    Response first = new Response(200, "");
+    chain.process(get("/api/v1/users", Map.of()), first);
+    Response second = new Response(200, "");
+    chain.process(get("/api/v1/users", Map.of()), second);
+    String etag = first.getHeader("ETag");
+    Response revalidated = new Response(200, "");
+    chain.process(get("/api/v1/users", Map.of("if-none-match", etag)), revalidated);
+
+    assertEquals(1, calls.get());
+    assertEquals("users v1", second.getBody());
+    assertEquals(etag, second.getHeader("ETag"));
+    assertEquals(304, revalidated.getStatus());
+    assertEquals("", revalidated.getBody());
+  }
+
+  @Test
+  @DisplayName("Test concurrent misses for the same key reach the handler once")
+  void testSingleFlight() {
+    AtomicInteger calls = new AtomicInteger();
+    CompletableFuture<Void> release = new CompletableFuture<>();
+    AsyncHandler slow =
+        new AsyncHandler() {
+          @Override
+          public CompletionStage<Void> process(Request request, Response response) {
+            calls.incrementAndGet();
+            return release.thenRun(() -> response.setBody("slow"));
+          }
+        };
+    AsyncResponseCacheMiddleware cache =
+        new AsyncResponseCacheMiddleware(slow, new ResponseCache(1 << 20, 1, TimeUnit.MINUTES));
+    List<Response> responses = new ArrayList<>();
+    List<CompletableFuture<Void>> stages = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      Response response = new Response(200, "");
+      responses.add(response);
+      // nadie se bloquea: las etapas quedan pendientes hasta que el primero termine
+      stages.add(cache.process(get("/slow", Map.of()), response).toCompletableFuture());
+    }
+    assertEquals(7, cache.getCoalesced());
+    assertFalse(stages.get(7).isDone());
+
+    release.complete(null);
+
+    assertEquals(1, calls.get());
+    for (int i = 0; i < 8; i++) {
+      assertTrue(stages.get(i).isDone());
+      assertEquals("slow", responses.get(i).getBody());
+    }
+  }
+
+  @Test
+  @DisplayName("Test the synchronous stage never waits for a request in flight")
+  void testSyncDoesNotBlock() {
+    AtomicInteger calls = new AtomicInteger();
+    ResponseCacheMiddleware[] cache = new ResponseCacheMiddleware[1];
+    Handler handler =
+        new Handler() {
+          @Override
+          public void process(Request request, Response response) {
+            if (calls.incrementAndGet() == 1) {
+              // un pedido igual llega mientras este sigue en vuelo: no puede esperarlo
+              Response nested = new Response(200, "");
+              cache[0].process(get("/users", Map.of()), nested);
+              assertEquals("users 2", nested.getBody());
+            }
+            response.setBody("users " + calls.get());
+          }
+        };
+    cache[0] =
+        new ResponseCacheMiddleware(handler, new ResponseCache(1 << 20, 1, TimeUnit.MINUTES));
+
+    Response first = new Response(200, "");
+    cache[0].process(get("/users", Map.of()), first);
+
+    assertEquals(2, calls.get());
+    assertEquals("users 2", first.getBody());
+  }
+
+  @Test
+  @DisplayName("Test hits replay the handler headers and match ETag lists")
+  void testHeadersAndEtagLists() {
+    Handler handler =
+        new Handler() {
+          @Override
+          public void process(Request request, Response response) {
+            response.setHeader("Content-Type", "application/json");
+            response.setHeader("Cache-Control", "max-age=60");
+            response.setBody("[]");
+          }
+        };
+    Handler chain =
+        new ResponseCacheMiddleware(handler, new ResponseCache(1 << 20, 1, TimeUnit.MINUTES));
+    Response first = new Response(200, "");
+    chain.process(get("/users", Map.of()), first);
+    String etag = first.getHeader("ETag");
+
+    Response hit = new Response(200, "");
+    chain.process(get("/users", Map.of()), hit);
+    Response listed = new Response(200, "");
+    chain.process(get("/users", Map.of("if-none-match", "\"other\", W/" + etag)), listed);
+    Response any = new Response(200, "");
+    chain.process(get("/users", Map.of("if-none-match", "*")), any);
+    Response stale = new Response(200, "");
+    chain.process(get("/users", Map.of("if-none-match", "\"other\"")), stale);
+
+    assertEquals("application/json", hit.getHeader("Content-Type"));
+    assertEquals("max-age=60", hit.getHeader("Cache-Control"));
+    assertEquals(304, listed.getStatus());
+    assertEquals(304, any.getStatus());
+    assertEquals(200, stale.getStatus());
+    assertEquals("[]", stale.getBody());
+  }
+
+  @Test
+  @DisplayName("Test private, no-store and cookie-setting responses are not cached")
+  void testPrivateResponsesNotCached() {
+    AtomicInteger calls = new AtomicInteger();
+    Handler handler =
+        new Handler() {
+          @Override
+          public void process(Request request, Response response) {
+            calls.incrementAndGet();
+            if (request.getUrl().equals("/login")) {
+              response.setHeader("Set-Cookie", "session=" + calls.get());
+            } else if (request.getUrl().equals("/me")) {
+              response.setHeader("Cache-Control", "max-age=60, Private");
+            } else if (request.getUrl().equals("/secret")) {
+              response.setHeader("cache-control", "no-store");
+            }
+            response.setBody("ok");
+          }
+        };
+    Handler chain =
+        new ResponseCacheMiddleware(handler, new ResponseCache(1 << 20, 1, TimeUnit.MINUTES));
+
+    for (String url : List.of("/login", "/me", "/secret")) {
+      chain.process(get(url, Map.of()), new Response(200, ""));
+      Response second = new Response(200, "");
+      chain.process(get(url, Map.of()), second);
+      assertNull(second.getHeader("ETag"), url);
+    }
+    Response cookie = new Response(200, "");
+    chain.process(get("/login", Map.of()), cookie);
+
+    assertEquals(7, calls.get());
+    assertEquals("session=7", cookie.getHeader("Set-Cookie"));
+  }
+
+  @Test
+  @DisplayName("Test a scan of one-off keys does not flush frequently used entries")
+  void testScanResistance() {
+    ResponseCache cache = new ResponseCache(100 * 164, 1, TimeUnit.MINUTES);
+    Body body = Body.of(new byte[100]);
+    for (int i = 0; i < 50; i++) {
+      cache.put("hot-" + i, 200, body);
+    }
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 50; i++) {
+        cache.get("hot-" + i);
+      }
+    }
+    for (int i = 0; i < 1_000; i++) {
+      if (cache.get("scan-" + i) == null) {
+        cache.put("scan-" + i, 200, body);
+      }
+    }
+
+    int hot = 0;
+    for (int i = 0; i < 50; i++) {
+      if (cache.get("hot-" + i) != null) {
+        hot++;
+      }
+    }
+    assertTrue(hot >= 45, "hot entries left: " + hot);
+    assertTrue(cache.size() <= 100);
+    assertNotNull(cache.get("hot-0"));
+    assertNull(cache.get("scan-0"));
+  }
+}
@@ -0,0 +1,139 @@
+package com.oop.examples.middleware;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.middleware.AuthMiddleware;
+import com.crui.patterns.examples.middleware.ErrorsMiddleware;
+import com.crui.patterns.examples.middleware.Handler;
+import com.crui.patterns.examples.middleware.LoggingMiddleware;
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+import com.crui.patterns.examples.middleware.Stage;
+import com.crui.patterns.examples.middleware.routing.Router;
+
+/** Test class for Router. */
+public class RouterTest {
+
+  private static Handler echo() {
+    return new Handler() {
+      @Override
+      public void process(Request request, Response response) {
+        response.setBody(
+            request.getRoute() + " " + request.getParam("id") + " " + request.getParam("post"));
+      }
+    };
+  }
+
+  private static Response send(Handler handler, String method, String url, String token) {
+    Response response = new Response(200, "");
+    handler.process(new Request(method, url, token, ""), response);
+    return response;
+  }
+
+  @Test
+  @DisplayName("Test static segments win over parameters and parameters are captured")
+  void testMatching() {
+    Router router =
+        new Router()
+            .get("/users/me", echo())
+            .get("/users/:id", echo())
+            .get("/users/:id/posts/:post", echo())
+            .post("/users", echo());
+
+    assertEquals("/users/me null null", send(router, "GET", "/users/me", null).getBody());
+    assertEquals("/users/:id 42 null", send(router, "GET", "/users/42?x=1", null).getBody());
+    assertEquals(
+        "/users/:id/posts/:post me 7",
+        send(router, "GET", "/users/me/posts/7", null).getBody());
+    assertEquals(405, send(router, "GET", "/users", null).getStatus());
+    assertEquals(404, send(router, "GET", "/teams/1", null).getStatus());
+    assertEquals("/users/:id 42 null", send(router, "HEAD", "/users/42", null).getBody());
+    assertEquals(405, send(router, "HEAD", "/users", null).getStatus());
+  }
+
+  @Test
+  @DisplayName("Test the nested ErrorsMiddleware still catches undeclared checked exceptions")
+  void testErrorsCatchCheckedExceptions() {
+    Handler sneaky =
+        new Handler() {
+          @Override
+          public void process(Request request, Response response) {
+            RouterTest.<RuntimeException>sneakyThrow(new IOException("disk"));
+          }
+        };
+
+    Response response = send(new ErrorsMiddleware(sneaky), "GET", "/x", null);
+
+    assertEquals(500, response.getStatus());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E extends Exception> void sneakyThrow(Exception e) throws E {
+    throw (E) e;
+  }
+
+  @Test
+  @DisplayName("Test stages unwind like the nested chain")
+  void testStagesBehaveLikeNestedMiddlewares() {
+    Handler failing =
+        new Handler() {
+          @Override
+          public void process(Request request, Response response) {
+            throw new IllegalStateException("boom");
+          }
+        };
+    Router router =
+        new Router()
+            .use(new LoggingMiddleware(), new ErrorsMiddleware())
+            .get("/fail", failing, new AuthMiddleware());
+    Handler nested = new LoggingMiddleware(new ErrorsMiddleware(new AuthMiddleware(failing)));
+
+    for (String token : new String[] {"valid-token", "other"}) {
+      Response routed = send(router, "GET", "/fail", token);
+      Response chained = send(nested, "GET", "/fail", token);
+      assertEquals(chained.getStatus(), routed.getStatus());
+      assertEquals(chained.getBody(), routed.getBody());
+    }
+  }
+
+  @Test
+  @DisplayName("Test a stage that cuts the chain is not unwound")
+  void testShortCircuit() {
+    List<String> calls = new ArrayList<>();
+    Stage outer =
+        new Stage() {
+          @Override
+          public void after(Request request, Response response) {
+            calls.add("outer.after");
+          }
+        };
+    Stage cut =
+        new Stage() {
+          @Override
+          public boolean before(Request request, Response response) {
+            calls.add("cut.before");
+            return false;
+          }
+
+          @Override
+          public void after(Request request, Response response) {
+            calls.add("cut.after");
+          }
+        };
+    Router router = new Router().get("/x", echo(), outer, cut);
+
+    Response response = send(router, "GET", "/x", null);
+
+    assertEquals(List.of("cut.before", "outer.after"), calls);
+    assertEquals("", response.getBody());
+    assertNull(new Request("GET", "/x", null, "").getRoute());
+  }
+}
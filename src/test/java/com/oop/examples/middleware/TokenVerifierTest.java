@@ -0,0 +1,149 @@
+package com.oop.examples.middleware;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.crui.patterns.examples.middleware.AuthMiddleware;
+import com.crui.patterns.examples.middleware.Handler;
+import com.crui.patterns.examples.middleware.Request;
+import com.crui.patterns.examples.middleware.Response;
+import com.crui.patterns.examples.middleware.auth.CachingTokenVerifier;
+import com.crui.patterns.examples.middleware.auth.HmacTokenVerifier;
+import com.crui.patterns.examples.middleware.auth.TokenVerifier;
+import com.crui.patterns.examples.middleware.auth.VerifiedToken;
+
+/** Test class for the token verifiers. */
+public class TokenVerifierTest {
+  private static final long HOUR = 3_600_000L;
+
+  private final HmacTokenVerifier hmac =
+      new HmacTokenVerifier(
+          Map.of(
+              "k1", "first-secret".getBytes(StandardCharsets.UTF_8),
+              "k2", "second-secret".getBytes(StandardCharsets.UTF_8)));
+
+  @Test
+  @DisplayName("Test HMAC tokens are checked against the key store")
+  void testHmacVerification() {
+    long expires = System.currentTimeMillis() + HOUR;
+    String token = hmac.sign("k2", "alice", expires);
+
+    assertEquals("alice", hmac.verify(token).getSubject());
+    assertNull(hmac.verify(token.replace("alice", "admin")));
+    assertNull(hmac.verify(token.replace("k2.", "k1.")));
+    assertNull(hmac.verify(token.replace("k2.", "k3.")));
+    assertNull(hmac.verify(hmac.sign("k1", "bob", System.currentTimeMillis() - 1)));
+    assertNull(hmac.verify("garbage"));
+    assertThrows(IllegalArgumentException.class, () -> hmac.sign("k1", "alice.admin", expires));
+  }
+
+  @Test
+  @DisplayName("Test the cache skips verification, remembers rejections and expires entries")
+  void testCaching() {
+    AtomicInteger calls = new AtomicInteger();
+    TokenVerifier counting =
+        new TokenVerifier() {
+          @Override
+          public VerifiedToken verify(String token) {
+            calls.incrementAndGet();
+            return hmac.verify(token);
+          }
+        };
+    AtomicLong now = new AtomicLong();
+    CachingTokenVerifier cache = new CachingTokenVerifier(counting, 100, 1_000, 100, now::get);
+    String good = hmac.sign("k1", "alice", System.currentTimeMillis() + HOUR);
+
+    for (int i = 0; i < 10; i++) {
+      assertEquals("alice", cache.verify(good).getSubject());
+      assertNull(cache.verify("bad"));
+    }
+    assertEquals(2, calls.get());
+    assertEquals(18, cache.getHits());
+
+    now.set(500);
+    cache.verify(good);
+    cache.verify("bad");
+    assertEquals(3, calls.get());
+
+    now.set(1_000);
+    cache.verify(good);
+    assertEquals(4, calls.get());
+  }
+
+  @Test
+  @DisplayName("Test a cached token expires on the injected clock at its own expiry")
+  void testTokenExpiryUsesInjectedClock() {
+    AtomicLong now = new AtomicLong();
+    long hour = TimeUnit.HOURS.toNanos(1);
+    CachingTokenVerifier cache = new CachingTokenVerifier(hmac, 100, hour, hour, now::get);
+    String shortLived = hmac.sign("k1", "alice", System.currentTimeMillis() + 60_000);
+
+    assertEquals("alice", cache.verify(shortLived).getSubject());
+    now.set(TimeUnit.SECONDS.toNanos(30));
+    cache.verify(shortLived);
+    assertEquals(1, cache.getHits());
+
+    // el token venció según el reloj de la caché aunque el TTL de la caché sea de una hora
+    now.set(TimeUnit.SECONDS.toNanos(61));
+    cache.verify(shortLived);
+    assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  @DisplayName("Test entries that would already be expired are not cached")
+  void testZeroTtlNotCached() {
+    CachingTokenVerifier noNegative =
+        new CachingTokenVerifier(hmac, 100, 1_000_000, 0, System::nanoTime);
+    noNegative.verify("garbage");
+    noNegative.verify(hmac.sign("k1", "alice", System.currentTimeMillis() + HOUR));
+
+    assertEquals(1, noNegative.size());
+  }
+
+  @Test
+  @DisplayName("Test the cache stays within its bound")
+  void testBounded() {
+    CachingTokenVerifier cache =
+        new CachingTokenVerifier(hmac, 50, 1_000_000, 1_000_000, System::nanoTime);
+
+    for (int i = 0; i < 1_000; i++) {
+      cache.verify("token-" + i);
+    }
+
+    assertTrue(cache.size() <= 50);
+    assertEquals(950, cache.getEvictions());
+  }
+
+  @Test
+  @DisplayName("Test AuthMiddleware uses the verifier and records the subject")
+  void testAuthMiddleware() {
+    Handler handler =
+        new Handler() {
+          @Override
+          public void process(Request request, Response response) {
+            response.setBody("hello " + request.getSubject());
+          }
+        };
+    Handler auth = new AuthMiddleware(handler, hmac);
+    String token = hmac.sign("k1", "alice", System.currentTimeMillis() + HOUR);
+    Response ok = new Response(200, "");
+    Response rejected = new Response(200, "");
+
+    auth.process(new Request("GET", "/", token, ""), ok);
+    auth.process(new Request("GET", "/", "valid-token", ""), rejected);
+
+    assertEquals("hello alice", ok.getBody());
+    assertEquals(401, rejected.getStatus());
+  }
+}